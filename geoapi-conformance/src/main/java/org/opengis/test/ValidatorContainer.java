@@ -31,8 +31,15 @@
  */
 package org.opengis.test;
 
+import java.util.Map;
+import java.util.Set;
 import java.util.List;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.AbstractList;
+import java.util.IdentityHashMap;
+import java.util.function.BiConsumer;
 import javax.imageio.spi.ImageReaderSpi;
 import javax.imageio.spi.ImageWriterSpi;
 import javax.imageio.metadata.IIOMetadataFormat;
@@ -79,7 +86,7 @@ import org.opengis.test.coverage.image.*;
  *};</pre></blockquote>
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   2.2
  */
 public class ValidatorContainer implements Cloneable {
@@ -226,36 +233,190 @@ public class ValidatorContainer implements Cloneable {
         }
     }
 
+    /**
+     * A {@code validate(…)} method to invoke for objects of a given type.
+     * Used by {@link ValidatorContainer#dispatch(Object)}.
+     */
+    private static final class Dispatcher {
+        /** The type of objects accepted by the {@code validate(…)} method. */
+        final Class<?> type;
+
+        /** The {@code validate(…)} method to invoke. */
+        final BiConsumer<ValidatorContainer,Object> method;
+
+        /** Creates a new dispatcher for the given type. */
+        Dispatcher(final Class<?> type, final BiConsumer<ValidatorContainer,Object> method) {
+            this.type   = type;
+            this.method = method;
+        }
+    }
+
+    /**
+     * All {@code validate(…)} methods invoked by {@link #dispatch(Object)}, in the order they shall be invoked.
+     */
+    private static final Dispatcher[] DISPATCHERS = {
+        new Dispatcher(Metadata.class,              (c, o) -> c.validate((Metadata) o)),
+        new Dispatcher(Citation.class,              (c, o) -> c.validate((Citation) o)),
+        new Dispatcher(CitationDate.class,          (c, o) -> c.validate((CitationDate) o)),
+        new Dispatcher(CitationDate[].class,        (c, o) -> c.validate((CitationDate[]) o)),
+        new Dispatcher(Responsibility.class,        (c, o) -> c.validate((Responsibility) o)),
+        new Dispatcher(Party.class,                 (c, o) -> c.validate((Party) o)),
+        new Dispatcher(Contact.class,               (c, o) -> c.validate((Contact) o)),
+        new Dispatcher(Telephone.class,             (c, o) -> c.validate((Telephone) o)),
+        new Dispatcher(Address.class,               (c, o) -> c.validate((Address) o)),
+        new Dispatcher(OnlineResource.class,        (c, o) -> c.validate((OnlineResource) o)),
+        new Dispatcher(Extent.class,                (c, o) -> c.validate((Extent) o)),
+        new Dispatcher(GeographicExtent.class,      (c, o) -> c.validate((GeographicExtent) o)),
+        new Dispatcher(VerticalExtent.class,        (c, o) -> c.validate((VerticalExtent) o)),
+        new Dispatcher(TemporalExtent.class,        (c, o) -> c.validate((TemporalExtent) o)),
+        new Dispatcher(IdentifiedObject.class,      (c, o) -> c.validate((IdentifiedObject) o)),
+        new Dispatcher(Identifier.class,            (c, o) -> c.validate((Identifier) o)),
+        new Dispatcher(GenericName.class,           (c, o) -> c.validate((GenericName) o)),
+        new Dispatcher(NameSpace.class,             (c, o) -> c.validate((NameSpace) o)),
+        new Dispatcher(GeneralParameterValue.class, (c, o) -> c.validate((GeneralParameterValue) o)),
+        new Dispatcher(Envelope.class,              (c, o) -> c.validate((Envelope) o)),
+        new Dispatcher(DirectPosition.class,        (c, o) -> c.validate((DirectPosition) o)),
+        new Dispatcher(InternationalString.class,   (c, o) -> c.validate((InternationalString) o))
+    };
+
+    /**
+     * The {@code validate(…)} methods applicable to each class of objects given to {@link #dispatch(Object)}.
+     * This is a subset of {@link #DISPATCHERS} computed when a class is seen for the first time, which avoid
+     * to test every GeoAPI interface for each object to validate.
+     */
+    private static final ClassValue<Dispatcher[]> APPLICABLE = new ClassValue<Dispatcher[]>() {
+        @Override protected Dispatcher[] computeValue(final Class<?> type) {
+            final List<Dispatcher> applicable = new ArrayList<>();
+            for (final Dispatcher d : DISPATCHERS) {
+                if (d.type.isAssignableFrom(type)) {
+                    applicable.add(d);
+                }
+            }
+            return applicable.toArray(new Dispatcher[applicable.size()]);
+        }
+    };
+
+    /**
+     * The objects already validated in the graph walk under way in the current thread, or {@code null}
+     * if no walk is under way. Keys are compared by identity. Values are the types of the {@code validate(…)}
+     * methods already invoked for that object.
+     *
+     * @see #visit(Class, Object)
+     */
+    private final ThreadLocal<Map<Object,Set<Class<?>>>> visited = new ThreadLocal<>();
+
     /**
      * For each interface implemented by the given object, invokes the corresponding
      * {@code validate(…)} method defined in this class (if any).
      * Use this method only if the type is unknown at compile-time.
      *
+     * <p>During this method execution, objects shared in the graph of the given object
+     * (for example a datum used by many coordinate reference systems) are validated only once.</p>
+     *
      * @param  object The object to dispatch to {@code validate(…)} methods, or {@code null}.
      */
     public final void dispatch(final Object object) {
-        if (object instanceof Metadata)              validate((Metadata)              object);
-        if (object instanceof Citation)              validate((Citation)              object);
-        if (object instanceof CitationDate)          validate((CitationDate)          object);
-        if (object instanceof CitationDate[])        validate((CitationDate[])        object);
-        if (object instanceof Responsibility)        validate((Responsibility)        object);
-        if (object instanceof Party)                 validate((Party)                 object);
-        if (object instanceof Contact)               validate((Contact)               object);
-        if (object instanceof Telephone)             validate((Telephone)             object);
-        if (object instanceof Address)               validate((Address)               object);
-        if (object instanceof OnlineResource)        validate((OnlineResource)        object);
-        if (object instanceof Extent)                validate((Extent)                object);
-        if (object instanceof GeographicExtent)      validate((GeographicExtent)      object);
-        if (object instanceof VerticalExtent)        validate((VerticalExtent)        object);
-        if (object instanceof TemporalExtent)        validate((TemporalExtent)        object);
-        if (object instanceof IdentifiedObject)      validate((IdentifiedObject)      object);
-        if (object instanceof Identifier)            validate((Identifier)            object);
-        if (object instanceof GenericName)           validate((GenericName)           object);
-        if (object instanceof NameSpace)             validate((NameSpace)             object);
-        if (object instanceof GeneralParameterValue) validate((GeneralParameterValue) object);
-        if (object instanceof Envelope)              validate((Envelope)              object);
-        if (object instanceof DirectPosition)        validate((DirectPosition)        object);
-        if (object instanceof InternationalString)   validate((InternationalString)   object);
+        if (object != null) {
+            final boolean isRoot = (visited.get() == null);
+            if (isRoot) {
+                visited.set(new IdentityHashMap<>());
+            }
+            try {
+                dispatchUnchecked(object);
+            } finally {
+                if (isRoot) {
+                    visited.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Invokes {@link #dispatch(Object)} for all elements in the given collection. Objects shared
+     * by many elements (for example the datum of many coordinate reference systems created by the
+     * same authority factory) are validated only once for the whole collection.
+     *
+     * @param  objects  the objects to dispatch to {@code validate(…)} methods. May contain null elements.
+     *
+     * @since 4.0
+     */
+    public final void dispatchAll(final Iterable<?> objects) {
+        final boolean isRoot = (visited.get() == null);
+        if (isRoot) {
+            visited.set(new IdentityHashMap<>());
+        }
+        try {
+            for (final Object object : objects) {
+                if (object != null) {
+                    dispatchUnchecked(object);
+                }
+            }
+        } finally {
+            if (isRoot) {
+                visited.remove();
+            }
+        }
+    }
+
+    /**
+     * Invokes {@link #dispatch(Object)} for the elements in the given range of the given array, in a single
+     * graph walk. Contrarily to {@link #dispatchAll(Iterable)}, a validation failure does not stop the walk.
+     * Instead, the error is stored in the {@code failures} array at the index of the object that failed.
+     *
+     * @param  objects   the objects to dispatch to {@code validate(…)} methods. May contain null elements.
+     * @param  lower     index of the first object to validate, inclusive.
+     * @param  upper     index of the last object to validate, exclusive.
+     * @param  failures  where to store the validation failures. Same length than {@code objects}.
+     *
+     * @see Validators#dispatchParallel(Collection)
+     */
+    final void dispatchAll(final Object[] objects, final int lower, final int upper, final Throwable[] failures) {
+        final Map<Object,Set<Class<?>>> previous = visited.get();
+        visited.set(new IdentityHashMap<>());
+        try {
+            for (int i=lower; i<upper; i++) {
+                final Object object = objects[i];
+                if (object != null) try {
+                    dispatchUnchecked(object);
+                } catch (AssertionError | RuntimeException e) {
+                    failures[i] = e;
+                }
+            }
+        } finally {
+            if (previous != null) {
+                visited.set(previous);
+            } else {
+                visited.remove();
+            }
+        }
+    }
+
+    /**
+     * Implementation of {@link #dispatch(Object)} without management of the graph walk.
+     */
+    private void dispatchUnchecked(final Object object) {
+        for (final Dispatcher d : APPLICABLE.get(object.getClass())) {
+            d.method.accept(this, object);
+        }
+    }
+
+    /**
+     * Returns {@code true} if the given object needs to be validated by the {@code validate(…)} method
+     * for the given type. This method returns {@code false} only if a graph walk is under way and the
+     * given object has already been validated for the given type during that walk.
+     *
+     * @param  type    the parameter type of the {@code validate(…)} method to invoke.
+     * @param  object  the object to validate, or {@code null}.
+     * @return whether the {@code validate(…)} method shall be invoked.
+     */
+    private boolean visit(final Class<?> type, final Object object) {
+        if (object != null) {
+            final Map<Object,Set<Class<?>>> map = visited.get();
+            if (map != null) {
+                return map.computeIfAbsent(object, (k) -> new HashSet<>(4)).add(type);
+            }
+        }
+        return true;
     }
 
     /**
@@ -268,7 +429,9 @@ public class ValidatorContainer implements Cloneable {
      * @since 3.1
      */
     public final void validate(final Metadata object) {
-        metadata.validate(object);
+        if (visit(Metadata.class, object)) {
+            metadata.validate(object);
+        }
     }
 
     /**
@@ -279,7 +442,9 @@ public class ValidatorContainer implements Cloneable {
      * @see CitationValidator#validate(Citation)
      */
     public final void validate(final Citation object) {
-        citation.validate(object);
+        if (visit(Citation.class, object)) {
+            citation.validate(object);
+        }
     }
 
     /**
@@ -381,7 +546,9 @@ public class ValidatorContainer implements Cloneable {
      * @see ExtentValidator#validate(Extent)
      */
     public final void validate(final Extent object) {
-        extent.validate(object);
+        if (visit(Extent.class, object)) {
+            extent.validate(object);
+        }
     }
 
     /**
@@ -480,7 +647,9 @@ public class ValidatorContainer implements Cloneable {
      * @see CRSValidator#dispatch(CoordinateReferenceSystem)
      */
     public final void validate(final CoordinateReferenceSystem object) {
-        crs.dispatch(object);
+        if (visit(CoordinateReferenceSystem.class, object)) {
+            crs.dispatch(object);
+        }
     }
 
     /**
@@ -491,7 +660,9 @@ public class ValidatorContainer implements Cloneable {
      * @see CRSValidator#validate(GeocentricCRS)
      */
     public final void validate(final GeocentricCRS object) {
-        crs.validate(object);
+        if (visit(GeocentricCRS.class, object)) {
+            crs.validate(object);
+        }
     }
 
     /**
@@ -502,7 +673,9 @@ public class ValidatorContainer implements Cloneable {
      * @see CRSValidator#validate(GeographicCRS)
      */
     public final void validate(final GeographicCRS object) {
-        crs.validate(object);
+        if (visit(GeographicCRS.class, object)) {
+            crs.validate(object);
+        }
     }
 
     /**
@@ -513,7 +686,9 @@ public class ValidatorContainer implements Cloneable {
      * @see CRSValidator#validate(ProjectedCRS)
      */
     public final void validate(final ProjectedCRS object) {
-        crs.validate(object);
+        if (visit(ProjectedCRS.class, object)) {
+            crs.validate(object);
+        }
     }
 
     /**
@@ -524,7 +699,9 @@ public class ValidatorContainer implements Cloneable {
      * @see CRSValidator#validate(DerivedCRS)
      */
     public final void validate(final DerivedCRS object) {
-        crs.validate(object);
+        if (visit(DerivedCRS.class, object)) {
+            crs.validate(object);
+        }
     }
 
     /**
@@ -535,7 +712,9 @@ public class ValidatorContainer implements Cloneable {
      * @see CRSValidator#validate(ImageCRS)
      */
     public final void validate(final ImageCRS object) {
-        crs.validate(object);
+        if (visit(ImageCRS.class, object)) {
+            crs.validate(object);
+        }
     }
 
     /**
@@ -546,7 +725,9 @@ public class ValidatorContainer implements Cloneable {
      * @see CRSValidator#validate(EngineeringCRS)
      */
     public final void validate(final EngineeringCRS object) {
-        crs.validate(object);
+        if (visit(EngineeringCRS.class, object)) {
+            crs.validate(object);
+        }
     }
 
     /**
@@ -557,7 +738,9 @@ public class ValidatorContainer implements Cloneable {
      * @see CRSValidator#validate(VerticalCRS)
      */
     public final void validate(final VerticalCRS object) {
-        crs.validate(object);
+        if (visit(VerticalCRS.class, object)) {
+            crs.validate(object);
+        }
     }
 
     /**
@@ -568,7 +751,9 @@ public class ValidatorContainer implements Cloneable {
      * @see CRSValidator#validate(TemporalCRS)
      */
     public final void validate(final TemporalCRS object) {
-        crs.validate(object);
+        if (visit(TemporalCRS.class, object)) {
+            crs.validate(object);
+        }
     }
 
     /**
@@ -579,7 +764,9 @@ public class ValidatorContainer implements Cloneable {
      * @see CRSValidator#validate(CompoundCRS)
      */
     public final void validate(final CompoundCRS object) {
-        crs.validate(object);
+        if (visit(CompoundCRS.class, object)) {
+            crs.validate(object);
+        }
     }
 
     /**
@@ -590,7 +777,9 @@ public class ValidatorContainer implements Cloneable {
      * @see CSValidator#dispatch(CoordinateSystem)
      */
     public final void validate(final CoordinateSystem object) {
-        cs.dispatch(object);
+        if (visit(CoordinateSystem.class, object)) {
+            cs.dispatch(object);
+        }
     }
 
     /**
@@ -601,7 +790,9 @@ public class ValidatorContainer implements Cloneable {
      * @see CSValidator#validate(CartesianCS)
      */
     public final void validate(final CartesianCS object) {
-        cs.validate(object);
+        if (visit(CartesianCS.class, object)) {
+            cs.validate(object);
+        }
     }
 
     /**
@@ -612,7 +803,9 @@ public class ValidatorContainer implements Cloneable {
      * @see CSValidator#validate(EllipsoidalCS)
      */
     public final void validate(final EllipsoidalCS object) {
-        cs.validate(object);
+        if (visit(EllipsoidalCS.class, object)) {
+            cs.validate(object);
+        }
     }
 
     /**
@@ -623,7 +816,9 @@ public class ValidatorContainer implements Cloneable {
      * @see CSValidator#validate(SphericalCS)
      */
     public final void validate(final SphericalCS object) {
-        cs.validate(object);
+        if (visit(SphericalCS.class, object)) {
+            cs.validate(object);
+        }
     }
 
     /**
@@ -634,7 +829,9 @@ public class ValidatorContainer implements Cloneable {
      * @see CSValidator#validate(CylindricalCS)
      */
     public final void validate(final CylindricalCS object) {
-        cs.validate(object);
+        if (visit(CylindricalCS.class, object)) {
+            cs.validate(object);
+        }
     }
 
     /**
@@ -645,7 +842,9 @@ public class ValidatorContainer implements Cloneable {
      * @see CSValidator#validate(PolarCS)
      */
     public final void validate(final PolarCS object) {
-        cs.validate(object);
+        if (visit(PolarCS.class, object)) {
+            cs.validate(object);
+        }
     }
 
     /**
@@ -656,7 +855,9 @@ public class ValidatorContainer implements Cloneable {
      * @see CSValidator#validate(LinearCS)
      */
     public final void validate(final LinearCS object) {
-        cs.validate(object);
+        if (visit(LinearCS.class, object)) {
+            cs.validate(object);
+        }
     }
 
     /**
@@ -667,7 +868,9 @@ public class ValidatorContainer implements Cloneable {
      * @see CSValidator#validate(VerticalCS)
      */
     public final void validate(final VerticalCS object) {
-        cs.validate(object);
+        if (visit(VerticalCS.class, object)) {
+            cs.validate(object);
+        }
     }
 
     /**
@@ -678,7 +881,9 @@ public class ValidatorContainer implements Cloneable {
      * @see CSValidator#validate(TimeCS)
      */
     public final void validate(final TimeCS object) {
-        cs.validate(object);
+        if (visit(TimeCS.class, object)) {
+            cs.validate(object);
+        }
     }
 
     /**
@@ -689,7 +894,9 @@ public class ValidatorContainer implements Cloneable {
      * @see CSValidator#validate(UserDefinedCS)
      */
     public final void validate(final UserDefinedCS object) {
-        cs.validate(object);
+        if (visit(UserDefinedCS.class, object)) {
+            cs.validate(object);
+        }
     }
 
     /**
@@ -700,7 +907,9 @@ public class ValidatorContainer implements Cloneable {
      * @see CSValidator#validate(CoordinateSystemAxis)
      */
     public final void validate(final CoordinateSystemAxis object) {
-        cs.validate(object);
+        if (visit(CoordinateSystemAxis.class, object)) {
+            cs.validate(object);
+        }
     }
 
     /**
@@ -711,7 +920,9 @@ public class ValidatorContainer implements Cloneable {
      * @see DatumValidator#dispatch(Datum)
      */
     public final void validate(final Datum object) {
-        datum.dispatch(object);
+        if (visit(Datum.class, object)) {
+            datum.dispatch(object);
+        }
     }
 
     /**
@@ -722,7 +933,9 @@ public class ValidatorContainer implements Cloneable {
      * @see DatumValidator#validate(PrimeMeridian)
      */
     public final void validate(final PrimeMeridian object) {
-        datum.validate(object);
+        if (visit(PrimeMeridian.class, object)) {
+            datum.validate(object);
+        }
     }
 
     /**
@@ -733,7 +946,9 @@ public class ValidatorContainer implements Cloneable {
      * @see DatumValidator#validate(Ellipsoid)
      */
     public final void validate(final Ellipsoid object) {
-        datum.validate(object);
+        if (visit(Ellipsoid.class, object)) {
+            datum.validate(object);
+        }
     }
 
     /**
@@ -744,7 +959,9 @@ public class ValidatorContainer implements Cloneable {
      * @see DatumValidator#validate(GeodeticDatum)
      */
     public final void validate(final GeodeticDatum object) {
-        datum.validate(object);
+        if (visit(GeodeticDatum.class, object)) {
+            datum.validate(object);
+        }
     }
 
     /**
@@ -755,7 +972,9 @@ public class ValidatorContainer implements Cloneable {
      * @see DatumValidator#validate(VerticalDatum)
      */
     public final void validate(final VerticalDatum object) {
-        datum.validate(object);
+        if (visit(VerticalDatum.class, object)) {
+            datum.validate(object);
+        }
     }
 
     /**
@@ -766,7 +985,9 @@ public class ValidatorContainer implements Cloneable {
      * @see DatumValidator#validate(TemporalDatum)
      */
     public final void validate(final TemporalDatum object) {
-        datum.validate(object);
+        if (visit(TemporalDatum.class, object)) {
+            datum.validate(object);
+        }
     }
 
     /**
@@ -777,7 +998,9 @@ public class ValidatorContainer implements Cloneable {
      * @see DatumValidator#validate(ImageDatum)
      */
     public final void validate(final ImageDatum object) {
-        datum.validate(object);
+        if (visit(ImageDatum.class, object)) {
+            datum.validate(object);
+        }
     }
 
     /**
@@ -788,7 +1011,9 @@ public class ValidatorContainer implements Cloneable {
      * @see DatumValidator#validate(EngineeringDatum)
      */
     public final void validate(final EngineeringDatum object) {
-        datum.validate(object);
+        if (visit(EngineeringDatum.class, object)) {
+            datum.validate(object);
+        }
     }
 
     /**
@@ -799,7 +1024,9 @@ public class ValidatorContainer implements Cloneable {
      * @see OperationValidator#dispatch(CoordinateOperation)
      */
     public final void validate(final CoordinateOperation object) {
-        coordinateOperation.dispatch(object);
+        if (visit(CoordinateOperation.class, object)) {
+            coordinateOperation.dispatch(object);
+        }
     }
 
     /**
@@ -810,7 +1037,9 @@ public class ValidatorContainer implements Cloneable {
      * @see OperationValidator#validate(Conversion)
      */
     public final void validate(final Conversion object) {
-        coordinateOperation.validate(object);
+        if (visit(Conversion.class, object)) {
+            coordinateOperation.validate(object);
+        }
     }
 
     /**
@@ -821,7 +1050,9 @@ public class ValidatorContainer implements Cloneable {
      * @see OperationValidator#validate(Transformation)
      */
     public final void validate(final Transformation object) {
-        coordinateOperation.validate(object);
+        if (visit(Transformation.class, object)) {
+            coordinateOperation.validate(object);
+        }
     }
 
     /**
@@ -832,7 +1063,9 @@ public class ValidatorContainer implements Cloneable {
      * @see OperationValidator#validate(ConcatenatedOperation)
      */
     public final void validate(final ConcatenatedOperation object) {
-        coordinateOperation.validate(object);
+        if (visit(ConcatenatedOperation.class, object)) {
+            coordinateOperation.validate(object);
+        }
     }
 
     /**
@@ -843,7 +1076,9 @@ public class ValidatorContainer implements Cloneable {
      * @see OperationValidator#validate(PassThroughOperation)
      */
     public final void validate(final PassThroughOperation object) {
-        coordinateOperation.validate(object);
+        if (visit(PassThroughOperation.class, object)) {
+            coordinateOperation.validate(object);
+        }
     }
 
     /**
@@ -854,7 +1089,9 @@ public class ValidatorContainer implements Cloneable {
      * @see OperationValidator#validate(OperationMethod)
      */
     public final void validate(final OperationMethod object) {
-        coordinateOperation.validate(object);
+        if (visit(OperationMethod.class, object)) {
+            coordinateOperation.validate(object);
+        }
     }
 
     /**
@@ -876,7 +1113,9 @@ public class ValidatorContainer implements Cloneable {
      * @see OperationValidator#validate(MathTransform)
      */
     public final void validate(final MathTransform object) {
-        coordinateOperation.validate(object);
+        if (visit(MathTransform.class, object)) {
+            coordinateOperation.validate(object);
+        }
     }
 
     /**
@@ -887,7 +1126,9 @@ public class ValidatorContainer implements Cloneable {
      * @see ParameterValidator#dispatch(GeneralParameterDescriptor)
      */
     public final void validate(final GeneralParameterDescriptor object) {
-        parameter.dispatch(object);
+        if (visit(GeneralParameterDescriptor.class, object)) {
+            parameter.dispatch(object);
+        }
     }
 
     /**
@@ -898,7 +1139,9 @@ public class ValidatorContainer implements Cloneable {
      * @see ParameterValidator#validate(ParameterDescriptor)
      */
     public final void validate(final ParameterDescriptor<?> object) {
-        parameter.validate(object);
+        if (visit(ParameterDescriptor.class, object)) {
+            parameter.validate(object);
+        }
     }
 
     /**
@@ -909,7 +1152,9 @@ public class ValidatorContainer implements Cloneable {
      * @see ParameterValidator#validate(ParameterDescriptorGroup)
      */
     public final void validate(final ParameterDescriptorGroup object) {
-        parameter.validate(object);
+        if (visit(ParameterDescriptorGroup.class, object)) {
+            parameter.validate(object);
+        }
     }
 
     /**
@@ -953,7 +1198,9 @@ public class ValidatorContainer implements Cloneable {
      * @see ReferencingValidator#dispatchObject(IdentifiedObject)
      */
     public final void validate(final IdentifiedObject object) {
-        crs.dispatchObject(object);
+        if (visit(IdentifiedObject.class, object)) {
+            crs.dispatchObject(object);
+        }
     }
 
     /**
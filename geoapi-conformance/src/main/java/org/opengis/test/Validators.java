@@ -31,6 +31,9 @@
  */
 package org.opengis.test;
 
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import javax.imageio.spi.ImageReaderSpi;
 import javax.imageio.spi.ImageWriterSpi;
 import javax.imageio.metadata.IIOMetadataFormat;
@@ -75,7 +78,7 @@ import org.opengis.test.coverage.image.*;
  * non-static methods from the vendor's test cases.</p>
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   2.2
  */
 public class Validators {
@@ -111,6 +114,107 @@ public class Validators {
         DEFAULT.dispatch(object);
     }
 
+    /**
+     * Validates all objects in the given collection in parallel, then reports all failures.
+     * This method is convenient for validating large sets of objects, for example all objects
+     * created by an authority factory. The work is split in chunks of consecutive elements
+     * which are validated in the {@linkplain ForkJoinPool#commonPool() common fork-join pool}.
+     * Objects shared by many elements of the same chunk are validated only once.
+     *
+     * <p>All chunks are validated by the {@link #DEFAULT} container as it was at the time this method
+     * has been invoked. The {@link Validator} instances and their configuration are shared by all threads:
+     * they are not copied. Consequently the validators shall be safe for concurrent use, and their settings
+     * (for example {@link Validator#requireMandatoryAttributes}) shall not be modified before this method
+     * returned. The validators provided by GeoAPI keep no state during validation, except the record of
+     * objects already validated which is managed by the container for each thread.</p>
+     *
+     * <p>Contrarily to other methods in this class, this method does not stop at the first failure.
+     * If some objects are invalid, then an {@link AssertionError} is thrown after all objects have
+     * been validated. The message of that error lists the failures in the iteration order of the
+     * given collection, and each failure is added as a {@linkplain Throwable#getSuppressed()
+     * suppressed exception} in the same order.</p>
+     *
+     * @param  objects  the objects to dispatch to {@code validate(…)} methods. May contain null elements.
+     * @throws AssertionError if at least one object is invalid.
+     *
+     * @see ValidatorContainer#dispatchAll(Iterable)
+     *
+     * @since 4.0
+     */
+    public static void dispatchParallel(final Collection<?> objects) throws AssertionError {
+        final Object[] elements = objects.toArray();
+        final Throwable[] failures = new Throwable[elements.length];
+        ForkJoinPool.commonPool().invoke(new Batch(DEFAULT, elements, failures, 0, elements.length));
+        final String lineSeparator = System.lineSeparator();
+        final StringBuilder message = new StringBuilder();
+        Throwable first = null;
+        int count = 0;
+        for (int i=0; i<failures.length; i++) {
+            final Throwable failure = failures[i];
+            if (failure != null) {
+                if (first == null) first = failure;
+                message.append(lineSeparator).append("  [").append(i).append("] ").append(failure.getMessage());
+                count++;
+            }
+        }
+        if (first != null) {
+            final AssertionError error = new AssertionError(count + " of " + failures.length
+                    + " objects are invalid:" + message, first);
+            for (final Throwable failure : failures) {
+                if (failure != null) {
+                    error.addSuppressed(failure);
+                }
+            }
+            throw error;
+        }
+    }
+
+    /**
+     * The task validating a range of elements for {@link #dispatchParallel(Collection)}.
+     * The range is split in halves until it contains no more than {@value #CHUNK_SIZE} elements.
+     * Since the split points depend only on the number of elements, the chunks are deterministic.
+     */
+    @SuppressWarnings("serial")
+    private static final class Batch extends RecursiveAction {
+        /** Maximal number of elements validated by the same container. */
+        private static final int CHUNK_SIZE = 64;
+
+        /** The container to use for all chunks. Validators are shared by all threads. */
+        private final ValidatorContainer container;
+
+        /** The objects to validate. */
+        private final Object[] elements;
+
+        /** Where to store the validation failures, at the same index than the invalid object. */
+        private final Throwable[] failures;
+
+        /** Range of elements to validate by this task. */
+        private final int lower, upper;
+
+        /** Creates a new task for validating the given range of elements. */
+        Batch(final ValidatorContainer container, final Object[] elements, final Throwable[] failures,
+                final int lower, final int upper)
+        {
+            this.container = container;
+            this.elements  = elements;
+            this.failures  = failures;
+            this.lower     = lower;
+            this.upper     = upper;
+        }
+
+        /** Validates the elements, or splits the range in two tasks if there is too many elements. */
+        @Override
+        protected void compute() {
+            if (upper - lower <= CHUNK_SIZE) {
+                container.dispatchAll(elements, lower, upper, failures);
+            } else {
+                final int mid = (lower + upper) >>> 1;
+                invokeAll(new Batch(container, elements, failures, lower, mid),
+                          new Batch(container, elements, failures, mid, upper));
+            }
+        }
+    }
+
     /**
      * Tests the conformance of the given object.
      *
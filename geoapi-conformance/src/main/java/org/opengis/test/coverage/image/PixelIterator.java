@@ -31,6 +31,8 @@
  */
 package org.opengis.test.coverage.image;
 
+import java.util.stream.IntStream;
+import java.lang.reflect.Array;
 import java.awt.Rectangle;
 import java.awt.image.DataBuffer;
 import java.awt.image.Raster;
@@ -64,7 +66,7 @@ import static org.junit.Assert.*;
  *
  * @author  Rémi Marechal (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
 public strictfp class PixelIterator {
@@ -97,7 +99,13 @@ public strictfp class PixelIterator {
      * The iteration bounds in the image, in pixel coordinates.
      * This rectangle may span an arbitrary number of tiles.
      */
-    private final int minX, maxX, maxY;
+    private final int minX, minY, maxX, maxY;
+
+    /**
+     * Number of pixels in each row and number of rows iterated by this iterator,
+     * taking subsampling in account. Used for bulk comparisons of sample values.
+     */
+    private final int numColumns, numRows;
 
     /**
      * The iteration bounds in the image, in tile coordinates.
@@ -182,8 +190,16 @@ public strictfp class PixelIterator {
             maxY = min(maxY, subArea.y + subArea.height);
         }
         this.minX = minX;
+        this.minY = minY;
         this.maxX = maxX;
         this.maxY = maxY;
+        if (maxX > minX && maxY > minY) {
+            numColumns = (maxX - minX + xSubsampling - 1) / xSubsampling;
+            numRows    = (maxY - minY + ySubsampling - 1) / ySubsampling;
+        } else {
+            numColumns = 0;
+            numRows    = 0;
+        }
 
         final int gridXOffset = image.getTileGridXOffset();
         final int gridYOffset = image.getTileGridYOffset();
@@ -392,55 +408,309 @@ public strictfp class PixelIterator {
      *         tolerance threshold.
      */
     public void assertSampleValuesEqual(final PixelIterator actual, final double tolerance) throws AssertionError {
+        assertSampleValuesEqual(actual, tolerance, false);
+    }
+
+    /**
+     * Compares all sample values iterated by this {@code PixelIterator} with the sample values iterated
+     * by the given iterator, optionally comparing many rows in parallel. This method performs the same
+     * comparison than {@link #assertSampleValuesEqual(PixelIterator, double)}, and reports the same first
+     * mismatch if any. The parallel mode is used only if both images have the same number of rows and columns,
+     * and requires the {@link RenderedImage#getTile(int, int)} method of both images to be thread-safe.
+     *
+     * <p>If no mismatch is found, then both iterators are at the end of their iteration when this method
+     * returns, as they would be after a loop invoking {@link #next()} until it returns {@code false}.</p>
+     *
+     * @param  actual     the iterator that contains the actual values to be compared with the "expected" sample values.
+     * @param  tolerance  the tolerance threshold for floating point comparison. This threshold does not apply to integer types.
+     * @param  parallel   {@code true} for allowing comparisons of many rows in parallel.
+     * @throws AssertionError if a value in this iterator is not equals to a value in the given iterator with the given
+     *         tolerance threshold.
+     *
+     * @since 4.0
+     */
+    public void assertSampleValuesEqual(final PixelIterator actual, final double tolerance, final boolean parallel)
+            throws AssertionError
+    {
         final int dataType = Math.max(getDataType(), actual.getDataType());
-        while (next()) {
-            assertTrue("Unexpected end of pixel iteration.", actual.next());
+        if (band >= 0 || actual.band >= 0) {
+            /*
+             * If at least one iterator is not at its initial position, the comparison
+             * shall start from the current positions. Use the sample-by-sample loop.
+             */
+            while (next()) {
+                assertTrue("Unexpected end of pixel iteration.", actual.next());
+                if (!equals(actual, dataType, tolerance)) {
+                    failComparison(actual, dataType);
+                }
+            }
+            assertFalse("Expected end of pixel iteration, but found more values.", actual.next());
+            return;
+        }
+        /*
+         * Compare the sample values row by row. If both images have the same number of rows and columns,
+         * rows at the same index are compared together and the work can be done in parallel. Otherwise
+         * the rows are compared as a continuous stream of sample values, as if the images were flattened.
+         */
+        final int rowLength = numColumns * numBands;
+        if (parallel && numRows == actual.numRows && rowLength == actual.numColumns * actual.numBands) {
+            final int rowsPerChunk = 16;
+            final long mismatch = IntStream.range(0, (numRows + rowsPerChunk - 1) / rowsPerChunk).parallel().mapToLong((chunk) -> {
+                final Row expectedRow = new Row(dataType, rowLength);
+                final Row actualRow   = new Row(dataType, rowLength);
+                final int end = Math.min(numRows, (chunk + 1) * rowsPerChunk);
+                for (int row = chunk * rowsPerChunk; row < end; row++) {
+                    this  .load(expectedRow, row);
+                    actual.load(actualRow,   row);
+                    final int i = expectedRow.mismatch(0, actualRow, 0, rowLength, tolerance);
+                    if (i >= 0) {
+                        return row * (long) rowLength + i;
+                    }
+                }
+                return Long.MAX_VALUE;
+            }).min().orElse(Long.MAX_VALUE);
+            if (mismatch != Long.MAX_VALUE) {
+                final int row = (int) (mismatch / rowLength);
+                final int i   = (int) (mismatch % rowLength);
+                this  .moveTo(row, i);
+                actual.moveTo(row, i);
+                failComparison(actual, dataType);
+            }
+            this  .moveToEnd();
+            actual.moveToEnd();
+            return;
+        }
+        final Row expectedRow = new Row(dataType, rowLength);
+        final Row actualRow   = new Row(dataType, actual.numColumns * actual.numBands);
+        int expectedIndex = 0, actualIndex = 0;
+        while (true) {
+            if (expectedIndex == expectedRow.length) {
+                if (expectedRow.row + 1 >= numRows) break;
+                load(expectedRow, expectedRow.row + 1);
+                expectedIndex = 0;
+            }
+            if (actualIndex == actualRow.length) {
+                assertTrue("Unexpected end of pixel iteration.", actualRow.row + 1 < actual.numRows);
+                actual.load(actualRow, actualRow.row + 1);
+                actualIndex = 0;
+            }
+            final int n = Math.min(expectedRow.length - expectedIndex, actualRow.length - actualIndex);
+            final int i = expectedRow.mismatch(expectedIndex, actualRow, actualIndex, n, tolerance);
+            if (i >= 0) {
+                this  .moveTo(expectedRow.row, expectedIndex + i);
+                actual.moveTo(actualRow.row,   actualIndex   + i);
+                failComparison(actual, dataType);
+            }
+            expectedIndex += n;
+            actualIndex   += n;
+        }
+        assertFalse("Expected end of pixel iteration, but found more values.",
+                actualIndex < actualRow.length || actualRow.row + 1 < actual.numRows);
+        this  .moveToEnd();
+        actual.moveToEnd();
+    }
+
+    /**
+     * Returns {@code true} if the sample value at the current position of this iterator is equal,
+     * within the given tolerance threshold, to the sample value at the current position of the
+     * given iterator.
+     */
+    private boolean equals(final PixelIterator actual, final int dataType, final double tolerance) {
+        switch (dataType) {
+            case DataBuffer.TYPE_DOUBLE: {
+                final double a = actual.getSampleDouble();
+                final double e = this.  getSampleDouble();
+                return doubleToLongBits(a) == doubleToLongBits(e)       // All variants of NaN values are considered equal.
+                        || abs(a-e) <= tolerance;                       // Negative and positive zeros are considered equal.
+            }
+            case DataBuffer.TYPE_FLOAT: {
+                final float a = actual.getSampleFloat();
+                final float e = this.  getSampleFloat();
+                return floatToIntBits(a) == floatToIntBits(e)           // All variants of NaN values are considered equal.
+                        || abs(a-e) <= tolerance;                       // Negative and positive zeros are considered equal.
+            }
+            default: {
+                return actual.getSample() == getSample();
+            }
+        }
+    }
+
+    /**
+     * Throws an {@link AssertionError} for a mismatch between the sample values
+     * at the current positions of this iterator and of the given iterator.
+     */
+    private void failComparison(final PixelIterator actual, final int dataType) {
+        final Number ev, av;
+        switch (dataType) {
+            case DataBuffer.TYPE_DOUBLE: ev = getSampleDouble(); av = actual.getSampleDouble(); break;
+            case DataBuffer.TYPE_FLOAT:  ev = getSampleFloat();  av = actual.getSampleFloat();  break;
+            default:                     ev = getSample();       av = actual.getSample();       break;
+        }
+        final String lineSeparator = System.getProperty("line.separator", "\n");
+        final StringBuilder buffer = new StringBuilder(1024);
+        buffer.append("Mismatched sample value: expected ").append(ev).append(" but got ").append(av).append(lineSeparator);
+        buffer.append("Pixel coordinate in the complete image: "); position(buffer); buffer.append(lineSeparator);
+        buffer.append("Pixel coordinate in the compared image: "); actual.position(buffer); buffer.append(lineSeparator);
+        actual.completeComparisonFailureMessage(buffer, lineSeparator);
+        fail(buffer.toString());
+    }
+
+    /**
+     * The sample values of a complete row of pixels, in iteration order (bands first, then columns).
+     * Values are stored in an array of primitive type determined by the datatype used for comparisons.
+     */
+    private static final class Row {
+        /** The sample values as an {@code int[]}, {@code float[]} or {@code double[]} array. */
+        final Object data;
+
+        /** Number of valid values in the {@link #data} array. */
+        final int length;
+
+        /** Index of the row loaded in the {@link #data} array, or -1 if none. */
+        int row = -1;
+
+        /** Temporary buffer for the pixels fetched from a tile, or {@code null} if not yet created. */
+        Object pixels;
+
+        /** Creates a new row of the given datatype and length. */
+        Row(final int dataType, final int length) {
+            this.length = length;
             switch (dataType) {
-                case DataBuffer.TYPE_DOUBLE: {
-                    final double a = actual.getSampleDouble();
-                    final double e = this.  getSampleDouble();
-                    if (doubleToLongBits(a) == doubleToLongBits(e)) {
-                        continue;                                       // All variants of NaN values are considered equal.
+                case DataBuffer.TYPE_DOUBLE: data = new double[length]; break;
+                case DataBuffer.TYPE_FLOAT:  data = new float [length]; break;
+                default:                     data = new int   [length]; break;
+            }
+        }
+
+        /**
+         * Returns the offset (relative to the given offsets) of the first sample value in this row which is not
+         * equal to the sample value in the {@code actual} row, or -1 if all values in the given range are equal.
+         */
+        int mismatch(int offset, final Row actual, int actualOffset, final int count, final double tolerance) {
+            if (data instanceof double[]) {
+                final double[] ev = (double[]) data;
+                final double[] av = (double[]) actual.data;
+                for (int i=0; i<count; i++) {
+                    final double a = av[actualOffset++];
+                    final double e = ev[offset++];
+                    if (doubleToLongBits(a) != doubleToLongBits(e) && !(abs(a-e) <= tolerance)) {
+                        return i;
                     }
-                    if (abs(a-e) <= tolerance) {
-                        continue;                                       // Negative and positive zeros are considered equal.
+                }
+            } else if (data instanceof float[]) {
+                final float[] ev = (float[]) data;
+                final float[] av = (float[]) actual.data;
+                for (int i=0; i<count; i++) {
+                    final float a = av[actualOffset++];
+                    final float e = ev[offset++];
+                    if (floatToIntBits(a) != floatToIntBits(e) && !(abs(a-e) <= tolerance)) {
+                        return i;
+                    }
+                }
+            } else {
+                final int[] ev = (int[]) data;
+                final int[] av = (int[]) actual.data;
+                for (int i=0; i<count; i++) {
+                    if (av[actualOffset++] != ev[offset++]) {
+                        return i;
                     }
-                    break;
                 }
-                case DataBuffer.TYPE_FLOAT: {
-                    final float a = actual.getSampleFloat();
-                    final float e = this.  getSampleFloat();
-                    if (floatToIntBits(a) == floatToIntBits(e)) {
-                        continue;                                       // All variants of NaN values are considered equal.
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Loads in the given buffer all sample values of the row at the given index. The pixels are fetched
+     * with a single {@link Raster#getPixels(int, int, int, int, double[]) Raster.getPixels(…)} call for
+     * each tile intersecting the row, then the requested bands and columns are copied in the buffer.
+     * This method does not change the iterator position.
+     *
+     * @param target  where to store the sample values.
+     * @param row     index of the row to load, from 0 inclusive to {@link #numRows} exclusive.
+     */
+    private void load(final Row target, final int row) {
+        final int py         = minY + row * ySubsampling;
+        final int tileWidth  = image.getTileWidth();
+        final int gridOffset = image.getTileGridXOffset();
+        final int tileRow    = divide(py - image.getTileGridYOffset(), image.getTileHeight(), false);
+        int column = 0;
+        while (column < numColumns) {
+            final int px = minX + column * xSubsampling;
+            final Raster tile = image.getTile(divide(px - gridOffset, tileWidth, false), tileRow);
+            final int n = Math.min(numColumns - column, (tile.getMinX() + tile.getWidth() - px + xSubsampling - 1) / xSubsampling);
+            final int width = (n - 1) * xSubsampling + 1;
+            final int tileBands = tile.getNumBands();
+            final int step = xSubsampling * tileBands;
+            int dst = column * numBands;
+            if (target.data instanceof double[]) {
+                final double[] data = (double[]) target.data;
+                final double[] pixels = tile.getPixels(px, py, width, 1, fit(target, double[].class, width * tileBands));
+                for (int src=0, c=0; c<n; c++, src += step) {
+                    for (int b=0; b<numBands; b++) {
+                        data[dst++] = pixels[src + ((sourceBands != null) ? sourceBands[b] : b)];
                     }
-                    if (abs(a-e) <= tolerance) {
-                        continue;                                       // Negative and positive zeros are considered equal.
+                }
+            } else if (target.data instanceof float[]) {
+                final float[] data = (float[]) target.data;
+                final float[] pixels = tile.getPixels(px, py, width, 1, fit(target, float[].class, width * tileBands));
+                for (int src=0, c=0; c<n; c++, src += step) {
+                    for (int b=0; b<numBands; b++) {
+                        data[dst++] = pixels[src + ((sourceBands != null) ? sourceBands[b] : b)];
                     }
-                    break;
                 }
-                default: {
-                    if (actual.getSample() == getSample()) continue;
-                    break;
+            } else {
+                final int[] data = (int[]) target.data;
+                final int[] pixels = tile.getPixels(px, py, width, 1, fit(target, int[].class, width * tileBands));
+                for (int src=0, c=0; c<n; c++, src += step) {
+                    for (int b=0; b<numBands; b++) {
+                        data[dst++] = pixels[src + ((sourceBands != null) ? sourceBands[b] : b)];
+                    }
                 }
             }
-            /*
-             * Remainder of this block is for formatting the error message.
-             */
-            final Number ev, av;
-            switch (dataType) {
-                case DataBuffer.TYPE_DOUBLE: ev = getSampleDouble(); av = actual.getSampleDouble(); break;
-                case DataBuffer.TYPE_FLOAT:  ev = getSampleFloat();  av = actual.getSampleFloat();  break;
-                default:                     ev = getSample();       av = actual.getSample();       break;
-            }
-            final String lineSeparator = System.getProperty("line.separator", "\n");
-            final StringBuilder buffer = new StringBuilder(1024);
-            buffer.append("Mismatched sample value: expected ").append(ev).append(" but got ").append(av).append(lineSeparator);
-            buffer.append("Pixel coordinate in the complete image: "); position(buffer); buffer.append(lineSeparator);
-            buffer.append("Pixel coordinate in the compared image: "); actual.position(buffer); buffer.append(lineSeparator);
-            actual.completeComparisonFailureMessage(buffer, lineSeparator);
-            fail(buffer.toString());
+            column += n;
+        }
+        target.row = row;
+    }
+
+    /**
+     * Returns a temporary buffer of the given type and of at least the given length.
+     * The buffer of the given row is reused if suitable, or replaced by a new buffer otherwise.
+     */
+    private static <T> T fit(final Row target, final Class<T> type, final int length) {
+        final Object pixels = target.pixels;
+        if (type.isInstance(pixels) && Array.getLength(pixels) >= length) {
+            return type.cast(pixels);
+        }
+        final T array = type.cast(Array.newInstance(type.getComponentType(), length));
+        target.pixels = array;
+        return array;
+    }
+
+    /**
+     * Moves this iterator to the sample value at the given index in the given row.
+     * This is used for reporting the position of a mismatch found by a bulk comparison.
+     */
+    private void moveTo(final int row, final int index) {
+        band  = index % numBands;
+        x     = minX + (index / numBands) * xSubsampling;
+        y     = minY + row * ySubsampling;
+        tileX = divide(x - image.getTileGridXOffset(), image.getTileWidth(),  false);
+        tileY = divide(y - image.getTileGridYOffset(), image.getTileHeight(), false);
+        updateRaster();
+    }
+
+    /**
+     * Moves this iterator to the end of the iteration. After this method call, the iterator is in the
+     * same state than after a loop invoking {@link #next()} until that method returned {@code false}.
+     * This is done by moving to the last sample value, then invoking {@code next()} one last time.
+     */
+    private void moveToEnd() {
+        final int rowLength = numColumns * numBands;
+        if (numRows != 0 && rowLength != 0) {
+            moveTo(numRows - 1, rowLength - 1);
         }
-        assertFalse("Expected end of pixel iteration, but found more values.", actual.next());
+        next();
     }
 
     /**
@@ -44,6 +44,10 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
@@ -156,6 +160,84 @@ public class ContentVerifier {
         }
     }
 
+    /**
+     * A property of a GeoAPI interface, together with the information needed for walking through its values.
+     * Instances are computed once per interface and cached in {@link #PROPERTIES}.
+     */
+    private static final class Property {
+        /** The UML identifier of the property. */
+        final String identifier;
+
+        /** The getter method, with signature changed to {@code (Object)Object}. */
+        final MethodHandle getter;
+
+        /** Whether the property value is a collection. */
+        final boolean isCollection;
+
+        /** The property type, or the type of collection elements if {@link #isCollection} is {@code true}. */
+        final Class<?> valueType;
+
+        /** Creates a new property for the given getter method. */
+        Property(final Method method, final String identifier) throws IllegalAccessException {
+            this.identifier = identifier;
+            getter = MethodHandles.publicLookup().unreflect(method).asType(MethodType.methodType(Object.class, Object.class));
+            final Class<?> type = method.getReturnType();
+            isCollection = Iterable.class.isAssignableFrom(type);
+            valueType = isCollection ? boundOfParameterizedProperty(method.getGenericReturnType()) : type;
+        }
+    }
+
+    /**
+     * Sentinel value in {@link #PROPERTIES} for types which shall be stored as values
+     * instead than being exploded in properties.
+     */
+    private static final Property[] LEAF = new Property[0];
+
+    /**
+     * The properties of each GeoAPI interface, or {@link #LEAF} for types which are not metadata.
+     * This table is computed only once per interface and shared by all {@code ContentVerifier} instances.
+     */
+    private static final ClassValue<Property[]> PROPERTIES = new ClassValue<Property[]>() {
+        @Override protected Property[] computeValue(final Class<?> type) {
+            if (InternationalString.class.isAssignableFrom(type) ||
+               ControlledVocabulary.class.isAssignableFrom(type) ||
+                        GenericName.class.isAssignableFrom(type) ||
+                           !type.isAnnotationPresent(UML.class))
+            {
+                return LEAF;
+            }
+            final List<Property> properties = new ArrayList<>();
+            for (final Method getter : type.getMethods()) {
+                if (getter.getParameterCount() != 0) {
+                    continue;
+                }
+                if (getter.isAnnotationPresent(Deprecated.class)) {
+                    continue;
+                }
+                final UML spec = getter.getAnnotation(UML.class);
+                if (spec == null || Void.TYPE.equals(getter.getReturnType())) {
+                    continue;
+                }
+                try {
+                    properties.add(new Property(getter, spec.identifier()));
+                } catch (IllegalAccessException e) {
+                    throw new AssertionError(e);        // Should never happen since we use only public methods.
+                }
+            }
+            return properties.toArray(new Property[properties.size()]);
+        }
+    };
+
+    /**
+     * For each implementation class, the GeoAPI interface to use for a given property type.
+     * See {@link #specialized(Class, Class)} for more information.
+     */
+    private static final ClassValue<Map<Class<?>,Class<?>>> SPECIALIZED = new ClassValue<Map<Class<?>,Class<?>>>() {
+        @Override protected Map<Class<?>,Class<?>> computeValue(final Class<?> implementation) {
+            return new ConcurrentHashMap<>(4);
+        }
+    };
+
     /**
      * Properties to ignore. They are specified by user with calls to {@link #addPropertyToIgnore(Class, String)}.
      */
@@ -203,9 +285,9 @@ public class ContentVerifier {
     /**
      * Returns {@code true} if the given property shall be ignored.
      */
-    private boolean isIgnored(final Class<?> type, final UML property) {
+    private boolean isIgnored(final Class<?> type, final Property property) {
         final Set<String> properties = ignore.get(type);
-        return (properties != null) && properties.contains(property.identifier());
+        return (properties != null) && properties.contains(property.identifier);
     }
 
     /**
@@ -254,8 +336,6 @@ public class ContentVerifier {
             } else {
                 throw new RuntimeException(cause);
             }
-        } catch (IllegalAccessException e) {
-            throw new AssertionError(e);                    // Should never happen since we invoked only public methods.
         } finally {
             path.setLength(0);
             visited.clear();
@@ -265,12 +345,20 @@ public class ContentVerifier {
     /**
      * Returns the sub-interfaces implemented by the given implementation class. For example is a property type
      * is {@code CoordinateReferenceSystem}, a given instance could implement the {@code GeographicCRS} subtype.
+     * The result is cached for each (implementation, property type) pair.
      *
      * @param  baseType        the property type.
      * @param  implementation  the class which may implement a specialized type.
      * @return the given type or one of its subtypes implemented by the given class.
      */
-    private static Class<?> specialized(final Class<?> baseType, Class<?> implementation) {
+    private static Class<?> specialized(final Class<?> baseType, final Class<?> implementation) {
+        return SPECIALIZED.get(implementation).computeIfAbsent(baseType, (t) -> searchSpecialized(t, implementation));
+    }
+
+    /**
+     * Implementation of {@link #specialized(Class, Class)} without cache.
+     */
+    private static Class<?> searchSpecialized(final Class<?> baseType, Class<?> implementation) {
         do {
             for (final Class<?> s : implementation.getInterfaces()) {
                 if (baseType.isAssignableFrom(s) && s.isAnnotationPresent(UML.class)) {
@@ -292,12 +380,8 @@ public class ContentVerifier {
      * @throws InvocationTargetException if an error occurred while invoking client code.
      * @throws IllegalStateException if a different metadata value is already presents for the current {@link #path} key.
      */
-    private void addPropertyValue(Class<?> type, final Object obj) throws InvocationTargetException, IllegalAccessException {
-        if (InternationalString.class.isAssignableFrom(type) ||        // Most common case first.
-           ControlledVocabulary.class.isAssignableFrom(type) ||
-                    GenericName.class.isAssignableFrom(type) ||
-                       !type.isAnnotationPresent(UML.class))
-        {
+    private void addPropertyValue(Class<?> type, final Object obj) throws InvocationTargetException {
+        if (PROPERTIES.get(type) == LEAF) {
             final String key = path.toString();
             final Object previous = metadataValues.put(key, obj);
             if (previous != null && !previous.equals(obj)) {
@@ -309,27 +393,21 @@ public class ContentVerifier {
             if (visited.add(recursivityGuard)) {
                 final int pathElementPosition = path.length();
                 type = specialized(type, obj.getClass());               // Example: Identification may actually be DataIdentification
-                for (final Method getter : type.getMethods()) {
-                    if (getter.getParameterCount() != 0) {
-                        continue;
-                    }
-                    if (getter.isAnnotationPresent(Deprecated.class)) {
-                        continue;
-                    }
-                    final UML spec = getter.getAnnotation(UML.class);
-                    if (spec == null || isIgnored(type, spec)) {
+                for (final Property property : PROPERTIES.get(type)) {
+                    if (isIgnored(type, property)) {
                         continue;
                     }
-                    Class<?> valueType = getter.getReturnType();
-                    if (Void.TYPE.equals(valueType)) {
-                        continue;
+                    final Object value;
+                    try {
+                        value = property.getter.invokeExact(obj);
+                    } catch (Throwable e) {
+                        throw new InvocationTargetException(e);
                     }
-                    final Object value = getter.invoke(obj, (Object[]) null);
                     if (value == null) {
                         continue;
                     }
                     final Iterator<?> values;
-                    if (Iterable.class.isAssignableFrom(valueType)) {
+                    if (property.isCollection) {
                         values = ((Collection<?>) value).iterator();
                         if (!values.hasNext()) continue;
                     } else {
@@ -338,16 +416,15 @@ public class ContentVerifier {
                     if (pathElementPosition != 0) {
                         path.append('.');
                     }
-                    path.append(spec.identifier());
+                    path.append(property.identifier);
                     if (values == null) {
-                        addPropertyValue(valueType, value);
+                        addPropertyValue(property.valueType, value);
                     } else {
-                        valueType = boundOfParameterizedProperty(getter.getGenericReturnType());
                         final int indexPosition = path.append('[').length();
                         int i = 0;
                         do {
                             path.append(i++).append(']');
-                            addPropertyValue(valueType, values.next());
+                            addPropertyValue(property.valueType, values.next());
                             path.setLength(indexPosition);
                         } while (values.hasNext());
                     }
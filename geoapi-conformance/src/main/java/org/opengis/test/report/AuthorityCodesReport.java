@@ -37,6 +37,11 @@ import java.util.ArrayList;
 import java.util.Properties;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
 
 import org.opengis.util.FactoryException;
 import org.opengis.referencing.IdentifiedObject;
@@ -72,6 +77,7 @@ import org.opengis.referencing.crs.CRSAuthorityFactory;
  *   <tr><td>{@code PERCENT.VALIDS}</td>         <td align="center">automatic</td> <td>Percentage of objects successfully created (i.e. having no {@linkplain Row#hasError error}).</td></tr>
  *   <tr><td>{@code PERCENT.ANNOTATED}</td>      <td align="center">automatic</td> <td>Percentage of objects having an {@linkplain Row#annotation annotation}.</td></tr>
  *   <tr><td>{@code PERCENT.DEPRECATED}</td>     <td align="center">automatic</td> <td>Percentage of {@linkplain Row#isDeprecated deprecated} objects.</td></tr>
+ *   <tr><td>{@code SLOWEST}</td>                <td align="center">automatic</td> <td>Paragraph listing the objects having the highest {@linkplain Row#creationTime creation time}.</td></tr>
  *   <tr><td>{@code FILENAME}</td>               <td align="center">predefined</td><td>Name of the file to create if the {@link #write(File)} argument is a directory.</td></tr>
  * </table>
  *
@@ -86,8 +92,11 @@ import org.opengis.referencing.crs.CRSAuthorityFactory;
  *   <li>Invoke {@link #write(File)}.</li>
  * </ol>
  *
+ * <p>Objects can optionally be created in parallel by invoking {@link #setParallelism(int)} before the
+ * {@code add(…)} methods. This is useful when most of the time is spent in the factory I/O and parsing.</p>
+ *
  * @author Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  *
  * @since 3.1
  */
@@ -174,6 +183,15 @@ public class AuthorityCodesReport extends Report {
          */
         public boolean hasError;
 
+        /**
+         * Time elapsed in the factory for creating the identified object, in nanoseconds,
+         * or 0 if unknown. This field is set by the {@link AuthorityCodesReport#add(AuthorityFactory,
+         * Collection) add(…)} methods after the row has been created.
+         *
+         * @since 4.0
+         */
+        public long creationTime;
+
         /**
          * Creates a new row with all fields initialized to {@code null} or {@code false}.
          */
@@ -243,6 +261,18 @@ public class AuthorityCodesReport extends Report {
      */
     protected final List<Row> rows;
 
+    /**
+     * Maximal number of rows to list in the {@code SLOWEST} property.
+     */
+    private static final int NUM_SLOWEST = 10;
+
+    /**
+     * Number of threads to use for creating objects in the {@code add(…)} methods.
+     *
+     * @see #setParallelism(int)
+     */
+    private int parallelism = 1;
+
     /**
      * Creates a new report generator using the given property values.
      * See the class javadoc for a list of expected values.
@@ -258,6 +288,38 @@ public class AuthorityCodesReport extends Report {
         defaultProperties.setProperty("PRODUCT.VERSION.SUFFIX", "");
     }
 
+    /**
+     * Returns the number of threads to use for creating objects in the {@code add(…)} methods.
+     * The default value is 1, which means that all objects are created in the invoker thread.
+     *
+     * @return number of threads to use for creating objects.
+     *
+     * @since 4.0
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the number of threads to use for creating objects in the {@code add(…)} methods.
+     * If this value is greater than 1, then the {@code createObject(…)} methods of the factory
+     * and the {@link #createRow(String, IdentifiedObject) createRow(…)} methods of this report
+     * will be invoked concurrently, so they shall be thread-safe. The rows are nevertheless added
+     * to the {@link #rows} list in the iteration order of the codes, and the {@linkplain #progress
+     * progress} is reported in the thread invoking the {@code add(…)} method.
+     *
+     * @param  n  number of threads to use for creating objects.
+     * @throws IllegalArgumentException if the given number is less than 1.
+     *
+     * @since 4.0
+     */
+    public void setParallelism(final int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Illegal number of threads: " + n);
+        }
+        parallelism = n;
+    }
+
     /**
      * Sets the default product name and factory name.
      */
@@ -267,11 +329,89 @@ public class AuthorityCodesReport extends Report {
     }
 
     /**
-     * Adds the given row to the {@link #rows} list, of non-null.
+     * The method to invoke for creating an object from an authority code.
      */
-    private void add(final Row row) {
+    @FunctionalInterface
+    private interface Creator {
+        IdentifiedObject create(String code) throws FactoryException;
+    }
+
+    /**
+     * Creates the row for the object identified by the given code, and records the creation time.
+     *
+     * @return the created row, or {@code null} if the row should be ignored.
+     */
+    private Row create(final String code, final Creator creator) {
+        IdentifiedObject object = null;
+        FactoryException failure = null;
+        final long start = System.nanoTime();
+        try {
+            object = creator.create(code);
+        } catch (FactoryException exception) {
+            failure = exception;
+        }
+        final long time = System.nanoTime() - start;
+        final Row row = (failure != null) ? createRow(code, failure) : createRow(code, object);
         if (row != null) {
-            rows.add(row);
+            row.creationTime = time;
+        }
+        return row;
+    }
+
+    /**
+     * Adds the rows for all objects identified by the given codes, reporting progress after each row.
+     * If {@link #parallelism} is greater than 1, the objects are created in a pool of threads but the
+     * rows are nevertheless added in the iteration order of the given codes.
+     *
+     * @param  codes    the authority codes of the objects to create.
+     * @param  creator  the method to invoke for creating an object.
+     * @throws FactoryException if the operation has been interrupted.
+     */
+    private void add(final Collection<String> codes, final Creator creator) throws FactoryException {
+        final int previousCount = rows.size();
+        final int count = codes.size();
+        if (parallelism <= 1) {
+            int done = 0;
+            for (final String code : codes) {
+                final Row row = create(code, creator);
+                if (row != null) {
+                    rows.add(row);
+                }
+                progress(previousCount + ++done, previousCount + count);
+            }
+            return;
+        }
+        final String[] array = codes.toArray(new String[count]);
+        final Row[] results = new Row[array.length];
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            final CompletionService<Integer> tasks = new ExecutorCompletionService<>(executor);
+            for (int i=0; i<array.length; i++) {
+                final int index = i;
+                tasks.submit(() -> {
+                    results[index] = create(array[index], creator);
+                    return index;
+                });
+            }
+            for (int done=1; done <= array.length; done++) {
+                tasks.take().get();                             // Propagate exceptions thrown by the task.
+                progress(previousCount + done, previousCount + array.length);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FactoryException("Creation of objects has been interrupted.", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new FactoryException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+        for (final Row row : results) {
+            if (row != null) {
+                rows.add(row);
+            }
         }
     }
 
@@ -298,23 +438,15 @@ public class AuthorityCodesReport extends Report {
      *
      * @param  factory  the factory from which to get Coordinate Reference System instances.
      * @throws FactoryException if a non-recoverable error occurred while querying the factory.
+     *
+     * @see #setParallelism(int)
      */
     public void add(final CRSAuthorityFactory factory) throws FactoryException {
         setDefault(factory);
         defaultProperties.setProperty("TITLE", "Authority codes for Coordinate Reference Systems");
         defaultProperties.setProperty("OBJECTS.KIND", "Coordinate Reference Systems (CRS)");
         defaultProperties.setProperty("FILENAME", "CRS-Codes.html");
-        final Collection<String> codes = factory.getAuthorityCodes(CoordinateReferenceSystem.class);
-        final int previousCount = rows.size();
-        for (final String code : codes) {
-            try {
-                add(createRow(code, factory.createCoordinateReferenceSystem(code)));
-            } catch (FactoryException exception) {
-                add(createRow(code, exception));
-            }
-            progress(previousCount + rows.size(),
-                     previousCount + codes.size());
-        }
+        add(factory.getAuthorityCodes(CoordinateReferenceSystem.class), factory::createCoordinateReferenceSystem);
     }
 
     /**
@@ -339,19 +471,12 @@ public class AuthorityCodesReport extends Report {
      * @param  factory  the factory from which to get the objects.
      * @param  codes    the authority codes of the objects to create.
      * @throws FactoryException if a non-recoverable error occurred while querying the factory.
+     *
+     * @see #setParallelism(int)
      */
     public void add(final AuthorityFactory factory, final Collection<String> codes) throws FactoryException {
         setDefault(factory);
-        final int previousCount = rows.size();
-        for (final String code : codes) {
-            try {
-                add(createRow(code, factory.createObject(code)));
-            } catch (FactoryException exception) {
-                add(createRow(code, exception));
-            }
-            progress(previousCount + rows.size(),
-                     previousCount + codes.size());
-        }
+        add(codes, factory::createObject);
     }
 
     /**
@@ -436,6 +561,7 @@ public class AuthorityCodesReport extends Report {
         defaultProperties.setProperty("PERCENT.VALIDS",     Integer.toString(100 * numValids / numRows) + '%');     // Really want rounding toward 0.
         defaultProperties.setProperty("PERCENT.ANNOTATED",  Integer.toString(Math.round(100f * numAnnotations / numRows)) + '%');
         defaultProperties.setProperty("PERCENT.DEPRECATED", Integer.toString(Math.round(100f * numDeprecated  / numRows)) + '%');
+        defaultProperties.setProperty("SLOWEST", slowest());
         sortRows();
         /*
          * The above initialization needs to be done before to start
@@ -446,6 +572,34 @@ public class AuthorityCodesReport extends Report {
         return destination;
     }
 
+    /**
+     * Returns a HTML paragraph listing the rows having the highest {@linkplain Row#creationTime creation time},
+     * or an empty string if no creation time has been recorded.
+     */
+    private String slowest() {
+        final List<Row> slowest = new ArrayList<>(rows.size());
+        for (final Row row : rows) {
+            if (row.creationTime > 0 && !row.isSectionHeader) {
+                slowest.add(row);
+            }
+        }
+        if (slowest.isEmpty()) {
+            return "";
+        }
+        slowest.sort((r1, r2) -> Long.compare(r2.creationTime, r1.creationTime));
+        final StringBuilder buffer = new StringBuilder("      <p>The slowest objects to create were ");
+        final int n = Math.min(slowest.size(), NUM_SLOWEST);
+        for (int i=0; i<n; i++) {
+            final Row row = slowest.get(i);
+            if (i != 0) {
+                buffer.append((i == n-1) ? " and " : ", ");
+            }
+            buffer.append("<code>").append(row.code).append("</code> (")
+                  .append(Math.round(row.creationTime / 1E6)).append(" ms)");
+        }
+        return buffer.append(".</p>").toString();
+    }
+
     /**
      * Invoked by {@link Report} every time a {@code ${FOO}} occurrence is found.
      * This operation is pretty fast; the slow operation which deserve progress
@@ -33,6 +33,13 @@ package org.opengis.test;
 
 import java.util.Set;
 import java.util.HashSet;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.lang.reflect.Proxy;
+import org.opengis.metadata.citation.Citation;
+import org.opengis.test.metadata.CitationValidator;
 
 import org.junit.*;
 import static org.junit.Assert.*;
@@ -42,7 +49,7 @@ import static org.junit.Assert.*;
  * Tests {@link ValidatorContainer}.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.0
+ * @version 4.0
  * @since   2.2
  */
 public strictfp class ValidatorContainerTest {
@@ -60,4 +67,112 @@ public strictfp class ValidatorContainerTest {
         assertFalse("Found a null value.", previous.remove(null));
         assertEquals("Declared size is wrong.", previous.size(), container.all.size());
     }
+
+    /**
+     * Tests {@link ValidatorContainer#dispatchAll(Iterable)}.
+     * Objects shared by many elements shall be validated only once.
+     */
+    @Test
+    public void testDispatchAll() {
+        final int[] count = new int[1];
+        final ValidatorContainer container = new ValidatorContainer();
+        container.citation = new CitationValidator(container) {
+            @Override public void validate(final Citation object) {
+                count[0]++;
+            }
+        };
+        final Citation c1 = createCitation();
+        final Citation c2 = createCitation();
+        container.dispatchAll(Arrays.asList(c1, c2, c1, null, c2, c1));
+        assertEquals("Shared citations shall be validated once.", 2, count[0]);
+        container.dispatch(c1);
+        container.dispatch(c1);
+        assertEquals("Separated walks shall validate again.", 4, count[0]);
+    }
+
+    /**
+     * Tests {@link Validators#dispatchParallel(java.util.Collection)}.
+     * All failures shall be reported in the iteration order.
+     */
+    @Test
+    public void testDispatchParallel() {
+        final List<Citation> citations = new ArrayList<>();
+        for (int i=0; i<1000; i++) {
+            citations.add(createCitation());
+        }
+        final Citation invalid1 = citations.get(700);
+        final Citation invalid2 = citations.get(30);
+        final ValidatorContainer container = new ValidatorContainer();
+        container.citation = new CitationValidator(container) {
+            @Override public void validate(final Citation object) {
+                if (object == invalid1 || object == invalid2) {
+                    throw new AssertionError("Invalid citation.");
+                }
+            }
+        };
+        final ValidatorContainer original = Validators.DEFAULT;
+        Validators.DEFAULT = container;
+        try {
+            Validators.dispatchParallel(citations);
+            fail("Expected an AssertionError.");
+        } catch (AssertionError e) {
+            final String message = e.getMessage();
+            assertTrue(message, message.startsWith("2 of 1000 objects are invalid"));
+            assertTrue(message, message.indexOf("[30]") < message.indexOf("[700]"));
+            assertEquals(2, e.getSuppressed().length);
+        } finally {
+            Validators.DEFAULT = original;
+        }
+        citations.remove(700);
+        citations.remove(30);
+        Validators.DEFAULT = container;
+        try {
+            Validators.dispatchParallel(citations);
+        } finally {
+            Validators.DEFAULT = original;
+        }
+    }
+
+    /**
+     * Tests that {@link Validators#dispatchParallel(java.util.Collection)} validates the objects with the
+     * {@link Validators#DEFAULT} container, so that validators invoking {@link Validator#container} for
+     * validating dependencies share the same graph walk. A dependency shared by all elements shall be
+     * validated at most once per chunk of elements, not once per element.
+     */
+    @Test
+    public void testDispatchParallelSharedDependency() {
+        final Citation shared = createCitation();
+        final List<Citation> citations = new ArrayList<>();
+        for (int i=0; i<1000; i++) {
+            citations.add(createCitation());
+        }
+        final AtomicInteger count = new AtomicInteger();
+        final ValidatorContainer container = new ValidatorContainer();
+        container.citation = new CitationValidator(container) {
+            @Override public void validate(final Citation object) {
+                if (object == shared) {
+                    count.incrementAndGet();
+                } else {
+                    container.validate(shared);
+                }
+            }
+        };
+        final ValidatorContainer original = Validators.DEFAULT;
+        Validators.DEFAULT = container;
+        try {
+            Validators.dispatchParallel(citations);
+        } finally {
+            Validators.DEFAULT = original;
+        }
+        final int n = count.get();
+        assertTrue(String.valueOf(n), n >= 1 && n <= 1000 / 32);
+    }
+
+    /**
+     * Creates a citation which is distinct, by identity, from all other citations.
+     */
+    private static Citation createCitation() {
+        return (Citation) Proxy.newProxyInstance(Citation.class.getClassLoader(),
+                new Class<?>[] {Citation.class}, (proxy, method, args) -> null);
+    }
 }
@@ -0,0 +1,176 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    Copyright (C) 2018 Open Geospatial Consortium, Inc.
+ *    All Rights Reserved. http://www.opengeospatial.org/ogc/legal
+ *
+ *    Permission to use, copy, and modify this software and its documentation, with
+ *    or without modification, for any purpose and without fee or royalty is hereby
+ *    granted, provided that you include the following on ALL copies of the software
+ *    and documentation or portions thereof, including modifications, that you make:
+ *
+ *    1. The full text of this NOTICE in a location viewable to users of the
+ *       redistributed or derivative work.
+ *    2. Notice of any changes or modifications to the OGC files, including the
+ *       date changes were made.
+ *
+ *    THIS SOFTWARE AND DOCUMENTATION IS PROVIDED "AS IS," AND COPYRIGHT HOLDERS MAKE
+ *    NO REPRESENTATIONS OR WARRANTIES, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+ *    TO, WARRANTIES OF MERCHANTABILITY OR FITNESS FOR ANY PARTICULAR PURPOSE OR THAT
+ *    THE USE OF THE SOFTWARE OR DOCUMENTATION WILL NOT INFRINGE ANY THIRD PARTY
+ *    PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER RIGHTS.
+ *
+ *    COPYRIGHT HOLDERS WILL NOT BE LIABLE FOR ANY DIRECT, INDIRECT, SPECIAL OR
+ *    CONSEQUENTIAL DAMAGES ARISING OUT OF ANY USE OF THE SOFTWARE OR DOCUMENTATION.
+ *
+ *    The name and trademarks of copyright holders may NOT be used in advertising or
+ *    publicity pertaining to the software without specific, written prior permission.
+ *    Title to copyright in this software and any associated documentation will at all
+ *    times remain with copyright holders.
+ */
+package org.opengis.test.coverage.image;
+
+import java.util.Random;
+import java.awt.Rectangle;
+import java.awt.image.Raster;
+import java.awt.image.DataBuffer;
+import java.awt.image.WritableRaster;
+import java.awt.image.BandedSampleModel;
+import java.awt.image.PixelInterleavedSampleModel;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link PixelIterator}.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+public strictfp class PixelIteratorTest {
+    /**
+     * Creates a raster filled with random values, with 3 interleaved bands.
+     */
+    private static WritableRaster createRaster(final int dataType, final int width, final int height, final Random random) {
+        final WritableRaster raster = Raster.createWritableRaster(
+                new PixelInterleavedSampleModel(dataType, width, height, 3, 3*width, new int[] {0, 1, 2}), null);
+        for (int y=0; y<height; y++) {
+            for (int x=0; x<width; x++) {
+                for (int b=0; b<3; b++) {
+                    raster.setSample(x, y, b, random.nextInt(100));
+                }
+            }
+        }
+        return raster;
+    }
+
+    /**
+     * Creates a raster containing the values of the given sub-area of the given raster,
+     * with the given subsampling and the given bands.
+     */
+    private static WritableRaster extract(final Raster source, final int dataType, final Rectangle region,
+            final int xSubsampling, final int ySubsampling, final int[] bands)
+    {
+        final int width  = (region.width  + xSubsampling - 1) / xSubsampling;
+        final int height = (region.height + ySubsampling - 1) / ySubsampling;
+        final WritableRaster raster = Raster.createWritableRaster(
+                new BandedSampleModel(dataType, width, height, bands.length), null);
+        for (int y=0; y<height; y++) {
+            for (int x=0; x<width; x++) {
+                for (int b=0; b<bands.length; b++) {
+                    raster.setSample(x, y, b, source.getSampleDouble(
+                            region.x + x*xSubsampling, region.y + y*ySubsampling, bands[b]));
+                }
+            }
+        }
+        return raster;
+    }
+
+    /**
+     * Compares the given rasters and returns the error message, or {@code null} if the rasters are equal.
+     */
+    private static String compare(final Raster expected, final Rectangle region, final int xSubsampling,
+            final int ySubsampling, final int[] bands, final Raster actual, final boolean parallel)
+    {
+        try {
+            new PixelIterator(expected, region, xSubsampling, ySubsampling, bands)
+                    .assertSampleValuesEqual(new PixelIterator(actual), 0, parallel);
+        } catch (AssertionError e) {
+            return e.getMessage();
+        }
+        return null;
+    }
+
+    /**
+     * Tests {@link PixelIterator#assertSampleValuesEqual(PixelIterator, double, boolean)} on a sub-area
+     * with subsampling and band selection, in sequential and parallel modes. The first mismatch shall
+     * be reported at the same position in both modes.
+     */
+    @Test
+    public void testAssertSampleValuesEqual() {
+        final Random random = new Random(541627481);
+        final int[] types = {DataBuffer.TYPE_BYTE, DataBuffer.TYPE_INT, DataBuffer.TYPE_FLOAT, DataBuffer.TYPE_DOUBLE};
+        for (final int type : types) {
+            final Raster source = createRaster(type, 97, 83, random);
+            final Rectangle region = new Rectangle(5, 7, 80, 70);
+            final int[] bands = {2, 0, 1};
+            final WritableRaster actual = extract(source, DataBuffer.TYPE_FLOAT, region, 3, 2, bands);
+            assertNull(compare(source, region, 3, 2, bands, actual, false));
+            assertNull(compare(source, region, 3, 2, bands, actual, true));
+            /*
+             * Modify two sample values. The first one in iteration order shall be reported.
+             */
+            actual.setSample(10, 30, 0, 200);
+            actual.setSample(20, 20, 1, 300);
+            final String message = compare(source, region, 3, 2, bands, actual, false);
+            assertNotNull(message);
+            assertTrue(message, message.contains("but got 300"));
+            assertTrue(message, message.contains("complete image: (65, 47) band 0"));
+            assertTrue(message, message.contains("compared image: (20, 20) band 1"));
+            assertEquals(message, compare(source, region, 3, 2, bands, actual, true));
+            /*
+             * Verify that a different image size is detected.
+             */
+            final Raster smaller = extract(source, DataBuffer.TYPE_FLOAT, region, 3, 3, bands);
+            assertNotNull(compare(source, region, 3, 2, bands, smaller, false));
+            assertNotNull(compare(source, region, 3, 2, bands, smaller, true));
+        }
+    }
+
+    /**
+     * Verifies that the given iterator is at the same position than an iterator which
+     * has been moved to the end of the iteration by invoking {@link PixelIterator#next()}.
+     * The band is not compared since {@link PixelIterator#getBand()} is undefined at that position.
+     */
+    private static void assertAtEnd(final PixelIterator iterator, final PixelIterator exhausted) {
+        while (exhausted.next()) {
+            // Move to the end of the iteration.
+        }
+        assertEquals("x",    exhausted.getX(),    iterator.getX());
+        assertEquals("y",    exhausted.getY(),    iterator.getY());
+    }
+
+    /**
+     * Tests that {@link PixelIterator#assertSampleValuesEqual(PixelIterator, double, boolean)} leaves both iterators
+     * at the end of the iteration after a successful comparison, in sequential and parallel modes. This is the state
+     * the iterators would have after a loop invoking {@link PixelIterator#next()} until that method returned false.
+     */
+    @Test
+    public void testIteratorsAtEndOfComparison() {
+        final Random random = new Random(208917236);
+        final Raster source = createRaster(DataBuffer.TYPE_SHORT, 61, 43, random);
+        final Rectangle region = new Rectangle(3, 4, 50, 30);
+        final int[] bands = {1, 2};
+        final Raster actual = extract(source, DataBuffer.TYPE_SHORT, region, 2, 3, bands);
+        for (final boolean parallel : new boolean[] {false, true}) {
+            final PixelIterator expectedIt = new PixelIterator(source, region, 2, 3, bands);
+            final PixelIterator actualIt   = new PixelIterator(actual);
+            expectedIt.assertSampleValuesEqual(actualIt, 0, parallel);
+            assertAtEnd(expectedIt, new PixelIterator(source, region, 2, 3, bands));
+            assertAtEnd(actualIt,   new PixelIterator(actual));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    Copyright (C) 2018 Open Geospatial Consortium, Inc.
+ *    All Rights Reserved. http://www.opengeospatial.org/ogc/legal
+ *
+ *    Permission to use, copy, and modify this software and its documentation, with
+ *    or without modification, for any purpose and without fee or royalty is hereby
+ *    granted, provided that you include the following on ALL copies of the software
+ *    and documentation or portions thereof, including modifications, that you make:
+ *
+ *    1. The full text of this NOTICE in a location viewable to users of the
+ *       redistributed or derivative work.
+ *    2. Notice of any changes or modifications to the OGC files, including the
+ *       date changes were made.
+ *
+ *    THIS SOFTWARE AND DOCUMENTATION IS PROVIDED "AS IS," AND COPYRIGHT HOLDERS MAKE
+ *    NO REPRESENTATIONS OR WARRANTIES, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+ *    TO, WARRANTIES OF MERCHANTABILITY OR FITNESS FOR ANY PARTICULAR PURPOSE OR THAT
+ *    THE USE OF THE SOFTWARE OR DOCUMENTATION WILL NOT INFRINGE ANY THIRD PARTY
+ *    PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER RIGHTS.
+ *
+ *    COPYRIGHT HOLDERS WILL NOT BE LIABLE FOR ANY DIRECT, INDIRECT, SPECIAL OR
+ *    CONSEQUENTIAL DAMAGES ARISING OUT OF ANY USE OF THE SOFTWARE OR DOCUMENTATION.
+ *
+ *    The name and trademarks of copyright holders may NOT be used in advertising or
+ *    publicity pertaining to the software without specific, written prior permission.
+ *    Title to copyright in this software and any associated documentation will at all
+ *    times remain with copyright holders.
+ */
+package org.opengis.test.dataset;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Collections;
+import java.lang.reflect.Proxy;
+import org.opengis.metadata.Metadata;
+import org.opengis.metadata.extent.Extent;
+import org.opengis.metadata.extent.GeographicBoundingBox;
+import org.opengis.metadata.identification.DataIdentification;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link ContentVerifier}.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+public strictfp class ContentVerifierTest {
+    /**
+     * Creates a metadata object of the given type with the given values, keyed by method names.
+     * Methods not in the given map return {@code null}.
+     */
+    private static <T> T create(final Class<T> type, final Object... values) {
+        final Map<String,Object> map = new HashMap<>();
+        for (int i=0; i<values.length; i += 2) {
+            map.put((String) values[i], values[i+1]);
+        }
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> map.get(method.getName())));
+    }
+
+    /**
+     * Creates a metadata tree with a single geographic bounding box.
+     */
+    private static Metadata createMetadata(final double west) {
+        final GeographicBoundingBox box = create(GeographicBoundingBox.class,
+                "getWestBoundLongitude", west,
+                "getEastBoundLongitude", 20.0,
+                "getSouthBoundLatitude", 30.0,
+                "getNorthBoundLatitude", 40.0);
+        final Extent extent = create(Extent.class, "getGeographicElements", Collections.singleton(box));
+        final DataIdentification identification = create(DataIdentification.class, "getExtents", Collections.singleton(extent));
+        return create(Metadata.class, "getIdentificationInfo", Collections.singleton(identification));
+    }
+
+    /**
+     * Tests the comparison of a metadata tree against expected values, reusing the same verifier
+     * for many metadata objects. The identification info needs to be specialized as data identification
+     * for finding the extent.
+     */
+    @Test
+    public void testCompareMetadata() {
+        final String prefix = "identificationInfo[0].extent[0].geographicElement[0].";
+        final ContentVerifier verifier = new ContentVerifier();
+        for (int i=0; i<3; i++) {
+            verifier.addMetadataToVerify(createMetadata(10));
+            assertTrue(verifier.toString(), verifier.compareMetadata(
+                    prefix + "westBoundLongitude", 10.0,
+                    prefix + "eastBoundLongitude", 20.0,
+                    prefix + "southBoundLatitude", 30.0,
+                    prefix + "northBoundLatitude", 40.0));
+            verifier.clear();
+        }
+        verifier.addPropertyToIgnore(GeographicBoundingBox.class, "southBoundLatitude");
+        verifier.addMetadataToVerify(createMetadata(12));
+        assertFalse(verifier.compareMetadata(
+                prefix + "westBoundLongitude", 10.0,
+                prefix + "eastBoundLongitude", 20.0,
+                prefix + "northBoundLatitude", 40.0));
+        final String message = verifier.toString();
+        assertTrue(message, message.contains("westBoundLongitude"));
+        assertFalse(message, message.contains("southBoundLatitude"));
+    }
+}
@@ -34,25 +34,30 @@ package org.opengis.test.referencing.gigs;
 import java.util.List;
 import java.util.Arrays;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.net.URISyntaxException;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 
 import static org.junit.Assert.*;
 
 
 /**
  * The expected data, which are read from a CSV file in this package.
+ * Each file is parsed only once per JVM for a given list of column types,
+ * and the values are stored in primitive arrays (one array per column).
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
 final class DataParser {
@@ -94,14 +99,91 @@ final class DataParser {
     private static final char QUOTE = '"';
 
     /**
-     * The expected data.
+     * The tables parsed so far, for sharing them between all test classes executed in the same JVM.
+     * Keys are the file names followed by the column types.
      */
-    private final List<Object[]> data;
+    private static final Map<String,Table> CACHE = new ConcurrentHashMap<>();
 
     /**
-     * The current row. This is the value of {@link #data} at index {@link #cursor}.
+     * The content of a CSV file, stored column by column. Each element of the {@link #columns} array
+     * is an {@code int[]}, {@code double[]}, {@code boolean[]} or {@code String[]} array, depending
+     * on the column type. Instances of this class are immutable after construction.
      */
-    private Object[] currentRow;
+    private static final class Table {
+        /**
+         * The number of rows in this table.
+         */
+        final int numRows;
+
+        /**
+         * The values of each column, as arrays of primitive types or as arrays of strings.
+         * Missing doubles are stored as {@link Double#NaN} and missing strings as {@code null}.
+         */
+        final Object[] columns;
+
+        /**
+         * For each column, the rows where the value is missing, or {@code null} if no value is missing.
+         */
+        final BitSet[] missing;
+
+        /**
+         * Converts the given rows of strings into columns of the given types.
+         */
+        Table(final List<String[]> rows, final Class<?>[] columnTypes) throws IOException {
+            numRows = rows.size();
+            columns = new Object[columnTypes.length];
+            missing = new BitSet[columnTypes.length];
+            for (int i=0; i<columnTypes.length; i++) {
+                final Class<?> type = columnTypes[i];
+                final Object column;
+                if      (type == String .class) column = new String [numRows];
+                else if (type == Integer.class) column = new int    [numRows];
+                else if (type == Boolean.class) column = new boolean[numRows];
+                else if (type == Double .class) {
+                    column = new double[numRows];
+                    Arrays.fill((double[]) column, Double.NaN);
+                }
+                else throw new IOException("Unsupported column type: " + type);
+                columns[i] = column;
+                for (int j=0; j<numRows; j++) {
+                    final String part = rows.get(j)[i];
+                    if (part == null) {
+                        if (missing[i] == null) {
+                            missing[i] = new BitSet(numRows);
+                        }
+                        missing[i].set(j);
+                    } else if (column instanceof String[]) {
+                        ((String[]) column)[j] = part;
+                    } else if (column instanceof int[]) {
+                        ((int[]) column)[j] = Integer.parseInt(part);
+                    } else if (column instanceof double[]) {
+                        ((double[]) column)[j] = Double.parseDouble(part);
+                    } else {
+                        ((boolean[]) column)[j] = Boolean.parseBoolean(part);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns the value at the given row and column, or {@code null} if none.
+         */
+        Object getValue(final int row, final int column) {
+            if (missing[column] != null && missing[column].get(row)) {
+                return null;
+            }
+            final Object values = columns[column];
+            if (values instanceof int[])     return ((int[])     values)[row];
+            if (values instanceof double[])  return ((double[])  values)[row];
+            if (values instanceof boolean[]) return ((boolean[]) values)[row];
+            return ((String[]) values)[row];
+        }
+    }
+
+    /**
+     * The expected data.
+     */
+    private final Table data;
 
     /**
      * The current cursor position.
@@ -109,7 +191,8 @@ final class DataParser {
     private int cursor = -1;
 
     /**
-     * Loads the data from the given file.
+     * Loads the data from the given file. If the file has already been loaded with the same column types,
+     * then the previously parsed data are reused.
      *
      * @param file   the file name, without path.
      * @param types  the type of each column. The only legal values at this time are
@@ -117,6 +200,23 @@ final class DataParser {
      * @throws IOException if an error occurred while reading the test data.
      */
     DataParser(final String file, final Class<?>... columnTypes) throws IOException {
+        final String key = file + Arrays.toString(columnTypes);
+        Table table = CACHE.get(key);
+        if (table == null) {
+            table = load(file, columnTypes);
+            final Table existing = CACHE.putIfAbsent(key, table);
+            if (existing != null) {
+                table = existing;
+            }
+        }
+        data = table;
+    }
+
+    /**
+     * Reads and parses the given file. The file content is memory-mapped and decoded in a single operation,
+     * then lines are extracted from the character buffer.
+     */
+    private static Table load(final String file, final Class<?>[] columnTypes) throws IOException {
         File path;
         try {
             path = new File(DataParser.class.getResource("DataParser.class").toURI());
@@ -133,24 +233,47 @@ final class DataParser {
             path = new File(path, name);
             assertTrue(name, path.isDirectory());
         }
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(new File(path, file)), "UTF-8"))) {
-            data = new ArrayList<>();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (!line.isEmpty() && line.charAt(0) != '#') {
-                    data.add(parseRow(line, columnTypes));
-                }
+        final CharBuffer content;
+        try (FileChannel channel = new FileInputStream(new File(path, file)).getChannel()) {
+            content = StandardCharsets.UTF_8.decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+        final List<String[]> rows = new ArrayList<>();
+        final int length = content.limit();
+        int start = 0;
+        while (start < length) {
+            int end = start;
+            char c;
+            while (end < length && (c = content.get(end)) != '\n' && c != '\r') end++;
+            final String line = content.subSequence(start, end).toString().trim();
+            if (!line.isEmpty() && line.charAt(0) != '#') {
+                rows.add(splitRow(line, columnTypes.length));
             }
+            start = end + 1;
         }
+        return new Table(rows, columnTypes);
     }
 
     /**
      * Parses a single row. The given line must be non-empty.
      */
-    static Object[] parseRow(String line, final Class<?>... columnTypes) throws IOException {
+    static Object[] parseRow(final String line, final Class<?>... columnTypes) throws IOException {
+        final List<String[]> rows = new ArrayList<>(1);
+        rows.add(splitRow(line, columnTypes.length));
+        final Table table = new Table(rows, columnTypes);
         final Object[] row = new Object[columnTypes.length];
-        for (int i=0; i<columnTypes.length; i++) {
+        for (int i=0; i<row.length; i++) {
+            row[i] = table.getValue(0, i);
+        }
+        return row;
+    }
+
+    /**
+     * Splits a single row in the given number of columns. The given line must be non-empty.
+     * Empty columns are returned as {@code null} elements.
+     */
+    private static String[] splitRow(String line, final int numColumns) throws IOException {
+        final String[] row = new String[numColumns];
+        for (int i=0; i<numColumns; i++) {
             // Find the start index and end index of substring to parse.
             // If the part begin with a opening quote, we will search for
             // the closing quote before to search for the column separator.
@@ -177,14 +300,7 @@ final class DataParser {
                 part = line.substring(skip, part.length() - skip).trim();
             }
             if (!part.isEmpty()) {
-                final Class<?> type = columnTypes[i];
-                final Object value;
-                if      (type == String .class) value = part;
-                else if (type == Integer.class) value = Integer.valueOf(part);
-                else if (type == Double .class) value = Double .valueOf(part);
-                else if (type == Boolean.class) value = Boolean.valueOf(part);
-                else throw new IOException("Unsupported column type: " + type);
-                row[i] = value;
+                row[i] = part;
             }
             if (++end >= line.length()) {
                 break;
@@ -199,29 +315,46 @@ final class DataParser {
      * if there is no more row to iterate.
      */
     public boolean next() {
-        if (++cursor < data.size()) {
-            currentRow = data.get(cursor);
-            return true;
-        } else {
-            currentRow = null;
-            return false;
+        if (cursor < data.numRows) {
+            cursor++;
         }
+        return cursor < data.numRows;
     }
 
     /**
-     * Returns the value in the current row at the given column.
+     * Returns the index of the current row.
      *
-     * @param  column  the column from which to get the value.
-     * @return the value in the given column, or {@code null} if none.
+     * @return the index of the current row.
      * @throws NoSuchElementException if there is currently no active row.
      */
-    private Object getValue(final int column) throws NoSuchElementException {
-        if (currentRow != null) {
-            return currentRow[column];
+    private int row() throws NoSuchElementException {
+        if (cursor >= 0 && cursor < data.numRows) {
+            return cursor;
         }
         throw new NoSuchElementException("No active row.");
     }
 
+    /**
+     * Returns {@code true} if there is no value in the given column of the given row.
+     */
+    private boolean isMissing(final int row, final int column) {
+        final BitSet missing = data.missing[column];
+        return (missing != null) && missing.get(row);
+    }
+
+    /**
+     * Returns the value in the given column for a primitive type which can not represent missing values.
+     *
+     * @throws NullPointerException if there is no value in the given column.
+     */
+    private int nonMissingRow(final int column) throws NullPointerException {
+        final int row = row();
+        if (isMissing(row, column)) {
+            throw new NullPointerException("No value in column " + column + " of row " + row + '.');
+        }
+        return row;
+    }
+
     /**
      * Returns the value in the given column as a string.
      *
@@ -231,7 +364,7 @@ final class DataParser {
      * @throws ClassCastException if the value in the given column is not a string.
      */
     public String getString(final int column) {
-        return (String) getValue(column);
+        return ((String[]) data.columns[column])[row()];
     }
 
     /**
@@ -272,7 +405,9 @@ final class DataParser {
      * @throws ClassCastException if the value in the given column is not an integer.
      */
     public Integer getIntOptional(final int column) {
-        return (Integer) getValue(column);
+        final int[] values = (int[]) data.columns[column];
+        final int row = row();
+        return isMissing(row, column) ? null : values[row];
     }
 
     /**
@@ -285,7 +420,8 @@ final class DataParser {
      * @throws NullPointerException if there is no value in the given column.
      */
     public int getInt(final int column) {
-        return (Integer) getValue(column);
+        final int[] values = (int[]) data.columns[column];
+        return values[nonMissingRow(column)];
     }
 
     /**
@@ -339,8 +475,7 @@ final class DataParser {
      * @throws ClassCastException if the value in the given column is not a double.
      */
     public double getDouble(final int column) {
-        final Double value = (Double) getValue(column);
-        return (value != null) ? value : Double.NaN;
+        return ((double[]) data.columns[column])[row()];
     }
 
     /**
@@ -353,7 +488,8 @@ final class DataParser {
      * @throws NullPointerException if there is no value in the given column.
      */
     public boolean getBoolean(final int column) {
-        return (Boolean) getValue(column);
+        final boolean[] values = (boolean[]) data.columns[column];
+        return values[nonMissingRow(column)];
     }
 
     /**
@@ -369,14 +505,11 @@ final class DataParser {
      */
     final <T> Map<String,T> getDependencies(final int column) {
         final Map<String,T> dependencies = new HashMap<>();
-        final Object[] savedRow = currentRow;
-        final int savedPosition = cursor;
-        while (next()) {
-            dependencies.put(getString(column), null);
+        final String[] values = (String[]) data.columns[column];
+        for (int i = Math.max(cursor + 1, 0); i < data.numRows; i++) {
+            dependencies.put(values[i], null);
         }
         dependencies.remove(null);
-        cursor = savedPosition;
-        currentRow = savedRow;
         return dependencies;
     }
 
@@ -386,13 +519,13 @@ final class DataParser {
     @Override
     public String toString() {
         final StringBuilder buffer = new StringBuilder("DataParser[");
-        if (currentRow == null) {
+        if (cursor < 0 || cursor >= data.numRows) {
             buffer.append("no active row");
         } else {
             buffer.append(cursor);
             String separator = ": ";
-            for (final Object value : currentRow) {
-                buffer.append(separator).append(value);
+            for (int i=0; i<data.columns.length; i++) {
+                buffer.append(separator).append(data.getValue(cursor, i));
                 separator = ", ";
             }
         }
@@ -41,7 +41,7 @@ import static org.junit.Assert.*;
  * Tests the {@link DataParser} class.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
 public strictfp class DataParserTest {
@@ -188,4 +188,27 @@ public strictfp class DataParserTest {
             16192, 16194
         }, data.getInts(0));
     }
+
+    /**
+     * Tests two parsers reading the same file. The second parser shall reuse the cached table,
+     * but each parser shall have its own cursor position.
+     *
+     * @throws IOException if an error occurred while reading the test data.
+     */
+    @Test
+    public void testSharedTable() throws IOException {
+        final DataParser first  = new DataParser("GIGS_2003_libPrimeMeridian.csv", Integer.class, Boolean.class, String.class);
+        final DataParser second = new DataParser("GIGS_2003_libPrimeMeridian.csv", Integer.class, Boolean.class, String.class);
+        assertTrue(first.next());
+        assertTrue(first.next());
+        assertTrue(second.next());
+        assertEquals(8901, second.getInt(0));
+        assertEquals("Greenwich", second.getString(2));
+        assertTrue(second.getBoolean(1));
+        assertNotEquals(8901, first.getInt(0));
+        while (second.next()) {
+            assertTrue(second.getInt(0) > 0);
+        }
+        assertTrue(first.next());
+    }
 }
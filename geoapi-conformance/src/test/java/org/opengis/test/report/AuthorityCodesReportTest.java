@@ -0,0 +1,105 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    Copyright (C) 2018 Open Geospatial Consortium, Inc.
+ *    All Rights Reserved. http://www.opengeospatial.org/ogc/legal
+ *
+ *    Permission to use, copy, and modify this software and its documentation, with
+ *    or without modification, for any purpose and without fee or royalty is hereby
+ *    granted, provided that you include the following on ALL copies of the software
+ *    and documentation or portions thereof, including modifications, that you make:
+ *
+ *    1. The full text of this NOTICE in a location viewable to users of the
+ *       redistributed or derivative work.
+ *    2. Notice of any changes or modifications to the OGC files, including the
+ *       date changes were made.
+ *
+ *    THIS SOFTWARE AND DOCUMENTATION IS PROVIDED "AS IS," AND COPYRIGHT HOLDERS MAKE
+ *    NO REPRESENTATIONS OR WARRANTIES, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+ *    TO, WARRANTIES OF MERCHANTABILITY OR FITNESS FOR ANY PARTICULAR PURPOSE OR THAT
+ *    THE USE OF THE SOFTWARE OR DOCUMENTATION WILL NOT INFRINGE ANY THIRD PARTY
+ *    PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER RIGHTS.
+ *
+ *    COPYRIGHT HOLDERS WILL NOT BE LIABLE FOR ANY DIRECT, INDIRECT, SPECIAL OR
+ *    CONSEQUENTIAL DAMAGES ARISING OUT OF ANY USE OF THE SOFTWARE OR DOCUMENTATION.
+ *
+ *    The name and trademarks of copyright holders may NOT be used in advertising or
+ *    publicity pertaining to the software without specific, written prior permission.
+ *    Title to copyright in this software and any associated documentation will at all
+ *    times remain with copyright holders.
+ */
+package org.opengis.test.report;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.lang.reflect.Proxy;
+import org.opengis.util.FactoryException;
+import org.opengis.referencing.AuthorityFactory;
+import org.opengis.referencing.IdentifiedObject;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link AuthorityCodesReport}.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+public strictfp class AuthorityCodesReportTest {
+    /**
+     * Creates a factory which creates dummy objects for all codes, except the codes
+     * which are multiple of 7 for which an exception is thrown.
+     */
+    private static AuthorityFactory createFactory() {
+        final IdentifiedObject object = (IdentifiedObject) Proxy.newProxyInstance(
+                IdentifiedObject.class.getClassLoader(), new Class<?>[] {IdentifiedObject.class},
+                (proxy, method, args) -> null);
+        return (AuthorityFactory) Proxy.newProxyInstance(
+                AuthorityFactory.class.getClassLoader(), new Class<?>[] {AuthorityFactory.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("createObject")) {
+                        if (Integer.parseInt((String) args[0]) % 7 == 0) {
+                            throw new FactoryException("No object for code " + args[0]);
+                        }
+                        return object;
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * Tests {@link AuthorityCodesReport#add(AuthorityFactory, java.util.Collection)}
+     * in parallel mode. Rows shall be in the same order than the codes.
+     *
+     * @throws FactoryException if an error occurred while creating the rows.
+     */
+    @Test
+    public void testParallelAdd() throws FactoryException {
+        final List<String> codes = new ArrayList<>();
+        for (int i=1; i<=500; i++) {
+            codes.add(Integer.toString(i));
+        }
+        final int[] progress = new int[2];
+        final AuthorityCodesReport report = new AuthorityCodesReport(null) {
+            @Override protected void progress(final int position, final int count) {
+                assertTrue("Progress shall be increasing.", position > progress[0]);
+                progress[0] = position;
+                progress[1] = count;
+            }
+        };
+        report.setParallelism(4);
+        report.add(createFactory(), codes);
+        assertArrayEquals(new int[] {500, 500}, progress);
+        assertEquals(500, report.rows.size());
+        for (int i=0; i<500; i++) {
+            final AuthorityCodesReport.Row row = report.rows.get(i);
+            assertEquals(codes.get(i), row.code);
+            assertEquals((i+1) % 7 == 0, row.hasError);
+            assertTrue(row.creationTime > 0);
+        }
+    }
+}
@@ -10,6 +10,9 @@ package org.opengis.example.metadata;
 import java.util.Map;
 import java.util.Set;
 import java.util.List;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Collections;
 import java.lang.reflect.Proxy;
 import java.lang.reflect.Method;
@@ -20,16 +23,121 @@ import org.opengis.annotation.UML;
 
 /**
  * The handler of all metadata proxy created by {@link MetadataProxyFactory}.
+ * For each GeoAPI interface, the {@link UML} annotations and the default values are resolved
+ * only once and stored in a {@link Table} shared by all handlers for that interface.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
 final class MetadataHandler implements InvocationHandler {
     /**
-     * The GeoAPI interface implemented by this handler.
+     * The information computed once for each GeoAPI interface. Each getter method having a
+     * {@link UML} annotation is associated to a slot, which is an index in the arrays of
+     * this table and in the {@link MetadataHandler#values} array.
      */
-    private final Class<?> type;
+    private static final class Table {
+        /**
+         * The GeoAPI interface for which this table has been computed.
+         */
+        final Class<?> type;
+
+        /**
+         * The UML identifier of the interface, or its simple name if none.
+         */
+        final String name;
+
+        /**
+         * The slot of each getter method having a {@link UML} annotation.
+         */
+        private final Map<Method,Integer> slots;
+
+        /**
+         * The UML identifier of the attribute in each slot.
+         */
+        final String[] identifiers;
+
+        /**
+         * The value to return for each slot when the attribute is {@code null}.
+         */
+        final Object[] defaults;
+
+        /**
+         * Computes the table for the given GeoAPI interface.
+         */
+        Table(final Class<?> type) {
+            this.type = type;
+            final UML typeUML = type.getAnnotation(UML.class);
+            String n = (typeUML != null) ? typeUML.identifier() : null;
+            if (n == null || n.trim().isEmpty()) {
+                n = type.getSimpleName();
+            }
+            name = n;
+            slots = new HashMap<>();
+            final Method[] methods = type.getMethods();
+            final String[] ids = new String[methods.length];
+            final Object[] def = new Object[methods.length];
+            int count = 0;
+            for (final Method method : methods) {
+                final UML uml = method.getAnnotation(UML.class);
+                if (uml != null && method.getParameterTypes().length == 0) {
+                    ids[count] = uml.identifier();
+                    def[count] = defaultValue(method.getReturnType());
+                    slots.put(method, count++);
+                }
+            }
+            identifiers = Arrays.copyOf(ids, count);
+            defaults    = Arrays.copyOf(def, count);
+        }
+
+        /**
+         * Returns the value to return when the attribute for a method of the given return type is {@code null}.
+         */
+        private static Object defaultValue(final Class<?> rt) {
+            if (rt.isPrimitive()) {
+                // We can not return null value for primitive types, so default to NaN or 0.
+                // Note: we ignore the name clash between "byte" and "boolean" because the
+                // current GeoAPI interfaces for ISO 19115 don't have byte return values.
+                switch (rt.getName().charAt(0)) {
+                    case 'b': return Boolean.FALSE;
+                    case 'd': return Double .NaN;
+                    case 'f': return Float  .NaN;
+                    case 'l': return         0L;
+                    case 'i': return         0;
+                    case 's': return (short) 0;
+                    case 'c': return (char)  0;
+                }
+            } else {
+                // While it is technically possible to return null collection,
+                // the common practice is to return an empty one instead.
+                if (rt.isAssignableFrom(List.class)) return Collections.emptyList();
+                if (rt.isAssignableFrom(Set .class)) return Collections.emptySet();
+                if (rt.isAssignableFrom(Map .class)) return Collections.emptyMap();
+            }
+            return null;
+        }
+
+        /**
+         * Returns the slot of the given method, or {@code null} if the method is not a metadata getter.
+         */
+        Integer slot(final Method method) {
+            return slots.get(method);
+        }
+    }
+
+    /**
+     * The tables computed for each GeoAPI interface.
+     */
+    private static final ClassValue<Table> TABLES = new ClassValue<Table>() {
+        @Override protected Table computeValue(final Class<?> type) {
+            return new Table(type);
+        }
+    };
+
+    /**
+     * Information about the GeoAPI interface implemented by this handler.
+     */
+    private final Table table;
 
     /**
      * The attribute values to return when a GeoAPI method is invoked.
@@ -37,18 +145,37 @@ final class MetadataHandler implements InvocationHandler {
     private final Map<String,?> attributes;
 
     /**
-     * Creates a new handler for the given GeoAPI interface, which will returns the
-     * values of the given map.
+     * The values for each slot with defaults already applied, or {@code null} if the
+     * values shall be fetched from the {@link #attributes} map at each invocation.
+     */
+    private final Object[] values;
+
+    /**
+     * Creates a new handler for the given GeoAPI interface, which will returns the values of the given map.
+     * If {@code snapshot} is {@code false}, then the values are fetched from the map at each invocation.
+     * Otherwise the values are copied by this constructor and later changes in the map have no effect.
      */
-    MetadataHandler(final Class<?> type, final Map<String,?> attributes) {
-        this.type = type;
+    MetadataHandler(final Class<?> type, Map<String,?> attributes, final boolean snapshot) {
+        table = TABLES.get(type);
+        if (snapshot) {
+            attributes = Collections.unmodifiableMap(new LinkedHashMap<>(attributes));
+            values = table.defaults.clone();
+            for (int i=0; i<values.length; i++) {
+                final Object value = attributes.get(table.identifiers[i]);
+                if (value != null) {
+                    values[i] = value;
+                }
+            }
+        } else {
+            values = null;
+        }
         this.attributes = attributes;
     }
 
     /**
      * Invoked when a method from a GeoAPI interface has been invoked. This {@code invoke}
-     * method searches for a value in the {@link #attributes} map for the UML identifier of
-     * the invoked method.
+     * method returns the value in the slot of the invoked method, or searches for a value
+     * in the {@link #attributes} map for the UML identifier of the invoked method.
      *
      * <p>The {@code equals(Object)}, {@code hashCode()} and {@code toString()} methods are handled
      * in a special way: they are delegated to the corresponding method of this handler.</p>
@@ -64,40 +191,21 @@ final class MetadataHandler implements InvocationHandler {
     public Object invoke(final Object proxy, final Method method, final Object[] args)
             throws UnsupportedOperationException
     {
+        final Integer slot = table.slot(method);
+        if (slot != null) {
+            final int i = slot;
+            if (values != null) {
+                return values[i];
+            }
+            final Object value = attributes.get(table.identifiers[i]);
+            return (value != null) ? value : table.defaults[i];
+        }
         if (args != null) {
             if (args.length == 1 && method.getName().equals("equals")) {
                 return equals(args[0]);
             }
             throw new UnsupportedOperationException(String.valueOf(method));
         }
-        final UML uml = method.getAnnotation(UML.class);
-        if (uml != null) {
-            Object value = attributes.get(uml.identifier());
-            if (value == null) {
-                final Class<?> rt = method.getReturnType();
-                if (rt.isPrimitive()) {
-                    // We can not return null value for primitive types, so default to NaN or 0.
-                    // Note: we ignore the name clash between "byte" and "boolean" because the
-                    // current GeoAPI interfaces for ISO 19115 don't have byte return values.
-                    switch (rt.getName().charAt(0)) {
-                        case 'b': value = Boolean.FALSE; break;
-                        case 'd': value = Double .NaN;   break;
-                        case 'f': value = Float  .NaN;   break;
-                        case 'l': value =         0L;    break;
-                        case 'i': value =         0;     break;
-                        case 's': value = (short) 0;     break;
-                        case 'c': value = (char)  0;     break;
-                    }
-                } else {
-                    // While it is technically possible to return null collection,
-                    // the common practice is to return an empty one instead.
-                    if (rt.isAssignableFrom(List.class)) value = Collections.emptyList(); else
-                    if (rt.isAssignableFrom(Set .class)) value = Collections.emptySet();  else
-                    if (rt.isAssignableFrom(Map .class)) value = Collections.emptyMap();
-                }
-            }
-            return value;
-        }
         final String name = method.getName();
         if (name.equals("toString")) return toString();
         if (name.equals("hashCode")) return hashCode();
@@ -111,15 +219,7 @@ final class MetadataHandler implements InvocationHandler {
      */
     @Override
     public String toString() {
-        String name = null;
-        final UML uml = type.getAnnotation(UML.class);
-        if (uml != null) {
-            name = uml.identifier();
-        }
-        if (name == null || ((name.trim()).isEmpty())) {
-            name = type.getSimpleName();
-        }
-        return name + attributes;
+        return table.name + attributes;
     }
 
     /**
@@ -128,7 +228,7 @@ final class MetadataHandler implements InvocationHandler {
      */
     @Override
     public int hashCode() {
-        return attributes.hashCode() + 31*type.hashCode() ^ 676265297;
+        return hashCode(table.type, attributes);
     }
 
     /**
@@ -138,13 +238,40 @@ final class MetadataHandler implements InvocationHandler {
      * preserved: handler.equals(proxy) == proxy.equals(handler).
      */
     @Override
-    public boolean equals(Object object) {
+    public boolean equals(final Object object) {
+        return equals(table.type, attributes, object);
+    }
+
+    /**
+     * Returns the UML identifier of the given interface, or its simple name if none.
+     * Used for the string representation of {@link MetadataSnapshot}.
+     */
+    static String name(final Class<?> type) {
+        return TABLES.get(type).name;
+    }
+
+    /**
+     * Computes the hash code of a metadata proxy or snapshot for the given interface and attributes.
+     */
+    static int hashCode(final Class<?> type, final Map<String,?> attributes) {
+        return attributes.hashCode() + 31*type.hashCode() ^ 676265297;
+    }
+
+    /**
+     * Returns {@code true} if the given object is a metadata proxy or a {@link MetadataSnapshot}
+     * for the given interface with the given attributes. Proxies are unwrapped to their handler.
+     */
+    static boolean equals(final Class<?> type, final Map<String,?> attributes, Object object) {
         if (object != null) {
             if (Proxy.isProxyClass(object.getClass())) {
                 object = Proxy.getInvocationHandler(object);
             }
             if (object instanceof MetadataHandler) {
                 final MetadataHandler other = (MetadataHandler) object;
+                return (type == other.table.type) && attributes.equals(other.attributes);
+            }
+            if (object instanceof MetadataSnapshot) {
+                final MetadataSnapshot other = (MetadataSnapshot) object;
                 return (type == other.type) && attributes.equals(other.attributes);
             }
         }
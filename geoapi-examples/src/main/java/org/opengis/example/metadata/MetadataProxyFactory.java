@@ -9,7 +9,10 @@ package org.opengis.example.metadata;
 
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.lang.reflect.Proxy;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
 import org.opengis.annotation.UML;
 
 
@@ -25,14 +28,49 @@ import org.opengis.annotation.UML;
  *attributes.put("name", new SimpleInternationalString("Aristotle"));
  *Individual party = factory.create(Individual.class, attributes);</pre></blockquote>
  *
- * The metadata proxy are <cite>live</cite>, i.e. any change to the maps of attributes will
- * be immediately reflected in the values returned by the metadata objects.
+ * The metadata proxy created by {@link #create(Class, Map)} are <cite>live</cite>, i.e. any change
+ * to the maps of attributes will be immediately reflected in the values returned by the metadata objects.
+ * The metadata proxy created by {@link #createSnapshot(Class, Map)} copy the attribute values in an array
+ * at creation time, which makes getter invocations faster. If classes generated at build time by the
+ * {@code org.opengis.tools.apt.MetadataClassGenerator} annotation processor are found in the
+ * {@value #GENERATED_PACKAGE} package, then {@code createSnapshot(…)} uses those classes
+ * instead of proxies. Those classes extend {@link MetadataSnapshot}, which makes them equal
+ * to proxies having the same attributes.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
 public class MetadataProxyFactory {
+    /**
+     * The package where to search for metadata classes generated at build time.
+     * For each metadata interface {@code Foo}, the generated class is named {@code FooImpl}.
+     */
+    static final String GENERATED_PACKAGE = "org.opengis.example.metadata.generated";
+
+    /**
+     * The constructor expecting a {@code Map<String,?>} argument in the generated class
+     * for each metadata interface, or an empty value if there is no generated class.
+     * Generated classes which do not extend {@link MetadataSnapshot} are ignored,
+     * since they would not be interoperable with the proxies. Generated classes are
+     * loaded by the class loader of this factory, since the class loader of GeoAPI
+     * interfaces may not see the classes of this module.
+     */
+    private static final ClassValue<Optional<Constructor<?>>> GENERATED = new ClassValue<Optional<Constructor<?>>>() {
+        @Override protected Optional<Constructor<?>> computeValue(final Class<?> type) {
+            final String name = GENERATED_PACKAGE + '.' + type.getSimpleName() + "Impl";
+            try {
+                final Class<?> c = Class.forName(name, true, MetadataProxyFactory.class.getClassLoader());
+                if (type.isAssignableFrom(c) && MetadataSnapshot.class.isAssignableFrom(c)) {
+                    return Optional.of(c.getConstructor(Map.class));
+                }
+            } catch (ClassNotFoundException | NoSuchMethodException e) {
+                // No generated class for that type. Fallback on proxy.
+            }
+            return Optional.empty();
+        }
+    };
+
     /**
      * Creates a new factory.
      */
@@ -53,11 +91,52 @@ public class MetadataProxyFactory {
      *         from the GeoAPI metadata package.
      */
     public <T> T create(final Class<T> type, final Map<String,?> attributes) throws IllegalArgumentException {
+        return create(type, attributes, false);
+    }
+
+    /**
+     * Creates a new implementation of the given metadata interface which will contains a copy of
+     * the values in the given map. Changes to the given map after this method call have no effect
+     * on the returned metadata object. Each getter invocation on the returned object is a read in
+     * an array, without map lookup. If a class generated at build time exists for the given type,
+     * then an instance of that class is returned instead of a proxy.
+     *
+     * @param  <T>         the compile-time type of the {@code type} argument.
+     * @param  type        the metadata interface for which to get an instance.
+     * @param  attributes  the attribute values to copy in the metadata instance.
+     * @return a metadata object containing a copy of the values in the given map.
+     * @throws IllegalArgumentException if the given type is not an interface
+     *         from the GeoAPI metadata package.
+     * @throws ClassCastException if a value in the given map is not of the expected type.
+     *
+     * @since 4.0
+     */
+    public <T> T createSnapshot(final Class<T> type, final Map<String,?> attributes) throws IllegalArgumentException {
+        if (type.isInterface() && attributes != null) {
+            final Optional<Constructor<?>> generated = GENERATED.get(type);
+            if (generated.isPresent()) try {
+                return type.cast(generated.get().newInstance(attributes));
+            } catch (InvocationTargetException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                if (cause instanceof Error) throw (Error) cause;
+                throw new IllegalArgumentException(cause);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+        return create(type, attributes, true);
+    }
+
+    /**
+     * Implementation of {@link #create(Class, Map)} and {@link #createSnapshot(Class, Map)}.
+     */
+    private static <T> T create(final Class<T> type, final Map<String,?> attributes, final boolean snapshot) {
         if (!type.isInterface() || !type.getName().startsWith("org.opengis.metadata.")) {
             throw new IllegalArgumentException("Illegal type: " + type);
         }
         Objects.requireNonNull(attributes);
         return type.cast(Proxy.newProxyInstance(MetadataProxyFactory.class.getClassLoader(),
-                new Class<?>[] {type}, new MetadataHandler(type, attributes)));
+                new Class<?>[] {type}, new MetadataHandler(type, attributes, snapshot)));
     }
 }
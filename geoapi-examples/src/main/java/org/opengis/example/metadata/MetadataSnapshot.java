@@ -0,0 +1,91 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.metadata;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+
+
+/**
+ * Base class of metadata implementations generated at build time by the
+ * {@code org.opengis.tools.apt.MetadataClassGenerator} annotation processor.
+ * Subclasses store the property values in typed fields for fast getter invocations,
+ * while this base class keeps a copy of the attribute map for {@link #equals(Object)},
+ * {@link #hashCode()} and {@link #toString()}. Those methods have the same semantic than
+ * the metadata proxies created by {@link MetadataProxyFactory}: a snapshot is equal to
+ * a proxy of the same metadata interface having the same attributes, and conversely.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+public abstract class MetadataSnapshot {
+    /**
+     * The GeoAPI interface implemented by this metadata.
+     */
+    final Class<?> type;
+
+    /**
+     * An unmodifiable copy of the attribute values, keyed by UML identifiers.
+     */
+    final Map<String,?> attributes;
+
+    /**
+     * Creates a new metadata with a copy of the given attribute values.
+     *
+     * @param  type        the GeoAPI interface implemented by the subclass.
+     * @param  attributes  the attribute values, keyed by UML identifiers.
+     */
+    protected MetadataSnapshot(final Class<?> type, final Map<String,?> attributes) {
+        this.type = Objects.requireNonNull(type);
+        this.attributes = Collections.unmodifiableMap(new LinkedHashMap<>(attributes));
+    }
+
+    /**
+     * Returns the value for the given UML identifier, or {@code null} if none.
+     * This method is invoked by subclass constructors for initializing their fields.
+     *
+     * @param  identifier  the UML identifier of the attribute.
+     * @return the attribute value, or {@code null} if none.
+     */
+    protected final Object value(final String identifier) {
+        return attributes.get(identifier);
+    }
+
+    /**
+     * Returns a string representation of this metadata. This method formats the
+     * ISO/OGC identifier of the metadata type followed by the attribute values.
+     */
+    @Override
+    public final String toString() {
+        return MetadataHandler.name(type) + attributes;
+    }
+
+    /**
+     * Returns a hash code value for this metadata.
+     * This is the same value than the hash code of a proxy having the same attributes.
+     */
+    @Override
+    public final int hashCode() {
+        return MetadataHandler.hashCode(type, attributes);
+    }
+
+    /**
+     * Returns {@code true} if the given object is a snapshot or a metadata proxy
+     * for the same interface with the same attribute values.
+     *
+     * @param  object  the object to compare with this metadata.
+     * @return whether the given object is equal to this metadata.
+     */
+    @Override
+    public final boolean equals(final Object object) {
+        return MetadataHandler.equals(type, attributes, object);
+    }
+}
@@ -9,6 +9,7 @@ package org.opengis.example.referencing;
 
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import org.opengis.geometry.DirectPosition;
 import org.opengis.geometry.MismatchedDimensionException;
@@ -38,7 +39,7 @@ import org.opengis.example.geometry.SimpleDirectPosition;
  * </ul>
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
 public class AffineTransform2D extends AffineTransform implements MathTransform2D {
@@ -54,8 +55,16 @@ public class AffineTransform2D extends AffineTransform implements MathTransform2
      * serialize the inverse transform rather than the original transform, then
      * inverting the inverse transform in order to get back the original transform
      * would lead to floating point errors.
+     *
+     * @see #inverse()
      */
-    private AffineTransform2D inverse;
+    private volatile AffineTransform2D inverse;
+
+    /**
+     * Updater for the {@link #inverse} field, used for publishing the inverse without locking.
+     */
+    private static final AtomicReferenceFieldUpdater<AffineTransform2D,AffineTransform2D> INVERSE =
+            AtomicReferenceFieldUpdater.newUpdater(AffineTransform2D.class, AffineTransform2D.class, "inverse");
 
     /**
      * Creates a new transform initialized to the identity transform.
@@ -187,7 +196,7 @@ public class AffineTransform2D extends AffineTransform implements MathTransform2
      */
     @Override
     public Matrix derivative(final Point2D point) {
-        final Matrix m = new SimpleMatrix(2, 2);
+        final Matrix m = SimpleMatrix.create(2, 2);
         m.setElement(0, 0, getScaleX());
         m.setElement(1, 1, getScaleY());
         m.setElement(0, 1, getShearX());
@@ -199,8 +208,8 @@ public class AffineTransform2D extends AffineTransform implements MathTransform2
      * Returns the inverse of this affine transform.
      */
     @Override
-    public synchronized MathTransform2D inverse() throws NoninvertibleTransformException {
-        if (inverse == null) {
+    public MathTransform2D inverse() throws NoninvertibleTransformException {
+        return LazyInverse.get(INVERSE, this, () -> {
             final AffineTransform2D tmp = new AffineTransform2D(this);
             try {
                 tmp.invert();
@@ -208,9 +217,8 @@ public class AffineTransform2D extends AffineTransform implements MathTransform2
                 throw new NoninvertibleTransformException(e.getLocalizedMessage(), e);
             }
             tmp.inverse = this;
-            inverse = tmp;                      // Keep the reference only on success.
-        }
-        return inverse;
+            return tmp;
+        });
     }
 
     /**
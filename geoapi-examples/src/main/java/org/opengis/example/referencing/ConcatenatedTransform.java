@@ -0,0 +1,360 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import org.opengis.geometry.DirectPosition;
+import org.opengis.geometry.MismatchedDimensionException;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.referencing.operation.NoninvertibleTransformException;
+
+
+/**
+ * A {@link MathTransform} which applies a sequence of transforms, in order.
+ * Instances of this class are created by {@link SimpleTransformFactory#createConcatenatedTransform
+ * SimpleTransformFactory.createConcatenatedTransform(…)}, which flattens nested concatenations,
+ * merges consecutive affine transforms in a single matrix product and drops identity transforms.
+ *
+ * <p>The {@code transform} methods expecting array arguments do not transform the points one by one.
+ * Instead, they process the points by chunks of fixed size: all points in a chunk are transformed
+ * by the first step into a temporary buffer, then all intermediate points are transformed by the
+ * second step, <i>etc.</i> The buffers are allocated once per method call and their size does not
+ * depend on the number of points to transform. When the source and target ranges overlap in the same
+ * array, the chunks are processed in an order which never overwrites source coordinates not yet read,
+ * so the source coordinates do not need to be copied.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ *
+ * @see SimpleTransformFactory#createConcatenatedTransform(MathTransform, MathTransform)
+ */
+public class ConcatenatedTransform extends SimpleTransform {
+    /**
+     * For cross-version compatibility.
+     */
+    private static final long serialVersionUID = 2817435698726128425L;
+
+    /**
+     * The transforms to apply, in order. This array contains at least two elements.
+     */
+    private final MathTransform[] steps;
+
+    /**
+     * The maximal number of dimensions of intermediate points, which determines the buffer size.
+     */
+    private final int maxDimension;
+
+    /**
+     * The inverse of this transform, computed when first needed.
+     *
+     * @see #inverse()
+     */
+    private transient volatile ConcatenatedTransform inverse;
+
+    /**
+     * Updater for the {@link #inverse} field, used for publishing the inverse without locking.
+     */
+    private static final AtomicReferenceFieldUpdater<ConcatenatedTransform,ConcatenatedTransform> INVERSE =
+            AtomicReferenceFieldUpdater.newUpdater(ConcatenatedTransform.class, ConcatenatedTransform.class, "inverse");
+
+    /**
+     * Creates a new concatenated transform for the given steps. This constructor does not simplify
+     * the given sequence of transforms; simplifications are done by {@link SimpleTransformFactory}.
+     *
+     * @param  steps  the transforms to apply, in order. Shall contain at least two elements.
+     * @throws MismatchedDimensionException if the number of target dimensions of a step
+     *         is not equal to the number of source dimensions of the next step.
+     */
+    public ConcatenatedTransform(final MathTransform... steps) throws MismatchedDimensionException {
+        super(null, "Concatenated transform", null, null);
+        if (steps.length < 2) {
+            throw new IllegalArgumentException("At least two transforms are required.");
+        }
+        this.steps = steps.clone();
+        int max = 0;
+        for (int i=1; i<steps.length; i++) {
+            final int dim = steps[i].getSourceDimensions();
+            if (steps[i-1].getTargetDimensions() != dim) {
+                throw new MismatchedDimensionException("Transform at index " + i + " expects "
+                        + dim + " source dimensions but the previous transform produces "
+                        + steps[i-1].getTargetDimensions() + '.');
+            }
+            max = Math.max(max, dim);
+        }
+        maxDimension = max;
+    }
+
+    /**
+     * Returns a copy of the transforms applied by this concatenated transform, in order.
+     *
+     * @return the transforms applied by this concatenated transform.
+     */
+    public MathTransform[] getSteps() {
+        return steps.clone();
+    }
+
+    /**
+     * Returns the steps without cloning the array. Used by {@link SimpleTransformFactory}
+     * for flattening nested concatenations. Callers shall not modify the returned array.
+     */
+    final MathTransform[] steps() {
+        return steps;
+    }
+
+    /**
+     * Gets the dimension of input points, which is the source dimension of the first step.
+     */
+    @Override
+    public int getSourceDimensions() {
+        return steps[0].getSourceDimensions();
+    }
+
+    /**
+     * Gets the dimension of output points, which is the target dimension of the last step.
+     */
+    @Override
+    public int getTargetDimensions() {
+        return steps[steps.length - 1].getTargetDimensions();
+    }
+
+    /**
+     * Transforms the specified {@code ptSrc} by applying each step in sequence.
+     *
+     * @throws MismatchedDimensionException if {@code ptSrc} or {@code ptDst} does not have the expected dimension.
+     * @throws TransformException if the point can not be transformed.
+     */
+    @Override
+    public DirectPosition transform(DirectPosition ptSrc, final DirectPosition ptDst) throws TransformException {
+        final int last = steps.length - 1;
+        for (int i=0; i<last; i++) {
+            ptSrc = steps[i].transform(ptSrc, null);
+        }
+        return steps[last].transform(ptSrc, ptDst);
+    }
+
+    /**
+     * Returns the number of points to transform in each chunk.
+     */
+    private static int chunkSize(final int numPts) {
+        return Math.min(numPts, CHUNK_SIZE);
+    }
+
+    /**
+     * Transforms the given number of points from the first buffer, applying all intermediate steps.
+     * The first step and the last step are not applied by this method. On input, the points are in
+     * {@code buffers[0]}. On output, the points are in the buffer at the returned index.
+     *
+     * @param  buffers  two buffers used alternatively as source and target arrays.
+     * @param  numPts   number of points to transform.
+     * @return index of the buffer containing the result.
+     */
+    private int transformIntermediate(final double[][] buffers, final int numPts) throws TransformException {
+        int current = 0;
+        for (int i=1; i < steps.length - 1; i++) {
+            steps[i].transform(buffers[current], 0, buffers[current ^ 1], 0, numPts);
+            current ^= 1;
+        }
+        return current;
+    }
+
+    /**
+     * Allocates the temporary buffers for transforming the given number of points.
+     * Only one buffer is needed if there is no intermediate step.
+     */
+    private double[][] buffers(final int numPts) {
+        final int length = chunkSize(numPts) * maxDimension;
+        return new double[][] {
+            new double[length],
+            (steps.length > 2) ? new double[length] : null
+        };
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values. The points are processed by chunks
+     * of fixed size, using temporary buffers for the intermediate results.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned. May be the same than {@code srcPts}.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Override
+    public void transform(final double[] srcPts, final int srcOff, final double[] dstPts, final int dstOff, final int numPts)
+            throws TransformException
+    {
+        final MathTransform first = steps[0];
+        final MathTransform last  = steps[steps.length - 1];
+        final double[][] buffers = buffers(numPts);
+        final int srcDim = getSourceDimensions();
+        final int dstDim = getTargetDimensions();
+        transformByChunks(srcPts == dstPts, srcOff, srcDim, dstOff, dstDim, numPts, (s, d, n) -> {
+            first.transform(srcPts, s, buffers[0], 0, n);
+            last.transform(buffers[transformIntermediate(buffers, n)], 0, dstPts, d, n);
+        });
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values. The points are processed by chunks
+     * of fixed size, using temporary buffers in double precision for the intermediate results.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned. May be the same than {@code srcPts}.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Override
+    public void transform(final float[] srcPts, final int srcOff, final float[] dstPts, final int dstOff, final int numPts)
+            throws TransformException
+    {
+        final MathTransform first = steps[0];
+        final MathTransform last  = steps[steps.length - 1];
+        final double[][] buffers = buffers(numPts);
+        final int srcDim = getSourceDimensions();
+        final int dstDim = getTargetDimensions();
+        transformByChunks(srcPts == dstPts, srcOff, srcDim, dstOff, dstDim, numPts, (s, d, n) -> {
+            first.transform(srcPts, s, buffers[0], 0, n);
+            last.transform(buffers[transformIntermediate(buffers, n)], 0, dstPts, d, n);
+        });
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values. The points are processed by chunks
+     * of fixed size, using temporary buffers for the intermediate results.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Override
+    public void transform(final float[] srcPts, final int srcOff, final double[] dstPts, final int dstOff, final int numPts)
+            throws TransformException
+    {
+        final MathTransform first = steps[0];
+        final MathTransform last  = steps[steps.length - 1];
+        final double[][] buffers = buffers(numPts);
+        final int srcDim = getSourceDimensions();
+        final int dstDim = getTargetDimensions();
+        transformByChunks(false, srcOff, srcDim, dstOff, dstDim, numPts, (s, d, n) -> {
+            first.transform(srcPts, s, buffers[0], 0, n);
+            last.transform(buffers[transformIntermediate(buffers, n)], 0, dstPts, d, n);
+        });
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values. The points are processed by chunks
+     * of fixed size, using temporary buffers for the intermediate results.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Override
+    public void transform(final double[] srcPts, final int srcOff, final float[] dstPts, final int dstOff, final int numPts)
+            throws TransformException
+    {
+        final MathTransform first = steps[0];
+        final MathTransform last  = steps[steps.length - 1];
+        final double[][] buffers = buffers(numPts);
+        final int srcDim = getSourceDimensions();
+        final int dstDim = getTargetDimensions();
+        transformByChunks(false, srcOff, srcDim, dstOff, dstDim, numPts, (s, d, n) -> {
+            first.transform(srcPts, s, buffers[0], 0, n);
+            last.transform(buffers[transformIntermediate(buffers, n)], 0, dstPts, d, n);
+        });
+    }
+
+    /**
+     * Gets the derivative of this transform at a point. This is the product of the derivatives
+     * of all steps, each of them computed at the point transformed by the previous steps.
+     *
+     * @param  point  the coordinate point where to evaluate the derivative.
+     * @return the derivative at the specified point (never {@code null}).
+     * @throws TransformException if the derivative can not be evaluated at the specified point.
+     */
+    @Override
+    public Matrix derivative(DirectPosition point) throws TransformException {
+        SimpleMatrix product = null;
+        for (final MathTransform step : steps) {
+            final SimpleMatrix derivative = SimpleMatrix.castOrCopy(step.derivative(point));
+            if (product == null) {
+                product = derivative;
+            } else {
+                final SimpleMatrix next = SimpleMatrix.create(derivative.getNumRow(), product.getNumCol());
+                next.mul(derivative, product);
+                product = next;
+            }
+            if (point != null) {
+                point = step.transform(point, null);
+            }
+        }
+        return product;
+    }
+
+    /**
+     * Returns the inverse of this transform, which is the concatenation of the inverse of all steps
+     * in reverse order.
+     *
+     * @return the inverse transform.
+     * @throws NoninvertibleTransformException if a step can not be inverted.
+     */
+    @Override
+    public ConcatenatedTransform inverse() throws NoninvertibleTransformException {
+        return LazyInverse.get(INVERSE, this, () -> {
+            final MathTransform[] inverses = new MathTransform[steps.length];
+            for (int i=0; i<steps.length; i++) {
+                inverses[steps.length - 1 - i] = steps[i].inverse();
+            }
+            final ConcatenatedTransform inverse = new ConcatenatedTransform(inverses);
+            inverse.inverse = this;
+            return inverse;
+        });
+    }
+
+    /**
+     * Tests whether this transform does not move any points.
+     * This is {@code true} only if all steps are identity transforms.
+     */
+    @Override
+    public boolean isIdentity() {
+        for (final MathTransform step : steps) {
+            if (!step.isIdentity()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares this transform with the given object for equality.
+     *
+     * @param  object  the object to compare with this {@code ConcatenatedTransform}.
+     * @return {@code true} if the given object is equals to this object.
+     */
+    @Override
+    public boolean equals(final Object object) {
+        if (super.equals(object)) {
+            return Arrays.equals(steps, ((ConcatenatedTransform) object).steps);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,580 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.Arrays;
+
+import org.opengis.geometry.Envelope;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.geometry.MismatchedDimensionException;
+import org.opengis.referencing.cs.RangeMeaning;
+import org.opengis.referencing.cs.CoordinateSystem;
+import org.opengis.referencing.cs.CoordinateSystemAxis;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.CoordinateOperation;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.referencing.operation.NoninvertibleTransformException;
+import org.opengis.example.geometry.SimpleEnvelope;
+import org.opengis.example.geometry.SimpleDirectPosition;
+
+
+/**
+ * Static methods transforming envelopes. Transforming only the envelope corners is not sufficient,
+ * because the extremum of a non-linear transform may be located in the middle of an envelope edge,
+ * or even inside the envelope (for example a pole in a polar projection). This class computes the
+ * envelope as below:
+ *
+ * <ol>
+ *   <li>If the transform is the identity or an affine transform, then the envelope is computed
+ *       directly from the matrix coefficients without transforming any point.</li>
+ *   <li>Otherwise all envelope corners are transformed, then each edge is sampled adaptively.
+ *       If the transform can compute {@linkplain MathTransform#derivative derivatives}, the points
+ *       where the coordinates may reach an extremum are estimated from the values and derivatives
+ *       at the edge extremities using a cubic Hermite curve. Otherwise the edges are subdivided
+ *       at their middle points. Subdivisions stop after {@value #MAX_DEPTH} levels, or as soon as
+ *       the new points do not expand the envelope.</li>
+ *   <li>If the target CRS is known, target axes having finite minimal and maximal values (e.g. latitude)
+ *       are checked for inclusion of those extremum values by inverse transformation. If an extremum is
+ *       inside the source envelope, the result is expanded to that value and the axes having a
+ *       {@linkplain RangeMeaning#WRAPAROUND wraparound} range meaning are expanded to their full range.</li>
+ * </ol>
+ *
+ * The number of transform calls is bounded by the number of dimensions and by {@value #MAX_DEPTH},
+ * regardless of the transform. Points transformed to NaN values are ignored.
+ *
+ * <h2>Wraparound axes</h2>
+ * For target axes having the {@link RangeMeaning#WRAPAROUND WRAPAROUND} range meaning (e.g. longitude),
+ * the result is the smallest range containing all sampled values when considering the axis as cyclic.
+ * Since {@link SimpleEnvelope} does not support envelopes crossing the anti-meridian, a range crossing the
+ * axis maximal value is represented by an upper value greater than that axis maximal value.
+ * For example a longitude range from 170°E to 170°W is represented by [170 … 190].
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+public final class Envelopes {
+    /**
+     * Maximal number of times that an envelope edge can be subdivided.
+     */
+    static final int MAX_DEPTH = 4;
+
+    /**
+     * Minimal number of times that an envelope edge is subdivided when the transform
+     * does not provide derivatives.
+     */
+    private static final int MIN_DEPTH = 2;
+
+    /**
+     * Do not allow instantiation of this class.
+     */
+    private Envelopes() {
+    }
+
+    /**
+     * Transforms the given envelope by the given math transform. If the transform is also a
+     * {@link CoordinateOperation} (as {@link SimpleTransform} is), then the target CRS of that operation
+     * is used for determining the axes having a wraparound range meaning and for checking if the envelope
+     * contains a pole. That CRS is also assigned to the returned envelope. Otherwise the returned envelope
+     * has no CRS and no axis is handled as a wraparound axis.
+     *
+     * @param  transform  the transform to use for transforming the envelope.
+     * @param  envelope   the envelope to transform.
+     * @return the transformed envelope.
+     * @throws MismatchedDimensionException if the envelope does not have the expected dimension.
+     * @throws TransformException if a point can not be transformed.
+     */
+    public static SimpleEnvelope transform(final MathTransform transform, final Envelope envelope)
+            throws TransformException
+    {
+        final CoordinateReferenceSystem targetCRS;
+        if (transform instanceof CoordinateOperation) {
+            targetCRS = ((CoordinateOperation) transform).getTargetCRS();
+        } else {
+            targetCRS = null;
+        }
+        return transform(transform, envelope, targetCRS);
+    }
+
+    /**
+     * Implementation of the public {@code transform(…)} method.
+     *
+     * @param  transform  the transform to use for transforming the envelope.
+     * @param  envelope   the envelope to transform.
+     * @param  targetCRS  the target CRS, or {@code null} if unknown.
+     */
+    private static SimpleEnvelope transform(final MathTransform transform, final Envelope envelope,
+            final CoordinateReferenceSystem targetCRS) throws TransformException
+    {
+        final int srcDim = transform.getSourceDimensions();
+        final int tgtDim = transform.getTargetDimensions();
+        if (envelope.getDimension() != srcDim) {
+            throw new MismatchedDimensionException("The envelope shall be " + srcDim + "-dimensional.");
+        }
+        CoordinateSystem cs = null;
+        if (targetCRS != null) {
+            cs = targetCRS.getCoordinateSystem();
+            if (cs.getDimension() != tgtDim) {
+                throw new MismatchedDimensionException("The target CRS shall be " + tgtDim + "-dimensional.");
+            }
+        }
+        final double[] lower = envelope.getLowerCorner().getCoordinate();
+        final double[] upper = envelope.getUpperCorner().getCoordinate();
+        final double[] min, max;
+        if (transform.isIdentity() && srcDim == tgtDim) {
+            min = lower;
+            max = upper;
+        } else {
+            min = new double[tgtDim];
+            max = new double[tgtDim];
+            if (!transformAffine(transform, lower, upper, min, max)) {
+                final Sampler sampler = new Sampler(transform, lower, upper, min, max);
+                sampler.sampleEdges();
+                if (cs != null) {
+                    sampler.wraparound(cs);
+                    sampler.poles(cs);
+                }
+                for (int i=0; i<tgtDim; i++) {
+                    if (!(min[i] <= max[i])) {
+                        min[i] = max[i] = Double.NaN;           // No valid point found in that dimension.
+                    }
+                }
+            }
+        }
+        return new SimpleEnvelope(new SimpleDirectPosition(targetCRS, min),
+                                  new SimpleDirectPosition(targetCRS, max));
+    }
+
+    /**
+     * Computes the envelope directly from the matrix coefficients if the given transform is affine.
+     * Each target coordinate is a linear combination of source coordinates, so its extremum values
+     * are obtained by taking, for each term, the minimum or maximum of the coefficient multiplied
+     * by the lower and upper source values.
+     *
+     * @return {@code true} on success, or {@code false} if the given transform is not a known affine transform.
+     */
+    private static boolean transformAffine(final MathTransform transform, final double[] lower,
+            final double[] upper, final double[] min, final double[] max)
+    {
+        final double[] elements;
+        if (transform instanceof AffineTransform2D) {
+            final AffineTransform2D at = (AffineTransform2D) transform;
+            elements = new double[] {
+                at.getScaleX(), at.getShearX(), at.getTranslateX(),
+                at.getShearY(), at.getScaleY(), at.getTranslateY()
+            };
+        } else if (transform instanceof ProjectiveTransform) {
+            final SimpleMatrix matrix = ((ProjectiveTransform) transform).matrix;
+            final int numRow = matrix.getNumRow();
+            final int numCol = matrix.getNumCol();
+            if (matrix.getElement(numRow - 1, numCol - 1) != 1) {
+                return false;
+            }
+            for (int i=0; i < numCol - 1; i++) {
+                if (matrix.getElement(numRow - 1, i) != 0) {
+                    return false;
+                }
+            }
+            elements = new double[(numRow - 1) * numCol];
+            for (int j=0; j < numRow - 1; j++) {
+                for (int i=0; i<numCol; i++) {
+                    elements[j*numCol + i] = matrix.getElement(j, i);
+                }
+            }
+        } else {
+            return false;
+        }
+        final int srcDim = lower.length;
+        int k = 0;
+        for (int j=0; j<min.length; j++) {
+            double lo = 0, hi = 0;
+            for (int i=0; i<srcDim; i++) {
+                final double c = elements[k++];
+                if (c != 0) {                           // Avoid 0 × ∞ = NaN for unbounded envelopes.
+                    final double a = c * lower[i];
+                    final double b = c * upper[i];
+                    lo += Math.min(a, b);
+                    hi += Math.max(a, b);
+                }
+            }
+            final double t = elements[k++];
+            min[j] = lo + t;
+            max[j] = hi + t;
+        }
+        return true;
+    }
+
+    /**
+     * Samples points on the envelope edges and accumulates the transformed coordinates.
+     * A new instance is created for each envelope to transform.
+     */
+    private static final class Sampler {
+        /**
+         * The transform to apply on the sampled points.
+         */
+        private final MathTransform transform;
+
+        /**
+         * The source envelope.
+         */
+        private final double[] lower, upper;
+
+        /**
+         * The target envelope, updated as new points are sampled.
+         */
+        private final double[] min, max;
+
+        /**
+         * All target coordinates computed so far, used for the wraparound axes.
+         * Only the {@link #count} first values are valid.
+         */
+        private double[] sampled;
+
+        /**
+         * Number of valid values in the {@link #sampled} array.
+         */
+        private int count;
+
+        /**
+         * Whether the transform can compute derivatives. This is set to {@code false}
+         * on the first failure, for avoiding to try again at every point.
+         */
+        private boolean hasDerivative;
+
+        /**
+         * Creates a new sampler for the given envelope.
+         */
+        Sampler(final MathTransform transform, final double[] lower, final double[] upper,
+                final double[] min, final double[] max)
+        {
+            this.transform = transform;
+            this.lower     = lower;
+            this.upper     = upper;
+            this.min       = min;
+            this.max       = max;
+            Arrays.fill(min, Double.POSITIVE_INFINITY);
+            Arrays.fill(max, Double.NEGATIVE_INFINITY);
+            sampled = new double[min.length * 32];
+            hasDerivative = true;
+        }
+
+        /**
+         * Adds the given target coordinates to the envelope.
+         *
+         * @param  target  the coordinates to add.
+         * @param  offset  index of the first coordinate to add.
+         * @return whether the envelope has been expanded.
+         */
+        private boolean add(final double[] target, final int offset) {
+            final int dimension = min.length;
+            if (count + dimension > sampled.length) {
+                sampled = Arrays.copyOf(sampled, sampled.length * 2);
+            }
+            System.arraycopy(target, offset, sampled, count, dimension);
+            count += dimension;
+            boolean expanded = false;
+            for (int i=0; i<dimension; i++) {
+                final double value = target[offset + i];
+                if (value < min[i]) {min[i] = value; expanded = true;}
+                if (value > max[i]) {max[i] = value; expanded = true;}
+            }
+            return expanded;
+        }
+
+        /**
+         * Returns the derivative at the given source point, or {@code null} if not available.
+         */
+        private Matrix derivative(final double[] source) {
+            if (hasDerivative) {
+                try {
+                    return transform.derivative(new SimpleDirectPosition(null, source));
+                } catch (TransformException | UnsupportedOperationException e) {
+                    hasDerivative = false;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Transforms all envelope corners, then samples all edges.
+         * Corners are transformed in a single call to the transform.
+         */
+        void sampleEdges() throws TransformException {
+            final int srcDim = lower.length;
+            final int tgtDim = min.length;
+            if (srcDim >= Integer.SIZE - 2) {
+                throw new TransformException("Too many dimensions.");
+            }
+            final int numCorners = 1 << srcDim;
+            final double[][] sources = new double[numCorners][];
+            final double[] coordinates = new double[numCorners * Math.max(srcDim, tgtDim)];
+            for (int c=0; c<numCorners; c++) {
+                final double[] source = new double[srcDim];
+                for (int i=0; i<srcDim; i++) {
+                    source[i] = ((c & (1 << i)) != 0) ? upper[i] : lower[i];
+                }
+                System.arraycopy(source, 0, coordinates, c*srcDim, srcDim);
+                sources[c] = source;
+            }
+            transform.transform(coordinates, 0, coordinates, 0, numCorners);
+            final double[][] targets  = new double[numCorners][];
+            final Matrix[] derivatives = new Matrix[numCorners];
+            for (int c=0; c<numCorners; c++) {
+                targets[c] = Arrays.copyOfRange(coordinates, c*tgtDim, (c+1)*tgtDim);
+                add(targets[c], 0);
+                derivatives[c] = derivative(sources[c]);
+            }
+            for (int c=0; c<numCorners; c++) {
+                for (int i=0; i<srcDim; i++) {
+                    final int e = c | (1 << i);
+                    if (e != c) {
+                        sampleEdge(sources[c], targets[c], derivatives[c],
+                                   sources[e], targets[e], derivatives[e], i, 0);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Samples points between the given extremities of an edge, then samples recursively
+         * the sub-segments if a new point expanded the envelope.
+         *
+         * @param  a      source coordinates of the first extremity.
+         * @param  fa     target coordinates of the first extremity.
+         * @param  da     derivative at the first extremity, or {@code null}.
+         * @param  b      source coordinates of the second extremity.
+         * @param  fb     target coordinates of the second extremity.
+         * @param  db     derivative at the second extremity, or {@code null}.
+         * @param  dim    the source dimension along which the edge is oriented.
+         * @param  depth  the number of subdivisions done so far.
+         */
+        private void sampleEdge(final double[] a, final double[] fa, final Matrix da,
+                                final double[] b, final double[] fb, final Matrix db,
+                                final int dim, final int depth) throws TransformException
+        {
+            if (depth >= MAX_DEPTH) {
+                return;
+            }
+            final double length = b[dim] - a[dim];
+            if (!(length > 0)) {
+                return;                                 // Empty edge, or NaN.
+            }
+            final double[] t;
+            if (da != null && db != null) {
+                t = extremums(fa, da, fb, db, dim, length);
+                if (t.length == 0) {
+                    return;                             // Monotonic edge in all target dimensions.
+                }
+            } else {
+                t = new double[] {0.5};
+            }
+            /*
+             * Transform all points in a single call, then check if any of them expanded the envelope.
+             * If they did, sample recursively all sub-segments between the extremities and new points.
+             */
+            final int srcDim = a.length;
+            final int tgtDim = fa.length;
+            final double[] coordinates = new double[t.length * Math.max(srcDim, tgtDim)];
+            final double[][] sources = new double[t.length][];
+            for (int k=0; k<t.length; k++) {
+                final double[] p = a.clone();
+                p[dim] += t[k] * length;
+                System.arraycopy(p, 0, coordinates, k*srcDim, srcDim);
+                sources[k] = p;
+            }
+            transform.transform(coordinates, 0, coordinates, 0, t.length);
+            boolean expanded = (da == null || db == null) && depth < MIN_DEPTH;
+            for (int k=0; k<t.length; k++) {
+                expanded |= add(coordinates, k*tgtDim);
+            }
+            if (expanded) {
+                double[] ps = a, pt = fa;
+                Matrix   pd = da;
+                for (int k=0; k <= t.length; k++) {
+                    final double[] ns, nt;
+                    final Matrix   nd;
+                    if (k < t.length) {
+                        ns = sources[k];
+                        nt = Arrays.copyOfRange(coordinates, k*tgtDim, (k+1)*tgtDim);
+                        nd = derivative(ns);
+                    } else {
+                        ns = b;  nt = fb;  nd = db;
+                    }
+                    sampleEdge(ps, pt, pd, ns, nt, nd, dim, depth + 1);
+                    ps = ns;  pt = nt;  pd = nd;
+                }
+            }
+        }
+
+        /**
+         * Estimates the positions where target coordinates may reach an extremum along an edge.
+         * For each target dimension, this method fits a cubic Hermite curve <var>p</var>(<var>t</var>)
+         * to the values and derivatives at the edge extremities, then solves
+         * <var>p</var>′(<var>t</var>) = 0 for 0 &lt; <var>t</var> &lt; 1.
+         *
+         * @return the sorted parameter values in the (0…1) range where an extremum may be located.
+         */
+        private static double[] extremums(final double[] fa, final Matrix da, final double[] fb, final Matrix db,
+                                          final int dim, final double length)
+        {
+            final double[] t = new double[fa.length * 2];
+            int n = 0;
+            for (int i=0; i<fa.length; i++) {
+                final double ja = da.getElement(i, dim) * length;
+                final double jb = db.getElement(i, dim) * length;
+                final double a2 = 3*(fb[i] - fa[i]) - 2*ja - jb;
+                final double a3 = 2*(fa[i] - fb[i]) +   ja + jb;
+                /*
+                 * p(t)  = a3⋅t³ + a2⋅t² + ja⋅t + fa
+                 * p′(t) = A⋅t² + B⋅t + C  with A = 3⋅a3, B = 2⋅a2, C = ja.
+                 */
+                final double A = 3*a3, B = 2*a2, C = ja;
+                if (Math.abs(A) <= Math.ulp(Math.abs(B) + Math.abs(C)) * 4) {
+                    if (B != 0) {
+                        n = addRoot(t, n, -C / B);
+                    }
+                } else {
+                    final double d = B*B - 4*A*C;
+                    if (d >= 0) {
+                        final double s = Math.sqrt(d);
+                        n = addRoot(t, n, (-B + s) / (2*A));
+                        n = addRoot(t, n, (-B - s) / (2*A));
+                    }
+                }
+            }
+            final double[] roots = Arrays.copyOf(t, n);
+            Arrays.sort(roots);
+            return roots;
+        }
+
+        /**
+         * Adds the given root to the array if it is inside the (0…1) range and not already present.
+         *
+         * @return the new number of roots.
+         */
+        private static int addRoot(final double[] t, int n, final double root) {
+            if (root > 0 && root < 1) {
+                for (int i=0; i<n; i++) {
+                    if (t[i] == root) return n;
+                }
+                t[n++] = root;
+            }
+            return n;
+        }
+
+        /**
+         * Replaces the ranges of wraparound axes by the smallest cyclic range containing all sampled values.
+         * The result is found by searching for the largest gap between sampled values on the axis cycle.
+         *
+         * @param  cs  the target coordinate system.
+         */
+        void wraparound(final CoordinateSystem cs) {
+            final int tgtDim = min.length;
+            for (int i=0; i<tgtDim; i++) {
+                final CoordinateSystemAxis axis = cs.getAxis(i);
+                final double minimum = axis.getMinimumValue();
+                final double period  = axis.getMaximumValue() - minimum;
+                if (RangeMeaning.WRAPAROUND.equals(axis.getRangeMeaning()) && period > 0 && period != Double.POSITIVE_INFINITY) {
+                    final double[] values = new double[count / tgtDim];
+                    int n = 0;
+                    for (int j=i; j<count; j += tgtDim) {
+                        final double value = sampled[j];
+                        if (!Double.isNaN(value)) {
+                            values[n++] = value - period * Math.floor((value - minimum) / period);
+                        }
+                    }
+                    if (n != 0) {
+                        Arrays.sort(values, 0, n);
+                        int start = 0;
+                        double gap = values[0] + period - values[n-1];          // Gap across the axis bounds.
+                        for (int j=1; j<n; j++) {
+                            final double g = values[j] - values[j-1];
+                            if (g > gap) {
+                                gap = g;
+                                start = j;
+                            }
+                        }
+                        min[i] = values[start];
+                        max[i] = values[start] + (period - gap);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Expands the envelope to the minimal or maximal values of bounded axes (e.g. the poles)
+         * if those values are reached inside the source envelope. Those points are not on the
+         * envelope edges, so they can not be found by {@link #sampleEdges()}.
+         *
+         * @param  cs  the target coordinate system.
+         */
+        void poles(final CoordinateSystem cs) throws TransformException {
+            final MathTransform inverse;
+            try {
+                inverse = transform.inverse();
+            } catch (NoninvertibleTransformException e) {
+                return;
+            }
+            final int tgtDim = min.length;
+            final double[] center = new double[tgtDim];
+            for (int i=0; i<tgtDim; i++) {
+                center[i] = (min[i] + max[i]) / 2;
+            }
+            boolean fullRange = false;
+            for (int i=0; i<tgtDim; i++) {
+                final CoordinateSystemAxis axis = cs.getAxis(i);
+                if (RangeMeaning.WRAPAROUND.equals(axis.getRangeMeaning())) {
+                    continue;
+                }
+                final double[] extremums = {axis.getMinimumValue(), axis.getMaximumValue()};
+                for (final double extremum : extremums) {
+                    if (Double.isInfinite(extremum) || (extremum >= min[i] && extremum <= max[i])) {
+                        continue;
+                    }
+                    final double[] target = center.clone();
+                    target[i] = extremum;
+                    final DirectPosition source;
+                    try {
+                        source = inverse.transform(new SimpleDirectPosition(null, target), null);
+                    } catch (TransformException e) {
+                        continue;                       // The extremum is outside the transform domain.
+                    }
+                    if (contains(source)) {
+                        if (extremum < min[i]) min[i] = extremum;
+                        if (extremum > max[i]) max[i] = extremum;
+                        fullRange = true;
+                    }
+                }
+            }
+            if (fullRange) {
+                for (int i=0; i<tgtDim; i++) {
+                    final CoordinateSystemAxis axis = cs.getAxis(i);
+                    if (RangeMeaning.WRAPAROUND.equals(axis.getRangeMeaning())) {
+                        min[i] = axis.getMinimumValue();
+                        max[i] = axis.getMaximumValue();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns {@code true} if the source envelope contains the given position.
+         */
+        private boolean contains(final DirectPosition position) {
+            for (int i=0; i<lower.length; i++) {
+                final double value = position.getOrdinate(i);
+                if (!(value >= lower[i] && value <= upper[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,487 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.MathTransform2D;
+import org.opengis.referencing.operation.TransformException;
+
+
+/**
+ * An approximation of an expensive two-dimensional transform by bilinear interpolations in a grid.
+ * The exact transform is sampled on an adaptive grid covering a given domain: each cell is subdivided
+ * in four smaller cells as long as the interpolation error, estimated at the middle of the cell and
+ * at the middle of its edges, exceeds the tolerance given at construction time. Then the points
+ * are transformed by finding the cell containing each point and interpolating between the four
+ * cell corners. This is much faster than the exact transform when transforming millions of points,
+ * for example when warping an image.
+ *
+ * <p>The approximation is constrained as below:</p>
+ * <ul>
+ *   <li>The error is checked only at the sampling points. Between those points the error is
+ *       usually of the same magnitude, but it is not guaranteed to be below the tolerance.</li>
+ *   <li>Cells which still exceed the tolerance after {@value #MAX_DEPTH} subdivisions, or where the
+ *       exact transform produces NaN values, are not interpolated. Points in those cells are
+ *       transformed by the exact transform.</li>
+ *   <li>Points outside the domain are also transformed by the exact transform.</li>
+ * </ul>
+ *
+ * <p>This class is immutable and thread-safe if the exact transform is thread-safe.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+public class InterpolatedTransform extends SimpleTransform2D {
+    /**
+     * For cross-version compatibility.
+     */
+    private static final long serialVersionUID = -3419208523806457631L;
+
+    /**
+     * Number of subdivisions applied unconditionally, for reducing the risk that the error is
+     * underestimated because the sampling points of a large cell happen to fit the exact transform.
+     */
+    private static final int MIN_DEPTH = 2;
+
+    /**
+     * Maximal number of subdivisions of the domain. Cells at this depth which still exceed the
+     * tolerance are transformed by the exact transform.
+     */
+    static final int MAX_DEPTH = 8;
+
+    /**
+     * Value in the {@link #children} array for cells where points are computed by interpolation.
+     */
+    private static final int INTERPOLATED = -1;
+
+    /**
+     * Value in the {@link #children} array for cells where points are computed by the exact transform.
+     */
+    private static final int EXACT = -2;
+
+    /**
+     * The exact transform approximated by this transform.
+     */
+    private final MathTransform2D transform;
+
+    /**
+     * The domain where the approximation is applied, in units of source coordinates.
+     */
+    private final double xmin, ymin, width, height;
+
+    /**
+     * The maximal interpolation error, in units of target coordinates.
+     */
+    private final double tolerance;
+
+    /**
+     * For each cell, the index of its first child or {@link #INTERPOLATED} or {@link #EXACT}.
+     * The four children of a cell are stored consecutively in the lower-left, lower-right,
+     * upper-left and upper-right order. The root cell is at index 0.
+     */
+    private final int[] children;
+
+    /**
+     * The target coordinates of the four corners of each cell, in the same order than the children.
+     * The coordinates of cell <var>i</var> start at index <var>i</var>×8.
+     */
+    private final double[] corners;
+
+    /**
+     * Creates an approximation of the given transform in the given domain.
+     * This constructor invokes the exact transform for sampling the domain.
+     *
+     * @param  transform  the exact transform to approximate.
+     * @param  domain     the domain where to approximate the transform, in units of source coordinates.
+     * @param  tolerance  the maximal interpolation error, in units of target coordinates.
+     * @throws TransformException if the exact transform failed to transform a sampling point.
+     */
+    public InterpolatedTransform(final MathTransform2D transform, final Rectangle2D domain, final double tolerance)
+            throws TransformException
+    {
+        super(null, "Interpolated transform", null, null);
+        Objects.requireNonNull(transform, "transform");
+        if (!(tolerance > 0)) {
+            throw new IllegalArgumentException("The tolerance shall be a positive number.");
+        }
+        if (!(domain.getWidth() > 0 && domain.getHeight() > 0)) {
+            throw new IllegalArgumentException("The domain shall not be empty.");
+        }
+        this.transform = transform;
+        this.tolerance = tolerance;
+        xmin   = domain.getMinX();
+        ymin   = domain.getMinY();
+        width  = domain.getWidth();
+        height = domain.getHeight();
+        /*
+         * Evaluate the exact transform at the corners of the whole domain, then subdivide the cells
+         * one level at a time. For each level, the sampling points of all cells are transformed in
+         * a single call to the exact transform. The sampling points are the corners of the children,
+         * so no other evaluation is needed if the cell is subdivided.
+         */
+        int[]    tree  = new int[64];
+        double[] value = new double[64 * 8];
+        final double xmax = domain.getMaxX();
+        final double ymax = domain.getMaxY();
+        value[0] = xmin; value[1] = ymin;
+        value[2] = xmax; value[3] = ymin;
+        value[4] = xmin; value[5] = ymax;
+        value[6] = xmax; value[7] = ymax;
+        transform.transform(value, 0, value, 0, 4);
+        int count = 1;
+        int[]    cells   = {0};
+        double[] origins = {xmin, ymin};
+        double   cw = width, ch = height;
+        final double[] grid = new double[18];
+        for (int depth=0; cells.length != 0; depth++) {
+            final int n = cells.length;
+            final double hw = cw / 2;
+            final double hh = ch / 2;
+            final double[] samples = new double[n * 10];
+            for (int i=0; i<n; i++) {
+                final double x0 = origins[i*2    ];
+                final double y0 = origins[i*2 + 1];
+                final int j = i * 10;
+                samples[j  ] = x0 + hw; samples[j+1] = y0;              // Middle of lower edge.
+                samples[j+2] = x0;      samples[j+3] = y0 + hh;         // Middle of left edge.
+                samples[j+4] = x0 + hw; samples[j+5] = y0 + hh;         // Center.
+                samples[j+6] = x0 + cw; samples[j+7] = y0 + hh;         // Middle of right edge.
+                samples[j+8] = x0 + hw; samples[j+9] = y0 + ch;         // Middle of upper edge.
+            }
+            transform.transform(samples, 0, samples, 0, n * 5);
+            int numNext = 0;
+            int[]    nextCells   = new int[n * 4];
+            double[] nextOrigins = new double[n * 8];
+            for (int i=0; i<n; i++) {
+                final int cell = cells[i];
+                /*
+                 * Copy the corners and the sampling points in a 3×3 grid of target coordinates,
+                 * then compare the sampling points with the values interpolated from the corners.
+                 */
+                final int c = cell * 8;
+                final int j = i * 10;
+                System.arraycopy(value,   c,   grid,  0, 2);
+                System.arraycopy(samples, j,   grid,  2, 2);
+                System.arraycopy(value,   c+2, grid,  4, 2);
+                System.arraycopy(samples, j+2, grid,  6, 6);
+                System.arraycopy(value,   c+4, grid, 12, 2);
+                System.arraycopy(samples, j+8, grid, 14, 2);
+                System.arraycopy(value,   c+6, grid, 16, 2);
+                double error = 0;
+                for (int d=0; d<2; d++) {
+                    final double c00 = grid[d], c10 = grid[4+d], c01 = grid[12+d], c11 = grid[16+d];
+                    error = Math.max(error, Math.abs(grid[ 2+d] - (c00 + c10) / 2));
+                    error = Math.max(error, Math.abs(grid[ 6+d] - (c00 + c01) / 2));
+                    error = Math.max(error, Math.abs(grid[ 8+d] - (c00 + c10 + c01 + c11) / 4));
+                    error = Math.max(error, Math.abs(grid[10+d] - (c10 + c11) / 2));
+                    error = Math.max(error, Math.abs(grid[14+d] - (c01 + c11) / 2));
+                }
+                if (depth >= MIN_DEPTH && error <= tolerance) {
+                    tree[cell] = INTERPOLATED;
+                    continue;
+                }
+                if (depth >= MAX_DEPTH) {
+                    tree[cell] = EXACT;
+                    continue;
+                }
+                if (count + 4 > tree.length) {
+                    tree  = Arrays.copyOf(tree,  tree.length * 2);
+                    value = Arrays.copyOf(value, tree.length * 8);
+                }
+                tree[cell] = count;
+                for (int k=0; k<4; k++) {
+                    final int cx = k & 1;
+                    final int cy = k >> 1;
+                    final int g  = (cy * 3 + cx) * 2;
+                    final int v  = (count + k) * 8;
+                    System.arraycopy(grid, g,     value, v,     4);      // Lower-left and lower-right corners.
+                    System.arraycopy(grid, g + 6, value, v + 4, 4);      // Upper-left and upper-right corners.
+                    nextCells[numNext] = count + k;
+                    nextOrigins[numNext*2    ] = origins[i*2    ] + cx * hw;
+                    nextOrigins[numNext*2 + 1] = origins[i*2 + 1] + cy * hh;
+                    numNext++;
+                }
+                count += 4;
+            }
+            cells   = Arrays.copyOf(nextCells,   numNext);
+            origins = Arrays.copyOf(nextOrigins, numNext * 2);
+            cw = hw;
+            ch = hh;
+        }
+        children = Arrays.copyOf(tree,  count);
+        corners  = Arrays.copyOf(value, count * 8);
+    }
+
+    /**
+     * Returns the exact transform approximated by this transform.
+     *
+     * @return the exact transform.
+     */
+    public MathTransform2D getExactTransform() {
+        return transform;
+    }
+
+    /**
+     * Returns the maximal interpolation error at the sampling points, in units of target coordinates.
+     *
+     * @return the tolerance specified at construction time.
+     */
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Returns the domain where the approximation is applied, in units of source coordinates.
+     *
+     * @return the domain specified at construction time.
+     */
+    public Rectangle2D getDomain() {
+        return new Rectangle2D.Double(xmin, ymin, width, height);
+    }
+
+    /**
+     * Transforms the specified point, by interpolation if the point is in an interpolated cell
+     * or by the exact transform otherwise.
+     *
+     * @param  ptSrc  the coordinate point to be transformed.
+     * @param  ptDst  the coordinate point that stores the result of transforming {@code ptSrc}, or {@code null}.
+     * @return the coordinate point after transforming {@code ptSrc}.
+     * @throws TransformException if the point can not be transformed.
+     */
+    @Override
+    public Point2D transform(final Point2D ptSrc, Point2D ptDst) throws TransformException {
+        final double[] coordinates = {ptSrc.getX(), ptSrc.getY()};
+        transform(coordinates, 0, coordinates, 0, 1);
+        if (ptDst == null) {
+            ptDst = new Point2D.Double();
+        }
+        ptDst.setLocation(coordinates[0], coordinates[1]);
+        return ptDst;
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values. Points in interpolated cells are transformed
+     * in this method. Consecutive points outside interpolated cells are transformed by a single call to
+     * the exact transform.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned. May be the same than {@code srcPts}.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     * @throws TransformException if a point can not be transformed by the exact transform.
+     */
+    @Override
+    public void transform(double[] srcPts, int srcOff, final double[] dstPts, int dstOff, int numPts)
+            throws TransformException
+    {
+        if (srcPts == dstPts && needsCopy(srcOff, 2, dstOff, 2, numPts)) {
+            srcPts = Arrays.copyOfRange(srcPts, srcOff, srcOff + 2*numPts);
+            srcOff = 0;
+        }
+        int exactSrc = 0, exactDst = 0, numExact = 0;
+        while (--numPts >= 0) {
+            final double x = srcPts[srcOff];
+            final double y = srcPts[srcOff + 1];
+            double u = (x - xmin) / width;
+            double v = (y - ymin) / height;
+            int cell = EXACT;
+            if (u >= 0 && u <= 1 && v >= 0 && v <= 1) {
+                int child;
+                cell = 0;
+                while ((child = children[cell]) >= 0) {
+                    int k = 0;
+                    u *= 2;
+                    v *= 2;
+                    if (u >= 1) {u -= 1; k  = 1;}
+                    if (v >= 1) {v -= 1; k |= 2;}
+                    cell = child + k;
+                }
+                if (child != INTERPOLATED) {
+                    cell = EXACT;
+                }
+            }
+            if (cell == EXACT) {
+                if (numExact == 0) {
+                    exactSrc = srcOff;
+                    exactDst = dstOff;
+                }
+                numExact++;
+            } else {
+                if (numExact != 0) {
+                    transform.transform(srcPts, exactSrc, dstPts, exactDst, numExact);
+                    numExact = 0;
+                }
+                final int i = cell * 8;
+                final double a = 1 - u;
+                final double b = 1 - v;
+                dstPts[dstOff    ] = b * (a*corners[i    ] + u*corners[i + 2]) + v * (a*corners[i + 4] + u*corners[i + 6]);
+                dstPts[dstOff + 1] = b * (a*corners[i + 1] + u*corners[i + 3]) + v * (a*corners[i + 5] + u*corners[i + 7]);
+            }
+            srcOff += 2;
+            dstOff += 2;
+        }
+        if (numExact != 0) {
+            transform.transform(srcPts, exactSrc, dstPts, exactDst, numExact);
+        }
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values. The points are processed by chunks
+     * of fixed size, using a temporary buffer in double precision.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned. May be the same than {@code srcPts}.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     * @throws TransformException if a point can not be transformed by the exact transform.
+     */
+    @Override
+    public void transform(float[] srcPts, int srcOff, final float[] dstPts, int dstOff, int numPts)
+            throws TransformException
+    {
+        if (srcPts == dstPts && needsCopy(srcOff, 2, dstOff, 2, numPts)) {
+            srcPts = Arrays.copyOfRange(srcPts, srcOff, srcOff + 2*numPts);
+            srcOff = 0;
+        }
+        final double[] buffer = new double[Math.min(numPts, CHUNK_SIZE) * 2];
+        while (numPts > 0) {
+            final int n = Math.min(numPts, CHUNK_SIZE);
+            for (int i=0; i < n*2; i++) {
+                buffer[i] = srcPts[srcOff++];
+            }
+            transform(buffer, 0, buffer, 0, n);
+            for (int i=0; i < n*2; i++) {
+                dstPts[dstOff++] = (float) buffer[i];
+            }
+            numPts -= n;
+        }
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values. The points are copied in the destination
+     * array, then transformed in place.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     * @throws TransformException if a point can not be transformed by the exact transform.
+     */
+    @Override
+    public void transform(final float[] srcPts, final int srcOff, final double[] dstPts, final int dstOff, final int numPts)
+            throws TransformException
+    {
+        for (int i=0; i < numPts*2; i++) {
+            dstPts[dstOff + i] = srcPts[srcOff + i];
+        }
+        transform(dstPts, dstOff, dstPts, dstOff, numPts);
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values. The points are processed by chunks
+     * of fixed size, using a temporary buffer in double precision.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     * @throws TransformException if a point can not be transformed by the exact transform.
+     */
+    @Override
+    public void transform(final double[] srcPts, int srcOff, final float[] dstPts, int dstOff, int numPts)
+            throws TransformException
+    {
+        final double[] buffer = new double[Math.min(numPts, CHUNK_SIZE) * 2];
+        while (numPts > 0) {
+            final int n = Math.min(numPts, CHUNK_SIZE);
+            transform(srcPts, srcOff, buffer, 0, n);
+            for (int i=0; i < n*2; i++) {
+                dstPts[dstOff++] = (float) buffer[i];
+            }
+            srcOff += n * 2;
+            numPts -= n;
+        }
+    }
+
+    /**
+     * Gets the derivative of this transform at a point. In interpolated cells, this is the derivative
+     * of the bilinear interpolation. Elsewhere, this is the derivative of the exact transform.
+     *
+     * @param  point  the coordinate point where to evaluate the derivative.
+     * @return the derivative at the specified point (never {@code null}).
+     * @throws TransformException if the derivative can not be evaluated at the specified point.
+     */
+    @Override
+    public Matrix derivative(final Point2D point) throws TransformException {
+        double u = (point.getX() - xmin) / width;
+        double v = (point.getY() - ymin) / height;
+        if (u >= 0 && u <= 1 && v >= 0 && v <= 1) {
+            double sx = width, sy = height;
+            int cell = 0, child;
+            while ((child = children[cell]) >= 0) {
+                int k = 0;
+                u *= 2;
+                v *= 2;
+                sx /= 2;
+                sy /= 2;
+                if (u >= 1) {u -= 1; k  = 1;}
+                if (v >= 1) {v -= 1; k |= 2;}
+                cell = child + k;
+            }
+            if (child == INTERPOLATED) {
+                final int i = cell * 8;
+                final SimpleMatrix derivative = SimpleMatrix.create(2, 2);
+                for (int d=0; d<2; d++) {
+                    final double c00 = corners[i+d], c10 = corners[i+2+d], c01 = corners[i+4+d], c11 = corners[i+6+d];
+                    derivative.setElement(d, 0, ((1-v) * (c10 - c00) + v * (c11 - c01)) / sx);
+                    derivative.setElement(d, 1, ((1-u) * (c01 - c00) + u * (c11 - c10)) / sy);
+                }
+                return derivative;
+            }
+        }
+        return transform.derivative(point);
+    }
+
+    /**
+     * Returns {@code false} since this transform is assumed to approximate a non-linear transform.
+     */
+    @Override
+    public boolean isIdentity() {
+        return false;
+    }
+
+    /**
+     * Compares this transform with the given object for equality.
+     *
+     * @param  object  the object to compare with this {@code InterpolatedTransform}.
+     * @return {@code true} if the given object is equals to this object.
+     */
+    @Override
+    public boolean equals(final Object object) {
+        if (super.equals(object)) {
+            final InterpolatedTransform other = (InterpolatedTransform) object;
+            return transform.equals(other.transform)
+                    && Double.doubleToLongBits(tolerance) == Double.doubleToLongBits(other.tolerance)
+                    && Double.doubleToLongBits(xmin)      == Double.doubleToLongBits(other.xmin)
+                    && Double.doubleToLongBits(ymin)      == Double.doubleToLongBits(other.ymin)
+                    && Double.doubleToLongBits(width)     == Double.doubleToLongBits(other.width)
+                    && Double.doubleToLongBits(height)    == Double.doubleToLongBits(other.height);
+        }
+        return false;
+    }
+}
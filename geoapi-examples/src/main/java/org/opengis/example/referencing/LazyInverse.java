@@ -0,0 +1,99 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.NoninvertibleTransformException;
+
+
+/**
+ * Computes the inverse of a math transform when first needed, without locking.
+ * The inverse is stored in a {@code volatile} field of the transform and published
+ * by a <cite>compare-and-set</cite> operation. Consequently the common case where
+ * the inverse has already been computed costs only a volatile read.
+ *
+ * <p>If many threads request the inverse of the same transform for the first time
+ * concurrently, each thread may compute an inverse but only the first one to finish
+ * is retained. All threads receive that same instance, so {@code inverse()} keeps
+ * returning the same object as a {@code synchronized} implementation would.
+ * The inverse computation shall therefore be free of side effects.</p>
+ *
+ * <p>Example:</p>
+ * <blockquote><pre>private transient volatile MyTransform inverse;
+ *
+ *private static final AtomicReferenceFieldUpdater&lt;MyTransform,MyTransform&gt; INVERSE =
+ *        AtomicReferenceFieldUpdater.newUpdater(MyTransform.class, MyTransform.class, "inverse");
+ *
+ *public MyTransform inverse() throws NoninvertibleTransformException {
+ *    return LazyInverse.get(INVERSE, this, () -&gt; {
+ *        MyTransform inverse = new MyTransform(...);
+ *        inverse.inverse = this;
+ *        return inverse;
+ *    });
+ *}</pre></blockquote>
+ *
+ * This class has no dependency other than GeoAPI, so wrappers of other libraries can copy
+ * the pattern even if they do not depend on the GeoAPI examples module.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+public final class LazyInverse {
+    /**
+     * Computes the inverse of a transform.
+     *
+     * @param <T>  the type of the inverse transform.
+     */
+    @FunctionalInterface
+    public interface Creator<T extends MathTransform> {
+        /**
+         * Creates the inverse transform. This method may be invoked more than once
+         * if many threads request the inverse concurrently.
+         *
+         * @return the inverse transform (never {@code null}).
+         * @throws NoninvertibleTransformException if the transform is not invertible.
+         */
+        T create() throws NoninvertibleTransformException;
+    }
+
+    /**
+     * Do not allow instantiation of this class.
+     */
+    private LazyInverse() {
+    }
+
+    /**
+     * Returns the inverse stored in the given field, computing it if not yet done.
+     * If the inverse can not be computed, then the field is left unchanged and the
+     * computation will be attempted again on the next invocation.
+     *
+     * @param  <S>        the type of the transform.
+     * @param  <T>        the type of the inverse transform.
+     * @param  field      the {@code volatile} field where to cache the inverse transform.
+     * @param  transform  the transform for which to get the inverse.
+     * @param  creator    the function to invoke for computing the inverse if not yet cached.
+     * @return the inverse transform.
+     * @throws NoninvertibleTransformException if the transform is not invertible.
+     */
+    public static <S extends MathTransform, T extends MathTransform> T get(
+            final AtomicReferenceFieldUpdater<S,T> field, final S transform, final Creator<? extends T> creator)
+            throws NoninvertibleTransformException
+    {
+        T inverse = field.get(transform);
+        if (inverse == null) {
+            inverse = creator.create();
+            if (!field.compareAndSet(transform, null, inverse)) {
+                inverse = field.get(transform);         // Another thread published its inverse first.
+            }
+        }
+        return inverse;
+    }
+}
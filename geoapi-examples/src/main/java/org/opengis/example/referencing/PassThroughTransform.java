@@ -0,0 +1,471 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import org.opengis.geometry.DirectPosition;
+import org.opengis.geometry.MismatchedDimensionException;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.referencing.operation.NoninvertibleTransformException;
+
+import org.opengis.example.geometry.SimpleDirectPosition;
+
+
+/**
+ * A {@link MathTransform} which passes through a subset of ordinates to another transform.
+ * The ordinates before the first affected ordinate and the trailing ordinates are copied unchanged.
+ * Instances of this class are created by {@link SimpleTransformFactory#createPassThroughTransform
+ * SimpleTransformFactory.createPassThroughTransform(…)}.
+ *
+ * <p>The {@code transform} methods expecting array arguments gather the affected ordinates of a
+ * chunk of points in a temporary buffer of fixed size, transform that buffer in a single call to
+ * the sub-transform, then write the result back. When the source and target arrays are the same
+ * with the same offset and the number of dimensions is unchanged, the ordinates which are passed
+ * through are not copied at all: only the affected ordinate range is overwritten in place.
+ * When the source and target ranges overlap in any other way, each chunk of source coordinates
+ * is copied in a buffer of fixed size before to be transformed.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ *
+ * @see SimpleTransformFactory#createPassThroughTransform(int, MathTransform, int)
+ */
+public class PassThroughTransform extends SimpleTransform {
+    /**
+     * For cross-version compatibility.
+     */
+    private static final long serialVersionUID = -1673997634240223449L;
+
+    /**
+     * Index of the first affected ordinate.
+     */
+    protected final int firstAffectedOrdinate;
+
+    /**
+     * The sub-transform to apply on the affected ordinates.
+     */
+    protected final MathTransform subTransform;
+
+    /**
+     * Number of unaffected ordinates after the affected ones.
+     */
+    protected final int numTrailingOrdinates;
+
+    /**
+     * The inverse of this transform, computed when first needed.
+     *
+     * @see #inverse()
+     */
+    private transient volatile PassThroughTransform inverse;
+
+    /**
+     * Updater for the {@link #inverse} field, used for publishing the inverse without locking.
+     */
+    private static final AtomicReferenceFieldUpdater<PassThroughTransform,PassThroughTransform> INVERSE =
+            AtomicReferenceFieldUpdater.newUpdater(PassThroughTransform.class, PassThroughTransform.class, "inverse");
+
+    /**
+     * Creates a new pass through transform.
+     *
+     * @param firstAffectedOrdinate  index of the first affected ordinate.
+     * @param subTransform           the sub-transform to apply on the affected ordinates.
+     * @param numTrailingOrdinates   number of trailing ordinates to pass through.
+     */
+    public PassThroughTransform(final int firstAffectedOrdinate, final MathTransform subTransform,
+            final int numTrailingOrdinates)
+    {
+        super(null, "Pass through transform", null, null);
+        Objects.requireNonNull(subTransform);
+        if (firstAffectedOrdinate < 0 || numTrailingOrdinates < 0) {
+            throw new IllegalArgumentException("Number of pass through ordinates can not be negative.");
+        }
+        this.firstAffectedOrdinate = firstAffectedOrdinate;
+        this.subTransform          = subTransform;
+        this.numTrailingOrdinates  = numTrailingOrdinates;
+    }
+
+    /**
+     * Gets the dimension of input points, which is the source dimension of the sub-transform
+     * plus the number of pass through ordinates.
+     */
+    @Override
+    public int getSourceDimensions() {
+        return firstAffectedOrdinate + subTransform.getSourceDimensions() + numTrailingOrdinates;
+    }
+
+    /**
+     * Gets the dimension of output points, which is the target dimension of the sub-transform
+     * plus the number of pass through ordinates.
+     */
+    @Override
+    public int getTargetDimensions() {
+        return firstAffectedOrdinate + subTransform.getTargetDimensions() + numTrailingOrdinates;
+    }
+
+    /**
+     * Transforms the specified {@code ptSrc}, passing through the ordinates that are not
+     * affected by the sub-transform.
+     *
+     * @throws MismatchedDimensionException if {@code ptSrc} or {@code ptDst} does not have the expected dimension.
+     * @throws TransformException if the point can not be transformed.
+     */
+    @Override
+    public DirectPosition transform(final DirectPosition ptSrc, DirectPosition ptDst) throws TransformException {
+        final int srcDim = getSourceDimensions();
+        final int dstDim = getTargetDimensions();
+        if (ptSrc.getDimension() != srcDim) {
+            throw new MismatchedDimensionException("Wrong number of source dimensions.");
+        }
+        if (ptDst == null) {
+            ptDst = new SimpleDirectPosition(dstDim);
+        } else if (ptDst.getDimension() != dstDim) {
+            throw new MismatchedDimensionException("Wrong number of target dimensions.");
+        }
+        final double[] ordinates = ptSrc.getCoordinate();
+        final double[] result = new double[dstDim];
+        transform(ordinates, 0, result, 0, 1);
+        for (int i=0; i<dstDim; i++) {
+            ptDst.setOrdinate(i, result[i]);
+        }
+        return ptDst;
+    }
+
+    /**
+     * Returns {@code true} if the source and target ranges in the same array overlap in a way
+     * that prevent this class to transform the points in a single pass. This is the case when
+     * the arrays are the same but the transform is not done fully in place.
+     */
+    private static boolean overlaps(final int srcOff, final int srcDim, final int dstOff, final int dstDim, final int numPts) {
+        if (srcOff == dstOff && srcDim == dstDim) {
+            return false;
+        }
+        return srcOff < dstOff + numPts*dstDim && dstOff < srcOff + numPts*srcDim;
+    }
+
+    /**
+     * Allocates the temporary buffer for the affected ordinates of a chunk of points.
+     */
+    private double[] buffer(final int numPts) {
+        return new double[Math.min(numPts, CHUNK_SIZE) *
+                Math.max(subTransform.getSourceDimensions(), subTransform.getTargetDimensions())];
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned. May be the same than {@code srcPts}.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Override
+    public void transform(final double[] srcPts, final int srcOff, final double[] dstPts, final int dstOff, final int numPts)
+            throws TransformException
+    {
+        final int srcDim = getSourceDimensions();
+        final int dstDim = getTargetDimensions();
+        final boolean inPlace = (srcPts == dstPts && srcOff == dstOff && srcDim == dstDim);
+        final double[] buffer = buffer(numPts);
+        if (srcPts == dstPts && !inPlace && overlaps(srcOff, srcDim, dstOff, dstDim, numPts)) {
+            /*
+             * The pass through ordinates are copied point by point while the target is written,
+             * so each chunk of source coordinates is copied before to be transformed.
+             */
+            final double[] chunk = new double[Math.min(numPts, CHUNK_SIZE) * srcDim];
+            transformByChunks(true, srcOff, srcDim, dstOff, dstDim, numPts, (s, d, n) -> {
+                System.arraycopy(srcPts, s, chunk, 0, n * srcDim);
+                transform(chunk, 0, dstPts, d, n, buffer, false);
+            });
+        } else {
+            transform(srcPts, srcOff, dstPts, dstOff, numPts, buffer, inPlace);
+        }
+    }
+
+    /**
+     * Implementation of {@link #transform(double[], int, double[], int, int)} for non-overlapping ranges,
+     * or for ranges which are exactly the same.
+     *
+     * @param  buffer   the temporary buffer for the affected ordinates.
+     * @param  inPlace  {@code true} if the source and target ranges are the same.
+     */
+    private void transform(final double[] srcPts, int srcOff, final double[] dstPts, int dstOff, int numPts,
+            final double[] buffer, final boolean inPlace) throws TransformException
+    {
+        final int subSrc = subTransform.getSourceDimensions();
+        final int subDst = subTransform.getTargetDimensions();
+        final int srcDim = firstAffectedOrdinate + subSrc + numTrailingOrdinates;
+        final int dstDim = firstAffectedOrdinate + subDst + numTrailingOrdinates;
+        while (numPts > 0) {
+            final int n = Math.min(numPts, CHUNK_SIZE);
+            for (int p=0, s=srcOff + firstAffectedOrdinate; p<n; p++, s += srcDim) {
+                System.arraycopy(srcPts, s, buffer, p*subSrc, subSrc);
+            }
+            subTransform.transform(buffer, 0, buffer, 0, n);
+            for (int p=0; p<n; p++) {
+                final int s = srcOff + p*srcDim;
+                final int d = dstOff + p*dstDim;
+                if (!inPlace) {
+                    System.arraycopy(srcPts, s, dstPts, d, firstAffectedOrdinate);
+                    System.arraycopy(srcPts, s + firstAffectedOrdinate + subSrc,
+                                     dstPts, d + firstAffectedOrdinate + subDst, numTrailingOrdinates);
+                }
+                System.arraycopy(buffer, p*subDst, dstPts, d + firstAffectedOrdinate, subDst);
+            }
+            srcOff += n * srcDim;
+            dstOff += n * dstDim;
+            numPts -= n;
+        }
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned. May be the same than {@code srcPts}.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Override
+    public void transform(final float[] srcPts, final int srcOff, final float[] dstPts, final int dstOff, final int numPts)
+            throws TransformException
+    {
+        final int srcDim = getSourceDimensions();
+        final int dstDim = getTargetDimensions();
+        final boolean inPlace = (srcPts == dstPts && srcOff == dstOff && srcDim == dstDim);
+        final double[] buffer = buffer(numPts);
+        if (srcPts == dstPts && !inPlace && overlaps(srcOff, srcDim, dstOff, dstDim, numPts)) {
+            final float[] chunk = new float[Math.min(numPts, CHUNK_SIZE) * srcDim];
+            transformByChunks(true, srcOff, srcDim, dstOff, dstDim, numPts, (s, d, n) -> {
+                System.arraycopy(srcPts, s, chunk, 0, n * srcDim);
+                transform(chunk, 0, dstPts, d, n, buffer, false);
+            });
+        } else {
+            transform(srcPts, srcOff, dstPts, dstOff, numPts, buffer, inPlace);
+        }
+    }
+
+    /**
+     * Implementation of {@link #transform(float[], int, float[], int, int)} for non-overlapping ranges,
+     * or for ranges which are exactly the same.
+     *
+     * @param  buffer   the temporary buffer for the affected ordinates.
+     * @param  inPlace  {@code true} if the source and target ranges are the same.
+     */
+    private void transform(final float[] srcPts, int srcOff, final float[] dstPts, int dstOff, int numPts,
+            final double[] buffer, final boolean inPlace) throws TransformException
+    {
+        final int subSrc = subTransform.getSourceDimensions();
+        final int subDst = subTransform.getTargetDimensions();
+        final int srcDim = firstAffectedOrdinate + subSrc + numTrailingOrdinates;
+        final int dstDim = firstAffectedOrdinate + subDst + numTrailingOrdinates;
+        while (numPts > 0) {
+            final int n = Math.min(numPts, CHUNK_SIZE);
+            for (int p=0, s=srcOff + firstAffectedOrdinate; p<n; p++, s += srcDim) {
+                for (int i=0; i<subSrc; i++) {
+                    buffer[p*subSrc + i] = srcPts[s + i];
+                }
+            }
+            subTransform.transform(buffer, 0, buffer, 0, n);
+            for (int p=0; p<n; p++) {
+                final int s = srcOff + p*srcDim;
+                final int d = dstOff + p*dstDim;
+                if (!inPlace) {
+                    System.arraycopy(srcPts, s, dstPts, d, firstAffectedOrdinate);
+                    System.arraycopy(srcPts, s + firstAffectedOrdinate + subSrc,
+                                     dstPts, d + firstAffectedOrdinate + subDst, numTrailingOrdinates);
+                }
+                for (int i=0; i<subDst; i++) {
+                    dstPts[d + firstAffectedOrdinate + i] = (float) buffer[p*subDst + i];
+                }
+            }
+            srcOff += n * srcDim;
+            dstOff += n * dstDim;
+            numPts -= n;
+        }
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Override
+    public void transform(final float[] srcPts, int srcOff, final double[] dstPts, int dstOff, int numPts)
+            throws TransformException
+    {
+        final int subSrc = subTransform.getSourceDimensions();
+        final int subDst = subTransform.getTargetDimensions();
+        final int srcDim = firstAffectedOrdinate + subSrc + numTrailingOrdinates;
+        final int dstDim = firstAffectedOrdinate + subDst + numTrailingOrdinates;
+        final double[] buffer = buffer(numPts);
+        while (numPts > 0) {
+            final int n = Math.min(numPts, CHUNK_SIZE);
+            for (int p=0, s=srcOff + firstAffectedOrdinate; p<n; p++, s += srcDim) {
+                for (int i=0; i<subSrc; i++) {
+                    buffer[p*subSrc + i] = srcPts[s + i];
+                }
+            }
+            subTransform.transform(buffer, 0, buffer, 0, n);
+            for (int p=0; p<n; p++) {
+                final int s = srcOff + p*srcDim;
+                final int d = dstOff + p*dstDim;
+                for (int i=0; i<firstAffectedOrdinate; i++) {
+                    dstPts[d + i] = srcPts[s + i];
+                }
+                for (int i=0; i<numTrailingOrdinates; i++) {
+                    dstPts[d + firstAffectedOrdinate + subDst + i] = srcPts[s + firstAffectedOrdinate + subSrc + i];
+                }
+                System.arraycopy(buffer, p*subDst, dstPts, d + firstAffectedOrdinate, subDst);
+            }
+            srcOff += n * srcDim;
+            dstOff += n * dstDim;
+            numPts -= n;
+        }
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Override
+    public void transform(final double[] srcPts, int srcOff, final float[] dstPts, int dstOff, int numPts)
+            throws TransformException
+    {
+        final int subSrc = subTransform.getSourceDimensions();
+        final int subDst = subTransform.getTargetDimensions();
+        final int srcDim = firstAffectedOrdinate + subSrc + numTrailingOrdinates;
+        final int dstDim = firstAffectedOrdinate + subDst + numTrailingOrdinates;
+        final double[] buffer = buffer(numPts);
+        while (numPts > 0) {
+            final int n = Math.min(numPts, CHUNK_SIZE);
+            for (int p=0, s=srcOff + firstAffectedOrdinate; p<n; p++, s += srcDim) {
+                System.arraycopy(srcPts, s, buffer, p*subSrc, subSrc);
+            }
+            subTransform.transform(buffer, 0, buffer, 0, n);
+            for (int p=0; p<n; p++) {
+                final int s = srcOff + p*srcDim;
+                final int d = dstOff + p*dstDim;
+                for (int i=0; i<firstAffectedOrdinate; i++) {
+                    dstPts[d + i] = (float) srcPts[s + i];
+                }
+                for (int i=0; i<numTrailingOrdinates; i++) {
+                    dstPts[d + firstAffectedOrdinate + subDst + i] = (float) srcPts[s + firstAffectedOrdinate + subSrc + i];
+                }
+                for (int i=0; i<subDst; i++) {
+                    dstPts[d + firstAffectedOrdinate + i] = (float) buffer[p*subDst + i];
+                }
+            }
+            srcOff += n * srcDim;
+            dstOff += n * dstDim;
+            numPts -= n;
+        }
+    }
+
+    /**
+     * Gets the derivative of this transform at a point. The derivative is the identity matrix
+     * for the ordinates which are passed through, and the derivative of the sub-transform for
+     * the affected ordinates.
+     *
+     * @param  point  the coordinate point where to evaluate the derivative.
+     * @return the derivative at the specified point (never {@code null}).
+     * @throws TransformException if the derivative can not be evaluated at the specified point.
+     */
+    @Override
+    public Matrix derivative(final DirectPosition point) throws TransformException {
+        final int subSrc = subTransform.getSourceDimensions();
+        final int subDst = subTransform.getTargetDimensions();
+        DirectPosition subPoint = null;
+        if (point != null) {
+            if (point.getDimension() != getSourceDimensions()) {
+                throw new MismatchedDimensionException("Wrong number of dimensions.");
+            }
+            final double[] ordinates = point.getCoordinate();
+            subPoint = new SimpleDirectPosition(null, Arrays.copyOfRange(ordinates,
+                    firstAffectedOrdinate, firstAffectedOrdinate + subSrc));
+        }
+        final Matrix subMatrix = subTransform.derivative(subPoint);
+        final SimpleMatrix derivative = SimpleMatrix.create(getTargetDimensions(), getSourceDimensions());
+        derivative.setZero();
+        for (int i=0; i<firstAffectedOrdinate; i++) {
+            derivative.setElement(i, i, 1);
+        }
+        for (int j=0; j<subDst; j++) {
+            for (int i=0; i<subSrc; i++) {
+                derivative.setElement(firstAffectedOrdinate + j, firstAffectedOrdinate + i, subMatrix.getElement(j, i));
+            }
+        }
+        for (int i=0; i<numTrailingOrdinates; i++) {
+            derivative.setElement(firstAffectedOrdinate + subDst + i, firstAffectedOrdinate + subSrc + i, 1);
+        }
+        return derivative;
+    }
+
+    /**
+     * Returns the inverse of this transform, which is a pass through transform
+     * of the inverse of the sub-transform.
+     *
+     * @return the inverse transform.
+     * @throws NoninvertibleTransformException if the sub-transform can not be inverted.
+     */
+    @Override
+    public PassThroughTransform inverse() throws NoninvertibleTransformException {
+        return LazyInverse.get(INVERSE, this, () -> {
+            final PassThroughTransform inverse = new PassThroughTransform(
+                    firstAffectedOrdinate, subTransform.inverse(), numTrailingOrdinates);
+            inverse.inverse = this;
+            return inverse;
+        });
+    }
+
+    /**
+     * Tests whether this transform does not move any points.
+     * This is {@code true} if the sub-transform is an identity transform.
+     */
+    @Override
+    public boolean isIdentity() {
+        return subTransform.isIdentity();
+    }
+
+    /**
+     * Compares this transform with the given object for equality.
+     *
+     * @param  object  the object to compare with this {@code PassThroughTransform}.
+     * @return {@code true} if the given object is equals to this object.
+     */
+    @Override
+    public boolean equals(final Object object) {
+        if (super.equals(object)) {
+            final PassThroughTransform other = (PassThroughTransform) object;
+            return firstAffectedOrdinate == other.firstAffectedOrdinate &&
+                   numTrailingOrdinates  == other.numTrailingOrdinates  &&
+                   subTransform.equals(other.subTransform);
+        }
+        return false;
+    }
+}
@@ -7,8 +7,9 @@
  */
 package org.opengis.example.referencing;
 
+import java.util.Arrays;
 import java.util.Objects;
-import javax.vecmath.GMatrix;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import org.opengis.metadata.citation.Citation;
 import org.opengis.geometry.DirectPosition;
@@ -34,12 +35,12 @@ import org.opengis.example.geometry.SimpleDirectPosition;
  * </ul>
  *
  * <b>Performance note:</b>
- * This implementation is known to be slow. However the intent is to be pedagogic, not to be
- * efficient. Performance enhancements are left to implementors (<i>Tip:</i> override all
- * {@code transform} methods expecting array arguments).
+ * All {@code transform} methods expecting array arguments are overridden with loops working directly
+ * on a copy of the matrix coefficients, without allocating objects for each point. Consequently the
+ * {@linkplain #matrix} shall not be modified after construction.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  *
  * @see SimpleTransformFactory#createAffineTransform(Matrix)
@@ -57,8 +58,29 @@ public class ProjectiveTransform extends SimpleTransform {
 
     /**
      * The inverse of this transform, computed when first needed.
+     *
+     * @see #inverse()
+     */
+    private transient volatile ProjectiveTransform inverse;
+
+    /**
+     * Updater for the {@link #inverse} field, used for publishing the inverse without locking.
+     */
+    private static final AtomicReferenceFieldUpdater<ProjectiveTransform,ProjectiveTransform> INVERSE =
+            AtomicReferenceFieldUpdater.newUpdater(ProjectiveTransform.class, ProjectiveTransform.class, "inverse");
+
+    /**
+     * A copy of the {@linkplain #matrix} elements in row-major order, computed when first needed.
+     *
+     * @see #elements()
+     */
+    private transient volatile double[] elements;
+
+    /**
+     * Whether the last matrix row is [0 0 … 0 1], in which case there is no need to divide the
+     * ordinate values by <var>w</var>. This field is valid only if {@link #elements} is non-null.
      */
-    private transient ProjectiveTransform inverse;
+    private transient boolean isAffine;
 
     /**
      * Creates a new operation for the given name, CRS and matrix.
@@ -133,28 +155,225 @@ public class ProjectiveTransform extends SimpleTransform {
         } else {
             ptDst = new SimpleDirectPosition(dstDim);
         }
-        //
-        // Create two matrixes of 1 column, which will
-        // represent the source and target coordinates.
-        //
-        final GMatrix source = new GMatrix(srcDim+1, 1);
-        final GMatrix target = new GMatrix(dstDim+1, 1);
-        source.setElement(srcDim, 0, 1);
+        final double[] source = new double[srcDim];
+        final double[] target = new double[dstDim];
         for (int j=0; j<srcDim; j++) {
-            source.setElement(j, 0, ptSrc.getOrdinate(j));
+            source[j] = ptSrc.getOrdinate(j);
         }
-        //
-        // Compute [target] = [matrix]*[source]
-        // as documented in the method javadoc.
-        //
-        target.mul(matrix, source);
-        final double w = target.getElement(dstDim, 0);          // =1 if the transform is affine.
+        transform(elements(), source, target);
         for (int j=0; j<dstDim; j++) {
-            ptDst.setOrdinate(j, target.getElement(j, 0) / w);
+            ptDst.setOrdinate(j, target[j]);
         }
         return ptDst;
     }
 
+    /**
+     * Returns the matrix elements in row-major order. This method does not need to be synchronized
+     * because the array is never modified after construction and is published through a volatile
+     * field; in the worst case, concurrent threads compute the same array twice.
+     */
+    private double[] elements() {
+        double[] elements = this.elements;
+        if (elements == null) {
+            final int numRow = matrix.getNumRow();
+            final int numCol = matrix.getNumCol();
+            elements = new double[numRow * numCol];
+            for (int j=0; j<numRow; j++) {
+                for (int i=0; i<numCol; i++) {
+                    elements[j*numCol + i] = matrix.getElement(j, i);
+                }
+            }
+            boolean affine = (elements[elements.length - 1] == 1);
+            for (int i = elements.length - numCol; affine && i < elements.length - 1; i++) {
+                affine = (elements[i] == 0);
+            }
+            isAffine = affine;
+            this.elements = elements;       // Volatile write must be last, after 'isAffine' has been set.
+        }
+        return elements;
+    }
+
+    /**
+     * Computes the matrix product documented in {@link #transform(DirectPosition, DirectPosition)}
+     * for a single point. The {@code source} array length shall be the number of source dimensions,
+     * and the {@code target} array length shall be the number of target dimensions.
+     *
+     * @param elements  the value returned by {@link #elements()}.
+     * @param source    the source ordinate values (not modified).
+     * @param target    where to store the target ordinate values.
+     */
+    private void transform(final double[] elements, final double[] source, final double[] target) {
+        final int srcDim = source.length;
+        int k = 0;
+        for (int j=0; j<target.length; j++) {
+            double sum = elements[k + srcDim];
+            for (int i=0; i<srcDim; i++) {
+                sum += elements[k++] * source[i];
+            }
+            target[j] = sum;
+            k++;                                        // Skip the translation term.
+        }
+        if (!isAffine) {
+            double w = elements[k + srcDim];
+            for (int i=0; i<srcDim; i++) {
+                w += elements[k++] * source[i];
+            }
+            for (int j=0; j<target.length; j++) {
+                target[j] /= w;
+            }
+        }
+    }
+
+    /**
+     * Returns the increment to apply on the source and target offsets, which is +1 for iterating
+     * over the points in increasing index order, or -1 for iterating in decreasing order. The later
+     * case happens when the source and target ranges overlap in a way that would cause the source
+     * ordinates to be overwritten before they are read. A value of 0 means that neither direction
+     * is safe, in which case the caller needs to copy the source ordinates.
+     */
+    private static int direction(final boolean sameArray, final int srcOff, final int srcDim,
+                                 final int dstOff, final int dstDim, final int numPts)
+    {
+        if (!sameArray || !needsCopy(srcOff, srcDim, dstOff, dstDim, numPts)) {
+            return +1;
+        }
+        return (srcOff <= dstOff && srcDim <= dstDim) ? -1 : 0;
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values. This method works directly on the
+     * matrix coefficients without creating any {@link DirectPosition} object. The source and
+     * target arrays may overlap.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned. May be the same than {@code srcPts}.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     */
+    @Override
+    public void transform(double[] srcPts, int srcOff, final double[] dstPts, int dstOff, int numPts) {
+        final int srcDim = matrix.getNumCol() - 1;
+        final int dstDim = matrix.getNumRow() - 1;
+        int direction = direction(srcPts == dstPts, srcOff, srcDim, dstOff, dstDim, numPts);
+        if (direction == 0) {
+            srcPts = Arrays.copyOfRange(srcPts, srcOff, srcOff + srcDim*numPts);
+            srcOff = 0;
+            direction = +1;
+        } else if (direction < 0) {
+            srcOff += (numPts - 1) * srcDim;
+            dstOff += (numPts - 1) * dstDim;
+        }
+        final int srcInc = srcDim * direction;
+        final int dstInc = dstDim * direction;
+        final double[] elements = elements();
+        final double[] source = new double[srcDim];
+        final double[] target = new double[dstDim];
+        while (--numPts >= 0) {
+            System.arraycopy(srcPts, srcOff, source, 0, srcDim);
+            transform(elements, source, target);
+            System.arraycopy(target, 0, dstPts, dstOff, dstDim);
+            srcOff += srcInc;
+            dstOff += dstInc;
+        }
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values. This method works directly on the
+     * matrix coefficients without creating any {@link DirectPosition} object. The source and
+     * target arrays may overlap.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned. May be the same than {@code srcPts}.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     */
+    @Override
+    public void transform(float[] srcPts, int srcOff, final float[] dstPts, int dstOff, int numPts) {
+        final int srcDim = matrix.getNumCol() - 1;
+        final int dstDim = matrix.getNumRow() - 1;
+        int direction = direction(srcPts == dstPts, srcOff, srcDim, dstOff, dstDim, numPts);
+        if (direction == 0) {
+            srcPts = Arrays.copyOfRange(srcPts, srcOff, srcOff + srcDim*numPts);
+            srcOff = 0;
+            direction = +1;
+        } else if (direction < 0) {
+            srcOff += (numPts - 1) * srcDim;
+            dstOff += (numPts - 1) * dstDim;
+        }
+        final int srcInc = srcDim * direction;
+        final int dstInc = dstDim * direction;
+        final double[] elements = elements();
+        final double[] source = new double[srcDim];
+        final double[] target = new double[dstDim];
+        while (--numPts >= 0) {
+            for (int i=0; i<srcDim; i++) {
+                source[i] = srcPts[srcOff + i];
+            }
+            transform(elements, source, target);
+            for (int i=0; i<dstDim; i++) {
+                dstPts[dstOff + i] = (float) target[i];
+            }
+            srcOff += srcInc;
+            dstOff += dstInc;
+        }
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values. This method works directly on the
+     * matrix coefficients without creating any {@link DirectPosition} object.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     */
+    @Override
+    public void transform(final float[] srcPts, int srcOff, final double[] dstPts, int dstOff, int numPts) {
+        final int srcDim = matrix.getNumCol() - 1;
+        final int dstDim = matrix.getNumRow() - 1;
+        final double[] elements = elements();
+        final double[] source = new double[srcDim];
+        final double[] target = new double[dstDim];
+        while (--numPts >= 0) {
+            for (int i=0; i<srcDim; i++) {
+                source[i] = srcPts[srcOff++];
+            }
+            transform(elements, source, target);
+            System.arraycopy(target, 0, dstPts, dstOff, dstDim);
+            dstOff += dstDim;
+        }
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values. This method works directly on the
+     * matrix coefficients without creating any {@link DirectPosition} object.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     */
+    @Override
+    public void transform(final double[] srcPts, int srcOff, final float[] dstPts, int dstOff, int numPts) {
+        final int srcDim = matrix.getNumCol() - 1;
+        final int dstDim = matrix.getNumRow() - 1;
+        final double[] elements = elements();
+        final double[] source = new double[srcDim];
+        final double[] target = new double[dstDim];
+        while (--numPts >= 0) {
+            System.arraycopy(srcPts, srcOff, source, 0, srcDim);
+            transform(elements, source, target);
+            for (int i=0; i<dstDim; i++) {
+                dstPts[dstOff++] = (float) target[i];
+            }
+            srcOff += srcDim;
+        }
+    }
+
     /**
      * Gets the derivative of this transform. In the particular case of linear transforms,
      * the derivative is the same at every points. Consequently the {@code point} argument
@@ -167,8 +386,12 @@ public class ProjectiveTransform extends SimpleTransform {
     public Matrix derivative(final DirectPosition point) {
         final int srcDim = matrix.getNumCol() - 1;
         final int dstDim = matrix.getNumRow() - 1;
-        final SimpleMatrix derivative = new SimpleMatrix(dstDim, srcDim);
-        matrix.copySubMatrix(0, 0, dstDim, srcDim, 0, 0, derivative);
+        final SimpleMatrix derivative = SimpleMatrix.create(dstDim, srcDim);
+        for (int j=0; j<dstDim; j++) {
+            for (int i=0; i<srcDim; i++) {
+                derivative.setElement(j, i, matrix.getElement(j, i));
+            }
+        }
         return derivative;
     }
 
@@ -178,18 +401,19 @@ public class ProjectiveTransform extends SimpleTransform {
      * build a new {@code ProjectiveTransform} from it.
      */
     @Override
-    public synchronized ProjectiveTransform inverse() throws NoninvertibleTransformException {
-        if (inverse == null) {
+    public ProjectiveTransform inverse() throws NoninvertibleTransformException {
+        return LazyInverse.get(INVERSE, this, () -> {
             final SimpleMatrix invert = matrix.clone();
             try {
                 invert.invert();
-            } catch (RuntimeException e) { // SingularMatrixException & MismatchedSizeException
+            } catch (ArithmeticException | IllegalStateException e) {      // Singular or non-square matrix.
                 throw new NoninvertibleTransformException("Can not invert \"" + code + '"', e);
             }
-            inverse = new ProjectiveTransform(authority, "Inverse of " + code, targetCRS, sourceCRS, invert);
+            final ProjectiveTransform inverse = new ProjectiveTransform(
+                    authority, "Inverse of " + code, targetCRS, sourceCRS, invert);
             inverse.inverse = this;
-        }
-        return inverse;
+            return inverse;
+        });
     }
 
     /**
@@ -7,22 +7,46 @@
  */
 package org.opengis.example.referencing;
 
-import javax.vecmath.GMatrix;
+import java.io.Serializable;
 import org.opengis.referencing.operation.Matrix;
 
 
 /**
- * A {@link Matrix} built on top of Java3D {@code vecmath} library.
+ * A {@link Matrix} of arbitrary size with elements stored in a flat array in row-major order.
+ * Square matrices of size 1×1 to 4×4, which are used by nearly all affine transforms
+ * (for example the 3×3 and 4×4 matrices of two- and three-dimensional affine transforms),
+ * should rather be created by the {@link #create(int, int)} or {@link #castOrCopy(Matrix)}
+ * methods. Those methods return specialized implementations storing the elements in fields,
+ * which perform {@linkplain #mul(Matrix, Matrix) multiplication}, {@linkplain #invert() inversion}
+ * and {@linkplain #isIdentity() identity test} without array indexing and without allocating
+ * temporary objects.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
-public class SimpleMatrix extends GMatrix implements Matrix {
+public class SimpleMatrix implements Matrix, Cloneable, Serializable {
     /**
      * For cross-version compatibility.
      */
-    private static final long serialVersionUID = -1756594679120634738L;
+    private static final long serialVersionUID = 3158461743520380374L;
+
+    /**
+     * Maximal size of square matrices having a specialized implementation.
+     */
+    private static final int MAX_SPECIALIZED_SIZE = 4;
+
+    /**
+     * The number of rows and columns.
+     */
+    private final int numRow, numCol;
+
+    /**
+     * The matrix elements in row-major order, or {@code null} if the elements are stored
+     * in the fields of a specialized subclass. This field is not final only for allowing
+     * {@link #clone()} to copy the array.
+     */
+    private double[] elements;
 
     /**
      * Creates a matrix of size {@code numRow}&nbsp;×&nbsp;{@code numCol}.
@@ -30,32 +54,161 @@ public class SimpleMatrix extends GMatrix implements Matrix {
      *
      * @param numRow  number of rows.
      * @param numCol  number of columns.
+     *
+     * @see #create(int, int)
      */
     public SimpleMatrix(final int numRow, final int numCol) {
-        super(numRow, numCol);
+        if (numRow <= 0 || numCol <= 0) {
+            throw new IllegalArgumentException("The matrix size shall be strictly positive.");
+        }
+        this.numRow = numRow;
+        this.numCol = numCol;
+        elements = new double[numRow * numCol];
+        for (int i = Math.min(numRow, numCol); --i >= 0;) {
+            elements[i * (numCol + 1)] = 1;
+        }
     }
 
     /**
      * Creates a new matrix initialized to the same content than the given matrix.
      *
      * @param matrix  the matrix to copy.
+     *
+     * @see #castOrCopy(Matrix)
      */
     public SimpleMatrix(final Matrix matrix) {
-        super(matrix.getNumRow(), matrix.getNumCol());
-        for (int j=super.getNumRow(); --j>=0;) {
-            for (int i=super.getNumCol(); --i>=0;) {
+        this(matrix.getNumRow(), matrix.getNumCol());
+        setElements(matrix);
+    }
+
+    /**
+     * Creates a square matrix of the given size for a specialized subclass storing the elements in fields.
+     *
+     * @param size  number of rows and columns.
+     */
+    SimpleMatrix(final int size) {
+        numRow = size;
+        numCol = size;
+    }
+
+    /**
+     * Creates a matrix of size {@code numRow}&nbsp;×&nbsp;{@code numCol}.
+     * Elements on the diagonal (<var>j</var> == <var>i</var>) are set to 1.
+     * This method returns a specialized implementation for square matrices of size 1 to 4.
+     *
+     * @param  numRow  number of rows.
+     * @param  numCol  number of columns.
+     * @return the new matrix.
+     *
+     * @since 4.0
+     */
+    public static SimpleMatrix create(final int numRow, final int numCol) {
+        if (numRow == numCol) {
+            switch (numRow) {
+                case 1: return new Matrix1();
+                case 2: return new Matrix2();
+                case 3: return new Matrix3();
+                case 4: return new Matrix4();
+            }
+        }
+        return new SimpleMatrix(numRow, numCol);
+    }
+
+    /**
+     * Returns the given matrix as a {@code SimpleMatrix} using the implementation best suited to its size.
+     * If the given matrix is already such instance, then it is returned directly. Otherwise a copy is returned.
+     *
+     * @param  matrix  the matrix to cast or copy.
+     * @return the given matrix if it is already a suitable {@code SimpleMatrix}, or a copy otherwise.
+     *
+     * @since 4.0
+     */
+    public static SimpleMatrix castOrCopy(final Matrix matrix) {
+        final int numRow = matrix.getNumRow();
+        final int numCol = matrix.getNumCol();
+        if (matrix instanceof SimpleMatrix) {
+            if (((SimpleMatrix) matrix).elements == null || numRow != numCol || numRow > MAX_SPECIALIZED_SIZE) {
+                return (SimpleMatrix) matrix;
+            }
+        }
+        final SimpleMatrix copy = create(numRow, numCol);
+        copy.setElements(matrix);
+        return copy;
+    }
+
+    /**
+     * Copies all elements of the given matrix into this matrix.
+     * The given matrix shall have the same size than this matrix.
+     */
+    private void setElements(final Matrix matrix) {
+        for (int j=0; j<numRow; j++) {
+            for (int i=0; i<numCol; i++) {
                 setElement(j, i, matrix.getElement(j, i));
             }
         }
     }
 
+    /**
+     * Returns the index of the given element in a flat array in row-major order.
+     *
+     * @param  row     the row index, from 0 inclusive to {@link #getNumRow()} exclusive.
+     * @param  column  the column index, from 0 inclusive to {@link #getNumCol()} exclusive.
+     * @return the index in a flat array.
+     * @throws IndexOutOfBoundsException if the given row or column is out of bounds.
+     */
+    final int index(final int row, final int column) {
+        if (row < 0 || row >= numRow || column < 0 || column >= numCol) {
+            throw new IndexOutOfBoundsException("No element at (" + row + ", " + column + ") in a "
+                    + numRow + "×" + numCol + " matrix.");
+        }
+        return row * numCol + column;
+    }
+
+    /**
+     * Returns the number of rows in this matrix.
+     */
+    @Override
+    public final int getNumRow() {
+        return numRow;
+    }
+
+    /**
+     * Returns the number of columns in this matrix.
+     */
+    @Override
+    public final int getNumCol() {
+        return numCol;
+    }
+
+    /**
+     * Returns the element at the given row and column.
+     *
+     * @param  row     the row index, from 0 inclusive to {@link #getNumRow()} exclusive.
+     * @param  column  the column index, from 0 inclusive to {@link #getNumCol()} exclusive.
+     * @return the current value at the given row and column.
+     */
+    @Override
+    public double getElement(final int row, final int column) {
+        return elements[index(row, column)];
+    }
+
+    /**
+     * Sets the element at the given row and column.
+     *
+     * @param  row     the row index, from 0 inclusive to {@link #getNumRow()} exclusive.
+     * @param  column  the column index, from 0 inclusive to {@link #getNumCol()} exclusive.
+     * @param  value   the new value to set at the given row and column.
+     */
+    @Override
+    public void setElement(final int row, final int column, final double value) {
+        elements[index(row, column)] = value;
+    }
+
     /**
      * Returns {@code true} if this matrix is an identity matrix.
      */
     @Override
     public boolean isIdentity() {
-        final int numRow = getNumRow();
-        final int numCol = getNumCol();
         if (numRow != numCol) {
             return false;
         }
@@ -69,11 +222,700 @@ public class SimpleMatrix extends GMatrix implements Matrix {
         return true;
     }
 
+    /**
+     * Sets all elements to zero.
+     */
+    public void setZero() {
+        for (int j=0; j<numRow; j++) {
+            for (int i=0; i<numCol; i++) {
+                setElement(j, i, 0);
+            }
+        }
+    }
+
+    /**
+     * Sets this matrix to the product of the given matrices. This matrix may be one of the arguments.
+     * The number of rows of this matrix shall be the number of rows of {@code m1}, and the number of
+     * columns of this matrix shall be the number of columns of {@code m2}.
+     *
+     * @param  m1  the first matrix.
+     * @param  m2  the second matrix.
+     * @throws IllegalArgumentException if the matrix sizes are not compatible.
+     */
+    public void mul(final Matrix m1, final Matrix m2) {
+        final int n = m1.getNumCol();
+        if (m2.getNumRow() != n || m1.getNumRow() != numRow || m2.getNumCol() != numCol) {
+            throw new IllegalArgumentException("Incompatible matrix sizes.");
+        }
+        final double[] product = new double[numRow * numCol];
+        int k = 0;
+        for (int j=0; j<numRow; j++) {
+            for (int i=0; i<numCol; i++) {
+                double sum = 0;
+                for (int p=0; p<n; p++) {
+                    sum += m1.getElement(j, p) * m2.getElement(p, i);
+                }
+                product[k++] = sum;
+            }
+        }
+        k = 0;
+        for (int j=0; j<numRow; j++) {
+            for (int i=0; i<numCol; i++) {
+                setElement(j, i, product[k++]);
+            }
+        }
+    }
+
+    /**
+     * Inverts this matrix in place. This method uses Gauss-Jordan elimination with partial pivoting.
+     *
+     * @throws IllegalStateException if this matrix is not square.
+     * @throws ArithmeticException if this matrix is singular.
+     */
+    public void invert() {
+        if (numRow != numCol) {
+            throw new IllegalStateException("Can not invert a non-square matrix.");
+        }
+        final int n = numRow;
+        final int width = 2*n;
+        final double[] m = new double[n * width];           // Augmented matrix [A | I].
+        for (int j=0; j<n; j++) {
+            for (int i=0; i<n; i++) {
+                m[j*width + i] = getElement(j, i);
+            }
+            m[j*width + n + j] = 1;
+        }
+        for (int c=0; c<n; c++) {
+            int pivot = c;
+            for (int j=c+1; j<n; j++) {
+                if (Math.abs(m[j*width + c]) > Math.abs(m[pivot*width + c])) {
+                    pivot = j;
+                }
+            }
+            final double p = m[pivot*width + c];
+            if (p == 0) {
+                throw new ArithmeticException("Singular matrix.");
+            }
+            if (pivot != c) {
+                for (int i=0; i<width; i++) {
+                    final double t = m[c*width + i];
+                    m[c*width + i] = m[pivot*width + i];
+                    m[pivot*width + i] = t;
+                }
+            }
+            for (int i=0; i<width; i++) {
+                m[c*width + i] /= p;
+            }
+            for (int j=0; j<n; j++) {
+                final double f = m[j*width + c];
+                if (j != c && f != 0) {
+                    for (int i=0; i<width; i++) {
+                        m[j*width + i] -= f * m[c*width + i];
+                    }
+                }
+            }
+        }
+        for (int j=0; j<n; j++) {
+            for (int i=0; i<n; i++) {
+                setElement(j, i, m[j*width + n + i]);
+            }
+        }
+    }
+
     /**
      * Returns a clone of this matrix.
      */
     @Override
     public SimpleMatrix clone() {
-        return (SimpleMatrix) super.clone();
+        final SimpleMatrix clone;
+        try {
+            clone = (SimpleMatrix) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);                    // Should never happen since we are cloneable.
+        }
+        if (elements != null) {
+            clone.elements = elements.clone();
+        }
+        return clone;
+    }
+
+    /**
+     * Compares this matrix with the given object for equality. Two matrices are considered equal
+     * if they have the same size and the same element values, regardless their implementation class.
+     *
+     * @param  object  the object to compare with this matrix.
+     * @return {@code true} if both objects are equal.
+     */
+    @Override
+    public boolean equals(final Object object) {
+        if (object instanceof SimpleMatrix) {
+            final SimpleMatrix other = (SimpleMatrix) object;
+            if (numRow == other.numRow && numCol == other.numCol) {
+                for (int j=0; j<numRow; j++) {
+                    for (int i=0; i<numCol; i++) {
+                        if (Double.doubleToLongBits(getElement(j, i)) != Double.doubleToLongBits(other.getElement(j, i))) {
+                            return false;
+                        }
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code value for this matrix.
+     */
+    @Override
+    public int hashCode() {
+        long code = numRow * 31 + numCol;
+        for (int j=0; j<numRow; j++) {
+            for (int i=0; i<numCol; i++) {
+                code = code * 31 + Double.doubleToLongBits(getElement(j, i));
+            }
+        }
+        return (int) (code ^ (code >>> 32));
+    }
+
+    /**
+     * Returns a string representation of this matrix, with one row per line.
+     */
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        for (int j=0; j<numRow; j++) {
+            for (int i=0; i<numCol; i++) {
+                if (i != 0) buffer.append(' ');
+                buffer.append(getElement(j, i));
+            }
+            buffer.append(System.lineSeparator());
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * A matrix of size 1&nbsp;×&nbsp;1 with elements stored in fields.
+     */
+    static final class Matrix1 extends SimpleMatrix {
+        /**
+         * For cross-version compatibility.
+         */
+        private static final long serialVersionUID = -2372349327394542017L;
+
+        /**
+         * Elements in row 0.
+         */
+        private double m00;
+
+        /**
+         * Creates an identity matrix.
+         */
+        Matrix1() {
+            super(1);
+            m00 = 1;
+        }
+
+        /**
+         * Returns the element at the given row and column.
+         */
+        @Override
+        public double getElement(final int row, final int column) {
+            index(row, column);                         // Check index validity.
+            return m00;
+        }
+
+        /**
+         * Sets the element at the given row and column.
+         */
+        @Override
+        public void setElement(final int row, final int column, final double value) {
+            index(row, column);                         // Check index validity.
+            m00 = value;
+        }
+
+        /**
+         * Returns {@code true} if this matrix is an identity matrix.
+         */
+        @Override
+        public boolean isIdentity() {
+            return m00 == 1;
+        }
+
+        /**
+         * Sets all elements to zero.
+         */
+        @Override
+        public void setZero() {
+            m00 = 0;
+        }
+
+        /**
+         * Sets this matrix to the product of the given matrices.
+         * This method does not allocate any object if both matrices are of the same class than this matrix.
+         */
+        @Override
+        public void mul(final Matrix m1, final Matrix m2) {
+            if (!(m1 instanceof Matrix1 && m2 instanceof Matrix1)) {
+                super.mul(m1, m2);
+                return;
+            }
+            final Matrix1 a = (Matrix1) m1;
+            final Matrix1 b = (Matrix1) m2;
+            m00 = a.m00 * b.m00;
+        }
+
+        /**
+         * Inverts this matrix in place without allocating any object.
+         *
+         * @throws ArithmeticException if this matrix is singular.
+         */
+        @Override
+        public void invert() {
+            if (m00 == 0) {
+                throw new ArithmeticException("Singular matrix.");
+            }
+            m00 = 1 / m00;
+        }
+    }
+
+    /**
+     * A matrix of size 2&nbsp;×&nbsp;2 with elements stored in fields.
+     */
+    static final class Matrix2 extends SimpleMatrix {
+        /**
+         * For cross-version compatibility.
+         */
+        private static final long serialVersionUID = 4519062893162751264L;
+
+        /**
+         * Elements in row 0.
+         */
+        private double m00, m01;
+
+        /**
+         * Elements in row 1.
+         */
+        private double m10, m11;
+
+        /**
+         * Creates an identity matrix.
+         */
+        Matrix2() {
+            super(2);
+            m00 = 1; m11 = 1;
+        }
+
+        /**
+         * Returns the element at the given row and column.
+         */
+        @Override
+        public double getElement(final int row, final int column) {
+            switch (index(row, column)) {
+                case 0:  return m00;
+                case 1:  return m01;
+                case 2:  return m10;
+                default: return m11;
+            }
+        }
+
+        /**
+         * Sets the element at the given row and column.
+         */
+        @Override
+        public void setElement(final int row, final int column, final double value) {
+            switch (index(row, column)) {
+                case 0:  m00 = value; break;
+                case 1:  m01 = value; break;
+                case 2:  m10 = value; break;
+                default: m11 = value; break;
+            }
+        }
+
+        /**
+         * Returns {@code true} if this matrix is an identity matrix.
+         */
+        @Override
+        public boolean isIdentity() {
+            return m00 == 1 && m01 == 0 &&
+                   m10 == 0 && m11 == 1;
+        }
+
+        /**
+         * Sets all elements to zero.
+         */
+        @Override
+        public void setZero() {
+            m00 = 0; m01 = 0;
+            m10 = 0; m11 = 0;
+        }
+
+        /**
+         * Sets this matrix to the product of the given matrices.
+         * This method does not allocate any object if both matrices are of the same class than this matrix.
+         */
+        @Override
+        public void mul(final Matrix m1, final Matrix m2) {
+            if (!(m1 instanceof Matrix2 && m2 instanceof Matrix2)) {
+                super.mul(m1, m2);
+                return;
+            }
+            final Matrix2 a = (Matrix2) m1;
+            final Matrix2 b = (Matrix2) m2;
+            final double t00 = a.m00*b.m00 + a.m01*b.m10;
+            final double t01 = a.m00*b.m01 + a.m01*b.m11;
+            final double t10 = a.m10*b.m00 + a.m11*b.m10;
+            final double t11 = a.m10*b.m01 + a.m11*b.m11;
+            m00 = t00;  m01 = t01;
+            m10 = t10;  m11 = t11;
+        }
+
+        /**
+         * Inverts this matrix in place without allocating any object.
+         *
+         * @throws ArithmeticException if this matrix is singular.
+         */
+        @Override
+        public void invert() {
+            final double det = m00*m11 - m01*m10;
+            if (det == 0) {
+                throw new ArithmeticException("Singular matrix.");
+            }
+            final double t00 =  m11 / det;
+            final double t01 = -m01 / det;
+            final double t10 = -m10 / det;
+            final double t11 =  m00 / det;
+            m00 = t00;  m01 = t01;
+            m10 = t10;  m11 = t11;
+        }
+    }
+
+    /**
+     * A matrix of size 3&nbsp;×&nbsp;3 with elements stored in fields.
+     */
+    static final class Matrix3 extends SimpleMatrix {
+        /**
+         * For cross-version compatibility.
+         */
+        private static final long serialVersionUID = -6328740287012875623L;
+
+        /**
+         * Elements in row 0.
+         */
+        private double m00, m01, m02;
+
+        /**
+         * Elements in row 1.
+         */
+        private double m10, m11, m12;
+
+        /**
+         * Elements in row 2.
+         */
+        private double m20, m21, m22;
+
+        /**
+         * Creates an identity matrix.
+         */
+        Matrix3() {
+            super(3);
+            m00 = 1; m11 = 1; m22 = 1;
+        }
+
+        /**
+         * Returns the element at the given row and column.
+         */
+        @Override
+        public double getElement(final int row, final int column) {
+            switch (index(row, column)) {
+                case 0:  return m00;
+                case 1:  return m01;
+                case 2:  return m02;
+                case 3:  return m10;
+                case 4:  return m11;
+                case 5:  return m12;
+                case 6:  return m20;
+                case 7:  return m21;
+                default: return m22;
+            }
+        }
+
+        /**
+         * Sets the element at the given row and column.
+         */
+        @Override
+        public void setElement(final int row, final int column, final double value) {
+            switch (index(row, column)) {
+                case 0:  m00 = value; break;
+                case 1:  m01 = value; break;
+                case 2:  m02 = value; break;
+                case 3:  m10 = value; break;
+                case 4:  m11 = value; break;
+                case 5:  m12 = value; break;
+                case 6:  m20 = value; break;
+                case 7:  m21 = value; break;
+                default: m22 = value; break;
+            }
+        }
+
+        /**
+         * Returns {@code true} if this matrix is an identity matrix.
+         */
+        @Override
+        public boolean isIdentity() {
+            return m00 == 1 && m01 == 0 && m02 == 0 &&
+                   m10 == 0 && m11 == 1 && m12 == 0 &&
+                   m20 == 0 && m21 == 0 && m22 == 1;
+        }
+
+        /**
+         * Sets all elements to zero.
+         */
+        @Override
+        public void setZero() {
+            m00 = 0; m01 = 0; m02 = 0;
+            m10 = 0; m11 = 0; m12 = 0;
+            m20 = 0; m21 = 0; m22 = 0;
+        }
+
+        /**
+         * Sets this matrix to the product of the given matrices.
+         * This method does not allocate any object if both matrices are of the same class than this matrix.
+         */
+        @Override
+        public void mul(final Matrix m1, final Matrix m2) {
+            if (!(m1 instanceof Matrix3 && m2 instanceof Matrix3)) {
+                super.mul(m1, m2);
+                return;
+            }
+            final Matrix3 a = (Matrix3) m1;
+            final Matrix3 b = (Matrix3) m2;
+            final double t00 = a.m00*b.m00 + a.m01*b.m10 + a.m02*b.m20;
+            final double t01 = a.m00*b.m01 + a.m01*b.m11 + a.m02*b.m21;
+            final double t02 = a.m00*b.m02 + a.m01*b.m12 + a.m02*b.m22;
+            final double t10 = a.m10*b.m00 + a.m11*b.m10 + a.m12*b.m20;
+            final double t11 = a.m10*b.m01 + a.m11*b.m11 + a.m12*b.m21;
+            final double t12 = a.m10*b.m02 + a.m11*b.m12 + a.m12*b.m22;
+            final double t20 = a.m20*b.m00 + a.m21*b.m10 + a.m22*b.m20;
+            final double t21 = a.m20*b.m01 + a.m21*b.m11 + a.m22*b.m21;
+            final double t22 = a.m20*b.m02 + a.m21*b.m12 + a.m22*b.m22;
+            m00 = t00;  m01 = t01;  m02 = t02;
+            m10 = t10;  m11 = t11;  m12 = t12;
+            m20 = t20;  m21 = t21;  m22 = t22;
+        }
+
+        /**
+         * Inverts this matrix in place without allocating any object.
+         *
+         * @throws ArithmeticException if this matrix is singular.
+         */
+        @Override
+        public void invert() {
+            final double c00 = m11*m22 - m12*m21;
+            final double c01 = m12*m20 - m10*m22;
+            final double c02 = m10*m21 - m11*m20;
+            final double det = m00*c00 + m01*c01 + m02*c02;
+            if (det == 0) {
+                throw new ArithmeticException("Singular matrix.");
+            }
+            final double t01 = (m02*m21 - m01*m22) / det;
+            final double t02 = (m01*m12 - m02*m11) / det;
+            final double t11 = (m00*m22 - m02*m20) / det;
+            final double t12 = (m02*m10 - m00*m12) / det;
+            final double t21 = (m01*m20 - m00*m21) / det;
+            final double t22 = (m00*m11 - m01*m10) / det;
+            m00 = c00 / det;  m01 = t01;  m02 = t02;
+            m10 = c01 / det;  m11 = t11;  m12 = t12;
+            m20 = c02 / det;  m21 = t21;  m22 = t22;
+        }
+    }
+
+    /**
+     * A matrix of size 4&nbsp;×&nbsp;4 with elements stored in fields.
+     */
+    static final class Matrix4 extends SimpleMatrix {
+        /**
+         * For cross-version compatibility.
+         */
+        private static final long serialVersionUID = 7710358914526109342L;
+
+        /**
+         * Elements in row 0.
+         */
+        private double m00, m01, m02, m03;
+
+        /**
+         * Elements in row 1.
+         */
+        private double m10, m11, m12, m13;
+
+        /**
+         * Elements in row 2.
+         */
+        private double m20, m21, m22, m23;
+
+        /**
+         * Elements in row 3.
+         */
+        private double m30, m31, m32, m33;
+
+        /**
+         * Creates an identity matrix.
+         */
+        Matrix4() {
+            super(4);
+            m00 = 1; m11 = 1; m22 = 1; m33 = 1;
+        }
+
+        /**
+         * Returns the element at the given row and column.
+         */
+        @Override
+        public double getElement(final int row, final int column) {
+            switch (index(row, column)) {
+                case 0:  return m00;
+                case 1:  return m01;
+                case 2:  return m02;
+                case 3:  return m03;
+                case 4:  return m10;
+                case 5:  return m11;
+                case 6:  return m12;
+                case 7:  return m13;
+                case 8:  return m20;
+                case 9:  return m21;
+                case 10: return m22;
+                case 11: return m23;
+                case 12: return m30;
+                case 13: return m31;
+                case 14: return m32;
+                default: return m33;
+            }
+        }
+
+        /**
+         * Sets the element at the given row and column.
+         */
+        @Override
+        public void setElement(final int row, final int column, final double value) {
+            switch (index(row, column)) {
+                case 0:  m00 = value; break;
+                case 1:  m01 = value; break;
+                case 2:  m02 = value; break;
+                case 3:  m03 = value; break;
+                case 4:  m10 = value; break;
+                case 5:  m11 = value; break;
+                case 6:  m12 = value; break;
+                case 7:  m13 = value; break;
+                case 8:  m20 = value; break;
+                case 9:  m21 = value; break;
+                case 10: m22 = value; break;
+                case 11: m23 = value; break;
+                case 12: m30 = value; break;
+                case 13: m31 = value; break;
+                case 14: m32 = value; break;
+                default: m33 = value; break;
+            }
+        }
+
+        /**
+         * Returns {@code true} if this matrix is an identity matrix.
+         */
+        @Override
+        public boolean isIdentity() {
+            return m00 == 1 && m01 == 0 && m02 == 0 && m03 == 0 &&
+                   m10 == 0 && m11 == 1 && m12 == 0 && m13 == 0 &&
+                   m20 == 0 && m21 == 0 && m22 == 1 && m23 == 0 &&
+                   m30 == 0 && m31 == 0 && m32 == 0 && m33 == 1;
+        }
+
+        /**
+         * Sets all elements to zero.
+         */
+        @Override
+        public void setZero() {
+            m00 = 0; m01 = 0; m02 = 0; m03 = 0;
+            m10 = 0; m11 = 0; m12 = 0; m13 = 0;
+            m20 = 0; m21 = 0; m22 = 0; m23 = 0;
+            m30 = 0; m31 = 0; m32 = 0; m33 = 0;
+        }
+
+        /**
+         * Sets this matrix to the product of the given matrices.
+         * This method does not allocate any object if both matrices are of the same class than this matrix.
+         */
+        @Override
+        public void mul(final Matrix m1, final Matrix m2) {
+            if (!(m1 instanceof Matrix4 && m2 instanceof Matrix4)) {
+                super.mul(m1, m2);
+                return;
+            }
+            final Matrix4 a = (Matrix4) m1;
+            final Matrix4 b = (Matrix4) m2;
+            final double t00 = a.m00*b.m00 + a.m01*b.m10 + a.m02*b.m20 + a.m03*b.m30;
+            final double t01 = a.m00*b.m01 + a.m01*b.m11 + a.m02*b.m21 + a.m03*b.m31;
+            final double t02 = a.m00*b.m02 + a.m01*b.m12 + a.m02*b.m22 + a.m03*b.m32;
+            final double t03 = a.m00*b.m03 + a.m01*b.m13 + a.m02*b.m23 + a.m03*b.m33;
+            final double t10 = a.m10*b.m00 + a.m11*b.m10 + a.m12*b.m20 + a.m13*b.m30;
+            final double t11 = a.m10*b.m01 + a.m11*b.m11 + a.m12*b.m21 + a.m13*b.m31;
+            final double t12 = a.m10*b.m02 + a.m11*b.m12 + a.m12*b.m22 + a.m13*b.m32;
+            final double t13 = a.m10*b.m03 + a.m11*b.m13 + a.m12*b.m23 + a.m13*b.m33;
+            final double t20 = a.m20*b.m00 + a.m21*b.m10 + a.m22*b.m20 + a.m23*b.m30;
+            final double t21 = a.m20*b.m01 + a.m21*b.m11 + a.m22*b.m21 + a.m23*b.m31;
+            final double t22 = a.m20*b.m02 + a.m21*b.m12 + a.m22*b.m22 + a.m23*b.m32;
+            final double t23 = a.m20*b.m03 + a.m21*b.m13 + a.m22*b.m23 + a.m23*b.m33;
+            final double t30 = a.m30*b.m00 + a.m31*b.m10 + a.m32*b.m20 + a.m33*b.m30;
+            final double t31 = a.m30*b.m01 + a.m31*b.m11 + a.m32*b.m21 + a.m33*b.m31;
+            final double t32 = a.m30*b.m02 + a.m31*b.m12 + a.m32*b.m22 + a.m33*b.m32;
+            final double t33 = a.m30*b.m03 + a.m31*b.m13 + a.m32*b.m23 + a.m33*b.m33;
+            m00 = t00;  m01 = t01;  m02 = t02;  m03 = t03;
+            m10 = t10;  m11 = t11;  m12 = t12;  m13 = t13;
+            m20 = t20;  m21 = t21;  m22 = t22;  m23 = t23;
+            m30 = t30;  m31 = t31;  m32 = t32;  m33 = t33;
+        }
+
+        /**
+         * Inverts this matrix in place without allocating any object.
+         *
+         * @throws ArithmeticException if this matrix is singular.
+         */
+        @Override
+        public void invert() {
+            final double s0 = m00*m11 - m10*m01;
+            final double s1 = m00*m12 - m10*m02;
+            final double s2 = m00*m13 - m10*m03;
+            final double s3 = m01*m12 - m11*m02;
+            final double s4 = m01*m13 - m11*m03;
+            final double s5 = m02*m13 - m12*m03;
+            final double c5 = m22*m33 - m32*m23;
+            final double c4 = m21*m33 - m31*m23;
+            final double c3 = m21*m32 - m31*m22;
+            final double c2 = m20*m33 - m30*m23;
+            final double c1 = m20*m32 - m30*m22;
+            final double c0 = m20*m31 - m30*m21;
+            final double det = s0*c5 - s1*c4 + s2*c3 + s3*c2 - s4*c1 + s5*c0;
+            if (det == 0) {
+                throw new ArithmeticException("Singular matrix.");
+            }
+            final double t00 = ( m11*c5 - m12*c4 + m13*c3) / det;
+            final double t01 = (-m01*c5 + m02*c4 - m03*c3) / det;
+            final double t02 = ( m31*s5 - m32*s4 + m33*s3) / det;
+            final double t03 = (-m21*s5 + m22*s4 - m23*s3) / det;
+            final double t10 = (-m10*c5 + m12*c2 - m13*c1) / det;
+            final double t11 = ( m00*c5 - m02*c2 + m03*c1) / det;
+            final double t12 = (-m30*s5 + m32*s2 - m33*s1) / det;
+            final double t13 = ( m20*s5 - m22*s2 + m23*s1) / det;
+            final double t20 = ( m10*c4 - m11*c2 + m13*c0) / det;
+            final double t21 = (-m00*c4 + m01*c2 - m03*c0) / det;
+            final double t22 = ( m30*s4 - m31*s2 + m33*s0) / det;
+            final double t23 = (-m20*s4 + m21*s2 - m23*s0) / det;
+            final double t30 = (-m10*c3 + m11*c1 - m12*c0) / det;
+            final double t31 = ( m00*c3 - m01*c1 + m02*c0) / det;
+            final double t32 = (-m30*s3 + m31*s1 - m32*s0) / det;
+            final double t33 = ( m20*s3 - m21*s1 + m22*s0) / det;
+            m00 = t00;  m01 = t01;  m02 = t02;  m03 = t03;
+            m10 = t10;  m11 = t11;  m12 = t12;  m13 = t13;
+            m20 = t20;  m21 = t21;  m22 = t22;  m23 = t23;
+            m30 = t30;  m31 = t31;  m32 = t32;  m33 = t33;
+        }
     }
 }
@@ -36,7 +36,7 @@ import org.opengis.example.geometry.SimpleDirectPosition;
  * other {@code transform} methods may be overridden for performances reasons.</p>
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
 public abstract class SimpleTransform extends SimpleIdentifiedObject implements CoordinateOperation, MathTransform {
@@ -45,6 +45,13 @@ public abstract class SimpleTransform extends SimpleIdentifiedObject implements
      */
     private static final long serialVersionUID = -234616434441874739L;
 
+    /**
+     * Maximal number of points to transform in a single step by transforms which need temporary
+     * buffers, like {@link ConcatenatedTransform} and {@link PassThroughTransform}. This value
+     * bounds the size of those buffers regardless of the number of points to transform.
+     */
+    static final int CHUNK_SIZE = 512;
+
     /**
      * The source CRS, which determine the number of source dimensions.
      *
@@ -169,7 +176,7 @@ public abstract class SimpleTransform extends SimpleIdentifiedObject implements
      * @param  numPts  the number of points to transform.
      * @return {@code true} if the source array needs to be copied.
      */
-    private static boolean needsCopy(final int srcOff, final int srcDim, final int dstOff, final int dstDim, final int numPts) {
+    static boolean needsCopy(final int srcOff, final int srcDim, final int dstOff, final int dstDim, final int numPts) {
         if (numPts <= 1) {
             return false;
         }
@@ -188,6 +195,77 @@ public abstract class SimpleTransform extends SimpleIdentifiedObject implements
         return true;
     }
 
+    /**
+     * The transformation of a chunk of points, invoked by {@link #transformByChunks transformByChunks(…)}.
+     * Implementations shall read all source coordinates of the chunk before to write any target coordinate.
+     */
+    @FunctionalInterface
+    interface Chunk {
+        /**
+         * Transforms the given number of points.
+         *
+         * @param  srcOff  the offset of the first source coordinate of the chunk.
+         * @param  dstOff  the offset of the first target coordinate of the chunk.
+         * @param  numPts  the number of points in the chunk, not greater than {@value #CHUNK_SIZE}.
+         * @throws TransformException if a point can not be transformed.
+         */
+        void transform(int srcOff, int dstOff, int numPts) throws TransformException;
+    }
+
+    /**
+     * Transforms points by chunks of at most {@value #CHUNK_SIZE} points, in an order which ensures
+     * that no source coordinate is overwritten before to be read when the source and target ranges
+     * are in the same array. In such case, the points which are written at or after the location
+     * where they are read are processed first, in decreasing index order. The other points are
+     * processed next, in increasing index order. This order is safe for any offsets and any number
+     * of dimensions, without copying the source coordinates. If the source and target arrays are
+     * different, then all points are processed in increasing index order.
+     *
+     * @param  sameArray  whether the source and target arrays are the same array.
+     * @param  srcOff     the offset in the source coordinate array.
+     * @param  srcDim     the dimension of input points.
+     * @param  dstOff     the offset in the destination coordinate array.
+     * @param  dstDim     the dimension of output points.
+     * @param  numPts     the number of points to transform.
+     * @param  action     the transformation to apply on each chunk.
+     * @throws TransformException if a point can not be transformed.
+     */
+    static void transformByChunks(final boolean sameArray, final int srcOff, final int srcDim,
+            final int dstOff, final int dstDim, final int numPts, final Chunk action) throws TransformException
+    {
+        /*
+         * The target position of point p relative to its source position is Δ + p⋅δ. This is a linear
+         * function, so the points where that position is positive or zero form a single range [lo … hi).
+         */
+        final long Δ = (long) dstOff - srcOff;
+        final int  δ = dstDim - srcDim;
+        int lo = 0, hi = numPts;
+        if (!sameArray) {
+            hi = 0;
+        } else if (δ > 0) {
+            if (Δ < 0) lo = (int) Math.min(numPts, (δ - 1 - Δ) / δ);
+        } else if (δ < 0) {
+            hi = (Δ < 0) ? 0 : (int) Math.min(numPts, Δ / -δ + 1);
+        } else if (Δ < 0) {
+            hi = 0;
+        }
+        for (int end = hi; end > lo;) {
+            final int n = Math.min(end - lo, CHUNK_SIZE);
+            end -= n;
+            action.transform(srcOff + end*srcDim, dstOff + end*dstDim, n);
+        }
+        /*
+         * The remaining points are either before 'lo' or after 'hi', but not both.
+         */
+        int start = (lo != 0) ? 0 : hi;
+        final int stop = (lo != 0) ? lo : numPts;
+        while (start < stop) {
+            final int n = Math.min(stop - start, CHUNK_SIZE);
+            action.transform(srcOff + start*srcDim, dstOff + start*dstDim, n);
+            start += n;
+        }
+    }
+
     /**
      * Transforms a list of coordinate point ordinal values.
      *
@@ -8,7 +8,11 @@
 package org.opengis.example.referencing;
 
 import java.util.Set;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.awt.geom.AffineTransform;
 
 import org.opengis.util.FactoryException;
 import org.opengis.util.NoSuchIdentifierException;
@@ -33,10 +37,12 @@ import org.opengis.referencing.operation.SingleOperation;
  *   <li>{@link #getAvailableMethods(Class)}, which returns an empty set.</li>
  *   <li>{@link #getLastMethodUsed()}, which returns {@code null}.</li>
  *   <li>{@link #createAffineTransform(Matrix)}</li>
+ *   <li>{@link #createConcatenatedTransform(MathTransform, MathTransform)}</li>
+ *   <li>{@link #createPassThroughTransform(int, MathTransform, int)}</li>
  * </ul>
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
 public class SimpleTransformFactory implements MathTransformFactory {
@@ -145,27 +151,168 @@ public class SimpleTransformFactory implements MathTransformFactory {
             return new AffineTransform2D(matrix);
         }
         return new ProjectiveTransform(VENDOR, "Projective transform", null, null,
-                (matrix instanceof SimpleMatrix) ? (SimpleMatrix) matrix : new SimpleMatrix(matrix));
+                SimpleMatrix.castOrCopy(matrix));
     }
 
     /**
-     * Creates a transform by concatenating two existing transforms. The default implementation
-     * throws an exception in all cases since concatenated transforms are not implemented by this
-     * simple factory.
+     * Returns the matrix of the given transform if it is affine, or {@code null} otherwise.
+     * This method recognizes only the transform implementations provided in this package.
+     */
+    private static SimpleMatrix getMatrix(final MathTransform transform) {
+        if (transform instanceof ProjectiveTransform) {
+            return ((ProjectiveTransform) transform).matrix;
+        }
+        if (transform instanceof AffineTransform2D) {
+            final AffineTransform tr = (AffineTransform) transform;
+            final SimpleMatrix matrix = SimpleMatrix.create(3, 3);
+            matrix.setElement(0, 0, tr.getScaleX());
+            matrix.setElement(0, 1, tr.getShearX());
+            matrix.setElement(0, 2, tr.getTranslateX());
+            matrix.setElement(1, 0, tr.getShearY());
+            matrix.setElement(1, 1, tr.getScaleY());
+            matrix.setElement(1, 2, tr.getTranslateY());
+            return matrix;
+        }
+        return null;
+    }
+
+    /**
+     * Returns {@code true} if the last row of the given matrix is [0 0 … 0 1].
+     */
+    private static boolean isAffine(final Matrix matrix) {
+        final int j = matrix.getNumRow() - 1;
+        final int n = matrix.getNumCol() - 1;
+        for (int i=0; i<n; i++) {
+            if (matrix.getElement(j, i) != 0) {
+                return false;
+            }
+        }
+        return matrix.getElement(j, n) == 1;
+    }
+
+    /**
+     * Adds the given transform to the given list of steps, expanding concatenated transforms.
+     */
+    private static void addSteps(final List<MathTransform> steps, final MathTransform transform) {
+        if (transform instanceof ConcatenatedTransform) {
+            steps.addAll(Arrays.asList(((ConcatenatedTransform) transform).steps()));
+        } else {
+            steps.add(transform);
+        }
+    }
+
+    /**
+     * Creates a transform by concatenating two existing transforms. Nested concatenations are flattened,
+     * consecutive affine transforms are merged in a single matrix product and identity transforms are
+     * omitted. If the result has only one step, that step is returned directly. Otherwise the result is
+     * a {@link ConcatenatedTransform} which transforms arrays of points by chunks of fixed size.
+     *
+     * @param  transform1  the first transform to apply to points.
+     * @param  transform2  the second transform to apply to points.
+     * @return the concatenated transform.
+     * @throws FactoryException if the number of dimensions of the given transforms do not match.
+     *
+     * @see ConcatenatedTransform
      */
     @Override
-    public MathTransform createConcatenatedTransform(MathTransform transform1, MathTransform transform2) throws FactoryException {
-        throw new FactoryException("Concatenated transforms are not implemented.");
+    public MathTransform createConcatenatedTransform(final MathTransform transform1, final MathTransform transform2)
+            throws FactoryException
+    {
+        if (transform1.getTargetDimensions() != transform2.getSourceDimensions()) {
+            throw new FactoryException("The first transform produces " + transform1.getTargetDimensions()
+                    + " dimensions while the second transform expects " + transform2.getSourceDimensions() + '.');
+        }
+        final List<MathTransform> steps = new ArrayList<>();
+        addSteps(steps, transform1);
+        addSteps(steps, transform2);
+        for (int i=0; i<steps.size();) {
+            final MathTransform step = steps.get(i);
+            if (step.isIdentity() && step.getSourceDimensions() == step.getTargetDimensions()) {
+                steps.remove(i);
+                continue;
+            }
+            if (i != 0) {
+                final SimpleMatrix m1 = getMatrix(steps.get(i-1));
+                if (m1 != null) {
+                    final SimpleMatrix m2 = getMatrix(step);
+                    if (m2 != null) {
+                        final SimpleMatrix product = SimpleMatrix.create(m2.getNumRow(), m1.getNumCol());
+                        product.mul(m2, m1);
+                        steps.remove(i);
+                        steps.set(--i, createAffineTransform(product));
+                        continue;                   // Check again the merged transform.
+                    }
+                }
+            }
+            i++;
+        }
+        switch (steps.size()) {
+            case 0:  return createAffineTransform(SimpleMatrix.create(transform1.getSourceDimensions() + 1,
+                                                                      transform1.getSourceDimensions() + 1));
+            case 1:  return steps.get(0);
+            default: return new ConcatenatedTransform(steps.toArray(new MathTransform[steps.size()]));
+        }
     }
 
     /**
      * Creates a transform which passes through a subset of ordinates to another transform.
-     * The default implementation throws an exception in all cases since pass through transforms
-     * are not implemented by this simple factory.
+     * If the sub-transform is affine, then the result is an affine transform with an expanded matrix.
+     * Otherwise the result is a {@link PassThroughTransform}.
+     *
+     * @param  firstAffectedOrdinate  the lowest index of the affected ordinates.
+     * @param  subTransform           transform to use for affected ordinates.
+     * @param  numTrailingOrdinates   number of trailing ordinates to pass through.
+     * @return a pass through transform.
+     * @throws FactoryException if a number of ordinates is negative.
+     *
+     * @see PassThroughTransform
      */
     @Override
-    public MathTransform createPassThroughTransform(int firstAffectedOrdinate, MathTransform subTransform, int numTrailingOrdinates) throws FactoryException {
-        throw new FactoryException("Pass through transforms are not implemented.");
+    public MathTransform createPassThroughTransform(int firstAffectedOrdinate, MathTransform subTransform,
+            int numTrailingOrdinates) throws FactoryException
+    {
+        if (firstAffectedOrdinate < 0 || numTrailingOrdinates < 0) {
+            throw new FactoryException("Number of pass through ordinates can not be negative.");
+        }
+        if (firstAffectedOrdinate == 0 && numTrailingOrdinates == 0) {
+            return subTransform;
+        }
+        if (subTransform instanceof PassThroughTransform) {
+            final PassThroughTransform other = (PassThroughTransform) subTransform;
+            firstAffectedOrdinate += other.firstAffectedOrdinate;
+            numTrailingOrdinates  += other.numTrailingOrdinates;
+            subTransform           = other.subTransform;
+        }
+        final SimpleMatrix subMatrix = getMatrix(subTransform);
+        if (subMatrix != null && isAffine(subMatrix)) {
+            /*
+             * Expand the matrix of the affine transform with the pass through ordinates.
+             * The result is the identity matrix except for the block of affected ordinates.
+             * This is not possible for non-affine projective transforms, since the division
+             * by 'w' would apply also to the ordinates which are passed through.
+             */
+            final int subSrc = subMatrix.getNumCol() - 1;
+            final int subDst = subMatrix.getNumRow() - 1;
+            final int srcDim = firstAffectedOrdinate + subSrc + numTrailingOrdinates;
+            final int dstDim = firstAffectedOrdinate + subDst + numTrailingOrdinates;
+            final SimpleMatrix matrix = SimpleMatrix.create(dstDim + 1, srcDim + 1);
+            matrix.setZero();
+            for (int i=0; i<firstAffectedOrdinate; i++) {
+                matrix.setElement(i, i, 1);
+            }
+            for (int j=0; j<subDst; j++) {
+                for (int i=0; i<subSrc; i++) {
+                    matrix.setElement(firstAffectedOrdinate + j, firstAffectedOrdinate + i, subMatrix.getElement(j, i));
+                }
+                matrix.setElement(firstAffectedOrdinate + j, srcDim, subMatrix.getElement(j, subSrc));
+            }
+            for (int i=0; i<numTrailingOrdinates; i++) {
+                matrix.setElement(firstAffectedOrdinate + subDst + i, firstAffectedOrdinate + subSrc + i, 1);
+            }
+            matrix.setElement(dstDim, srcDim, 1);
+            return createAffineTransform(matrix);
+        }
+        return new PassThroughTransform(firstAffectedOrdinate, subTransform, numTrailingOrdinates);
     }
 
     /**
@@ -17,6 +17,7 @@ import org.junit.Test;
 import org.opengis.metadata.Metadata;
 import org.opengis.metadata.citation.Party;
 import org.opengis.metadata.citation.Responsibility;
+import org.opengis.metadata.extent.GeographicBoundingBox;
 
 import static org.junit.Assert.*;
 
@@ -25,7 +26,7 @@ import static org.junit.Assert.*;
  * Tests {@link MetadataProxyFactory}.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
 public strictfp class MetadataProxyFactoryTest {
@@ -57,6 +58,28 @@ public strictfp class MetadataProxyFactoryTest {
         assertEquals("MD_Metadata{contact=[CI_Responsibility{party=[CI_Party{name=Aristotle}]}]}", md.toString());
     }
 
+    /**
+     * Tests {@link MetadataProxyFactory#createSnapshot(Class, Map)} and compares with live proxies.
+     */
+    @Test
+    public void testSnapshot() {
+        final MetadataProxyFactory factory = new MetadataProxyFactory();
+        final Map<String,Object> attributes = new HashMap<>();
+        assertNull(attributes.put("westBoundLongitude", -10.0));
+        final GeographicBoundingBox live     = factory.create        (GeographicBoundingBox.class, attributes);
+        final GeographicBoundingBox snapshot = factory.createSnapshot(GeographicBoundingBox.class, attributes);
+        assertEquals(-10, snapshot.getWestBoundLongitude(), 0);
+        assertTrue("Null value should have been replaced by NaN.", Double.isNaN(snapshot.getEastBoundLongitude()));
+        assertEquals(live, snapshot);
+        assertEquals(live.hashCode(), snapshot.hashCode());
+        assertEquals(live.toString(), snapshot.toString());
+
+        assertEquals(-10.0, attributes.put("westBoundLongitude", 20.0));
+        assertEquals("Live proxy shall see the change.",          20, live    .getWestBoundLongitude(), 0);
+        assertEquals("Snapshot proxy shall not see the change.", -10, snapshot.getWestBoundLongitude(), 0);
+        assertFalse(live.equals(snapshot));
+    }
+
     /**
      * Verifies that the given collection contains exactly one element, then returns that element.
      */
@@ -0,0 +1,191 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.awt.geom.Point2D;
+import java.awt.geom.AffineTransform;
+
+import org.opengis.util.FactoryException;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.test.referencing.TransformTestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link ConcatenatedTransform} and the simplifications done by
+ * {@link SimpleTransformFactory#createConcatenatedTransform(MathTransform, MathTransform)}.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+public strictfp class ConcatenatedTransformTest extends TransformTestCase {
+    /**
+     * The factory to use for creating the transforms to test.
+     */
+    private final SimpleTransformFactory factory;
+
+    /**
+     * Creates a new test case.
+     */
+    public ConcatenatedTransformTest() {
+        factory = new SimpleTransformFactory();
+        tolerance = 1E-10;
+        isDerivativeSupported = false;
+        isInverseTransformSupported = false;
+    }
+
+    /**
+     * Returns a non-linear transform, for making sure that {@link SimpleTransformFactory}
+     * can not merge it with the affine transforms.
+     */
+    @SuppressWarnings("serial")
+    static MathTransform nonLinear() {
+        return new SimpleTransform2D(null, "Non-linear", null, null) {
+            @Override
+            public Point2D transform(final Point2D ptSrc, Point2D ptDst) {
+                if (ptDst == null) {
+                    ptDst = new Point2D.Double();
+                }
+                final double y = ptSrc.getY();
+                ptDst.setLocation(ptSrc.getX() + 0.001*y*y, y);
+                return ptDst;
+            }
+
+            @Override
+            public boolean isIdentity() {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns a projective transform changing the number of dimensions.
+     * Each target ordinate is computed from a single source ordinate.
+     */
+    static MathTransform projective(final int srcDim, final int dstDim) {
+        final SimpleMatrix matrix = new SimpleMatrix(dstDim + 1, srcDim + 1);
+        matrix.setZero();
+        for (int j=0; j<dstDim; j++) {
+            matrix.setElement(j, j % srcDim, j + 2);
+            matrix.setElement(j, srcDim, j - 1);
+        }
+        matrix.setElement(dstDim, srcDim, 1);
+        return new ProjectiveTransform(null, "Projective", null, null, matrix);
+    }
+
+    /**
+     * Verifies that transforming points with source and target ranges in the same array gives the
+     * same results than transforming them between different arrays. The target range is placed
+     * before, after, partially overlapping or exactly on the source range. This method tests both
+     * the {@code double[]} and {@code float[]} variants.
+     *
+     * @param  tr      the transform to test.
+     * @param  numPts  number of points to transform.
+     * @param  random  generator of source coordinates.
+     * @throws TransformException if a point can not be transformed.
+     */
+    static void verifySameArray(final MathTransform tr, final int numPts, final Random random) throws TransformException {
+        final int srcDim = tr.getSourceDimensions();
+        final int dstDim = tr.getTargetDimensions();
+        final double[] source = new double[numPts * srcDim];
+        final float[] sourceAsFloats = new float[source.length];
+        for (int i=0; i<source.length; i++) {
+            source[i] = sourceAsFloats[i] = random.nextInt(2000) / 10f - 100;
+        }
+        final double[] expected = new double[numPts * dstDim];
+        final float[] expectedAsFloats = new float[expected.length];
+        tr.transform(source, 0, expected, 0, numPts);
+        tr.transform(sourceAsFloats, 0, expectedAsFloats, 0, numPts);
+        final int base = numPts * Math.max(srcDim, dstDim);
+        final int[] targetOffsets = {
+            0,                                  // Target before source, no overlap.
+            base - 7,                           // Target slightly before source.
+            base - expected.length / 2,         // Target half before source.
+            base,                               // Same offset.
+            base + 5,                           // Target slightly after source.
+            base + source.length / 2,           // Target half after source.
+            base + source.length                // Target after source, no overlap.
+        };
+        for (final int dstOff : targetOffsets) {
+            final String message = "dstOff=" + dstOff;
+            final double[] array = new double[3 * base];
+            final float[] asFloats = new float[array.length];
+            System.arraycopy(source, 0, array, base, source.length);
+            System.arraycopy(sourceAsFloats, 0, asFloats, base, source.length);
+            tr.transform(array,    base, array,    dstOff, numPts);
+            tr.transform(asFloats, base, asFloats, dstOff, numPts);
+            assertArrayEquals(message, expected, Arrays.copyOfRange(array, dstOff, dstOff + expected.length), 1E-9);
+            assertArrayEquals(message, expectedAsFloats, Arrays.copyOfRange(asFloats, dstOff, dstOff + expected.length), 1E-3f);
+        }
+    }
+
+    /**
+     * Tests the concatenation of affine transforms, which shall be merged in a single matrix product.
+     *
+     * @throws FactoryException if the transform can not be created.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    public void testAffineConcatenation() throws FactoryException, TransformException {
+        final AffineTransform2D step1 = new AffineTransform2D(AffineTransform.getScaleInstance(2, 3));
+        final AffineTransform2D step2 = new AffineTransform2D(AffineTransform.getTranslateInstance(4, -1));
+        transform = factory.createConcatenatedTransform(step1, step2);
+        assertTrue("Expected a single affine transform.", transform instanceof AffineTransform2D);
+        final double[] coordinates = {5, 7};
+        transform.transform(coordinates, 0, coordinates, 0, 1);
+        assertArrayEquals(new double[] {14, 20}, coordinates, 0);
+        assertSame("Identity transform shall be omitted.", step1,
+                factory.createConcatenatedTransform(step1, new AffineTransform2D()));
+    }
+
+    /**
+     * Tests a concatenation of three steps with a non-linear step in the middle, using more points
+     * than the chunk size. The affine transforms around the non-linear one shall not be merged.
+     *
+     * @throws FactoryException if the transform can not be created.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    public void testPipeline() throws FactoryException, TransformException {
+        final MathTransform step1 = new AffineTransform2D(new AffineTransform(2, 0.5, 0, 3, 10, -20));
+        final MathTransform step3 = new AffineTransform2D(AffineTransform.getTranslateInstance(-4, 8));
+        transform = factory.createConcatenatedTransform(
+                factory.createConcatenatedTransform(step1, nonLinear()),
+                factory.createConcatenatedTransform(new AffineTransform2D(), step3));
+        assertTrue(transform instanceof ConcatenatedTransform);
+        assertEquals(3, ((ConcatenatedTransform) transform).getSteps().length);
+        validators.validate(transform);
+        verifyInDomain(new double[] {-100, -100},
+                       new double[] {+100, +100},
+                       new int[]    { 100,  100},
+                       new Random(588027361));
+    }
+
+    /**
+     * Tests transformations with source and target ranges in the same array, including overlapping
+     * ranges and transforms changing the number of dimensions. The number of points is greater than
+     * the chunk size in order to test the order in which chunks are processed.
+     *
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    public void testSameArray() throws TransformException {
+        final Random random = new Random(306127554);
+        final MathTransform step1 = new AffineTransform2D(new AffineTransform(2, 0.5, 0, 3, 10, -20));
+        verifySameArray(new ConcatenatedTransform(step1, nonLinear()), 1200, random);
+        verifySameArray(new ConcatenatedTransform(step1, nonLinear(), projective(2, 3)), 1200, random);
+        verifySameArray(new ConcatenatedTransform(projective(3, 2), nonLinear()), 1200, random);
+        verifySameArray(new ConcatenatedTransform(projective(4, 2), nonLinear(), projective(2, 5)), 2, random);
+    }
+}
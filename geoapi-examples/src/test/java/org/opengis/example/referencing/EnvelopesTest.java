@@ -0,0 +1,206 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.awt.geom.Point2D;
+
+import org.opengis.geometry.Envelope;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.MathTransform2D;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.example.geometry.SimpleEnvelope;
+import org.opengis.example.geometry.SimpleDirectPosition;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link Envelopes}.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+public strictfp class EnvelopesTest {
+    /**
+     * Creates a two-dimensional envelope without CRS.
+     */
+    private static SimpleEnvelope envelope(final double xmin, final double ymin, final double xmax, final double ymax) {
+        return new SimpleEnvelope(new SimpleDirectPosition(null, xmin, ymin),
+                                  new SimpleDirectPosition(null, xmax, ymax));
+    }
+
+    /**
+     * Asserts that the given envelope has the given bounds.
+     */
+    private static void assertEnvelopeEquals(final double xmin, final double ymin, final double xmax, final double ymax,
+            final Envelope actual, final double tolerance)
+    {
+        assertEquals("xmin", xmin, actual.getMinimum(0), tolerance);
+        assertEquals("ymin", ymin, actual.getMinimum(1), tolerance);
+        assertEquals("xmax", xmax, actual.getMaximum(0), tolerance);
+        assertEquals("ymax", ymax, actual.getMaximum(1), tolerance);
+    }
+
+    /**
+     * Returns a transform computing (<var>x</var>, <var>y</var> − <var>x</var>²).
+     * The maximal <var>y</var> value is reached in the middle of the envelope edges.
+     *
+     * @param  withDerivative  whether the transform shall be able to compute derivatives.
+     */
+    @SuppressWarnings("serial")
+    private static MathTransform2D parabola(final boolean withDerivative) {
+        return new SimpleTransform2D(null, "Parabola", null, null) {
+            @Override
+            public Point2D transform(final Point2D ptSrc, Point2D ptDst) {
+                if (ptDst == null) {
+                    ptDst = new Point2D.Double();
+                }
+                final double x = ptSrc.getX();
+                ptDst.setLocation(x, ptSrc.getY() - x*x);
+                return ptDst;
+            }
+
+            @Override
+            public Matrix derivative(final Point2D point) throws TransformException {
+                if (!withDerivative) {
+                    return super.derivative(point);
+                }
+                final SimpleMatrix derivative = new SimpleMatrix(2, 2);
+                derivative.setElement(0, 0, 1);
+                derivative.setElement(1, 0, -2 * point.getX());
+                derivative.setElement(1, 1, 1);
+                return derivative;
+            }
+
+            @Override
+            public boolean isIdentity() {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Tests the transformation of an envelope by an affine transform.
+     * The result shall be exact.
+     *
+     * @throws TransformException should never happen.
+     */
+    @Test
+    public void testAffine() throws TransformException {
+        final SimpleMatrix matrix = new SimpleMatrix(3, 3);
+        matrix.setElement(0, 0,  0);
+        matrix.setElement(0, 1, -2);
+        matrix.setElement(0, 2,  5);
+        matrix.setElement(1, 0,  3);
+        matrix.setElement(1, 1,  0);
+        matrix.setElement(1, 2,  1);
+        matrix.setElement(2, 2,  1);
+        final ProjectiveTransform tr = new ProjectiveTransform(null, "Test", null, null, matrix);
+        assertEnvelopeEquals(1, 4, 7, 13, Envelopes.transform(tr, envelope(1, -1, 4, 2)), 0);
+    }
+
+    /**
+     * Tests the transformation of an envelope by a transform having an extremum in the middle of an edge.
+     * When the derivative is available, the extremum shall be found exactly.
+     *
+     * @throws TransformException should never happen.
+     */
+    @Test
+    public void testNonLinear() throws TransformException {
+        final SimpleEnvelope envelope = envelope(-1, 0, 2, 1);
+        assertEnvelopeEquals(-1, -4, 2, 1, Envelopes.transform(parabola(true), envelope), 1E-12);
+        final Envelope approx = Envelopes.transform(parabola(false), envelope);
+        assertEnvelopeEquals(-1, -4, 2, 1, approx, 0.05);
+        assertTrue("ymax", approx.getMaximum(1) <= 1);
+    }
+
+    /**
+     * Tests an envelope crossing the anti-meridian after transformation.
+     * The longitude range shall not be expanded to the whole world.
+     *
+     * @throws TransformException should never happen.
+     */
+    @Test
+    @SuppressWarnings("serial")
+    public void testWraparound() throws TransformException {
+        final SimpleTransform2D tr = new SimpleTransform2D(null, "Shift", null, SimpleCRS.Geographic.WGS84) {
+            @Override
+            public Point2D transform(final Point2D ptSrc, Point2D ptDst) {
+                if (ptDst == null) {
+                    ptDst = new Point2D.Double();
+                }
+                double λ = ptSrc.getY() + 170;
+                if (λ >= 180) λ -= 360;
+                ptDst.setLocation(ptSrc.getX(), λ);
+                return ptDst;
+            }
+
+            @Override
+            public boolean isIdentity() {
+                return false;
+            }
+        };
+        assertEnvelopeEquals(10, 170, 20, 190, Envelopes.transform(tr, envelope(10, 0, 20, 20)), 1E-12);
+    }
+
+    /**
+     * Tests an envelope containing a pole after transformation. The latitude shall be expanded
+     * to 90° and the longitude to the whole axis range, even if no point on the envelope edges
+     * is transformed to those values.
+     *
+     * @throws TransformException should never happen.
+     */
+    @Test
+    @SuppressWarnings("serial")
+    public void testPole() throws TransformException {
+        final SimpleTransform2D inverse = new SimpleTransform2D(null, "Polar to planar", null, null) {
+            @Override
+            public Point2D transform(final Point2D ptSrc, Point2D ptDst) {
+                if (ptDst == null) {
+                    ptDst = new Point2D.Double();
+                }
+                final double r = 90 - ptSrc.getX();
+                final double θ = Math.toRadians(ptSrc.getY());
+                ptDst.setLocation(r * Math.cos(θ), r * Math.sin(θ));
+                return ptDst;
+            }
+
+            @Override
+            public boolean isIdentity() {
+                return false;
+            }
+        };
+        final SimpleTransform2D tr = new SimpleTransform2D(null, "Planar to polar", null, SimpleCRS.Geographic.WGS84) {
+            @Override
+            public Point2D transform(final Point2D ptSrc, Point2D ptDst) {
+                if (ptDst == null) {
+                    ptDst = new Point2D.Double();
+                }
+                final double x = ptSrc.getX();
+                final double y = ptSrc.getY();
+                ptDst.setLocation(90 - Math.hypot(x, y), Math.toDegrees(Math.atan2(y, x)));
+                return ptDst;
+            }
+
+            @Override
+            public MathTransform2D inverse() {
+                return inverse;
+            }
+
+            @Override
+            public boolean isIdentity() {
+                return false;
+            }
+        };
+        final SimpleEnvelope result = Envelopes.transform(tr, envelope(-10, -10, 10, 10));
+        assertEnvelopeEquals(90 - Math.hypot(10, 10), -180, 90, 180, result, 1E-12);
+        assertSame(SimpleCRS.Geographic.WGS84, result.getCoordinateReferenceSystem());
+    }
+}
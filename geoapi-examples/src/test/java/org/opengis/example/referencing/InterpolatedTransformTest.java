@@ -0,0 +1,128 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.Random;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+
+import org.opengis.referencing.operation.MathTransform2D;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.test.referencing.TransformTestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link InterpolatedTransform}.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+public strictfp class InterpolatedTransformTest extends TransformTestCase {
+    /**
+     * Creates a new test case.
+     */
+    public InterpolatedTransformTest() {
+        tolerance = 1E-10;
+        isDerivativeSupported = false;              // Because the derivative is discontinuous at cell boundaries.
+        isInverseTransformSupported = false;
+    }
+
+    /**
+     * Returns a transform which computes the square root of <var>x</var> and keeps <var>y</var> unchanged.
+     * The result is NaN for negative <var>x</var> values and the derivative is infinite at <var>x</var>=0.
+     */
+    @SuppressWarnings("serial")
+    private static MathTransform2D squareRoot() {
+        return new SimpleTransform2D(null, "Square root", null, null) {
+            @Override
+            public Point2D transform(final Point2D ptSrc, Point2D ptDst) {
+                if (ptDst == null) {
+                    ptDst = new Point2D.Double();
+                }
+                ptDst.setLocation(Math.sqrt(ptSrc.getX()), ptSrc.getY());
+                return ptDst;
+            }
+
+            @Override
+            public boolean isIdentity() {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Compares the approximated transform with the exact transform at random points in the given domain.
+     *
+     * @param  exact   the exact transform.
+     * @param  domain  the domain where to generate random points.
+     * @param  bound   the maximal difference allowed between the exact and approximated results.
+     */
+    private void compareWithExact(final MathTransform2D exact, final Rectangle2D domain, final double bound)
+            throws TransformException
+    {
+        final Random random = new Random(129471653);
+        final double[] source = new double[2000];
+        for (int i=0; i<source.length; i += 2) {
+            source[i  ] = domain.getMinX() + random.nextDouble() * domain.getWidth();
+            source[i+1] = domain.getMinY() + random.nextDouble() * domain.getHeight();
+        }
+        final double[] expected = new double[source.length];
+        final double[] actual   = new double[source.length];
+        exact    .transform(source, 0, expected, 0, source.length / 2);
+        transform.transform(source, 0, actual,   0, source.length / 2);
+        for (int i=0; i<source.length; i++) {
+            if (Double.isNaN(expected[i])) {
+                assertTrue("Expected NaN.", Double.isNaN(actual[i]));
+            } else {
+                assertEquals(expected[i], actual[i], bound);
+            }
+        }
+    }
+
+    /**
+     * Tests the approximation of a non-linear transform. The error shall be below the tolerance
+     * in the domain and the result shall be exact outside the domain.
+     *
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    public void testApproximation() throws TransformException {
+        final MathTransform2D exact = (MathTransform2D) ConcatenatedTransformTest.nonLinear();
+        final Rectangle2D domain = new Rectangle2D.Double(-100, -100, 200, 200);
+        transform = new InterpolatedTransform(exact, domain, 0.01);
+        compareWithExact(exact, domain, 0.01);
+        compareWithExact(exact, new Rectangle2D.Double(200, 200, 100, 100), 0);
+        validators.validate(transform);
+        verifyInDomain(new double[] {-150, -150},
+                       new double[] {+150, +150},
+                       new int[]    { 100,  100},
+                       new Random(360920744));
+    }
+
+    /**
+     * Tests the approximation of a transform having NaN values and an infinite derivative.
+     * Cells which can not be approximated shall be computed by the exact transform.
+     *
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    public void testExactCells() throws TransformException {
+        final MathTransform2D exact = squareRoot();
+        final Rectangle2D domain = new Rectangle2D.Double(-1, 0, 2, 1);
+        transform = new InterpolatedTransform(exact, domain, 1E-3);
+        compareWithExact(exact, domain, 1E-3);
+        final double[] coordinates = {1E-9, 0.5,  -0.5, 0.5};
+        transform.transform(coordinates, 0, coordinates, 0, 2);
+        assertEquals(Math.sqrt(1E-9), coordinates[0], 0);
+        assertTrue(Double.isNaN(coordinates[2]));
+    }
+}
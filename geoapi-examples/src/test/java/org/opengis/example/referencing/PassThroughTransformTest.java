@@ -0,0 +1,122 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.Random;
+import java.awt.geom.AffineTransform;
+
+import org.opengis.util.FactoryException;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.test.referencing.TransformTestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link PassThroughTransform} and the simplifications done by
+ * {@link SimpleTransformFactory#createPassThroughTransform(int, MathTransform, int)}.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+public strictfp class PassThroughTransformTest extends TransformTestCase {
+    /**
+     * The factory to use for creating the transforms to test.
+     */
+    private final SimpleTransformFactory factory;
+
+    /**
+     * Creates a new test case.
+     */
+    public PassThroughTransformTest() {
+        factory = new SimpleTransformFactory();
+        tolerance = 1E-10;
+        isDerivativeSupported = false;
+        isInverseTransformSupported = false;
+    }
+
+    /**
+     * Tests a pass through transform of an affine transform,
+     * which shall be expanded in a larger affine transform.
+     *
+     * @throws FactoryException if the transform can not be created.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    public void testAffine() throws FactoryException, TransformException {
+        transform = factory.createPassThroughTransform(1,
+                new AffineTransform2D(new AffineTransform(2, 0, 0, 3, 10, 20)), 1);
+        assertTrue(transform instanceof ProjectiveTransform);
+        final double[] coordinates = {1, 2, 3, 4};
+        transform.transform(coordinates, 0, coordinates, 0, 1);
+        assertArrayEquals(new double[] {1, 14, 29, 4}, coordinates, 0);
+    }
+
+    /**
+     * Tests a pass through transform of a non-linear transform,
+     * using more points than the chunk size.
+     *
+     * @throws FactoryException if the transform can not be created.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    public void testNonLinear() throws FactoryException, TransformException {
+        transform = factory.createPassThroughTransform(1, ConcatenatedTransformTest.nonLinear(), 1);
+        assertTrue(transform instanceof PassThroughTransform);
+        assertEquals(4, transform.getSourceDimensions());
+        assertEquals(4, transform.getTargetDimensions());
+        validators.validate(transform);
+        verifyInDomain(new double[] {-100, -100, -100, -100},
+                       new double[] {+100, +100, +100, +100},
+                       new int[]    {  10,   20,   20,   10},
+                       new Random(827361588));
+    }
+
+    /**
+     * Tests transformations with source and target ranges in the same array, including overlapping
+     * ranges, ranges which do not overlap and sub-transforms changing the number of dimensions.
+     *
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    public void testSameArray() throws TransformException {
+        final Random random = new Random(417608273);
+        final MathTransform nonLinear = ConcatenatedTransformTest.nonLinear();
+        for (final int numPts : new int[] {2, 1200}) {
+            ConcatenatedTransformTest.verifySameArray(new PassThroughTransform(1, nonLinear, 1), numPts, random);
+            ConcatenatedTransformTest.verifySameArray(new PassThroughTransform(0, nonLinear, 2), numPts, random);
+            ConcatenatedTransformTest.verifySameArray(new PassThroughTransform(1,
+                    new ConcatenatedTransform(nonLinear, ConcatenatedTransformTest.projective(2, 3)), 2), numPts, random);
+            ConcatenatedTransformTest.verifySameArray(new PassThroughTransform(2,
+                    new ConcatenatedTransform(ConcatenatedTransformTest.projective(3, 2), nonLinear), 1), numPts, random);
+        }
+    }
+
+    /**
+     * Tests the case where the source and target ranges are in the same array without overlapping.
+     * The ordinates which are passed through shall be copied.
+     *
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    public void testDisjointRanges() throws TransformException {
+        final MathTransform tr = new PassThroughTransform(1, ConcatenatedTransformTest.projective(2, 2), 1);
+        final double[] coordinates = {
+            1, 2, 3, 4,   5, 6, 7, 8,
+            0, 0, 0, 0,   0, 0, 0, 0
+        };
+        tr.transform(coordinates, 0, coordinates, 8, 2);
+        assertArrayEquals(new double[] {
+            1, 2, 3, 4,   5, 6, 7, 8,
+            1, 3, 9, 4,   5, 11, 21, 8
+        }, coordinates, 0);
+    }
+}
@@ -7,15 +7,24 @@
  */
 package org.opengis.example.referencing;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.Test;
 import org.junit.After;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
 import org.opengis.util.FactoryException;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.example.geometry.SimpleDirectPosition;
 import org.opengis.referencing.operation.Matrix;
 import org.opengis.referencing.operation.MathTransform;
 import org.opengis.referencing.operation.TransformException;
+import org.opengis.referencing.operation.NoninvertibleTransformException;
 import org.opengis.test.referencing.AffineTransformTest;
 
 import static org.junit.Assert.*;
@@ -27,7 +36,7 @@ import static org.junit.Assert.*;
  * module.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
 @RunWith(JUnit4.class)
@@ -73,6 +82,102 @@ public strictfp class ProjectiveTransformTest extends AffineTransformTest {
         super.testDimensionReduction();
     }
 
+    /**
+     * Tests the bulk transform methods with a non-affine transform increasing the number of dimensions,
+     * using overlapping source and target ranges in the same array. The results are compared with the
+     * ones computed by {@link ProjectiveTransform#transform(DirectPosition, DirectPosition)}.
+     *
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    public void testOverlappingBulkTransform() throws TransformException {
+        final SimpleMatrix matrix = new SimpleMatrix(4, 3);
+        matrix.setElement(0, 0,  2);  matrix.setElement(0, 2,  5);
+        matrix.setElement(1, 1, -3);  matrix.setElement(1, 2,  1);
+        matrix.setElement(2, 0,  1);  matrix.setElement(2, 1,  1);
+        matrix.setElement(3, 0, 0.5); matrix.setElement(3, 2,  1);
+        final ProjectiveTransform tr = new ProjectiveTransform(null, "Test", null, null, matrix);
+        transform = tr;
+        final int numPts = 20;
+        final double[] expected = new double[numPts * 3];
+        final double[] ordinates = new double[numPts * 3 + 2];
+        for (int i=0; i<numPts; i++) {
+            final DirectPosition p = new SimpleDirectPosition(null, i, 10 - i);
+            ordinates[i*2 + 2] = p.getOrdinate(0);
+            ordinates[i*2 + 3] = p.getOrdinate(1);
+            final DirectPosition r = tr.transform(p, null);
+            System.arraycopy(r.getCoordinate(), 0, expected, i*3, 3);
+        }
+        final float[] asFloats = new float[ordinates.length];
+        for (int i=0; i<ordinates.length; i++) {
+            asFloats[i] = (float) ordinates[i];
+        }
+        tr.transform(ordinates, 2, ordinates, 1, numPts);
+        tr.transform(asFloats,  2, asFloats,  1, numPts);
+        for (int i=0; i<expected.length; i++) {
+            assertEquals(expected[i], ordinates[i+1], 1E-12);
+            assertEquals(expected[i], asFloats [i+1], 1E-4);
+        }
+    }
+
+    /**
+     * Tests {@link ProjectiveTransform#inverse()} invoked concurrently by many threads on a new transform.
+     * All threads shall receive the same inverse instance, and the inverse of that inverse shall be the
+     * original transform.
+     *
+     * @throws Exception if the inverse can not be computed or a thread has been interrupted.
+     */
+    @Test
+    public void testConcurrentInverse() throws Exception {
+        final int numThreads = 8;
+        final SimpleMatrix matrix = new SimpleMatrix(3, 3);
+        matrix.setElement(0, 0, 2);  matrix.setElement(0, 2, 5);
+        matrix.setElement(1, 1, 4);  matrix.setElement(1, 2, 1);
+        final ProjectiveTransform tr = new ProjectiveTransform(null, "Test", null, null, matrix);
+        transform = tr;
+        final CountDownLatch start = new CountDownLatch(1);
+        final Callable<ProjectiveTransform> task = () -> {
+            start.await();
+            return tr.inverse();
+        };
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            final Future<?>[] results = new Future<?>[numThreads];
+            for (int i=0; i<numThreads; i++) {
+                results[i] = executor.submit(task);
+            }
+            start.countDown();
+            final ProjectiveTransform inverse = tr.inverse();
+            for (final Future<?> result : results) {
+                assertSame(inverse, result.get());
+            }
+            assertSame(tr, inverse.inverse());
+            assertEquals(0.5,  inverse.matrix.getElement(0, 0), 0);
+            assertEquals(0.25, inverse.matrix.getElement(1, 1), 0);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tests that a failure to compute the inverse is not cached.
+     */
+    @Test
+    public void testNoninvertible() {
+        final SimpleMatrix matrix = new SimpleMatrix(3, 3);
+        matrix.setElement(1, 1, 0);
+        final ProjectiveTransform tr = new ProjectiveTransform(null, "Test", null, null, matrix);
+        transform = tr;
+        for (int i=0; i<2; i++) {
+            try {
+                tr.inverse();
+                fail("Singular matrix shall not be invertible.");
+            } catch (NoninvertibleTransformException e) {
+                // This is the expected exception.
+            }
+        }
+    }
+
     /**
      * Invoked after every tests in order to ensure that the transform created by the factory
      * is of the expected type. This method requires that the transform class is exactly the
@@ -0,0 +1,151 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link SimpleMatrix} and its specialized implementations. The results of specialized
+ * implementations are compared with the results of the general implementation.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+public strictfp class SimpleMatrixTest {
+    /**
+     * Maximal size (inclusive) of the square matrices to test.
+     * This is one more than the largest specialized implementation.
+     */
+    private static final int MAX_SIZE = 5;
+
+    /**
+     * Tolerance threshold for comparisons of matrix elements computed by different algorithms.
+     */
+    private static final double TOLERANCE = 1E-10;
+
+    /**
+     * Creates a general matrix of the given size with random values.
+     */
+    private static SimpleMatrix random(final int size, final Random random) {
+        final SimpleMatrix matrix = new SimpleMatrix(size, size);
+        for (int j=0; j<size; j++) {
+            for (int i=0; i<size; i++) {
+                matrix.setElement(j, i, random.nextDouble() * 20 - 10);
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Asserts that the given matrices have the same size and equal elements.
+     */
+    private static void assertMatrixEquals(final SimpleMatrix expected, final SimpleMatrix actual, final double tolerance) {
+        assertEquals("numRow", expected.getNumRow(), actual.getNumRow());
+        assertEquals("numCol", expected.getNumCol(), actual.getNumCol());
+        for (int j=0; j<expected.getNumRow(); j++) {
+            for (int i=0; i<expected.getNumCol(); i++) {
+                assertEquals(expected.getElement(j, i), actual.getElement(j, i), tolerance);
+            }
+        }
+    }
+
+    /**
+     * Tests the {@link SimpleMatrix#create(int, int)} and {@link SimpleMatrix#castOrCopy} methods.
+     */
+    @Test
+    public void testCreate() {
+        for (int size=1; size <= MAX_SIZE; size++) {
+            final SimpleMatrix specialized = SimpleMatrix.create(size, size);
+            final SimpleMatrix general = new SimpleMatrix(size, size);
+            assertEquals(size < MAX_SIZE, specialized.getClass() != SimpleMatrix.class);
+            assertTrue(specialized.isIdentity());
+            assertEquals(general, specialized);
+            assertEquals(specialized, general);
+            assertEquals(general.hashCode(), specialized.hashCode());
+            assertSame(specialized, SimpleMatrix.castOrCopy(specialized));
+            assertEquals(specialized.getClass(), SimpleMatrix.castOrCopy(general).getClass());
+            specialized.setElement(size - 1, 0, 2);
+            assertEquals(2, specialized.getElement(size - 1, 0), 0);
+            assertFalse(specialized.isIdentity());
+            assertFalse(general.equals(specialized));
+            specialized.setZero();
+            assertEquals(0, specialized.getElement(0, 0), 0);
+        }
+        assertEquals(SimpleMatrix.class, SimpleMatrix.create(3, 4).getClass());
+    }
+
+    /**
+     * Tests access to an element outside the matrix.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testIndexOutOfBounds() {
+        SimpleMatrix.create(3, 3).getElement(1, 3);
+    }
+
+    /**
+     * Tests matrix multiplication, including the case where the target matrix is one of the arguments.
+     */
+    @Test
+    public void testMultiply() {
+        final Random random = new Random(471309612);
+        for (int size=1; size <= MAX_SIZE; size++) {
+            final SimpleMatrix m1 = random(size, random);
+            final SimpleMatrix m2 = random(size, random);
+            final SimpleMatrix expected = new SimpleMatrix(size, size);
+            expected.mul(m1, m2);
+            final SimpleMatrix s1 = SimpleMatrix.castOrCopy(m1);
+            final SimpleMatrix s2 = SimpleMatrix.castOrCopy(m2);
+            final SimpleMatrix actual = SimpleMatrix.create(size, size);
+            actual.mul(s1, s2);
+            assertMatrixEquals(expected, actual, TOLERANCE);
+            s1.mul(s1, s2);
+            assertMatrixEquals(expected, s1, TOLERANCE);
+        }
+    }
+
+    /**
+     * Tests matrix inversion. The product of a matrix by its inverse shall be the identity matrix.
+     */
+    @Test
+    public void testInvert() {
+        final Random random = new Random(804522148);
+        for (int size=1; size <= MAX_SIZE; size++) {
+            final SimpleMatrix general = random(size, random);
+            final SimpleMatrix specialized = SimpleMatrix.castOrCopy(general.clone());
+            final SimpleMatrix inverse = specialized.clone();
+            inverse.invert();
+            general.invert();
+            assertMatrixEquals(general, inverse, TOLERANCE);
+            final SimpleMatrix product = SimpleMatrix.create(size, size);
+            product.mul(specialized, inverse);
+            assertMatrixEquals(new SimpleMatrix(size, size), product, TOLERANCE);
+        }
+    }
+
+    /**
+     * Tests the inversion of singular matrices.
+     */
+    @Test
+    public void testSingular() {
+        for (int size=1; size <= MAX_SIZE; size++) {
+            final SimpleMatrix matrix = SimpleMatrix.create(size, size);
+            matrix.setZero();
+            try {
+                matrix.invert();
+                fail("Singular matrix shall not be invertible.");
+            } catch (ArithmeticException e) {
+                // This is the expected exception.
+            }
+        }
+    }
+}
@@ -153,7 +153,9 @@ class Converter<T> implements Function<PyObject,T> {
         @Override public T apply(final PyObject value) {
             final String name = name(value);
             if (name == null) return null;
-            return CodeList.valueOf(type, new CodeList.Filter() {
+            final T code = CodeList.forIdentifier(type, name);              // Fast check (sufficient in most cases).
+            if (code != null) return code;
+            return CodeList.valueOf(type, new CodeList.Filter() {           // Fallback on more costly check.
                 @Override public String codename() {
                     return name;
                 }
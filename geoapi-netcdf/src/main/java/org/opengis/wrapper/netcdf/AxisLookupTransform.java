@@ -0,0 +1,387 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The netCDF wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementors can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package org.opengis.wrapper.netcdf;
+
+import java.util.Arrays;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.geometry.MismatchedDimensionException;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.MathTransform1D;
+import org.opengis.referencing.operation.TransformException;
+
+
+/**
+ * A transform from grid indices to coordinate values along an irregular axis.
+ * The coordinate values are given by an array of strictly increasing or strictly decreasing values.
+ * Grid indices between two integers are linearly interpolated, and indices outside the array range
+ * are linearly extrapolated using the first or the last interval.
+ *
+ * <p>The inverse transform finds the interval which contains a coordinate value by a binary search,
+ * then interpolates the grid index in that interval. Since grid coordinates are often transformed
+ * in sequence, the bulk {@code transform} methods check the interval found for the previous point
+ * before to start a new binary search.</p>
+ *
+ * <p>This class is immutable and thread-safe.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+final class AxisLookupTransform implements MathTransform1D {
+    /**
+     * The coordinate values for each grid index. Shall not be modified.
+     */
+    private final double[] values;
+
+    /**
+     * {@code true} if the {@linkplain #values} are in decreasing order.
+     */
+    private final boolean descending;
+
+    /**
+     * {@code true} if this transform converts coordinate values to grid indices.
+     */
+    private final boolean isInverse;
+
+    /**
+     * The inverse of this transform.
+     */
+    private final AxisLookupTransform inverse;
+
+    /**
+     * Creates a new transform for the given coordinate values.
+     *
+     * @param  values  the coordinate values for each grid index. This array is not cloned.
+     * @throws IllegalArgumentException if there is less than 2 values,
+     *         or if the values are not strictly monotonic.
+     */
+    AxisLookupTransform(final double[] values) {
+        if (values.length < 2) {
+            throw new IllegalArgumentException("The axis needs at least two values.");
+        }
+        descending = values[1] < values[0];
+        for (int i=1; i<values.length; i++) {
+            final double previous = values[i-1];
+            final double current  = values[i];
+            if (!(descending ? current < previous : current > previous)) {         // Use '!' for catching NaN.
+                throw new IllegalArgumentException("Axis values are not strictly monotonic at index " + i + '.');
+            }
+        }
+        this.values = values;
+        isInverse   = false;
+        inverse     = new AxisLookupTransform(this);
+    }
+
+    /**
+     * Creates the inverse of the given transform.
+     */
+    private AxisLookupTransform(final AxisLookupTransform forward) {
+        values     = forward.values;
+        descending = forward.descending;
+        isInverse  = true;
+        inverse    = forward;
+    }
+
+    /**
+     * Returns the number of source dimensions, which is 1.
+     */
+    @Override
+    public int getSourceDimensions() {
+        return 1;
+    }
+
+    /**
+     * Returns the number of target dimensions, which is 1.
+     */
+    @Override
+    public int getTargetDimensions() {
+        return 1;
+    }
+
+    /**
+     * Returns the index of the interval to use for interpolating the given grid index.
+     * The returned value is in the [0 … <var>n</var>-2] range where <var>n</var> is the
+     * number of coordinate values.
+     */
+    private int intervalOfIndex(final double index) {
+        final double i = Math.floor(index);
+        if (i <= 0) return 0;
+        final int last = values.length - 2;
+        return (i >= last) ? last : (int) i;
+    }
+
+    /**
+     * Returns the index of the interval which contains the given coordinate value.
+     * If the value is outside the axis range, returns the first or the last interval.
+     */
+    private int intervalOfValue(final double value) {
+        int low  = 0;
+        int high = values.length - 2;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (descending ? values[mid] >= value : values[mid] <= value) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns {@code true} if the given coordinate value is inside the interval at the given index.
+     */
+    private boolean contains(final int interval, final double value) {
+        final double lower = values[interval];
+        final double upper = values[interval + 1];
+        return descending ? (value <= lower && value >= upper) : (value >= lower && value <= upper);
+    }
+
+    /**
+     * Interpolates the coordinate value at the given grid index in the given interval.
+     */
+    private double coordinate(final int interval, final double index) {
+        final double lower = values[interval];
+        return lower + (index - interval) * (values[interval + 1] - lower);
+    }
+
+    /**
+     * Interpolates the grid index of the given coordinate value in the given interval.
+     */
+    private double index(final int interval, final double value) {
+        final double lower = values[interval];
+        return interval + (value - lower) / (values[interval + 1] - lower);
+    }
+
+    /**
+     * Transforms the given value.
+     *
+     * @param  value  the value to transform.
+     * @return the transformed value.
+     */
+    @Override
+    public double transform(final double value) {
+        if (Double.isNaN(value)) {
+            return Double.NaN;
+        }
+        if (isInverse) {
+            return index(intervalOfValue(value), value);
+        } else {
+            return coordinate(intervalOfIndex(value), value);
+        }
+    }
+
+    /**
+     * Gets the derivative of this function at a value. This is the slope of the interval
+     * which contains the given value.
+     *
+     * @param  value  the value where to evaluate the derivative.
+     * @return the derivative at the specified point.
+     */
+    @Override
+    public double derivative(final double value) {
+        if (Double.isNaN(value)) {
+            return Double.NaN;
+        }
+        final int i = isInverse ? intervalOfValue(value) : intervalOfIndex(value);
+        final double slope = values[i+1] - values[i];
+        return isInverse ? 1 / slope : slope;
+    }
+
+    /**
+     * Gets the derivative of this transform at a point.
+     *
+     * @param  point  the coordinate point where to evaluate the derivative.
+     * @return the derivative at the specified point as a 1×1 matrix.
+     * @throws MismatchedDimensionException if the given point is not one-dimensional.
+     */
+    @Override
+    public Matrix derivative(final DirectPosition point) throws MismatchedDimensionException {
+        ensureOneDimensional(point);
+        final SimpleMatrix matrix = new SimpleMatrix(1);
+        matrix.setElement(0, 0, derivative(point.getOrdinate(0)));
+        return matrix;
+    }
+
+    /**
+     * Ensures that the given position is one-dimensional.
+     *
+     * @param  point  the position to verify, or {@code null}.
+     * @throws MismatchedDimensionException if the given position is not one-dimensional.
+     */
+    private static void ensureOneDimensional(final DirectPosition point) throws MismatchedDimensionException {
+        if (point != null && point.getDimension() != 1) {
+            throw new MismatchedDimensionException("All given positions shall be one-dimensional.");
+        }
+    }
+
+    /**
+     * Transforms the specified {@code ptSrc} and stores the result in {@code ptDst}.
+     *
+     * @param  ptSrc  the coordinate point to be transformed.
+     * @param  ptDst  the coordinate point that stores the result of transforming {@code ptSrc}, or {@code null}.
+     * @return the coordinate point after transforming {@code ptSrc} and storing the result in {@code ptDst},
+     *         or a newly created point if {@code ptDst} was null.
+     * @throws MismatchedDimensionException if {@code ptSrc} or {@code ptDst} is not one-dimensional.
+     */
+    @Override
+    public DirectPosition transform(final DirectPosition ptSrc, DirectPosition ptDst) throws MismatchedDimensionException {
+        ensureOneDimensional(ptSrc);
+        ensureOneDimensional(ptDst);
+        if (ptDst == null) {
+            ptDst = new SimpleDirectPosition(1);
+        }
+        ptDst.setOrdinate(0, transform(ptSrc.getOrdinate(0)));
+        return ptDst;
+    }
+
+    /**
+     * Transforms a list of coordinate values. The interval used for the previous value is tried
+     * before to search for a new interval, which makes the transformation of sorted values faster.
+     *
+     * @param  srcPts  the array containing the source values.
+     * @param  srcOff  the offset to the first value to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed values are returned. May be the same than {@code srcPts}.
+     * @param  dstOff  the offset to the location of the first transformed value in the destination array.
+     * @param  numPts  the number of values to be transformed.
+     */
+    @Override
+    public void transform(double[] srcPts, int srcOff, final double[] dstPts, int dstOff, int numPts) {
+        if (srcPts == dstPts && srcOff < dstOff && srcOff + numPts > dstOff) {
+            srcPts = Arrays.copyOfRange(srcPts, srcOff, srcOff + numPts);
+            srcOff = 0;
+        }
+        int interval = 0;
+        while (--numPts >= 0) {
+            final double value = srcPts[srcOff++];
+            final double result;
+            if (Double.isNaN(value)) {
+                result = Double.NaN;
+            } else if (isInverse) {
+                if (!contains(interval, value)) {
+                    interval = intervalOfValue(value);
+                }
+                result = index(interval, value);
+            } else {
+                result = coordinate(intervalOfIndex(value), value);
+            }
+            dstPts[dstOff++] = result;
+        }
+    }
+
+    /**
+     * Transforms a list of coordinate values.
+     *
+     * @param  srcPts  the array containing the source values.
+     * @param  srcOff  the offset to the first value to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed values are returned. May be the same than {@code srcPts}.
+     * @param  dstOff  the offset to the location of the first transformed value in the destination array.
+     * @param  numPts  the number of values to be transformed.
+     */
+    @Override
+    public void transform(final float[] srcPts, int srcOff, final float[] dstPts, int dstOff, int numPts) {
+        final double[] buffer = new double[numPts];
+        for (int i=0; i<numPts; i++) {
+            buffer[i] = srcPts[srcOff++];
+        }
+        transform(buffer, 0, buffer, 0, numPts);
+        for (int i=0; i<numPts; i++) {
+            dstPts[dstOff++] = (float) buffer[i];
+        }
+    }
+
+    /**
+     * Transforms a list of coordinate values.
+     *
+     * @param  srcPts  the array containing the source values.
+     * @param  srcOff  the offset to the first value to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed values are returned.
+     * @param  dstOff  the offset to the location of the first transformed value in the destination array.
+     * @param  numPts  the number of values to be transformed.
+     */
+    @Override
+    public void transform(final float[] srcPts, int srcOff, final double[] dstPts, final int dstOff, final int numPts) {
+        for (int i=0; i<numPts; i++) {
+            dstPts[dstOff + i] = srcPts[srcOff++];
+        }
+        transform(dstPts, dstOff, dstPts, dstOff, numPts);
+    }
+
+    /**
+     * Transforms a list of coordinate values.
+     *
+     * @param  srcPts  the array containing the source values.
+     * @param  srcOff  the offset to the first value to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed values are returned.
+     * @param  dstOff  the offset to the location of the first transformed value in the destination array.
+     * @param  numPts  the number of values to be transformed.
+     */
+    @Override
+    public void transform(final double[] srcPts, final int srcOff, final float[] dstPts, int dstOff, final int numPts) {
+        final double[] buffer = new double[numPts];
+        transform(srcPts, srcOff, buffer, 0, numPts);
+        for (int i=0; i<numPts; i++) {
+            dstPts[dstOff++] = (float) buffer[i];
+        }
+    }
+
+    /**
+     * Returns the inverse of this transform.
+     */
+    @Override
+    public MathTransform1D inverse() {
+        return inverse;
+    }
+
+    /**
+     * Returns {@code false} since this transform is not the identity transform.
+     * Strictly speaking, it could be the identity if the values are the sequence 0, 1, 2…
+     * but such axes are regular and handled by affine transforms instead.
+     */
+    @Override
+    public boolean isIdentity() {
+        return false;
+    }
+
+    /**
+     * Unsupported operation, since there is no WKT definition for this transform.
+     */
+    @Override
+    public String toWKT() throws UnsupportedOperationException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Compares this transform with the given object for equality.
+     *
+     * @param  object  the object to compare with this transform.
+     * @return {@code true} if both objects are equal.
+     */
+    @Override
+    public boolean equals(final Object object) {
+        if (object instanceof AxisLookupTransform) {
+            final AxisLookupTransform other = (AxisLookupTransform) object;
+            return isInverse == other.isInverse && Arrays.equals(values, other.values);
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code value for this transform.
+     */
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values) ^ (isInverse ? 1 : 0);
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The netCDF wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementors can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package org.opengis.wrapper.netcdf;
+
+import java.util.Arrays;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.geometry.MismatchedDimensionException;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.MathTransform;
+
+
+/**
+ * A transform from grid indices to CRS coordinates where each dimension is converted independently.
+ * The conversion in each dimension is either an affine function (for regular axes) or an
+ * {@link AxisLookupTransform} (for irregular axes). This allows grids mixing regular and
+ * irregular axes to be transformed without per-cell lookup in all dimensions.
+ *
+ * <p>This class is immutable and thread-safe.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+final class GridToCRSTransform implements MathTransform {
+    /**
+     * The scale factors for the dimensions converted by an affine function.
+     * Values at the index of dimensions converted by a lookup transform are ignored.
+     */
+    private final double[] scales;
+
+    /**
+     * The offsets for the dimensions converted by an affine function.
+     * Values at the index of dimensions converted by a lookup transform are ignored.
+     */
+    private final double[] offsets;
+
+    /**
+     * The lookup transforms for irregular axes, or {@code null} for dimensions
+     * converted by an affine function.
+     */
+    private final AxisLookupTransform[] lookups;
+
+    /**
+     * The inverse of this transform.
+     */
+    private final GridToCRSTransform inverse;
+
+    /**
+     * Creates a new transform. For each dimension <var>i</var>, if {@code lookups[i]} is non-null then
+     * that transform is used. Otherwise the coordinate is computed as {@code index*scales[i] + offsets[i]}.
+     * The given arrays are not cloned.
+     *
+     * @param  scales   the scale factors of dimensions converted by an affine function.
+     * @param  offsets  the offsets of dimensions converted by an affine function.
+     * @param  lookups  the lookup transforms for irregular axes, or {@code null} elements for regular axes.
+     */
+    GridToCRSTransform(final double[] scales, final double[] offsets, final AxisLookupTransform[] lookups) {
+        this.scales  = scales;
+        this.offsets = offsets;
+        this.lookups = lookups;
+        final int dimension = lookups.length;
+        final double[] inverseScales  = new double[dimension];
+        final double[] inverseOffsets = new double[dimension];
+        final AxisLookupTransform[] inverseLookups = new AxisLookupTransform[dimension];
+        for (int i=0; i<dimension; i++) {
+            if (lookups[i] != null) {
+                inverseLookups[i] = (AxisLookupTransform) lookups[i].inverse();
+            } else {
+                inverseScales [i] =  1 / scales[i];
+                inverseOffsets[i] = -offsets[i] / scales[i];
+            }
+        }
+        inverse = new GridToCRSTransform(inverseScales, inverseOffsets, inverseLookups, this);
+    }
+
+    /**
+     * Creates the inverse of the given transform.
+     */
+    private GridToCRSTransform(final double[] scales, final double[] offsets,
+            final AxisLookupTransform[] lookups, final GridToCRSTransform inverse)
+    {
+        this.scales  = scales;
+        this.offsets = offsets;
+        this.lookups = lookups;
+        this.inverse = inverse;
+    }
+
+    /**
+     * Returns the number of source dimensions.
+     */
+    @Override
+    public int getSourceDimensions() {
+        return lookups.length;
+    }
+
+    /**
+     * Returns the number of target dimensions, which is the same than the number of source dimensions.
+     */
+    @Override
+    public int getTargetDimensions() {
+        return lookups.length;
+    }
+
+    /**
+     * Ensures that the given position has the dimension of this transform.
+     *
+     * @param  point  the position to verify, or {@code null}.
+     * @throws MismatchedDimensionException if the given position does not have the expected dimension.
+     */
+    private void ensureValidDimension(final DirectPosition point) throws MismatchedDimensionException {
+        if (point != null && point.getDimension() != lookups.length) {
+            throw new MismatchedDimensionException("All given positions shall be " + lookups.length + "-dimensional.");
+        }
+    }
+
+    /**
+     * Transforms the given value in the given dimension.
+     */
+    private double transform(final int dimension, final double value) {
+        final AxisLookupTransform lookup = lookups[dimension];
+        return (lookup != null) ? lookup.transform(value) : value * scales[dimension] + offsets[dimension];
+    }
+
+    /**
+     * Transforms the specified {@code ptSrc} and stores the result in {@code ptDst}.
+     *
+     * @param  ptSrc  the coordinate point to be transformed.
+     * @param  ptDst  the coordinate point that stores the result of transforming {@code ptSrc}, or {@code null}.
+     * @return the coordinate point after transforming {@code ptSrc} and storing the result in {@code ptDst},
+     *         or a newly created point if {@code ptDst} was null.
+     * @throws MismatchedDimensionException if {@code ptSrc} or {@code ptDst} does not have the expected dimension.
+     */
+    @Override
+    public DirectPosition transform(final DirectPosition ptSrc, DirectPosition ptDst) throws MismatchedDimensionException {
+        ensureValidDimension(ptSrc);
+        ensureValidDimension(ptDst);
+        if (ptDst == null) {
+            ptDst = new SimpleDirectPosition(lookups.length);
+        }
+        for (int i=0; i<lookups.length; i++) {
+            ptDst.setOrdinate(i, transform(i, ptSrc.getOrdinate(i)));
+        }
+        return ptDst;
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values. Each dimension is transformed
+     * in a separated pass over the array, so that the lookup transforms can take advantage
+     * of coordinates which are sorted along their axis.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned. May be the same than {@code srcPts}.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     */
+    @Override
+    public void transform(final double[] srcPts, final int srcOff, final double[] dstPts, final int dstOff, final int numPts) {
+        final int dimension = lookups.length;
+        if (srcPts != dstPts || srcOff != dstOff) {
+            System.arraycopy(srcPts, srcOff, dstPts, dstOff, numPts * dimension);
+        }
+        final int end = dstOff + numPts * dimension;
+        double[] buffer = null;
+        for (int i=0; i<dimension; i++) {
+            final AxisLookupTransform lookup = lookups[i];
+            if (lookup == null) {
+                final double scale  = scales [i];
+                final double offset = offsets[i];
+                for (int j = dstOff + i; j < end; j += dimension) {
+                    dstPts[j] = dstPts[j] * scale + offset;
+                }
+            } else if (dimension == 1) {
+                lookup.transform(dstPts, dstOff, dstPts, dstOff, numPts);
+            } else {
+                if (buffer == null) {
+                    buffer = new double[numPts];
+                }
+                int k = 0;
+                for (int j = dstOff + i; j < end; j += dimension) {
+                    buffer[k++] = dstPts[j];
+                }
+                lookup.transform(buffer, 0, buffer, 0, numPts);
+                k = 0;
+                for (int j = dstOff + i; j < end; j += dimension) {
+                    dstPts[j] = buffer[k++];
+                }
+            }
+        }
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned. May be the same than {@code srcPts}.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     */
+    @Override
+    public void transform(final float[] srcPts, int srcOff, final float[] dstPts, int dstOff, final int numPts) {
+        final int length = numPts * lookups.length;
+        final double[] buffer = new double[length];
+        for (int i=0; i<length; i++) {
+            buffer[i] = srcPts[srcOff++];
+        }
+        transform(buffer, 0, buffer, 0, numPts);
+        for (int i=0; i<length; i++) {
+            dstPts[dstOff++] = (float) buffer[i];
+        }
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     */
+    @Override
+    public void transform(final float[] srcPts, int srcOff, final double[] dstPts, final int dstOff, final int numPts) {
+        final int length = numPts * lookups.length;
+        for (int i=0; i<length; i++) {
+            dstPts[dstOff + i] = srcPts[srcOff++];
+        }
+        transform(dstPts, dstOff, dstPts, dstOff, numPts);
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     */
+    @Override
+    public void transform(final double[] srcPts, final int srcOff, final float[] dstPts, int dstOff, final int numPts) {
+        final int length = numPts * lookups.length;
+        final double[] buffer = new double[length];
+        transform(srcPts, srcOff, buffer, 0, numPts);
+        for (int i=0; i<length; i++) {
+            dstPts[dstOff++] = (float) buffer[i];
+        }
+    }
+
+    /**
+     * Gets the derivative of this transform at a point. Since each dimension is transformed
+     * independently, the derivative is a diagonal matrix.
+     *
+     * @param  point  the coordinate point where to evaluate the derivative.
+     * @return the derivative at the specified point (never {@code null}).
+     * @throws MismatchedDimensionException if the given point does not have the expected dimension.
+     */
+    @Override
+    public Matrix derivative(final DirectPosition point) throws MismatchedDimensionException {
+        ensureValidDimension(point);
+        final SimpleMatrix matrix = new SimpleMatrix(lookups.length);
+        for (int i=0; i<lookups.length; i++) {
+            final AxisLookupTransform lookup = lookups[i];
+            matrix.setElement(i, i, (lookup != null) ? lookup.derivative(point.getOrdinate(i)) : scales[i]);
+        }
+        return matrix;
+    }
+
+    /**
+     * Returns the inverse of this transform.
+     */
+    @Override
+    public MathTransform inverse() {
+        return inverse;
+    }
+
+    /**
+     * Returns {@code true} if this transform is the identity transform.
+     */
+    @Override
+    public boolean isIdentity() {
+        for (int i=0; i<lookups.length; i++) {
+            if (lookups[i] != null || scales[i] != 1 || offsets[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Unsupported operation, since there is no WKT definition for this transform.
+     */
+    @Override
+    public String toWKT() throws UnsupportedOperationException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Compares this transform with the given object for equality.
+     *
+     * @param  object  the object to compare with this transform.
+     * @return {@code true} if both objects are equal.
+     */
+    @Override
+    public boolean equals(final Object object) {
+        if (object instanceof GridToCRSTransform) {
+            final GridToCRSTransform other = (GridToCRSTransform) object;
+            return Arrays.equals(scales,  other.scales)  &&
+                   Arrays.equals(offsets, other.offsets) &&
+                   Arrays.equals(lookups, other.lookups);
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code value for this transform.
+     */
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(scales) + 31 * (Arrays.hashCode(offsets) + 31 * Arrays.hashCode(lookups));
+    }
+}
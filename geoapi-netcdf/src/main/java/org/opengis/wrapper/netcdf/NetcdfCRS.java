@@ -76,7 +76,7 @@ import org.opengis.coverage.grid.GridCoordinates;
  * </ul>
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
 public class NetcdfCRS extends NetcdfIdentifiedObject implements CoordinateReferenceSystem,
@@ -479,11 +479,12 @@ public class NetcdfCRS extends NetcdfIdentifiedObject implements CoordinateRefer
 
     /**
      * Returns the transform from grid coordinates to this CRS coordinates in the given
-     * range of dimensions.
+     * range of dimensions. If all axes are regular, then this method returns an affine transform.
+     * Otherwise each irregular axis is converted by a lookup in the axis coordinate values,
+     * while the regular axes are still converted by affine functions.
      *
      * <p><b>Limitation</b><br>
-     * Current implementation can build a transform only for regular axes.
-     * A future implementation may be more general.</p>
+     * Irregular axes are supported only if their coordinate values are strictly monotonic.</p>
      *
      * @param  lowerDimension  index of the first dimension for which to get the transform.
      * @param  upperDimension  index after the last dimension for which to get the transform.
@@ -496,18 +497,34 @@ public class NetcdfCRS extends NetcdfIdentifiedObject implements CoordinateRefer
             throw new IllegalArgumentException("Illegal range");
         }
         final int numDimensions = upperDimension - lowerDimension;
-        final SimpleMatrix matrix = new SimpleMatrix(numDimensions + 1);
+        final double[] scales  = new double[numDimensions];
+        final double[] offsets = new double[numDimensions];
+        final AxisLookupTransform[] lookups = new AxisLookupTransform[numDimensions];
+        boolean isAffine = true;
         for (int i=0; i<numDimensions; i++) {
             final CoordinateAxis1D axis = axes[lowerDimension + i].delegate();
-            if (!axis.isRegular()) {
-                return null;
+            if (axis.isRegular()) {
+                final double scale = axis.getIncrement();
+                if (!Double.isNaN(scale) && scale != 0) {
+                    scales [i] = nice(scale);
+                    offsets[i] = nice(axis.getStart());
+                    continue;
+                }
             }
-            final double scale = axis.getIncrement();
-            if (Double.isNaN(scale) || scale == 0) {
-                return null;
+            try {
+                lookups[i] = new AxisLookupTransform(axis.getCoordValues());
+            } catch (IllegalArgumentException e) {
+                return null;                        // Axis values are not strictly monotonic.
             }
-            matrix.setElement(i, i, nice(scale));
-            matrix.setElement(i, numDimensions, nice(axis.getStart()));
+            isAffine = false;
+        }
+        if (!isAffine) {
+            return new GridToCRSTransform(scales, offsets, lookups);
+        }
+        final SimpleMatrix matrix = new SimpleMatrix(numDimensions + 1);
+        for (int i=0; i<numDimensions; i++) {
+            matrix.setElement(i, i, scales[i]);
+            matrix.setElement(i, numDimensions, offsets[i]);
         }
         try {
             return Factories.getFactory(MathTransformFactory.class).createAffineTransform(matrix);
@@ -21,6 +21,9 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Objects;
+import java.util.List;
+import java.util.Map;
+import java.util.HashMap;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.Charset;
@@ -49,8 +52,11 @@ import org.opengis.temporal.Duration;
 
 /**
  * A {@link Metadata} implementation backed by a netCDF {@link NetcdfFile} object.
- * All getter methods fetch their values from the netCDF file, so change to the netCDF
- * file content will be immediately reflected in this class.
+ * By default, all getter methods fetch their values from the netCDF file, so change to the netCDF
+ * file content will be immediately reflected in this class. Alternatively, the global attributes
+ * can be copied in a snapshot indexed by case-folded attribute names, in which case the numbers and
+ * dates are parsed only once and the netCDF file can be closed after the snapshot has been taken.
+ * See {@link Mode} for more information.
  *
  * <p>Unless otherwise noted in the javadoc, this implementation defines a one-to-one relationship
  * between the metadata attributes and netCDF attributes. This simple model allows us to implement
@@ -113,19 +119,220 @@ import org.opengis.temporal.Duration;
 public class NetcdfMetadata implements Metadata, DataIdentification, Identifier, Citation, CitationDate,
         OnlineResource, Address, Extent, GeographicBoundingBox     // Do not implement Party because can be Individual or Organisation.
 {
+    /**
+     * Specifies when the metadata values are read from the netCDF file.
+     *
+     * @author  Martin Desruisseaux (Geomatys)
+     * @version 4.0
+     * @since   4.0
+     */
+    public enum Mode {
+        /**
+         * All getter methods fetch their values from the netCDF file at each invocation.
+         * Changes to the netCDF file content are immediately reflected in the metadata,
+         * but each attribute lookup is a case-insensitive linear scan and numbers or dates
+         * are parsed again at each invocation.
+         */
+        LIVE,
+
+        /**
+         * The global attributes are copied in a snapshot when a metadata value is requested
+         * for the first time. The netCDF file shall not be closed before that time.
+         */
+        LAZY_SNAPSHOT,
+
+        /**
+         * The global attributes are copied in a snapshot at construction time.
+         * The netCDF file can be closed after the {@code NetcdfMetadata} construction.
+         */
+        EAGER_SNAPSHOT
+    }
+
     /**
      * The netCDF file given to the constructor.
      */
     protected final NetcdfFile file;
 
+    /**
+     * Whether the attributes shall be copied in a snapshot, and when.
+     */
+    private final Mode mode;
+
+    /**
+     * The snapshot of global attributes, or {@code null} if not yet created or if {@link #mode} is
+     * {@link Mode#LIVE}. Shall be read and written by the {@link #attributes()} method only.
+     */
+    private volatile Attributes attributes;
+
     /**
      * Creates a new metadata object as a wrapper around the given netCDF file.
+     * Metadata values are fetched from the netCDF file at each getter invocation.
      *
      * @param file  the netCDF file.
      */
     public NetcdfMetadata(final NetcdfFile file) {
+        this(file, Mode.LIVE);
+    }
+
+    /**
+     * Creates a new metadata object for the given netCDF file using the given mode.
+     * If the mode is {@link Mode#EAGER_SNAPSHOT}, then all global attributes are read
+     * by this constructor and the file can be closed after this constructor returned.
+     *
+     * @param file  the netCDF file.
+     * @param mode  when to read metadata values from the netCDF file.
+     *
+     * @since 4.0
+     */
+    public NetcdfMetadata(final NetcdfFile file, final Mode mode) {
         Objects.requireNonNull(file);
+        Objects.requireNonNull(mode);
         this.file = file;
+        this.mode = mode;
+        if (mode == Mode.EAGER_SNAPSHOT) {
+            attributes = new Attributes(file);
+        }
+    }
+
+    /**
+     * A snapshot of the global attributes of a netCDF file, indexed by case-folded names.
+     * The string values are trimmed when the snapshot is taken. Numbers and dates are parsed
+     * when first requested, then cached. This class is thread-safe.
+     */
+    private static final class Attributes {
+        /**
+         * The value of a netCDF attribute, together with the parsed number or date.
+         * The parsed values are computed when first needed. Concurrent computations
+         * of the same value are harmless since they produce the same result.
+         */
+        private static final class Value {
+            /** The trimmed and non-empty string value, or {@code null} if none. */
+            final String string;
+
+            /** The numeric value if the attribute is not a string, or {@code null}. */
+            final Number number;
+
+            /** The parsed number, or {@code null} if not yet computed. */
+            private volatile Double parsedNumber;
+
+            /** The parsed date as milliseconds since epoch, or {@code null} if not yet computed. */
+            private volatile Long parsedDate;
+
+            /** Copies the value of the given attribute. */
+            Value(final Attribute attribute) {
+                String value = null;
+                if (attribute.isString()) {
+                    value = attribute.getStringValue();
+                    if (value != null && (value = value.trim()).isEmpty()) {
+                        value = null;
+                    }
+                    number = null;
+                } else {
+                    number = attribute.getNumericValue();
+                }
+                string = value;
+            }
+
+            /** Returns the value as a floating point number, or NaN if none. */
+            double getDouble() throws NumberFormatException {
+                Double value = parsedNumber;
+                if (value == null) {
+                    if (string != null) {
+                        value = Double.valueOf(string);
+                    } else {
+                        value = (number != null) ? number.doubleValue() : Double.NaN;
+                    }
+                    parsedNumber = value;
+                }
+                return value;
+            }
+
+            /** Returns the value as a date, or {@code null} if none. */
+            Date getDate() throws IllegalArgumentException {
+                if (string == null) {
+                    return null;
+                }
+                Long value = parsedDate;
+                if (value == null) {
+                    parsedDate = value = parseDate(string).getTime();
+                }
+                return new Date(value);
+            }
+        }
+
+        /**
+         * The attribute values indexed by names in lower case.
+         */
+        private final Map<String,Value> values;
+
+        /**
+         * The {@link NetcdfFile#getId()}, {@link NetcdfFile#getTitle()} and
+         * {@link NetcdfFile#getLocation()} values.
+         */
+        final String id, title, location;
+
+        /**
+         * Copies the global attributes of the given file.
+         */
+        Attributes(final NetcdfFile file) {
+            final List<Attribute> list = file.getGlobalAttributes();
+            values = new HashMap<>(list.size() + list.size() / 3 + 1);
+            for (final Attribute attribute : list) {
+                // Keep the first attribute for consistency with NetcdfFile.findGlobalAttributeIgnoreCase(String).
+                values.putIfAbsent(attribute.getShortName().toLowerCase(Locale.ROOT), new Value(attribute));
+            }
+            id       = file.getId();
+            title    = file.getTitle();
+            location = file.getLocation();
+        }
+
+        /**
+         * Returns the value of the attribute of the given case-insensitive name, or {@code null} if none.
+         */
+        Value get(final String name) {
+            return values.get(name.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Returns the snapshot of global attributes, or {@code null} if the values shall be read
+     * directly from the netCDF file.
+     */
+    private Attributes attributes() {
+        Attributes snapshot = attributes;
+        if (snapshot == null && mode != Mode.LIVE) {
+            synchronized (this) {
+                snapshot = attributes;
+                if (snapshot == null) {
+                    attributes = snapshot = new Attributes(file);
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the {@linkplain NetcdfFile#getId() file identifier}, or {@code null} if none.
+     */
+    private String getFileId() {
+        final Attributes snapshot = attributes();
+        return (snapshot != null) ? snapshot.id : file.getId();
+    }
+
+    /**
+     * Returns the {@linkplain NetcdfFile#getTitle() file title}, or {@code null} if none.
+     */
+    private String getFileTitle() {
+        final Attributes snapshot = attributes();
+        return (snapshot != null) ? snapshot.title : file.getTitle();
+    }
+
+    /**
+     * Returns the {@linkplain NetcdfFile#getLocation() file location}, or {@code null} if none.
+     */
+    private String getFileLocation() {
+        final Attributes snapshot = attributes();
+        return (snapshot != null) ? snapshot.location : file.getLocation();
     }
 
     /**
@@ -146,6 +353,10 @@ public class NetcdfMetadata implements Metadata, DataIdentification, Identifier,
      * Returns {@code true} if the netCDF file contains an attribute of the given name.
      */
     private boolean hasAttribute(final String name) {
+        final Attributes snapshot = attributes();
+        if (snapshot != null) {
+            return snapshot.get(name) != null;
+        }
         return file.findGlobalAttributeIgnoreCase(name) != null;
     }
 
@@ -158,6 +369,11 @@ public class NetcdfMetadata implements Metadata, DataIdentification, Identifier,
      * @return the non-empty attribute value, or {@code null} if none.
      */
     private String getString(final String name) {
+        final Attributes snapshot = attributes();
+        if (snapshot != null) {
+            final Attributes.Value value = snapshot.get(name);
+            return (value != null) ? value.string : null;
+        }
         final Attribute attribute = file.findGlobalAttributeIgnoreCase(name);
         if (attribute != null && attribute.isString()) {
             String value = attribute.getStringValue();
@@ -201,6 +417,11 @@ public class NetcdfMetadata implements Metadata, DataIdentification, Identifier,
      * @throws NumberFormatException if the number can not be parsed.
      */
     private double getDouble(final String name) throws NumberFormatException {
+        final Attributes snapshot = attributes();
+        if (snapshot != null) {
+            final Attributes.Value value = snapshot.get(name);
+            return (value != null) ? value.getDouble() : Double.NaN;
+        }
         final Attribute attribute = file.findGlobalAttributeIgnoreCase(name);
         if (attribute != null) {
             if (attribute.isString()) {
@@ -226,6 +447,11 @@ public class NetcdfMetadata implements Metadata, DataIdentification, Identifier,
      * @return the attribute value, or {@code null} if none or can not be parsed.
      */
     private Date getDate(final String name) {
+        final Attributes snapshot = attributes();
+        if (snapshot != null) {
+            final Attributes.Value value = snapshot.get(name);
+            return (value != null) ? value.getDate() : null;
+        }
         final String value = getString(name);
         if (value != null) {
             return parseDate(value);
@@ -304,7 +530,7 @@ public class NetcdfMetadata implements Metadata, DataIdentification, Identifier,
     @Override
     public String getCode() {
         final String id = getString(ACDD.id);
-        return (id != null) ? id : file.getId();
+        return (id != null) ? id : getFileId();
     }
 
     /**
@@ -314,7 +540,7 @@ public class NetcdfMetadata implements Metadata, DataIdentification, Identifier,
      */
     @Override
     public InternationalString getName() {
-        String name = file.getLocation();
+        String name = getFileLocation();
         if (name == null) {
             return null;
         }
@@ -341,7 +567,7 @@ public class NetcdfMetadata implements Metadata, DataIdentification, Identifier,
     public InternationalString getTitle() {
         String title = getString(ACDD.title);
         if (title == null) {
-            title = file.getTitle();
+            title = getFileTitle();
             if (title == null) {
                 return null;
             }
@@ -509,7 +735,7 @@ public class NetcdfMetadata implements Metadata, DataIdentification, Identifier,
      */
     @Override
     public Collection<? extends OnlineResource> getOnlineResources() {
-        return self(file.getLocation() != null);
+        return self(getFileLocation() != null);
     }
 
     /**
@@ -519,7 +745,7 @@ public class NetcdfMetadata implements Metadata, DataIdentification, Identifier,
      */
     @Override
     public URI getLinkage() {
-        final String location = file.getLocation();
+        final String location = getFileLocation();
         if (location != null) try {
             return new URI(location);
         } catch (URISyntaxException e) {
@@ -19,6 +19,9 @@ import java.util.List;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.awt.Shape;
 import java.awt.geom.Path2D;
 import java.awt.geom.PathIterator;
@@ -29,6 +32,7 @@ import ucar.unidata.geoloc.LatLonRect;
 import ucar.unidata.geoloc.LatLonPoint;
 import ucar.unidata.geoloc.LatLonPointImpl;
 import ucar.unidata.geoloc.Projection;
+import ucar.unidata.geoloc.ProjectionImpl;
 import ucar.unidata.geoloc.ProjectionPoint;
 import ucar.unidata.geoloc.ProjectionPointImpl;
 import ucar.unidata.geoloc.projection.ProjectionAdapter;
@@ -37,6 +41,7 @@ import org.opengis.metadata.extent.Extent;
 import org.opengis.metadata.quality.PositionalAccuracy;
 import org.opengis.geometry.DirectPosition;
 import org.opengis.geometry.MismatchedDimensionException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.crs.GeographicCRS;
 import org.opengis.referencing.crs.ProjectedCRS;
 import org.opengis.referencing.operation.Matrix;
@@ -54,7 +59,7 @@ import org.opengis.parameter.ParameterValueGroup;
  * <cite>Math Transform</cite>, so we implement the two interfaces by the same class.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
 public class NetcdfProjection extends NetcdfIdentifiedObject
@@ -101,7 +106,22 @@ public class NetcdfProjection extends NetcdfIdentifiedObject
      * The inverse of this math transform, or {@code null} if not yet computed.
      * Will be created by {@link #inverse()} when first needed.
      */
-    private transient MathTransform2D inverse;
+    private transient volatile MathTransform2D inverse;
+
+    /**
+     * Updater for the {@link #inverse} field, used for publishing the inverse without locking.
+     */
+    private static final AtomicReferenceFieldUpdater<NetcdfProjection,MathTransform2D> INVERSE =
+            AtomicReferenceFieldUpdater.newUpdater(NetcdfProjection.class, MathTransform2D.class, "inverse");
+
+    /**
+     * The pool of threads to use for transforming large arrays, or {@code null} for transforming
+     * all coordinates in the caller thread. This is {@code null} unless the user explicitly asked
+     * for parallel execution. This field is not serialized, so deserialized transforms are sequential.
+     *
+     * @see #parallel(ForkJoinPool)
+     */
+    private final transient ForkJoinPool executor;
 
     /**
      * Creates a new wrapper for the given netCDF projection object.
@@ -131,6 +151,7 @@ public class NetcdfProjection extends NetcdfIdentifiedObject
         this.provider   = provider;
         this.projection = projection;
         this.isInverse  = false;
+        this.executor   = null;
     }
 
     /**
@@ -143,6 +164,55 @@ public class NetcdfProjection extends NetcdfIdentifiedObject
         projection =  other.projection;
         isInverse  = !other.isInverse;
         inverse    =  other;
+        executor   =  other.executor;
+    }
+
+    /**
+     * Creates a new wrapper doing the same operation than the given forward projection,
+     * but using the given pool of threads for transforming large arrays. The inverse is
+     * not copied; it will be created by {@link #inverse()} when first needed.
+     */
+    private NetcdfProjection(final NetcdfProjection other, final ForkJoinPool executor) {
+        sourceCRS     = other.sourceCRS;
+        targetCRS     = other.targetCRS;
+        provider      = other.provider;
+        projection    = other.projection;
+        isInverse     = other.isInverse;
+        this.executor = executor;
+    }
+
+    /**
+     * Returns a transform doing the same operation than this transform, but transforming large arrays
+     * in the given pool of threads. Arrays of many thousands of points are divided in sub-arrays, and
+     * each sub-array is transformed by a copy of the netCDF projection since the later is not guaranteed
+     * to be thread-safe. Consequently parallel execution is possible only if the netCDF projection is a
+     * {@link ProjectionImpl}; otherwise the given pool is ignored.
+     *
+     * <p>By default, {@code NetcdfProjection} transforms all coordinates in the caller thread.
+     * Parallel execution is beneficial only when transforming very large arrays while other
+     * processors are idle. Callers should use a pool dedicated to that work rather than the
+     * {@linkplain ForkJoinPool#commonPool() common pool} if the latter is used by other tasks.
+     * The inverse of the returned transform uses the same pool, and the inverse of that inverse
+     * is the returned transform.</p>
+     *
+     * @param  executor  the pool of threads where to transform large arrays,
+     *         or {@code null} for transforming all coordinates in the caller thread.
+     * @return a transform using the given pool of threads (may be {@code this}).
+     *
+     * @since 4.0
+     */
+    public NetcdfProjection parallel(final ForkJoinPool executor) {
+        if (executor == this.executor) {
+            return this;
+        }
+        if (isInverse) {
+            /*
+             * The inverse projection does not store the CRS. Copy the forward projection instead,
+             * then take its inverse, so the two copies are linked together and the CRS are kept.
+             */
+            return (NetcdfProjection) ((NetcdfProjection) inverse()).parallel(executor).inverse();
+        }
+        return new NetcdfProjection(this, executor);
     }
 
     /**
@@ -381,34 +451,15 @@ public class NetcdfProjection extends NetcdfIdentifiedObject
      *   <li>{@link Projection#latLonToProj(LatLonPoint, ProjectionPointImpl)} for the forward projection.</li>
      *   <li>{@link Projection#projToLatLon(ProjectionPoint, LatLonPointImpl)} for the inverse projection.</li>
      * </ul>
+     *
+     * Large arrays may be transformed in parallel if a pool of threads has been specified
+     * by {@link #parallel(ForkJoinPool)}. By default, all points are transformed in the caller thread.
      */
     @Override
     public void transform(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts)
             throws TransformException
     {
-        final int srcDim = getSourceDimensions();
-        final int dstDim = getTargetDimensions();
-        if (srcPts == dstPts && needsCopy(srcOff, srcDim, dstOff, dstDim, numPts)) {
-            srcPts = Arrays.copyOfRange(srcPts, srcOff, srcOff + numPts*srcDim);
-            srcOff = 0;
-        }
-        final LatLonPointImpl     src = new LatLonPointImpl();
-        final ProjectionPointImpl dst = new ProjectionPointImpl();
-        while (--numPts >= 0) {
-            if (isInverse) {
-                dst.setLocation(srcPts[srcOff], srcPts[srcOff+1]);
-                final LatLonPoint pt = projection.projToLatLon(dst, src);
-                dstPts[dstOff]   = pt.getLongitude();
-                dstPts[dstOff+1] = pt.getLatitude();
-            } else {
-                src.set(srcPts[srcOff+1], srcPts[srcOff]);                          // (lat,lon)
-                final ProjectionPoint pt = projection.latLonToProj(src, dst);
-                dstPts[dstOff  ] = pt.getX();
-                dstPts[dstOff+1] = pt.getY();
-            }
-            srcOff += srcDim;
-            dstOff += dstDim;
-        }
+        transformArray(srcPts, srcOff, dstPts, dstOff, numPts);
     }
 
     /**
@@ -425,21 +476,7 @@ public class NetcdfProjection extends NetcdfIdentifiedObject
     public void transform(float[] srcPts, int srcOff, final float[] dstPts, int dstOff, int numPts)
             throws TransformException
     {
-        final int srcDim = getSourceDimensions();
-        final int dstDim = getTargetDimensions();
-        final SimpleDirectPosition ptSrc = new SimpleDirectPosition(srcDim);
-        final SimpleDirectPosition ptDst = new SimpleDirectPosition(dstDim);
-        if (srcPts == dstPts && needsCopy(srcOff, srcDim, dstOff, dstDim, numPts)) {
-            srcPts = Arrays.copyOfRange(srcPts, srcOff, srcOff + srcDim*numPts);
-            srcOff = 0;
-        }
-        while (--numPts >= 0) {
-            arraycopy(srcPts, srcOff, ptSrc.ordinates, 0, srcDim);
-            transform(ptSrc, ptDst);
-            arraycopy(ptDst.ordinates, 0, dstPts, dstOff, dstDim);
-            srcOff += srcDim;
-            dstOff += dstDim;
-        }
+        transformArray(srcPts, srcOff, dstPts, dstOff, numPts);
     }
 
     /**
@@ -456,17 +493,7 @@ public class NetcdfProjection extends NetcdfIdentifiedObject
     public void transform(final float[] srcPts, int srcOff, final double[] dstPts, int dstOff, int numPts)
             throws TransformException
     {
-        final int srcDim = getSourceDimensions();
-        final int dstDim = getTargetDimensions();
-        final SimpleDirectPosition ptSrc = new SimpleDirectPosition(srcDim);
-        final SimpleDirectPosition ptDst = new SimpleDirectPosition(dstDim);
-        while (--numPts >= 0) {
-            arraycopy(srcPts, srcOff, ptSrc.ordinates, 0, srcDim);
-            transform(ptSrc, ptDst);
-            System.arraycopy(ptDst.ordinates, 0, dstPts, dstOff, dstDim);
-            srcOff += srcDim;
-            dstOff += dstDim;
-        }
+        transformArray(srcPts, srcOff, dstPts, dstOff, numPts);
     }
 
     /**
@@ -483,36 +510,178 @@ public class NetcdfProjection extends NetcdfIdentifiedObject
     public void transform(final double[] srcPts, int srcOff, final float[] dstPts, int dstOff, int numPts)
             throws TransformException
     {
+        transformArray(srcPts, srcOff, dstPts, dstOff, numPts);
+    }
+
+    /**
+     * Number of points converted from or to single precision in a single step.
+     * This is the size of the temporary buffer used by the {@code float[]} variants of {@code transform} methods.
+     */
+    static final int CHUNK_SIZE = 512;
+
+    /**
+     * Minimal number of points for transforming an array in parallel. This threshold is used only
+     * if a pool of threads has been specified by {@link #parallel(ForkJoinPool)}. In such case,
+     * arrays of at least that number of points are divided in sub-arrays transformed by different
+     * threads of that pool. Each thread uses its own copy of the netCDF projection, since the later
+     * is not guaranteed to be thread-safe. Parallel execution is used only if the projection can be
+     * copied, i.e. if it is a {@link ProjectionImpl}.
+     */
+    static final int PARALLEL_THRESHOLD = 65536;
+
+    /**
+     * Implementation of all {@code transform} methods working on arrays. The {@code srcPts} and {@code dstPts}
+     * arguments shall be {@code float[]} or {@code double[]} arrays. If the arrays are the same and the source
+     * and target ranges overlap in a way that would overwrite source coordinates before they are read, then the
+     * source coordinates are copied first.
+     */
+    private void transformArray(Object srcPts, int srcOff, final Object dstPts, final int dstOff, final int numPts) {
+        if (numPts <= 0) {
+            return;
+        }
         final int srcDim = getSourceDimensions();
         final int dstDim = getTargetDimensions();
-        final SimpleDirectPosition ptSrc = new SimpleDirectPosition(srcDim);
-        final SimpleDirectPosition ptDst = new SimpleDirectPosition(dstDim);
-        while (--numPts >= 0) {
-            System.arraycopy(srcPts, srcOff, ptSrc.ordinates, 0, srcDim);
-            transform(ptSrc, ptDst);
-            arraycopy(ptDst.ordinates, 0, dstPts, dstOff, dstDim);
-            srcOff += srcDim;
-            dstOff += dstDim;
+        final ForkJoinPool executor = this.executor;
+        final boolean parallel = (executor != null) && (numPts >= PARALLEL_THRESHOLD) && (projection instanceof ProjectionImpl);
+        if (srcPts == dstPts && (parallel ? (srcOff != dstOff || srcDim != dstDim)
+                                          : needsCopy(srcOff, srcDim, dstOff, dstDim, numPts)))
+        {
+            final int end = srcOff + numPts*srcDim;
+            srcPts = (srcPts instanceof double[]) ? Arrays.copyOfRange((double[]) srcPts, srcOff, end)
+                                                  : Arrays.copyOfRange((float[])  srcPts, srcOff, end);
+            srcOff = 0;
+        }
+        if (parallel) {
+            executor.invoke(new Split((ProjectionImpl) projection, isInverse,
+                    srcPts, srcOff, srcDim, dstPts, dstOff, dstDim, numPts));
+        } else {
+            transform(projection, isInverse, srcPts, srcOff, srcDim, dstPts, dstOff, dstDim, numPts);
         }
     }
 
     /**
-     * Like {@link System#arraycopy(Object, int, Object, int, int)}, but cast {@code float}
-     * to {@code double} during the copy operation.
+     * A task transforming a portion of an array. Large portions are divided in two smaller tasks.
+     * Each task transforming coordinates uses its own copy of the netCDF projection.
      */
-    private static void arraycopy(float[] srcPts, int srcOff, double[] dstPts, int dstOff, int length) {
-        while (--length >= 0) {
-            dstPts[dstOff++] = srcPts[srcOff++];
+    @SuppressWarnings("serial")
+    private static final class Split extends RecursiveAction {
+        /** The projection to copy before to transform coordinates. */
+        private final ProjectionImpl projection;
+
+        /** {@code true} for the inverse projection. */
+        private final boolean isInverse;
+
+        /** The source and destination arrays, as {@code float[]} or {@code double[]}. */
+        private final Object srcPts, dstPts;
+
+        /** Offsets and dimensions of source and destination coordinates, and number of points. */
+        private final int srcOff, srcDim, dstOff, dstDim, numPts;
+
+        /** Creates a new task for the given portion of the arrays. */
+        Split(final ProjectionImpl projection, final boolean isInverse,
+              final Object srcPts, final int srcOff, final int srcDim,
+              final Object dstPts, final int dstOff, final int dstDim, final int numPts)
+        {
+            this.projection = projection;
+            this.isInverse  = isInverse;
+            this.srcPts     = srcPts;
+            this.srcOff     = srcOff;
+            this.srcDim     = srcDim;
+            this.dstPts     = dstPts;
+            this.dstOff     = dstOff;
+            this.dstDim     = dstDim;
+            this.numPts     = numPts;
+        }
+
+        /** Transforms the coordinates, or divides the work in two tasks if the portion is large. */
+        @Override
+        protected void compute() {
+            if (numPts >= PARALLEL_THRESHOLD) {
+                final int half = numPts >>> 1;
+                invokeAll(new Split(projection, isInverse, srcPts, srcOff, srcDim, dstPts, dstOff, dstDim, half),
+                          new Split(projection, isInverse, srcPts, srcOff + half*srcDim, srcDim,
+                                                           dstPts, dstOff + half*dstDim, dstDim, numPts - half));
+            } else {
+                transform(projection.constructCopy(), isInverse, srcPts, srcOff, srcDim, dstPts, dstOff, dstDim, numPts);
+            }
         }
     }
 
     /**
-     * Like {@link System#arraycopy(Object, int, Object, int, int)}, but cast {@code double}
-     * to {@code float} during the copy operation.
+     * Transforms coordinates in the current thread. The same point objects are reused for all coordinates.
+     * Single precision coordinates are converted by chunks of {@value #CHUNK_SIZE} points in a temporary
+     * buffer, then transformed by the same loop than double precision coordinates.
      */
-    private static void arraycopy(double[] srcPts, int srcOff, float[] dstPts, int dstOff, int length) {
-        while (--length >= 0) {
-            dstPts[dstOff++] = (float) srcPts[srcOff++];
+    private static void transform(final Projection projection, final boolean isInverse,
+            final Object srcPts, int srcOff, final int srcDim,
+            final Object dstPts, int dstOff, final int dstDim, int numPts)
+    {
+        if (srcPts instanceof double[] && dstPts instanceof double[]) {
+            transform(projection, isInverse, (double[]) srcPts, srcOff, srcDim, (double[]) dstPts, dstOff, dstDim, numPts);
+            return;
+        }
+        final double[] buffer = new double[Math.min(numPts, CHUNK_SIZE) * 2];
+        while (numPts > 0) {
+            final int n = Math.min(numPts, CHUNK_SIZE);
+            if (srcPts instanceof double[]) {
+                final double[] src = (double[]) srcPts;
+                for (int i=0; i<n; i++) {
+                    buffer[i*2  ] = src[srcOff  ];
+                    buffer[i*2+1] = src[srcOff+1];
+                    srcOff += srcDim;
+                }
+            } else {
+                final float[] src = (float[]) srcPts;
+                for (int i=0; i<n; i++) {
+                    buffer[i*2  ] = src[srcOff  ];
+                    buffer[i*2+1] = src[srcOff+1];
+                    srcOff += srcDim;
+                }
+            }
+            transform(projection, isInverse, buffer, 0, 2, buffer, 0, 2, n);
+            if (dstPts instanceof double[]) {
+                final double[] dst = (double[]) dstPts;
+                for (int i=0; i<n; i++) {
+                    dst[dstOff  ] = buffer[i*2  ];
+                    dst[dstOff+1] = buffer[i*2+1];
+                    dstOff += dstDim;
+                }
+            } else {
+                final float[] dst = (float[]) dstPts;
+                for (int i=0; i<n; i++) {
+                    dst[dstOff  ] = (float) buffer[i*2  ];
+                    dst[dstOff+1] = (float) buffer[i*2+1];
+                    dstOff += dstDim;
+                }
+            }
+            numPts -= n;
+        }
+    }
+
+    /**
+     * Transforms double precision coordinates in the current thread.
+     * The same point objects are reused for all coordinates.
+     */
+    private static void transform(final Projection projection, final boolean isInverse,
+            final double[] srcPts, int srcOff, final int srcDim,
+            final double[] dstPts, int dstOff, final int dstDim, int numPts)
+    {
+        final LatLonPointImpl     src = new LatLonPointImpl();
+        final ProjectionPointImpl dst = new ProjectionPointImpl();
+        while (--numPts >= 0) {
+            if (isInverse) {
+                dst.setLocation(srcPts[srcOff], srcPts[srcOff+1]);
+                final LatLonPoint pt = projection.projToLatLon(dst, src);
+                dstPts[dstOff]   = pt.getLongitude();
+                dstPts[dstOff+1] = pt.getLatitude();
+            } else {
+                src.set(srcPts[srcOff+1], srcPts[srcOff]);                          // (lat,lon)
+                final ProjectionPoint pt = projection.latLonToProj(src, dst);
+                dstPts[dstOff  ] = pt.getX();
+                dstPts[dstOff+1] = pt.getY();
+            }
+            srcOff += srcDim;
+            dstOff += dstDim;
         }
     }
 
@@ -559,27 +728,85 @@ public class NetcdfProjection extends NetcdfIdentifiedObject
     }
 
     /**
-     * Gets the derivative of this transform at a point. The default implementation throws
-     * an exception in all cases.
+     * Gets the derivative of this transform at a point. The netCDF library does not provide
+     * derivative functions, so the default implementation computes the derivative by central
+     * differences. The four perturbed points are transformed in a single call.
      *
      * @param  point  the coordinate point where to evaluate the derivative.
      * @return the derivative at the specified point (never {@code null}).
      * @throws TransformException if the derivative can not be evaluated at the specified point.
+     *
+     * @see #derivatives(double[], int, int)
      */
     @Override
     public Matrix derivative(final Point2D point) throws TransformException {
-        throw new TransformException();
+        final SimpleDirectPosition position = new SimpleDirectPosition(2);
+        position.setOrdinate(0, point.getX());
+        position.setOrdinate(1, point.getY());
+        return numericDerivative().derivative(position);
     }
 
     /**
-     * Returns the inverse of this math transform.
+     * Computes the derivatives at all given points by central differences. The perturbed points
+     * of all given points are transformed together, which is much faster than invoking
+     * {@link #derivative(Point2D)} for each point, for example when computing the derivatives
+     * at all cells of a grid. The returned array contains the 2×2 Jacobian matrix of each point
+     * in row-major order, so the matrix of point <var>p</var> begins at index 4<var>p</var>.
+     * If the derivative can not be computed at a point (for example because a perturbed point is
+     * outside the domain of validity), then the matrix of that point is filled with {@link Double#NaN}
+     * values and the derivatives at other points are still computed.
+     *
+     * @param  points  the coordinates of the points where to evaluate the derivatives.
+     * @param  offset  index of the first coordinate to use in the {@code points} array.
+     * @param  numPts  number of points.
+     * @return the Jacobian matrices of all points, with 4 elements per point.
+     *
+     * @since 4.0
+     */
+    public double[] derivatives(final double[] points, final int offset, final int numPts) {
+        return numericDerivative().derivatives(points, offset, numPts);
+    }
+
+    /**
+     * Returns the provider of derivatives computed by central differences. The step sizes are
+     * adapted to the units of the source CRS axes if known. Otherwise the source coordinates
+     * are assumed in degrees for the forward projection and in kilometres (the netCDF default)
+     * for the inverse projection. The forward projection may be unknown if this inverse projection
+     * has been deserialized, since the {@link #inverse} field is transient.
+     */
+    private NumericDerivative numericDerivative() {
+        CoordinateReferenceSystem crs = sourceCRS;
+        if (crs == null && isInverse) {
+            final MathTransform2D forward = inverse;
+            if (forward != null) {
+                crs = ((NetcdfProjection) forward).targetCRS;
+            }
+        }
+        final double[] scales;
+        if (crs != null) {
+            scales = NumericDerivative.scales(crs.getCoordinateSystem());
+        } else {
+            final double scale = isInverse ? NumericDerivative.ARC_DEGREE_LENGTH / 1000 : 1;
+            scales = new double[] {scale, scale};
+        }
+        return new NumericDerivative(this, scales);
+    }
+
+    /**
+     * Returns the inverse of this math transform. The inverse is created when first needed
+     * and published without locking. If many threads invoke this method concurrently for the
+     * first time, all of them receive the first inverse to be published.
      */
     @Override
-    public synchronized MathTransform2D inverse() {
-        if (inverse == null) {
-            inverse = new NetcdfProjection(this);
+    public MathTransform2D inverse() {
+        MathTransform2D inv = inverse;
+        if (inv == null) {
+            inv = new NetcdfProjection(this);
+            if (!INVERSE.compareAndSet(this, null, inv)) {
+                inv = inverse;                  // Another thread published its inverse first.
+            }
         }
-        return inverse;
+        return inv;
     }
 
     /**
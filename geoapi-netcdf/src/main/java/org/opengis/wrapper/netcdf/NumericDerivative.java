@@ -0,0 +1,249 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The netCDF wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementors can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package org.opengis.wrapper.netcdf;
+
+import java.util.Arrays;
+import javax.measure.Unit;
+import javax.measure.quantity.Angle;
+import javax.measure.quantity.Length;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.geometry.MismatchedDimensionException;
+import org.opengis.referencing.cs.CoordinateSystem;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+
+
+/**
+ * Computes the derivatives of a transform by central differences. For each point and each source
+ * dimension <var>i</var>, the transform is evaluated at <var>x</var> ± <var>h</var><sub>i</sub> and
+ * column <var>i</var> of the Jacobian matrix is (<var>f</var>(<var>x</var> + <var>h</var>) −
+ * <var>f</var>(<var>x</var> − <var>h</var>)) / 2<var>h</var>. All perturbed points of many source
+ * points are transformed in a single call to {@link MathTransform#transform(double[], int, double[], int, int)},
+ * which is much faster than transforming each perturbed point separately when the transform
+ * delegates to a native library.
+ *
+ * <p>The step <var>h</var> is the magnitude of the coordinate value multiplied by ∛ε ≈ 6×10⁻⁶,
+ * where ε is the machine epsilon. Near the coordinate system origin, the magnitude is replaced by
+ * a typical magnitude determined from the axis units: the equivalent of about one degree of arc
+ * on the Earth (one degree for angular axes and {@value #ARC_DEGREE_LENGTH} metres for linear axes).
+ * Consequently the smallest step is about 6×10⁻⁶ degree, or about 0.7 metre. This avoids steps so
+ * small that the differences would be dominated by rounding errors near the origin.</p>
+ *
+ * <p>If the perturbed points around a source point can not be transformed, then the derivative at
+ * that point is reported as a matrix of NaN values instead of causing the whole computation to fail.</p>
+ *
+ * <p>This class is immutable and thread-safe if the transform is thread-safe.</p>
+ *
+ * <p>This class is a deliberate copy of the class of the same name in the {@literal Proj.4} wrapper
+ * ({@code org.opengis.wrapper.proj4} package), since the two wrapper modules do not depend on each other.
+ * Any fix applied to one copy shall be applied to the other copy as well.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+final class NumericDerivative {
+    /**
+     * Approximate length in metres of one degree of arc on the Earth, computed with a mean radius of 6371 km.
+     */
+    static final double ARC_DEGREE_LENGTH = 111195;
+
+    /**
+     * Ratio between the step and the coordinate magnitude. The cubic root of the machine epsilon
+     * balances the truncation error of central differences with the rounding errors.
+     */
+    private static final double RELATIVE_STEP = Math.cbrt(Math.ulp(1.0));
+
+    /**
+     * Maximal number of source points for which the perturbed points are transformed in a single call.
+     * This is for limiting the size of temporary arrays.
+     */
+    static final int CHUNK_SIZE = 1024;
+
+    /**
+     * The transform for which to compute derivatives.
+     */
+    private final MathTransform transform;
+
+    /**
+     * Typical magnitude of coordinate values in each source dimension, in units of the source axes.
+     */
+    private final double[] scales;
+
+    /**
+     * Creates a new provider of derivatives for the given transform.
+     * The source and target dimensions of the transform shall be equal.
+     *
+     * @param transform  the transform for which to compute derivatives.
+     * @param scales     typical magnitude of coordinate values in each source dimension, or {@code null} for 1.
+     */
+    NumericDerivative(final MathTransform transform, double[] scales) {
+        if (transform.getSourceDimensions() != transform.getTargetDimensions()) {
+            throw new IllegalArgumentException("Source and target dimensions shall be equal.");
+        }
+        if (scales == null) {
+            scales = new double[transform.getSourceDimensions()];
+            Arrays.fill(scales, 1);
+        } else if (scales.length != transform.getSourceDimensions()) {
+            throw new MismatchedDimensionException("Expected " + transform.getSourceDimensions() + " scales.");
+        }
+        this.transform = transform;
+        this.scales    = scales;
+    }
+
+    /**
+     * Returns the typical magnitude of coordinate values for each axis of the given coordinate system.
+     * This is about one degree of arc on the Earth expressed in the axis units, or 1 if the units are
+     * neither angular nor linear.
+     *
+     * @param  cs  the source coordinate system.
+     * @return typical magnitude of coordinate values for each axis.
+     */
+    static double[] scales(final CoordinateSystem cs) {
+        final double[] scales = new double[cs.getDimension()];
+        for (int i=0; i<scales.length; i++) {
+            final Unit<?> unit = cs.getAxis(i).getUnit();
+            if (unit != null && unit.isCompatible(Units.DEGREE)) {
+                scales[i] = Units.DEGREE.getConverterTo(unit.asType(Angle.class)).convert(1);
+            } else if (unit != null && unit.isCompatible(Units.METRE)) {
+                scales[i] = Units.METRE.getConverterTo(unit.asType(Length.class)).convert(ARC_DEGREE_LENGTH);
+            } else {
+                scales[i] = 1;
+            }
+        }
+        return scales;
+    }
+
+    /**
+     * Computes the derivative at the given position.
+     *
+     * @param  point  the position where to evaluate the derivative.
+     * @return the derivative at the given position.
+     * @throws MismatchedDimensionException if the given position does not have the expected dimension.
+     * @throws TransformException if the derivative can not be computed.
+     */
+    Matrix derivative(final DirectPosition point) throws TransformException {
+        final int srcDim = transform.getSourceDimensions();
+        final int tgtDim = transform.getTargetDimensions();
+        if (point.getDimension() != srcDim) {
+            throw new MismatchedDimensionException("The position shall be " + srcDim + "-dimensional.");
+        }
+        final double[] elements = derivatives(point.getCoordinate(), 0, 1, false);
+        final SimpleMatrix matrix = new SimpleMatrix(srcDim);
+        for (int j=0; j<tgtDim; j++) {
+            for (int i=0; i<srcDim; i++) {
+                matrix.setElement(j, i, elements[j*srcDim + i]);
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Computes the derivatives at all given points. The returned array contains the Jacobian matrix
+     * of each point in row-major order. The matrix of point <var>p</var> begins at index
+     * <var>p</var> × <var>T</var> × <var>S</var>, where <var>T</var> and <var>S</var> are the
+     * target and source dimensions respectively. If the derivative can not be computed at a point,
+     * then all elements of the matrix of that point are set to {@link Double#NaN} and the other
+     * points are still computed.
+     *
+     * @param  points  the coordinates of the points where to evaluate the derivatives.
+     * @param  offset  index of the first coordinate to use in the {@code points} array.
+     * @param  numPts  number of points.
+     * @return the Jacobian matrices of all points, in a flat array.
+     */
+    double[] derivatives(final double[] points, final int offset, final int numPts) {
+        try {
+            return derivatives(points, offset, numPts, true);
+        } catch (TransformException e) {
+            throw new AssertionError(e);                    // Should never happen in lenient mode.
+        }
+    }
+
+    /**
+     * Implementation of {@link #derivatives(double[], int, int)}. If {@code lenient} is {@code false},
+     * then a failure to transform a perturbed point is propagated instead of being reported as NaN.
+     *
+     * @param  points   the coordinates of the points where to evaluate the derivatives.
+     * @param  offset   index of the first coordinate to use in the {@code points} array.
+     * @param  numPts   number of points.
+     * @param  lenient  whether to report failures as NaN values instead of throwing an exception.
+     * @return the Jacobian matrices of all points, in a flat array.
+     * @throws TransformException if the perturbed points can not be transformed and {@code lenient} is {@code false}.
+     */
+    private double[] derivatives(final double[] points, int offset, final int numPts, final boolean lenient)
+            throws TransformException
+    {
+        final int srcDim  = transform.getSourceDimensions();
+        final int tgtDim  = transform.getTargetDimensions();
+        final int perturb = 2 * srcDim;                             // Number of perturbed points per point.
+        final int chunk   = Math.min(numPts, CHUNK_SIZE);
+        final double[] source = new double[chunk * perturb * srcDim];
+        final double[] target = new double[chunk * perturb * tgtDim];
+        final double[] widths = new double[chunk * srcDim];
+        final double[] result = new double[numPts * tgtDim * srcDim];
+        int r = 0;
+        for (int done = 0; done < numPts;) {
+            final int n = Math.min(chunk, numPts - done);
+            int s = 0;
+            for (int p=0; p<n; p++) {
+                for (int i=0; i<srcDim; i++) {
+                    final double x = points[offset + i];
+                    final double h = RELATIVE_STEP * Math.max(Math.abs(x), scales[i]);
+                    final double after  = x + h;
+                    final double before = x - h;
+                    widths[p*srcDim + i] = after - before;          // Exact representable width.
+                    System.arraycopy(points, offset, source, s, srcDim);
+                    source[s + i] = after;
+                    s += srcDim;
+                    System.arraycopy(points, offset, source, s, srcDim);
+                    source[s + i] = before;
+                    s += srcDim;
+                }
+                offset += srcDim;
+            }
+            try {
+                transform.transform(source, 0, target, 0, n * perturb);
+            } catch (TransformException e) {
+                if (!lenient) throw e;
+                /*
+                 * At least one perturbed point failed. Transform again the perturbed points of
+                 * each source point separately, for computing the derivatives at all points
+                 * except the ones that failed.
+                 */
+                for (int p=0; p<n; p++) {
+                    final int t = p * perturb * tgtDim;
+                    try {
+                        transform.transform(source, p * perturb * srcDim, target, t, perturb);
+                    } catch (TransformException f) {
+                        Arrays.fill(target, t, t + perturb * tgtDim, Double.NaN);
+                    }
+                }
+            }
+            int t = 0;
+            for (int p=0; p<n; p++) {
+                for (int i=0; i<srcDim; i++) {
+                    final double width = widths[p*srcDim + i];
+                    for (int j=0; j<tgtDim; j++) {
+                        result[r + j*srcDim + i] = (target[t + j] - target[t + tgtDim + j]) / width;
+                    }
+                    t += 2 * tgtDim;
+                }
+                r += tgtDim * srcDim;
+            }
+            done += n;
+        }
+        return result;
+    }
+}
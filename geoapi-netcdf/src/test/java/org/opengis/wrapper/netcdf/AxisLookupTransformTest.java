@@ -0,0 +1,99 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The netCDF wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementors can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package org.opengis.wrapper.netcdf;
+
+import java.util.Random;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.test.referencing.TransformTestCase;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link AxisLookupTransform} and {@link GridToCRSTransform} classes.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+public strictfp class AxisLookupTransformTest extends TransformTestCase {
+    /**
+     * Creates a new test case.
+     */
+    public AxisLookupTransformTest() {
+        tolerance = 1E-10;
+        isDerivativeSupported = false;          // Enabled only by tests avoiding interval boundaries.
+    }
+
+    /**
+     * Tests a lookup in increasing values, including extrapolation outside the axis range.
+     *
+     * @throws TransformException should never happen.
+     */
+    @Test
+    public void testIncreasing() throws TransformException {
+        transform = new AxisLookupTransform(new double[] {10, 12, 15, 20, 30});
+        verifyTransform(new double[] {0, 1.5, 2, 4, 5, -1},
+                        new double[] {10, 13.5, 15, 30, 40, 8});
+        verifyInverse(0, 1.5, 2, 3.25, 4, 5, -1);
+        assertTrue(Double.isNaN(((AxisLookupTransform) transform).transform(Double.NaN)));
+    }
+
+    /**
+     * Tests a lookup in decreasing values, as found in pressure level axes.
+     *
+     * @throws TransformException should never happen.
+     */
+    @Test
+    public void testDecreasing() throws TransformException {
+        transform = new AxisLookupTransform(new double[] {1000, 850, 700, 500, 250});
+        verifyTransform(new double[] {0, 2.5, 4},
+                        new double[] {1000, 600, 250});
+        verifyInverse(0, 0.5, 2.5, 3.75, 4, 6);
+        isDerivativeSupported = true;
+        derivativeDeltas = new double[] {0.01};
+        verifyDerivative(2.5);
+        verifyDerivative(0.25);
+    }
+
+    /**
+     * Tests that non-monotonic values are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonMonotonic() {
+        new AxisLookupTransform(new double[] {10, 12, 12, 20});
+    }
+
+    /**
+     * Tests a grid with one regular axis and one irregular axis.
+     *
+     * @throws TransformException should never happen.
+     */
+    @Test
+    public void testMixedAxes() throws TransformException {
+        transform = new GridToCRSTransform(new double[] {0.5, 0},
+                                           new double[] {-180, 0},
+                                           new AxisLookupTransform[] {null,
+                                               new AxisLookupTransform(new double[] {5, 10, 20, 50, 100})});
+        verifyTransform(new double[] {0, 0,   10, 2.5,   720, 4},
+                        new double[] {-180, 5,   -175, 35,   180, 100});
+        verifyInDomain(new double[] {  0, 0},
+                       new double[] {720, 4},
+                       new int[]    { 20, 8},
+                       new Random(812349507));
+        assertEquals(transform, transform.inverse().inverse());
+    }
+}
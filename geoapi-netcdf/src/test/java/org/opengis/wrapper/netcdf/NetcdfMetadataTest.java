@@ -54,7 +54,7 @@ import org.junit.Test;
  * </ul>
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
 public strictfp class NetcdfMetadataTest extends IOTestCase {
@@ -117,38 +117,45 @@ public strictfp class NetcdfMetadataTest extends IOTestCase {
      */
     @Test
     public void testGeographic2D() throws IOException {
-        final ContentVerifier verifier = new ContentVerifier();
         try (NetcdfFile file = open(TestData.NETCDF_2D_GEOGRAPHIC)) {
             metadata = wrap(file);
             validator.validate(metadata);
-            verifier.addMetadataToVerify(metadata);
-            verifier.assertMetadataEquals(
-                "metadataScope[0].resourceScope",                                          ScopeCode.DATASET,
-                "identificationInfo[0].abstract",                                          "Global, two-dimensional model data",
-                "identificationInfo[0].purpose",                                           "GeoAPI conformance tests",
-                "identificationInfo[0].citation.title",                                    "Test data from Sea Surface Temperature Analysis Model",
-                "identificationInfo[0].citation.citedResponsibleParty[0].role",            Role.ORIGINATOR,
-                "identificationInfo[0].citation.citedResponsibleParty[0].party[0].name",   "NOAA/NWS/NCEP",
-                "identificationInfo[0].citation.date[0].date",                             new Date(1127347200000L),
-                "identificationInfo[0].citation.date[0].dateType",                         DateType.CREATION,
-                "identificationInfo[0].citation.identifier[0].code",                       "NCEP/SST/Global_5x2p5deg/SST_Global_5x2p5deg_20050922_0000.nc",
-                "identificationInfo[0].citation.identifier[0].codeSpace",                  "edu.ucar.unidata",
-                "identificationInfo[0].citation.identifier[0].authority.title",            "edu.ucar.unidata",
-                "identificationInfo[0].citation.onlineResource[0].name",                   "Cube2D geographic packed",
-                "identificationInfo[0].citation.onlineResource[0].linkage",                URI.create("Cube2D_geographic_packed.nc"),
-                "identificationInfo[0].citation.onlineResource[0].function",               OnLineFunction.FILE_ACCESS,
-                "identificationInfo[0].extent[0].geographicElement[0].extentTypeCode",     Boolean.TRUE,
-                "identificationInfo[0].extent[0].geographicElement[0].westBoundLongitude", -180.0,
-                "identificationInfo[0].extent[0].geographicElement[0].eastBoundLongitude",  180.0,
-                "identificationInfo[0].extent[0].geographicElement[0].southBoundLatitude",  -90.0,
-                "identificationInfo[0].extent[0].geographicElement[0].northBoundLatitude",   90.0,
-                "identificationInfo[0].spatialRepresentationType[0]",                      SpatialRepresentationType.GRID,
-                "identificationInfo[0].supplementalInformation",                           "For testing purpose only.",
-                "metadataStandard[0].title",                                               "ISO 19115-2 Geographic Information - Metadata Part 2 Extensions for imagery and gridded data",
-                "metadataStandard[0].edition",                                             "ISO 19115-2:2009(E)");
+            verifyGeographic2D();
         }
     }
 
+    /**
+     * Verifies the {@link #metadata} decoded from {@link TestData#NETCDF_2D_GEOGRAPHIC} file.
+     */
+    private void verifyGeographic2D() {
+        final ContentVerifier verifier = new ContentVerifier();
+        verifier.addMetadataToVerify(metadata);
+        verifier.assertMetadataEquals(
+            "metadataScope[0].resourceScope",                                          ScopeCode.DATASET,
+            "identificationInfo[0].abstract",                                          "Global, two-dimensional model data",
+            "identificationInfo[0].purpose",                                           "GeoAPI conformance tests",
+            "identificationInfo[0].citation.title",                                    "Test data from Sea Surface Temperature Analysis Model",
+            "identificationInfo[0].citation.citedResponsibleParty[0].role",            Role.ORIGINATOR,
+            "identificationInfo[0].citation.citedResponsibleParty[0].party[0].name",   "NOAA/NWS/NCEP",
+            "identificationInfo[0].citation.date[0].date",                             new Date(1127347200000L),
+            "identificationInfo[0].citation.date[0].dateType",                         DateType.CREATION,
+            "identificationInfo[0].citation.identifier[0].code",                       "NCEP/SST/Global_5x2p5deg/SST_Global_5x2p5deg_20050922_0000.nc",
+            "identificationInfo[0].citation.identifier[0].codeSpace",                  "edu.ucar.unidata",
+            "identificationInfo[0].citation.identifier[0].authority.title",            "edu.ucar.unidata",
+            "identificationInfo[0].citation.onlineResource[0].name",                   "Cube2D geographic packed",
+            "identificationInfo[0].citation.onlineResource[0].linkage",                URI.create("Cube2D_geographic_packed.nc"),
+            "identificationInfo[0].citation.onlineResource[0].function",               OnLineFunction.FILE_ACCESS,
+            "identificationInfo[0].extent[0].geographicElement[0].extentTypeCode",     Boolean.TRUE,
+            "identificationInfo[0].extent[0].geographicElement[0].westBoundLongitude", -180.0,
+            "identificationInfo[0].extent[0].geographicElement[0].eastBoundLongitude",  180.0,
+            "identificationInfo[0].extent[0].geographicElement[0].southBoundLatitude",  -90.0,
+            "identificationInfo[0].extent[0].geographicElement[0].northBoundLatitude",   90.0,
+            "identificationInfo[0].spatialRepresentationType[0]",                      SpatialRepresentationType.GRID,
+            "identificationInfo[0].supplementalInformation",                           "For testing purpose only.",
+            "metadataStandard[0].title",                                               "ISO 19115-2 Geographic Information - Metadata Part 2 Extensions for imagery and gridded data",
+            "metadataStandard[0].edition",                                             "ISO 19115-2:2009(E)");
+    }
+
     /**
      * Verifies metadata decoded from {@link TestData#NETCDF_4D_PROJECTED} file.
      *
@@ -185,4 +192,19 @@ public strictfp class NetcdfMetadataTest extends IOTestCase {
                 "metadataStandard[0].edition",                                             "ISO 19115-2:2009(E)");
         }
     }
+
+    /**
+     * Verifies that metadata created in {@link NetcdfMetadata.Mode#EAGER_SNAPSHOT} mode
+     * are still readable after the netCDF file has been closed.
+     *
+     * @throws IOException if the test file can not be read.
+     */
+    @Test
+    public void testSnapshot() throws IOException {
+        try (NetcdfFile file = open(TestData.NETCDF_2D_GEOGRAPHIC)) {
+            metadata = new NetcdfMetadata(file, NetcdfMetadata.Mode.EAGER_SNAPSHOT);
+        }
+        validator.validate(metadata);
+        verifyGeographic2D();
+    }
 }
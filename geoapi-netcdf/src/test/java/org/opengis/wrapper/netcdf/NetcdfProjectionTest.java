@@ -14,10 +14,23 @@
 package org.opengis.wrapper.netcdf;
 
 import java.util.Random;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ForkJoinPool;
+import java.lang.reflect.Proxy;
+import java.awt.geom.Point2D;
 import ucar.unidata.geoloc.Projection;
 import ucar.unidata.geoloc.projection.Mercator;
 
 import org.opengis.metadata.extent.GeographicBoundingBox;
+import org.opengis.referencing.crs.GeographicCRS;
+import org.opengis.referencing.crs.ProjectedCRS;
+import org.opengis.referencing.cs.CoordinateSystem;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.MathTransform2D;
 import org.opengis.referencing.operation.SingleOperation;
 import org.opengis.referencing.operation.TransformException;
 import org.opengis.test.referencing.TransformTestCase;
@@ -37,7 +50,7 @@ import static org.opengis.test.Assert.*;
  * method in order to test their own netCDF wrapper.</p>
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
 public strictfp class NetcdfProjectionTest extends TransformTestCase {
@@ -54,6 +67,7 @@ public strictfp class NetcdfProjectionTest extends TransformTestCase {
      * Creates a new test case initialized with a default {@linkplain #tolerance tolerance}
      * threshold. The '{@linkplain #isDerivativeSupported is derivative supported}' flag is
      * set to {@code false} since the netCDF library does not implement projection derivatives.
+     * The derivatives approximated by the wrapper are tested by {@link #testDerivative()}.
      */
     public NetcdfProjectionTest() {
         super(NetcdfTransformFactoryTest.getDefaultFactory());
@@ -135,4 +149,297 @@ public strictfp class NetcdfProjectionTest extends TransformTestCase {
         assertBetween("southBoundLatitude",  -90,  -43, box.getSouthBoundLatitude());
         assertBetween("northBoundLatitude",   43,  +90, box.getNorthBoundLatitude());
     }
+
+    /**
+     * Tests the derivatives approximated by central differences, both at single points
+     * and for many points in a single call. The tolerance is relaxed to about 10⁻⁸ of the
+     * derivative values, because both the derivatives and the approximations computed by
+     * {@link #verifyDerivative(double...)} have rounding errors of the order of 10⁻⁹.
+     *
+     * @throws TransformException should never happen.
+     */
+    @Test
+    public void testDerivative() throws TransformException {
+        createMercatorProjection();
+        isDerivativeSupported = true;
+        derivativeDeltas = new double[] {1E-4};                         // In degrees.
+        tolerance = 1E-6;                                               // In kilometres per degree.
+        verifyDerivative(  0,   0);
+        verifyDerivative( 30,  45);
+        verifyDerivative(-120, -70);
+        final double[] points = {0, 0,   30, 45,   -120, -70};
+        final double[] derivatives = ((NetcdfProjection) transform).derivatives(points, 0, 3);
+        assertEquals(12, derivatives.length);
+        for (int p=0; p<3; p++) {
+            final Matrix m = ((NetcdfProjection) transform).derivative(new Point2D.Double(points[p*2], points[p*2+1]));
+            for (int j=0; j<2; j++) {
+                for (int i=0; i<2; i++) {
+                    assertEquals(m.getElement(j, i), derivatives[p*4 + j*2 + i], 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns random (<var>longitude</var>, <var>latitude</var>) coordinates in the domain of the Mercator projection.
+     *
+     * @param  numPts  number of points to create.
+     * @param  seed    seed of the random number generator.
+     * @return the coordinates of the random points.
+     */
+    private static double[] randomPoints(final int numPts, final long seed) {
+        final Random random = new Random(seed);
+        final double[] points = new double[numPts * 2];
+        for (int i=0; i<points.length;) {
+            points[i++] = random.nextDouble() * 360 - 180;
+            points[i++] = random.nextDouble() * 160 -  80;
+        }
+        return points;
+    }
+
+    /**
+     * Returns a copy of the given array with values cast to single precision.
+     *
+     * @param  values  the values to cast.
+     * @return the values as single precision numbers.
+     */
+    private static float[] toFloat(final double[] values) {
+        final float[] copy = new float[values.length];
+        for (int i=0; i<values.length; i++) {
+            copy[i] = (float) values[i];
+        }
+        return copy;
+    }
+
+    /**
+     * Returns a copy of the given array with values widened to double precision.
+     *
+     * @param  values  the values to widen.
+     * @return the values as double precision numbers.
+     */
+    private static double[] toDouble(final float[] values) {
+        final double[] copy = new double[values.length];
+        for (int i=0; i<values.length; i++) {
+            copy[i] = values[i];
+        }
+        return copy;
+    }
+
+    /**
+     * Tests the {@code transform} methods working on {@code float[]} arrays, alone or mixed with {@code double[]}
+     * arrays. The number of points is not a multiple of {@link NetcdfProjection#CHUNK_SIZE} in order to test the
+     * conversions of full and partial chunks. The results shall be identical to the results of the transform of
+     * {@code double[]} arrays, since the single precision coordinates are transformed in double precision.
+     *
+     * @throws TransformException should never happen.
+     */
+    @Test
+    public void testFloatArrays() throws TransformException {
+        final MathTransform2D mt = new NetcdfProjection(new Mercator(), null, null);
+        final int numPts = NetcdfProjection.CHUNK_SIZE * 2 + 17;
+        final double[] srcD = randomPoints(numPts, 4362381209L);
+        final float [] srcF = toFloat(srcD);
+        final double[] expectedD = new double[srcD.length];
+        final double[] expectedF = new double[srcD.length];
+        mt.transform(srcD, 0, expectedD, 0, numPts);
+        mt.transform(toDouble(srcF), 0, expectedF, 0, numPts);
+
+        final float[] dstF = new float[srcF.length];
+        mt.transform(srcF, 0, dstF, 0, numPts);
+        assertArrayEquals("float → float", toFloat(expectedF), dstF, 0);
+
+        final double[] dstD = new double[srcD.length];
+        mt.transform(srcF, 0, dstD, 0, numPts);
+        assertArrayEquals("float → double", expectedF, dstD, 0);
+
+        mt.transform(srcD, 0, dstF, 0, numPts);
+        assertArrayEquals("double → float", toFloat(expectedD), dstF, 0);
+        /*
+         * Transform a sub-range of the arrays for testing the offsets.
+         */
+        final float[] subF = new float[srcF.length + 6];
+        mt.transform(srcF, 2, subF, 6, numPts - 1);
+        for (int i=2; i<srcF.length; i++) {
+            assertEquals("offsets", (float) expectedF[i], subF[i+4], 0);
+        }
+    }
+
+    /**
+     * Tests the {@code transform} methods when the source and destination are overlapping ranges of the same array.
+     * The destination range is shifted forward and backward by one point, in which case the transform shall not
+     * overwrite source coordinates before they are read. Both {@code double[]} and {@code float[]} arrays are tested,
+     * the later with more than {@link NetcdfProjection#CHUNK_SIZE} points.
+     *
+     * @throws TransformException should never happen.
+     */
+    @Test
+    public void testOverlappingArrays() throws TransformException {
+        final MathTransform2D mt = new NetcdfProjection(new Mercator(), null, null);
+        final int numPts = NetcdfProjection.CHUNK_SIZE + 100;
+        final double[] source = randomPoints(numPts, 8790145215L);
+        final double[] expected = new double[source.length];
+        mt.transform(source, 0, expected, 0, numPts);
+        for (final int shift : new int[] {-2, +2}) {
+            final int srcOff = Math.max(0, -shift);
+            final int dstOff = Math.max(0,  shift);
+            final double[] arrayD = new double[source.length + 2];
+            System.arraycopy(source, 0, arrayD, srcOff, source.length);
+            mt.transform(arrayD, srcOff, arrayD, dstOff, numPts);
+            for (int i=0; i<expected.length; i++) {
+                assertEquals("double[]", expected[i], arrayD[i + dstOff], 0);
+            }
+            final float[] arrayF = new float[source.length + 2];
+            final float[] sourceF = toFloat(source);
+            System.arraycopy(sourceF, 0, arrayF, srcOff, sourceF.length);
+            final double[] expectedF = new double[source.length];
+            mt.transform(toDouble(sourceF), 0, expectedF, 0, numPts);
+            mt.transform(arrayF, srcOff, arrayF, dstOff, numPts);
+            for (int i=0; i<expectedF.length; i++) {
+                assertEquals("float[]", (float) expectedF[i], arrayF[i + dstOff], 0);
+            }
+        }
+    }
+
+    /**
+     * Tests the transform of large arrays in parallel. The number of points is large enough for dividing
+     * the work in many {@link java.util.concurrent.RecursiveAction} tasks. Results shall be identical to
+     * the results of the transform in the caller thread, including for the inverse projection and when
+     * the source and destination are the same array.
+     *
+     * @throws TransformException should never happen.
+     */
+    @Test
+    public void testParallel() throws TransformException {
+        final NetcdfProjection sequential = new NetcdfProjection(new Mercator(), null, null);
+        final ForkJoinPool executor = new ForkJoinPool(4);
+        try {
+            final NetcdfProjection parallel = sequential.parallel(executor);
+            assertNotSame(sequential, parallel);
+            assertSame(parallel, parallel.parallel(executor));
+            assertEquals(sequential, parallel);
+
+            final int numPts = NetcdfProjection.PARALLEL_THRESHOLD * 2 + 5;
+            final double[] source   = randomPoints(numPts, 1736017492L);
+            final double[] expected = new double[source.length];
+            final double[] actual   = new double[source.length];
+            sequential.transform(source, 0, expected, 0, numPts);
+            parallel  .transform(source, 0, actual,   0, numPts);
+            assertArrayEquals("double[]", expected, actual, 0);
+
+            final float[] sourceF   = toFloat(source);
+            final float[] expectedF = new float[sourceF.length];
+            final float[] actualF   = new float[sourceF.length];
+            sequential.transform(sourceF, 0, expectedF, 0, numPts);
+            parallel  .transform(sourceF, 0, actualF,   0, numPts);
+            assertArrayEquals("float[]", expectedF, actualF, 0);
+
+            final double[] inverse = new double[source.length];
+            sequential.inverse().transform(expected, 0, inverse, 0, numPts);
+            parallel  .inverse().transform(expected, 0, actual,  0, numPts);
+            assertArrayEquals("inverse", inverse, actual, 0);
+            /*
+             * Transform in-place, first with the same offsets, then with overlapping ranges.
+             */
+            System.arraycopy(source, 0, actual, 0, source.length);
+            parallel.transform(actual, 0, actual, 0, numPts);
+            assertArrayEquals("in-place", expected, actual, 0);
+
+            final double[] shifted = new double[source.length + 2];
+            System.arraycopy(source, 0, shifted, 0, source.length);
+            parallel.transform(shifted, 0, shifted, 2, numPts);
+            for (int i=0; i<expected.length; i++) {
+                assertEquals("overlapping", expected[i], shifted[i+2], 0);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Creates a two-dimensional CRS of the given type. All properties other than the coordinate system
+     * dimension are null. This is sufficient for verifying which CRS is returned by a transform.
+     *
+     * @param  <T>   compile-time value of {@code type}.
+     * @param  type  the CRS interface to implement.
+     * @return a CRS compared by identity.
+     */
+    private static <T> T createCRS(final Class<T> type) {
+        final CoordinateSystem cs = (CoordinateSystem) Proxy.newProxyInstance(CoordinateSystem.class.getClassLoader(),
+                new Class<?>[] {CoordinateSystem.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getDimension": return 2;
+                        case "hashCode":     return System.identityHashCode(proxy);
+                        case "equals":       return proxy == args[0];
+                        default:             return null;
+                    }
+                });
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getCoordinateSystem": return cs;
+                case "hashCode":            return System.identityHashCode(proxy);
+                case "equals":              return proxy == args[0];
+                case "toString":            return type.getSimpleName();
+                default:                    return null;
+            }
+        }));
+    }
+
+    /**
+     * Tests {@link NetcdfProjection#parallel(ForkJoinPool)} on an inverse projection.
+     * The inverse of the returned transform shall be a parallel copy of the forward projection,
+     * with the same source and target CRS than the original forward projection.
+     */
+    @Test
+    public void testParallelInverse() {
+        final GeographicCRS sourceCRS = createCRS(GeographicCRS.class);
+        final ProjectedCRS  targetCRS = createCRS(ProjectedCRS.class);
+        final NetcdfProjection forward = new NetcdfProjection(new Mercator(), sourceCRS, targetCRS);
+        final ForkJoinPool executor = new ForkJoinPool(2);
+        try {
+            final NetcdfProjection inverse = ((NetcdfProjection) forward.inverse()).parallel(executor);
+            assertNotSame(forward.inverse(), inverse);
+            final NetcdfProjection copy = (NetcdfProjection) inverse.inverse();
+            assertNotSame(forward, copy);
+            assertSame("inverse.inverse", inverse, copy.inverse());
+            assertSame("sourceCRS", sourceCRS, copy.getSourceCRS());
+            assertSame("targetCRS", targetCRS, copy.getTargetCRS());
+            assertSame("executor", copy, copy.parallel(executor));
+            assertSame("executor", inverse, inverse.parallel(executor));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tests the derivative of an inverse projection which does not know its forward projection,
+     * or which is a parallel copy. The inverse projection does not store the CRS and the link to
+     * its forward projection is lost on deserialization, in which case the derivative shall be
+     * computed with the default step sizes (source coordinates in kilometres).
+     *
+     * @throws TransformException should never happen.
+     * @throws IOException if an error occurred while serializing the inverse projection.
+     * @throws ClassNotFoundException if an error occurred while deserializing the inverse projection.
+     */
+    @Test
+    public void testInverseDerivative() throws TransformException, IOException, ClassNotFoundException {
+        final NetcdfProjection forward = new NetcdfProjection(new Mercator(), null, null);
+        final NetcdfProjection inverse = (NetcdfProjection) forward.inverse();
+        final Point2D.Double   point   = new Point2D.Double(1000, 2000);           // In kilometres.
+        final Matrix expected = inverse.derivative(point);
+        final ForkJoinPool executor = new ForkJoinPool(2);
+        try {
+            assertMatrixEquals("parallel", expected, inverse.parallel(executor).derivative(point), null);
+        } finally {
+            executor.shutdown();
+        }
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(buffer)) {
+            out.writeObject(inverse);
+        }
+        final NetcdfProjection copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray()))) {
+            copy = (NetcdfProjection) in.readObject();
+        }
+        assertMatrixEquals("deserialized", expected, copy.derivative(point), null);
+    }
 }
@@ -0,0 +1,192 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The netCDF wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementors can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package org.opengis.wrapper.netcdf;
+
+import org.opengis.geometry.DirectPosition;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link NumericDerivative} class. This test does not require the netCDF library.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+public strictfp class NumericDerivativeTest {
+    /**
+     * Tolerance threshold for comparing the derivatives with the exact values.
+     */
+    private static final double TOLERANCE = 1E-8;
+
+    /**
+     * A transform computing (<var>x</var>², <var>x</var>⋅<var>y</var>). Points having an
+     * <var>x</var> value greater than {@value #LIMIT} can not be transformed. The array
+     * variant stops at the first point that can not be transformed, as native libraries do.
+     */
+    private static final class Quadratic implements MathTransform {
+        /** The maximal <var>x</var> value of points that can be transformed. */
+        static final double LIMIT = 100;
+
+        /** Number of invocations of the transform method working on arrays. */
+        int numCalls;
+
+        @Override public int getSourceDimensions() {return 2;}
+        @Override public int getTargetDimensions() {return 2;}
+        @Override public boolean isIdentity() {return false;}
+
+        @Override public void transform(final double[] srcPts, int srcOff, final double[] dstPts, int dstOff, int numPts)
+                throws TransformException
+        {
+            numCalls++;
+            while (--numPts >= 0) {
+                final double x = srcPts[srcOff++];
+                final double y = srcPts[srcOff++];
+                if (!(x <= LIMIT)) {
+                    throw new TransformException("Point outside the domain of validity.");
+                }
+                dstPts[dstOff++] = x * x;
+                dstPts[dstOff++] = x * y;
+            }
+        }
+
+        @Override public DirectPosition transform(DirectPosition ptSrc, DirectPosition ptDst) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override public void transform(float[] srcPts, int srcOff, float[] dstPts, int dstOff, int numPts) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override public void transform(float[] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override public void transform(double[] srcPts, int srcOff, float[] dstPts, int dstOff, int numPts) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override public Matrix derivative(DirectPosition point) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override public MathTransform inverse() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override public String toWKT() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Returns a two-dimensional position at the given coordinates.
+     *
+     * @param  x  the first coordinate value.
+     * @param  y  the second coordinate value.
+     * @return the position at the given coordinates.
+     */
+    private static DirectPosition position(final double x, final double y) {
+        final SimpleDirectPosition position = new SimpleDirectPosition(2);
+        position.setOrdinate(0, x);
+        position.setOrdinate(1, y);
+        return position;
+    }
+
+    /**
+     * Verifies the derivative of the {@link Quadratic} transform at the given point.
+     *
+     * @param  derivatives  the derivatives computed by {@link NumericDerivative}.
+     * @param  offset       index of the first element of the matrix to verify.
+     * @param  x            the <var>x</var> value where the derivative has been computed.
+     * @param  y            the <var>y</var> value where the derivative has been computed.
+     */
+    private static void verify(final double[] derivatives, final int offset, final double x, final double y) {
+        assertEquals("∂x²/∂x",  2*x, derivatives[offset    ], TOLERANCE);
+        assertEquals("∂x²/∂y",  0,   derivatives[offset + 1], TOLERANCE);
+        assertEquals("∂xy/∂x",  y,   derivatives[offset + 2], TOLERANCE);
+        assertEquals("∂xy/∂y",  x,   derivatives[offset + 3], TOLERANCE);
+    }
+
+    /**
+     * Tests the derivatives at many points computed in a single call.
+     *
+     * @throws TransformException should never happen.
+     */
+    @Test
+    public void testDerivatives() throws TransformException {
+        final Quadratic transform = new Quadratic();
+        final NumericDerivative derivative = new NumericDerivative(transform, null);
+        final double[] points = {1, 2,   -3, 0.5,   0, 0,   40, -7};
+        final double[] derivatives = derivative.derivatives(points, 0, 4);
+        assertEquals(16, derivatives.length);
+        assertEquals("All perturbed points shall be transformed in a single call.", 1, transform.numCalls);
+        for (int p=0; p<4; p++) {
+            verify(derivatives, p*4, points[p*2], points[p*2+1]);
+        }
+        final Matrix m = derivative.derivative(position(1, 2));
+        assertEquals(2, m.getElement(0, 0), TOLERANCE);
+        assertEquals(1, m.getElement(1, 1), TOLERANCE);
+    }
+
+    /**
+     * Tests the derivatives when the perturbed points of some source points can not be transformed.
+     * The matrices of those points shall be filled with NaN values, without preventing the computation
+     * at other points. The derivative at a single point shall throw an exception instead.
+     *
+     * @throws TransformException if a derivative other than the expected failure can not be computed.
+     */
+    @Test
+    public void testFailingPoint() throws TransformException {
+        final NumericDerivative derivative = new NumericDerivative(new Quadratic(), null);
+        final double[] points = {1, 2,   Quadratic.LIMIT, 3,   4, 5,   Double.NaN, 1,   -6, 7};
+        final double[] derivatives = derivative.derivatives(points, 0, 5);
+        assertEquals(20, derivatives.length);
+        verify(derivatives,  0,  1, 2);
+        verify(derivatives,  8,  4, 5);
+        verify(derivatives, 16, -6, 7);
+        for (int i=0; i<4; i++) {
+            assertTrue(Double.isNaN(derivatives[ 4 + i]));
+            assertTrue(Double.isNaN(derivatives[12 + i]));
+        }
+        try {
+            derivative.derivative(position(Quadratic.LIMIT, 3));
+            fail("Expected a TransformException.");
+        } catch (TransformException e) {
+            assertNotNull(e.getMessage());
+        }
+    }
+
+    /**
+     * Tests that the step near the origin is the scale multiplied by ∛ε, where ε is the machine epsilon.
+     * With a scale of 10⁸ in the first dimension, the step at the origin is about 600, so the perturbed
+     * points exceed the {@value Quadratic#LIMIT} limit and the derivative can not be computed.
+     *
+     * @throws TransformException should never happen.
+     */
+    @Test
+    public void testStepAtOrigin() throws TransformException {
+        assertEquals(6E-6, Math.cbrt(Math.ulp(1.0)), 1E-7);
+        final double[] origin = {0, 0};
+        NumericDerivative derivative = new NumericDerivative(new Quadratic(), new double[] {10, 10});
+        verify(derivative.derivatives(origin, 0, 1), 0, 0, 0);
+        derivative = new NumericDerivative(new Quadratic(), new double[] {1E+8, 1});
+        assertTrue(Double.isNaN(derivative.derivatives(origin, 0, 1)[0]));
+    }
+}
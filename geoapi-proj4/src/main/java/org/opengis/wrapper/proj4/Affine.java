@@ -15,6 +15,7 @@ package org.opengis.wrapper.proj4;
 
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import org.opengis.util.FactoryException;
 import org.opengis.geometry.DirectPosition;
@@ -28,7 +29,7 @@ import org.opengis.referencing.operation.NoninvertibleTransformException;
  * A math transform backed by the Java2D affine transform.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
 final class Affine extends AffineTransform implements MathTransform2D {
@@ -44,8 +45,16 @@ final class Affine extends AffineTransform implements MathTransform2D {
      * the inverse transform rather than the original transform, inverting the inverse
      * transform in order to get back the original transform would lead to floating
      * point errors.
+     *
+     * @see #inverse()
      */
-    private Affine inverse;
+    private volatile Affine inverse;
+
+    /**
+     * Updater for the {@link #inverse} field, used for publishing the inverse without locking.
+     */
+    private static final AtomicReferenceFieldUpdater<Affine,Affine> INVERSE =
+            AtomicReferenceFieldUpdater.newUpdater(Affine.class, Affine.class, "inverse");
 
     /**
      * Creates a new transform initialized to the values of the given transform.
@@ -158,21 +167,26 @@ final class Affine extends AffineTransform implements MathTransform2D {
     }
 
     /**
-     * Returns the inverse of this affine transform.
+     * Returns the inverse of this affine transform. The inverse is computed when first needed
+     * and published without locking. If many threads invoke this method concurrently for the
+     * first time, all of them receive the first inverse to be published.
      */
     @Override
-    public synchronized MathTransform2D inverse() throws NoninvertibleTransformException {
-        if (inverse == null) {
-            final Affine tmp = new Affine(this);
+    public MathTransform2D inverse() throws NoninvertibleTransformException {
+        Affine inv = inverse;
+        if (inv == null) {
+            inv = new Affine(this);
             try {
-                tmp.invert();
+                inv.invert();
             } catch (java.awt.geom.NoninvertibleTransformException e) {
                 throw new NoninvertibleTransformException(e.getLocalizedMessage(), e);
             }
-            tmp.inverse = this;
-            inverse = tmp;              // Keep the reference only on success.
+            inv.inverse = this;
+            if (!INVERSE.compareAndSet(this, null, inv)) {
+                inv = inverse;          // Another thread published its inverse first.
+            }
         }
-        return inverse;
+        return inv;
     }
 
     /**
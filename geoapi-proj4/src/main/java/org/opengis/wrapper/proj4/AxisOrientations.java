@@ -0,0 +1,311 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The Proj.4 wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementors can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package org.opengis.wrapper.proj4;
+
+import java.util.Set;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Collections;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URL;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * The axis orientations for each CRS code, stored in a compact table sorted by code.
+ * The table is read from the {@value #BINARY_FILE} resource, which is generated at build time
+ * from the {@value ResourcesLoader#AXIS_FILE} text file by the {@link #main(String[])} method.
+ * If the binary file is not available, then this class fallbacks on parsing the text file.
+ *
+ * <p>The binary file format is as below (all numbers in big-endian byte order):</p>
+ * <ol>
+ *   <li>The {@value #MAGIC} magic number and the {@value #VERSION} format version, as 32 bits integers.</li>
+ *   <li>The number of distinct orientations (<var>m</var>) and the number of codes (<var>n</var>), as 32 bits integers.</li>
+ *   <li><var>m</var> orientation strings, each one as a 16 bits length followed by the UTF-8 bytes,
+ *       with zero padding up to a multiple of 4 bytes after the last string.</li>
+ *   <li><var>n</var> CRS codes as 32 bits integers, in increasing order.</li>
+ *   <li><var>n</var> orientation indices as 8 bits integers, in the same order than the codes.</li>
+ * </ol>
+ *
+ * Lookups are binary searches directly in the buffer, without creating any object. When the resource is
+ * a plain file, the buffer is memory-mapped. Otherwise (e.g. when the resource is in a JAR file), the
+ * buffer is read in a single operation.
+ *
+ * <p>This class is immutable and thread-safe.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+final class AxisOrientations {
+    /**
+     * The file which contains the axis orientations in binary format.
+     */
+    static final String BINARY_FILE = "axis-orientations.bin";
+
+    /**
+     * Magic number at the beginning of the binary file.
+     */
+    private static final int MAGIC = 0x50344158;
+
+    /**
+     * Version of the binary file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The distinct axis orientations, in the order referenced by the orientation indices.
+     */
+    private final String[] orientations;
+
+    /**
+     * The CRS codes in increasing order.
+     */
+    private final IntBuffer codes;
+
+    /**
+     * The index in the {@link #orientations} array for each CRS code.
+     */
+    private final ByteBuffer indices;
+
+    /**
+     * Creates a table from the given binary data.
+     *
+     * @param  buffer  the content of the binary file.
+     * @throws IOException if the binary data are invalid.
+     */
+    AxisOrientations(final ByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Unsupported \"" + BINARY_FILE + "\" format.");
+        }
+        orientations = new String[buffer.getInt()];
+        final int count = buffer.getInt();
+        for (int i=0; i<orientations.length; i++) {
+            final byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(bytes);
+            orientations[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        buffer.position((buffer.position() + 3) & ~3);
+        final int start = buffer.position();
+        buffer.limit(start + count * Integer.BYTES);
+        codes = buffer.slice().asIntBuffer();
+        buffer.limit(buffer.capacity()).position(start + count * Integer.BYTES);
+        buffer.limit(buffer.position() + count);
+        indices = buffer.slice();
+    }
+
+    /**
+     * Loads the table from the binary resource, or parses the text resource if the binary one is not found.
+     *
+     * @return the axis orientations for each CRS code.
+     * @throws IOException if an error occurred while reading the resource.
+     */
+    static AxisOrientations load() throws IOException {
+        final URL url = AxisOrientations.class.getResource(BINARY_FILE);
+        if (url != null) {
+            if ("file".equals(url.getProtocol())) try {
+                try (FileChannel channel = new FileInputStream(new File(url.toURI())).getChannel()) {
+                    return new AxisOrientations(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+                }
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                // Not a plain file after all. Fallback on the generic code below.
+            }
+            try (InputStream in = url.openStream()) {
+                return new AxisOrientations(ByteBuffer.wrap(readFully(in)));
+            }
+        }
+        final InputStream in = AxisOrientations.class.getResourceAsStream(ResourcesLoader.AXIS_FILE);
+        if (in == null) {
+            throw new IOException("Resource not found.");
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return new AxisOrientations(ByteBuffer.wrap(toBinary(parse(reader))));
+        }
+    }
+
+    /**
+     * Reads all bytes from the given input stream.
+     */
+    private static byte[] readFully(final InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(32 * 1024);
+        final byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Parses the {@value ResourcesLoader#AXIS_FILE} text file. The file format is the one created
+     * by {@code SupportedCodes.write()} in the test directory.
+     *
+     * @param  reader  the reader of the text file.
+     * @return the axis orientations for each CRS code, sorted by code.
+     * @throws IOException if an error occurred while reading the file or if a code is not an integer.
+     */
+    static Map<Integer,String> parse(final BufferedReader reader) throws IOException {
+        final Map<Integer,String> map = new TreeMap<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if ((line = line.trim()).isEmpty()) {
+                continue;                                       // Skip empty lines.
+            }
+            switch (line.charAt(0)) {
+                case '#': {
+                    break;                                      // A line of comment. Ignore.
+                }
+                case '[': {
+                    // The authority. Actually we don't parse yet
+                    // this element. Maybe a future version will do.
+                    break;
+                }
+                default: {
+                    int s = line.indexOf(':');
+                    final String orientation = line.substring(0, s).trim();
+                    do {
+                        final int p = s+1;
+                        s = line.indexOf(' ', p);
+                        final String code = ((s >= 0) ? line.substring(p,s) : line.substring(p)).trim();
+                        if (!code.isEmpty()) try {
+                            map.put(Integer.valueOf(code), orientation);
+                        } catch (NumberFormatException e) {
+                            throw new IOException("Unexpected CRS code: " + code, e);
+                        }
+                    } while (s >= 0);
+                    break;
+                }
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Encodes the given axis orientations in the binary format documented in the class javadoc.
+     *
+     * @param  map  the axis orientations for each CRS code, sorted by code.
+     * @return the binary representation of the given map.
+     * @throws IOException if there is too many distinct orientations.
+     */
+    static byte[] toBinary(final Map<Integer,String> map) throws IOException {
+        final List<String> distinct = new ArrayList<>(new LinkedHashSet<>(map.values()));
+        if (distinct.size() > 0xFF) {
+            throw new IOException("Too many distinct axis orientations.");
+        }
+        int length = 4 * Integer.BYTES;
+        for (final String orientation : distinct) {
+            length += Short.BYTES + orientation.getBytes(StandardCharsets.UTF_8).length;
+        }
+        length = (length + 3) & ~3;
+        final ByteBuffer buffer = ByteBuffer.allocate(length + map.size() * (Integer.BYTES + 1));
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(distinct.size()).putInt(map.size());
+        for (final String orientation : distinct) {
+            final byte[] bytes = orientation.getBytes(StandardCharsets.UTF_8);
+            buffer.putShort((short) bytes.length).put(bytes);
+        }
+        buffer.position(length);
+        for (final Integer code : map.keySet()) {
+            buffer.putInt(code);
+        }
+        for (final String orientation : map.values()) {
+            buffer.put((byte) distinct.indexOf(orientation));
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Returns the axis orientations for the given CRS code, or {@code null} if none.
+     * This method performs a binary search in the table of codes.
+     *
+     * @param  code  the CRS code, without authority.
+     * @return the axis orientations in {@literal Proj.4} syntax, or {@code null} if none.
+     */
+    String get(final String code) {
+        final int value;
+        try {
+            value = Integer.parseInt(code);
+        } catch (NumberFormatException e) {
+            return null;                        // Not a code of this table.
+        }
+        if (!Integer.toString(value).equals(code)) {
+            return null;                        // Leading zeros or sign: not the same code in the text file.
+        }
+        int low  = 0;
+        int high = codes.limit() - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int c = codes.get(mid);
+            if      (c < value) low  = mid + 1;
+            else if (c > value) high = mid - 1;
+            else return orientations[indices.get(mid) & 0xFF];        // Indices are unsigned.
+        }
+        return null;
+    }
+
+    /**
+     * Returns all CRS codes in this table, in increasing order.
+     *
+     * @return the CRS codes.
+     */
+    Set<String> codes() {
+        final int count = codes.limit();
+        final Set<String> set = new LinkedHashSet<>(count + count / 3 + 1);
+        for (int i=0; i<count; i++) {
+            set.add(Integer.toString(codes.get(i)));
+        }
+        return Collections.unmodifiableSet(set);
+    }
+
+    /**
+     * Converts the {@value ResourcesLoader#AXIS_FILE} text file into the {@value #BINARY_FILE} binary file.
+     * This method is invoked at build time with the following arguments:
+     *
+     * <ol>
+     *   <li>The text file to read.</li>
+     *   <li>The binary file to write.</li>
+     * </ol>
+     *
+     * @param  args  the input and output files.
+     * @throws IOException if an error occurred while reading or writing the files.
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Expected input and output files.");
+        }
+        final Map<Integer,String> map;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(args[0]), StandardCharsets.UTF_8)))
+        {
+            map = parse(reader);
+        }
+        try (OutputStream out = new FileOutputStream(args[1])) {
+            out.write(toBinary(map));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The Proj.4 wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementors can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package org.opengis.wrapper.proj4;
+
+import org.opengis.geometry.DirectPosition;
+import org.opengis.referencing.operation.MathTransform;
+
+
+/**
+ * A math transform capable to compute the derivatives at many points in a single call.
+ * The coordinate operations and math transforms created by {@link PJFactory} implement this interface.
+ * Users can test if a transform is an instance of this interface, then invoke {@link #derivatives
+ * derivatives(…)} instead of {@link MathTransform#derivative(DirectPosition)} for each point.
+ * This is much faster since the {@literal Proj.4} native library is invoked once for many points.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+public interface BulkDerivative {
+    /**
+     * Computes the derivatives at all given points. The returned array contains the Jacobian matrix
+     * of each point in row-major order. The matrix of point <var>p</var> begins at index
+     * <var>p</var> × <var>T</var> × <var>S</var>, where <var>T</var> and <var>S</var> are the
+     * target and source dimensions respectively. If the derivative can not be computed at a point
+     * (for example because a perturbed point is outside the domain of validity), then the matrix
+     * of that point is filled with {@link Double#NaN} values and the derivatives at other points
+     * are still computed.
+     *
+     * @param  points  the coordinates of the points where to evaluate the derivatives.
+     * @param  offset  index of the first coordinate to use in the {@code points} array.
+     * @param  numPts  number of points.
+     * @return the Jacobian matrices of all points, with (target dimension × source dimension) elements per point.
+     */
+    double[] derivatives(double[] points, int offset, int numPts);
+}
@@ -32,11 +32,16 @@ import org.opengis.referencing.operation.Projection;
  * distinction between Coordinate System and Coordinate Reference System, so we implement the two
  * interfaces by the same class.
  *
+ * <p>The {@link #close()} method releases the native resources of the {@literal Proj.4} handle.
+ * Since CRS may be shared (for example by the {@link PJFactory.EPSG} cache), they are reference counted:
+ * each owner shall invoke {@code close()} exactly once, and the handle is released by the last owner.
+ * Coordinate operations created from this CRS use their own handles, so they are not impacted.</p>
+ *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
-class PJCRS extends PJObject implements CoordinateReferenceSystem, CoordinateSystem {
+class PJCRS extends PJObject implements CoordinateReferenceSystem, CoordinateSystem, PJCache.Shared {
     /**
      * The geodetic datum, which is also the object to use for performing call to {@literal Proj.4} functions.
      */
@@ -48,6 +53,11 @@ class PJCRS extends PJObject implements CoordinateReferenceSystem, CoordinateSys
      */
     final CoordinateSystemAxis[] axes;
 
+    /**
+     * The number of owners of this CRS. The native resources are released when this count reaches zero.
+     */
+    private final PJCache.References references = new PJCache.References();
+
     /**
      * Creates a new CRS using the given identifier, {@literal Proj.4} peer and number of dimensions.
      *
@@ -107,6 +117,36 @@ class PJCRS extends PJObject implements CoordinateReferenceSystem, CoordinateSys
         return axes.length;
     }
 
+    /**
+     * Adds an owner to this CRS, unless the native resources have already been released.
+     *
+     * @return {@code false} if this CRS has already been released.
+     */
+    @Override
+    public boolean retain() {
+        return references.retain();
+    }
+
+    /**
+     * Releases the reference owned by the caller. The native resources of the {@literal Proj.4}
+     * handle are released when the last owner invokes this method. The caller shall not use this
+     * CRS anymore after this method call.
+     */
+    @Override
+    public void close() {
+        if (references.release()) {
+            release();
+        }
+    }
+
+    /**
+     * Releases the native resources of the {@literal Proj.4} handle.
+     * Invoked by {@link #close()} when the last owner released its reference.
+     */
+    void release() {
+        pj.close();
+    }
+
     /**
      * The geocentric specialization of {@link PJCRS}.
      */
@@ -233,6 +273,17 @@ class PJCRS extends PJObject implements CoordinateReferenceSystem, CoordinateSys
             return baseCRS;
         }
 
+        /**
+         * Releases the native resources of this CRS and of the base CRS, if it has been created.
+         */
+        @Override
+        synchronized void release() {
+            super.release();
+            if (baseCRS != null) {
+                baseCRS.close();
+            }
+        }
+
         /**
          * Returns the conversion from the projected CRS to the base CRS.
          */
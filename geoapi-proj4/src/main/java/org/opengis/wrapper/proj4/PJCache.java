@@ -0,0 +1,360 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The Proj.4 wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementors can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package org.opengis.wrapper.proj4;
+
+import java.util.Map;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.opengis.util.FactoryException;
+
+
+/**
+ * A bounded cache of objects created by {@link PJFactory}. If many threads ask for the same key at the
+ * same time, only one thread creates the object while the other threads wait for the result. When the
+ * number of entries exceeds the capacity, the least recently used entries are removed.
+ *
+ * <p>Cached objects implementing the {@link Shared} interface are reference counted. The cache holds
+ * one reference, and each call to {@link #getOrCreate getOrCreate(…)} returns a new reference which
+ * shall be released by the caller with {@link Shared#close()}. When an object is removed from the
+ * cache, the cache releases its own reference. The native resources are released when the last
+ * reference is released, without waiting for the garbage collector.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @param  <K>  the type of keys.
+ * @param  <V>  the type of cached objects.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+final class PJCache<K,V> {
+    /**
+     * The action to execute for creating an object which is not in the cache.
+     *
+     * @param  <V>  the type of the object to create.
+     */
+    @FunctionalInterface
+    interface Creator<V> {
+        /**
+         * Creates the object.
+         *
+         * @return the new object.
+         * @throws FactoryException if the object can not be created.
+         */
+        V create() throws FactoryException;
+    }
+
+    /**
+     * An object which can be shared by many users, each of them owning a reference to the object.
+     * The object is created with one reference, owned by its creator.
+     */
+    interface Shared extends AutoCloseable {
+        /**
+         * Adds a reference to this object, unless this object has already been released.
+         *
+         * @return {@code false} if this object has already been released and shall not be used.
+         */
+        boolean retain();
+
+        /**
+         * Releases a reference to this object. The resources are released when the last reference
+         * is released. Each owner of a reference shall invoke this method exactly once.
+         */
+        @Override
+        void close();
+    }
+
+    /**
+     * A reference counter for the implementations of {@link Shared}.
+     */
+    static final class References {
+        /** Number of references not yet released. */
+        private final AtomicInteger count = new AtomicInteger(1);
+
+        /** Adds a reference, unless the count already reached zero. */
+        boolean retain() {
+            int n;
+            do {
+                n = count.get();
+                if (n <= 0) return false;
+            } while (!count.compareAndSet(n, n + 1));
+            return true;
+        }
+
+        /** Releases a reference and returns {@code true} if it was the last one. */
+        boolean release() {
+            int n;
+            do {
+                n = count.get();
+                if (n <= 0) return false;               // Already released.
+            } while (!count.compareAndSet(n, n - 1));
+            return n == 1;
+        }
+    }
+
+    /**
+     * A key made of two components, for example a source and a target CRS.
+     * The components shall be non-null.
+     */
+    static final class Key {
+        /** The components of this key. */
+        private final Object first, second;
+
+        /** Creates a new key for the given components. */
+        Key(final Object first, final Object second) {
+            this.first  = first;
+            this.second = second;
+        }
+
+        /** Returns a hash code value for this key. */
+        @Override
+        public int hashCode() {
+            return first.hashCode() * 31 + second.hashCode();
+        }
+
+        /** Compares this key with the given object for equality. */
+        @Override
+        public boolean equals(final Object other) {
+            if (other instanceof Key) {
+                final Key that = (Key) other;
+                return first.equals(that.first) && second.equals(that.second);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A cache entry. The value is set exactly once, by the thread which created the entry.
+     * Other threads asking for the same key wait until the value (or the failure) is set.
+     */
+    private static final class Slot<V> {
+        /** Released when the value or the failure has been set. */
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        /** The cached value, or {@code null} if not yet computed or if the creation failed. */
+        private V value;
+
+        /** The exception or error thrown during the object creation, or {@code null} if none. */
+        private Throwable failure;
+
+        /** The value of the cache clock when this entry has been used for the last time. */
+        volatile long lastAccess;
+
+        /** Sets the result of the object creation and wakes up the waiting threads. */
+        void set(final V value, final Throwable failure) {
+            this.value   = value;
+            this.failure = failure;
+            done.countDown();
+        }
+
+        /** Returns {@code true} if the value or the failure has been set. */
+        boolean isDone() {
+            return done.getCount() == 0;
+        }
+
+        /** Waits for the object creation and returns the result. */
+        V get() throws FactoryException {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure != null) {
+                if (failure instanceof FactoryException) {
+                    throw (FactoryException) failure;
+                }
+                if (failure instanceof Error) {
+                    throw (Error) failure;
+                }
+                throw (RuntimeException) failure;
+            }
+            return value;
+        }
+    }
+
+    /**
+     * The cached entries.
+     */
+    private final ConcurrentHashMap<K, Slot<V>> entries;
+
+    /**
+     * The maximal number of entries.
+     */
+    private final int capacity;
+
+    /**
+     * A counter incremented at each cache access, used for finding the least recently used entries.
+     */
+    private final AtomicLong clock;
+
+    /**
+     * Number of cache hits, misses and evictions.
+     */
+    private final AtomicLong hits, misses, evictions;
+
+    /**
+     * Creates a new cache of the given capacity.
+     *
+     * @param capacity  the maximal number of entries.
+     */
+    PJCache(final int capacity) {
+        this.capacity = capacity;
+        entries   = new ConcurrentHashMap<>();
+        clock     = new AtomicLong();
+        hits      = new AtomicLong();
+        misses    = new AtomicLong();
+        evictions = new AtomicLong();
+    }
+
+    /**
+     * Returns the object for the given key, creating it if needed. If another thread is creating
+     * the object for the same key, then this method waits for that thread to finish its work.
+     * If the object implements {@link Shared}, then the caller owns a new reference to it.
+     *
+     * @param  key      the key of the object to get.
+     * @param  creator  the action to execute if the object is not in the cache.
+     * @return the object for the given key.
+     * @throws FactoryException if the object creation failed.
+     */
+    V getOrCreate(final K key, final Creator<? extends V> creator) throws FactoryException {
+        while (true) {
+            Slot<V> slot = entries.get(key);
+            if (slot == null) {
+                final Slot<V> created = new Slot<>();
+                created.lastAccess = clock.incrementAndGet();
+                slot = entries.putIfAbsent(key, created);
+                if (slot == null) {
+                    misses.incrementAndGet();
+                    V value = null;
+                    Throwable failure = null;
+                    try {
+                        value = Objects.requireNonNull(creator.create());
+                        retain(value);          // The caller owns this reference, the initial one is owned by the cache.
+                    } catch (Throwable e) {
+                        failure = e;
+                        throw e;
+                    } finally {
+                        /*
+                         * Executed for any kind of failure, including errors, because the threads
+                         * waiting for this slot would otherwise be blocked forever.
+                         */
+                        if (failure != null) {
+                            entries.remove(key, created);       // Allow another attempt.
+                        }
+                        created.set(value, failure);
+                    }
+                    if (entries.size() > capacity) {
+                        evict();
+                    }
+                    return value;
+                }
+            }
+            hits.incrementAndGet();
+            slot.lastAccess = clock.incrementAndGet();
+            final V value = slot.get();
+            if (retain(value)) {
+                return value;
+            }
+            /*
+             * The object has been released by a concurrent eviction after we got the slot.
+             * Make sure that the slot is removed, then try again.
+             */
+            entries.remove(key, slot);
+        }
+    }
+
+    /**
+     * Adds a reference to the given value if it is shared.
+     *
+     * @return {@code false} if the value is shared and has already been released.
+     */
+    private static boolean retain(final Object value) {
+        return !(value instanceof Shared) || ((Shared) value).retain();
+    }
+
+    /**
+     * Releases the reference owned by the cache on the value of the given slot.
+     */
+    private static void release(final Slot<?> slot) {
+        final Object value = slot.value;
+        if (value instanceof Shared) {
+            ((Shared) value).close();
+        }
+    }
+
+    /**
+     * Removes the least recently used entries, leaving the cache filled at 75% of its capacity.
+     * Entries for which the object is still under creation are not removed.
+     */
+    private synchronized void evict() {
+        int excess = entries.size() - capacity * 3 / 4;
+        if (excess <= 0) {
+            return;
+        }
+        final List<Map.Entry<K, Slot<V>>> candidates = new ArrayList<>(entries.size());
+        for (final Map.Entry<K, Slot<V>> entry : entries.entrySet()) {
+            if (entry.getValue().isDone()) {
+                candidates.add(entry);
+            }
+        }
+        candidates.sort((e1, e2) -> Long.compare(e1.getValue().lastAccess, e2.getValue().lastAccess));
+        for (final Map.Entry<K, Slot<V>> entry : candidates) {
+            if (--excess < 0) break;
+            if (entries.remove(entry.getKey(), entry.getValue())) {
+                evictions.incrementAndGet();
+                release(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Removes all entries from this cache and releases the references owned by the cache.
+     * Entries for which the object is still under creation are not removed.
+     */
+    void clear() {
+        for (final Map.Entry<K, Slot<V>> entry : entries.entrySet()) {
+            final Slot<V> slot = entry.getValue();
+            if (slot.isDone() && entries.remove(entry.getKey(), slot)) {
+                release(slot);
+            }
+        }
+    }
+
+    /**
+     * Adds the statistics of this cache in the given map.
+     *
+     * @param prefix      the prefix to prepend to the statistic names.
+     * @param statistics  where to add the statistics.
+     */
+    void getStatistics(final String prefix, final Map<String,Number> statistics) {
+        statistics.put(prefix + "capacity",  capacity);
+        statistics.put(prefix + "size",      entries.size());
+        statistics.put(prefix + "hits",      hits.get());
+        statistics.put(prefix + "misses",    misses.get());
+        statistics.put(prefix + "evictions", evictions.get());
+    }
+}
@@ -37,9 +37,10 @@ import static java.lang.Math.*;
 /**
  * Wraps the <a href="http://proj.osgeo.org/">{@literal Proj.4}</a> {@code PJ} native data structure
  * in a geodetic datum. The PJ structure combines datum, ellipsoid and prime meridian information.
+ * All instances are registered in {@link PJRegistry} until they are closed.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
 final class PJDatum extends PJ implements GeodeticDatum, PrimeMeridian, Ellipsoid {
@@ -88,6 +89,11 @@ final class PJDatum extends PJ implements GeodeticDatum, PrimeMeridian, Ellipsoi
      */
     private final String definition;
 
+    /**
+     * The entry to remove from the registry of live handles when this datum is closed.
+     */
+    private final PJRegistry.Entry entry;
+
     /**
      * Creates a new {@code PJ} structure from the given {@literal Proj.4} data.
      *
@@ -104,6 +110,7 @@ final class PJDatum extends PJ implements GeodeticDatum, PrimeMeridian, Ellipsoi
             }
         }
         this.name = name;
+        entry = PJRegistry.register(this, this.definition);
     }
 
     /**
@@ -113,6 +120,16 @@ final class PJDatum extends PJ implements GeodeticDatum, PrimeMeridian, Ellipsoi
         super(projected, Type.GEOGRAPHIC);
         definition = super.getDefinition();
         name = projected.name;
+        entry = PJRegistry.register(this, definition);
+    }
+
+    /**
+     * Releases the native resources and removes this datum from the registry of live handles.
+     */
+    @Override
+    public synchronized void close() {
+        super.close();
+        PJRegistry.unregister(entry);
     }
 
     /**
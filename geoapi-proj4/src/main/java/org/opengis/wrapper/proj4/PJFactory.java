@@ -15,8 +15,11 @@ package org.opengis.wrapper.proj4;
 
 import java.util.Set;
 import java.util.Map;
+import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Collections;
 import java.util.MissingResourceException;
+import java.util.concurrent.TimeUnit;
 import java.awt.geom.AffineTransform;
 import javax.measure.Unit;
 import javax.measure.quantity.Angle;
@@ -42,7 +45,7 @@ import static org.proj4.PJ.DIMENSION_MAX;
  *
  * @author  Martin Desruisseaux (Geomatys)
  * @author  Johann Sorel (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
 public class PJFactory implements Factory {
@@ -62,6 +65,11 @@ public class PJFactory implements Factory {
      */
     static final char AXIS_ORDER_SEPARATOR = ',';
 
+    /**
+     * The maximal number of CRS and of operations kept in the cache of each factory.
+     */
+    static final int CACHE_CAPACITY = 256;
+
     /**
      * For sub-class constructors only.
      */
@@ -223,6 +231,101 @@ public class PJFactory implements Factory {
         return new PJOperation(identifier, (PJCRS) sourceCRS, (PJCRS) targetCRS);
     }
 
+    /**
+     * Returns statistics about the pool of {@literal Proj.4} handles used by the given operation.
+     * Each operation created by this factory transforms coordinates with pairs of native handles
+     * taken from a pool, created when first needed up to one pair per processor.
+     * The returned map contains the following entries:
+     *
+     * <ul>
+     *   <li>{@code "capacity"}: maximal number of pairs of handles in the pool.</li>
+     *   <li>{@code "size"}: number of pairs of handles created so far.</li>
+     *   <li>{@code "idle"}: number of pairs of handles not currently in use.</li>
+     *   <li>{@code "acquisitions"}: number of times that a thread acquired a pair of handles.</li>
+     *   <li>{@code "contentions"}: number of times that a thread had to wait for a pair of handles.</li>
+     * </ul>
+     *
+     * @param  operation  an operation created by this factory.
+     * @return statistics about the pool used by the given operation, or an empty map if none.
+     * @throws ClassCastException if the given operation is not an instance created by this class.
+     *
+     * @since 4.0
+     */
+    public static Map<String,Number> getPoolStatistics(final CoordinateOperation operation) throws ClassCastException {
+        final PJPool pool = ((PJOperation) operation).pool;
+        if (pool == null) {
+            return Collections.emptyMap();
+        }
+        final Map<String,Number> statistics = new LinkedHashMap<>(8);
+        statistics.put("capacity",     pool.capacity());
+        statistics.put("size",         pool.size());
+        statistics.put("idle",         pool.idleCount());
+        statistics.put("acquisitions", pool.acquisitionCount());
+        statistics.put("contentions",  pool.contentionCount());
+        return statistics;
+    }
+
+    /**
+     * Returns statistics about the given cache. The statistics are:
+     *
+     * <ul>
+     *   <li>{@code "capacity"}: maximal number of objects in the cache.</li>
+     *   <li>{@code "size"}: number of objects currently in the cache.</li>
+     *   <li>{@code "hits"}: number of requests for an object which was already in the cache or under creation.</li>
+     *   <li>{@code "misses"}: number of requests which caused the creation of a new object.</li>
+     *   <li>{@code "evictions"}: number of objects removed from the cache because it was full.</li>
+     * </ul>
+     */
+    static Map<String,Number> getStatistics(final PJCache<?,?> cache) {
+        final Map<String,Number> statistics = new LinkedHashMap<>(8);
+        cache.getStatistics("", statistics);
+        return statistics;
+    }
+
+    /**
+     * Returns the number of {@literal Proj.4} handles created by this package and not yet released.
+     * Handles are created for each CRS and for the pools used by coordinate operations.
+     * They are released by invoking {@link AutoCloseable#close()} on the CRS or operation
+     * (all CRS and operations created by this factory implement that interface),
+     * or otherwise by the garbage collector. Objects shared by the {@link EPSG} and
+     * {@link Operation} caches are reference counted: their handles are released when
+     * all callers have closed them and the cache has discarded them.
+     *
+     * @return number of handles not yet released.
+     *
+     * @since 4.0
+     */
+    public static int getLiveHandleCount() {
+        return PJRegistry.liveCount();
+    }
+
+    /**
+     * Returns the number of {@literal Proj.4} handles which have been garbage-collected without having been closed.
+     * Each such leak is also logged at the {@code WARNING} level in the {@code "org.opengis.wrapper.proj4"} logger.
+     *
+     * @return number of handles released by the garbage collector instead of by {@code close()}.
+     *
+     * @since 4.0
+     */
+    public static long getLeakedHandleCount() {
+        return PJRegistry.leakCount();
+    }
+
+    /**
+     * Returns a description of the {@literal Proj.4} handles alive since at least the given amount of time.
+     * Each element in the returned list contains the definition string and the age of a handle.
+     * This method can be used for finding CRS or operations that the application forgot to close.
+     *
+     * @param  minimumAge  the minimal age of the handles to report.
+     * @param  unit        the unit of the {@code minimumAge} argument.
+     * @return a description of the handles alive since at least the given time.
+     *
+     * @since 4.0
+     */
+    public static List<String> getLongLivedHandles(final long minimumAge, final TimeUnit unit) {
+        return PJRegistry.longLived(unit.toNanos(minimumAge));
+    }
+
     /**
      * Returns the exception to throw when a feature is not yet supported.
      */
@@ -543,8 +646,13 @@ public class PJFactory implements Factory {
      * However those methods will work if the {@link #createCoordinateReferenceSystem(String)}
      * method is overridden in order to return CRS objects of the appropriate type.
      *
+     * <p>The CRS are cached by each factory instance: asking many times for the same code returns
+     * the same instance. Those CRS are reference counted: each CRS returned by a {@code createFoo(String)}
+     * method shall be closed exactly once by the caller, and the native resources are released when
+     * all callers have closed the CRS and the cache has discarded it (see {@link #clearCache()}).</p>
+     *
      * @author  Martin Desruisseaux (Geomatys)
-     * @version 3.1
+     * @version 4.0
      * @since   3.1
      */
     public static class EPSG extends PJFactory implements CRSAuthorityFactory {
@@ -559,6 +667,12 @@ public class PJFactory implements Factory {
          */
         private Set<String> codes;
 
+        /**
+         * The CRS created by this factory, keyed by the authority code
+         * and by whether the EPSG axis order is used.
+         */
+        private final PJCache<PJCache.Key, CoordinateReferenceSystem> cache = new PJCache<>(CACHE_CAPACITY);
+
         /**
          * Creates a new coordinate operation factory which will create CRS with axis order
          * as declared in the EPSG database.
@@ -599,7 +713,7 @@ public class PJFactory implements Factory {
         @SuppressWarnings("ReturnOfCollectionOrArrayField")
         public synchronized Set<String> getAuthorityCodes(Class<? extends IdentifiedObject> type) throws FactoryException {
             if (codes == null) {
-                codes = Collections.unmodifiableSet(ResourcesLoader.getAxisOrientations().keySet());
+                codes = ResourcesLoader.getAuthorityCodes();
             }
             return codes;
         }
@@ -654,6 +768,44 @@ public class PJFactory implements Factory {
                 codespace = code.substring(0, s).trim();
                 code = code.substring(s+1).trim();
             }
+            final String authority = codespace;
+            final String localCode = code;
+            return cache.getOrCreate(new PJCache.Key(authority + ':' + localCode, useEpsgAxisOrder),
+                    () -> create(authority, localCode));
+        }
+
+        /**
+         * Returns statistics about the CRS cache of this factory. The statistics are
+         * {@code "capacity"}, {@code "size"}, {@code "hits"}, {@code "misses"} and {@code "evictions"}.
+         *
+         * @return statistics about the CRS cache.
+         *
+         * @since 4.0
+         */
+        public Map<String,Number> getCacheStatistics() {
+            return getStatistics(cache);
+        }
+
+        /**
+         * Discards all CRS from the cache. The native resources of the discarded CRS are released
+         * immediately if they have been closed by all callers, or otherwise when the last caller
+         * closes them. This method should be invoked when this factory is no longer used.
+         *
+         * @since 4.0
+         */
+        public void clearCache() {
+            cache.clear();
+        }
+
+        /**
+         * Creates a new CRS from the given code, without looking in the cache.
+         *
+         * @param  codespace  the authority of the code, for example {@code "EPSG"}.
+         * @param  code       the code of the CRS object to create, without authority.
+         * @return a CRS created from the given code.
+         * @throws FactoryException if the CRS object can not be created for the given code.
+         */
+        private CoordinateReferenceSystem create(final String codespace, final String code) throws FactoryException {
             int dimension = 2;
             final StringBuilder definition = new StringBuilder(40);
             definition.append("+init=").append(codespace).append(':').append(code);
@@ -666,7 +818,7 @@ public class PJFactory implements Factory {
                  * have to be adjusted before to be given to Proj.4 since the later expects
                  * exactly 3 characters.
                  */
-                String orientation = ResourcesLoader.getAxisOrientations().get(code);
+                String orientation = ResourcesLoader.getAxisOrientation(code);
                 if (orientation != null) {
                     definition.append(' ').append(AXIS_ORDER_PARAM).append(orientation);
                     final int end = orientation.indexOf(AXIS_ORDER_SEPARATOR);
@@ -803,6 +955,11 @@ public class PJFactory implements Factory {
             try {
                 return type.cast(crs);
             } catch (ClassCastException e) {
+                if (crs instanceof AutoCloseable) try {
+                    ((AutoCloseable) crs).close();
+                } catch (Exception s) {
+                    e.addSuppressed(s);
+                }
                 throw new FactoryException("The \"" + code + "\" object is not a " + type.getSimpleName(), e);
             }
         }
@@ -821,17 +978,51 @@ public class PJFactory implements Factory {
      *
      * All other methods unconditionally throw a {@link FactoryException}.
      *
+     * <p>The operations are cached by each factory instance: asking many times for the same pair of
+     * CRS instances returns the same operation. Those operations are reference counted: each operation
+     * returned by a {@code createOperation(…)} method shall be closed exactly once by the caller,
+     * and the native resources are released when all callers have closed the operation and the cache
+     * has discarded it (see {@link #clearCache()}).</p>
+     *
      * @author  Martin Desruisseaux (Geomatys)
-     * @version 3.1
+     * @version 4.0
      * @since   3.1
      */
     public static class Operation extends PJFactory implements CoordinateOperationFactory {
+        /**
+         * The operations created by this factory, keyed by their source and target CRS.
+         */
+        private final PJCache<PJCache.Key, CoordinateOperation> cache = new PJCache<>(CACHE_CAPACITY);
+
         /**
          * Creates a new coordinate operation factory.
          */
         public Operation() {
         }
 
+        /**
+         * Returns statistics about the operation cache of this factory. The statistics are
+         * {@code "capacity"}, {@code "size"}, {@code "hits"}, {@code "misses"} and {@code "evictions"}.
+         *
+         * @return statistics about the operation cache.
+         *
+         * @since 4.0
+         */
+        public Map<String,Number> getCacheStatistics() {
+            return getStatistics(cache);
+        }
+
+        /**
+         * Discards all operations from the cache. The native resources of the discarded operations
+         * are released immediately if they have been closed by all callers, or otherwise when the last
+         * caller closes them. This method should be invoked when this factory is no longer used.
+         *
+         * @since 4.0
+         */
+        public void clearCache() {
+            cache.clear();
+        }
+
         /**
          * Creates an operation for conversion or transformation between two coordinate reference
          * systems. This given source and target CRS must be instances created by {@link PJFactory}
@@ -846,6 +1037,21 @@ public class PJFactory implements Factory {
         public CoordinateOperation createOperation(final CoordinateReferenceSystem sourceCRS,
                                                    final CoordinateReferenceSystem targetCRS)
                 throws FactoryException
+        {
+            return cache.getOrCreate(new PJCache.Key(sourceCRS, targetCRS), () -> create(sourceCRS, targetCRS));
+        }
+
+        /**
+         * Creates an operation between the two given CRS, without looking in the cache.
+         *
+         * @param  sourceCRS  the source coordinate reference system.
+         * @param  targetCRS  the target coordinate reference system.
+         * @return a coordinate operation for transforming coordinates from the given source CRS to the given target CRS.
+         * @throws FactoryException if the given CRS are not instances recognized by this class.
+         */
+        private static CoordinateOperation create(final CoordinateReferenceSystem sourceCRS,
+                                                  final CoordinateReferenceSystem targetCRS)
+                throws FactoryException
         {
             Identifier id;
             String src=null, tgt=null, space=null;
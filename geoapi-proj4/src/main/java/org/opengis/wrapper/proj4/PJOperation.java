@@ -16,6 +16,7 @@ package org.opengis.wrapper.proj4;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import org.opengis.geometry.DirectPosition;
 import org.opengis.geometry.MismatchedDimensionException;
 import org.opengis.metadata.Identifier;
@@ -35,20 +36,72 @@ import org.proj4.PJ;
 /**
  * A math transform which delegate its work to the {@literal Proj.4} native library.
  *
+ * <p>The {@code transform} methods working on arrays copy the coordinates in a buffer of bounded size,
+ * transform the buffer content in a single native call, then copy the result in the destination array.
+ * Large arrays are processed by chunks of at most {@value #BUFFER_LENGTH} ordinate values. The buffer is
+ * allocated once per thread and reused for all subsequent calls in the same thread.</p>
+ *
+ * <p>This class is thread-safe. Since a {@literal Proj.4} {@code PJ} structure can not be used by many
+ * threads at the same time, native calls use pairs of source and target handles taken from a {@link PJPool}.
+ * Pairs are created when first needed, up to one pair per processor. The native resources of those handles
+ * are released without waiting for the garbage collector by invoking {@link #close()}. Since operations
+ * may be shared (for example by the {@link PJFactory.Operation} cache), they are reference counted:
+ * each owner shall invoke {@code close()} exactly once, and the handles are released by the last owner.</p>
+ *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
-class PJOperation extends PJObject implements SingleOperation, MathTransform {
+class PJOperation extends PJObject implements SingleOperation, MathTransform, BulkDerivative, PJCache.Shared {
+    /**
+     * Maximal number of ordinate values in the buffer used by the {@code transform} methods.
+     * The number of points transformed in a single native call is this value divided by the
+     * number of dimensions, which is 8192 points for three-dimensional coordinates.
+     */
+    static final int BUFFER_LENGTH = 8192 * 3;
+
+    /**
+     * The buffers used by the {@code transform} methods, created in each thread when first needed.
+     */
+    private static final ThreadLocal<double[]> BUFFERS = new ThreadLocal<double[]>() {
+        @Override protected double[] initialValue() {
+            return new double[BUFFER_LENGTH];
+        }
+    };
+
     /**
      * The source and target CRS.
      */
     final PJCRS source, target;
 
+    /**
+     * The number of source and target dimensions, cached because often used.
+     */
+    private final int sourceDimension, targetDimension;
+
+    /**
+     * The pool of {@literal Proj.4} handles used for transforming coordinates,
+     * or {@code null} if this operation does not use {@literal Proj.4}.
+     */
+    final PJPool pool;
+
+    /**
+     * The number of owners of this operation. The handles are released when this count reaches zero.
+     */
+    private final PJCache.References references = new PJCache.References();
+
     /**
      * The inverse transform, created only when first needed.
+     *
+     * @see #inverse()
      */
-    private transient PJOperation inverse;
+    private transient volatile PJOperation inverse;
+
+    /**
+     * Updater for the {@link #inverse} field, used for publishing the inverse without locking.
+     */
+    private static final AtomicReferenceFieldUpdater<PJOperation,PJOperation> INVERSE =
+            AtomicReferenceFieldUpdater.newUpdater(PJOperation.class, PJOperation.class, "inverse");
 
     /**
      * Creates a new operation for the given source and target CRS.
@@ -57,6 +110,23 @@ class PJOperation extends PJObject implements SingleOperation, MathTransform {
         super(name);
         this.source = source;
         this.target = target;
+        sourceDimension = source.getDimension();
+        targetDimension = target.getDimension();
+        pool = new PJPool(source.pj.getDefinition(), target.pj.getDefinition(), PJPool.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new operation without source and target CRS. This constructor is for subclasses
+     * performing the coordinate operation by other means than {@literal Proj.4} native calls,
+     * for example for testing purpose. Those subclasses shall override {@link #transformInPlace}.
+     */
+    PJOperation(final Identifier name, final int sourceDimension, final int targetDimension) {
+        super(name);
+        this.source = null;
+        this.target = null;
+        this.sourceDimension = sourceDimension;
+        this.targetDimension = targetDimension;
+        this.pool = null;
     }
 
     /**
@@ -84,8 +154,8 @@ class PJOperation extends PJObject implements SingleOperation, MathTransform {
      */
     @Override public CoordinateReferenceSystem getSourceCRS() {return source;}
     @Override public CoordinateReferenceSystem getTargetCRS() {return target;}
-    @Override public final int     getSourceDimensions()      {return source.getDimension();}
-    @Override public final int     getTargetDimensions()      {return target.getDimension();}
+    @Override public final int     getSourceDimensions()      {return sourceDimension;}
+    @Override public final int     getTargetDimensions()      {return targetDimension;}
     @Override public MathTransform getMathTransform()         {return this;}
     @Override public String        getOperationVersion()      {return PJ.getVersion();}
     @Override
@@ -103,6 +173,29 @@ class PJOperation extends PJObject implements SingleOperation, MathTransform {
         return source.pj.equals(target.pj) && source.getDimension() == target.getDimension();
     }
 
+    /**
+     * Transforms in-place the coordinates in the given array. This is the only method invoking
+     * {@literal Proj.4} for transforming coordinates; all other {@code transform} methods delegate
+     * their work to this method. The native call uses a pair of handles for exclusive use by the current
+     * thread, so many threads can transform coordinates with the same operation concurrently.
+     *
+     * @param  coordinates  the coordinates to transform, as a sequence of (<var>x</var>,<var>y</var>,&lt;<var>z</var>&gt;,…) tuples.
+     * @param  dimension    the dimension of each coordinate tuple.
+     * @param  offset       offset of the first coordinate in the given array.
+     * @param  numPts       number of points to transform.
+     * @throws TransformException if the operation failed.
+     */
+    void transformInPlace(final double[] coordinates, final int dimension, final int offset, final int numPts)
+            throws TransformException
+    {
+        final PJPool.Handles handles = pool.acquire();
+        try {
+            handles.source.transform(handles.target, dimension, coordinates, offset, numPts);
+        } finally {
+            pool.release(handles);
+        }
+    }
+
     /**
      * Transforms a single coordinate point.
      */
@@ -110,28 +203,26 @@ class PJOperation extends PJObject implements SingleOperation, MathTransform {
     public DirectPosition transform(final DirectPosition ptSrc, DirectPosition ptDst)
             throws MismatchedDimensionException, TransformException
     {
-        final int srcDim = source.getDimension();
-        final int tgtDim = target.getDimension();
+        final int srcDim = sourceDimension;
+        final int tgtDim = targetDimension;
         if (ptSrc.getDimension() != srcDim) {
             throw new MismatchedDimensionException();
         }
-        double[] ordinates = new double[Math.max(srcDim, tgtDim)];
-        for (int i=0; i<srcDim; i++) {
-            ordinates[i] = ptSrc.getOrdinate(i);
+        if (ptDst != null && ptDst.getDimension() != tgtDim) {
+            throw new MismatchedDimensionException();
+        }
+        final int dimension = Math.max(srcDim, tgtDim);
+        final double[] ordinates = BUFFERS.get();
+        for (int i=0; i<dimension; i++) {
+            ordinates[i] = (i < srcDim) ? ptSrc.getOrdinate(i) : 0;
         }
-        source.pj.transform(target.pj, ordinates.length, ordinates, 0, 1);
+        transformInPlace(ordinates, dimension, 0, 1);
         if (ptDst != null) {
-            if (ptDst.getDimension() != tgtDim) {
-                throw new MismatchedDimensionException();
-            }
             for (int i=0; i<tgtDim; i++) {
                 ptDst.setOrdinate(i, ordinates[i]);
             }
         } else {
-            if (ordinates.length != tgtDim) {
-                ordinates = Arrays.copyOf(ordinates, tgtDim);
-            }
-            ptDst = new SimpleDirectPosition(ordinates);
+            ptDst = new SimpleDirectPosition(Arrays.copyOf(ordinates, tgtDim));
         }
         return ptDst;
     }
@@ -144,145 +235,242 @@ class PJOperation extends PJObject implements SingleOperation, MathTransform {
                           final double[] dstPts, final int dstOff,
                           final int numPts) throws TransformException
     {
-        final int srcDim = source.getDimension();
-        final int tgtDim = target.getDimension();
-        if (srcDim == tgtDim) {
+        if (sourceDimension == targetDimension) {
+            /*
+             * Most common case: the coordinates can be transformed directly in the destination array,
+             * without the need for a temporary buffer. System.arraycopy handles overlapping ranges.
+             */
             if (srcPts != dstPts || srcOff != dstOff) {
-                final int length = tgtDim * numPts;
-                System.arraycopy(srcPts, srcOff, dstPts, dstOff, length);
+                System.arraycopy(srcPts, srcOff, dstPts, dstOff, targetDimension * numPts);
             }
+            transformInPlace(dstPts, targetDimension, dstOff, numPts);
         } else {
-            // TODO: need special check for overlapping arrays.
-            throw new TransformException("Transformation between CRS of different dimensions not yet supported.");
+            transformArray(srcPts, srcOff, dstPts, dstOff, numPts);
         }
-        source.pj.transform(target.pj, tgtDim, dstPts, dstOff, numPts);
     }
 
     /**
      * Transforms an array of coordinate tuples.
      */
     @Override
-    public void transform(final float[] srcPts, int srcOff,
-                          final float[] dstPts, int dstOff,
-                          int numPts) throws TransformException
+    public void transform(final float[] srcPts, final int srcOff,
+                          final float[] dstPts, final int dstOff,
+                          final int numPts) throws TransformException
     {
-        if (numPts > 0) {
-            final int srcDim = source.getDimension();
-            final int tgtDim = target.getDimension();
-            final int dimension = Math.min(srcDim, tgtDim);
-            final int length = dimension * numPts;
-            final double[] copy = new double[length];
-            int skip = srcDim - dimension;
-            int stop = (skip == 0) ? length : dimension;
-            for (int i=0;;) {
-                copy[i] = srcPts[srcOff + i];
-                if (++i == stop) {
-                    if (i == length) break;
-                    srcOff += skip;
-                    stop += dimension;
-                }
-            }
-            source.pj.transform(target.pj, dimension, copy, 0, numPts);
-            skip = tgtDim - dimension;
-            stop = (skip == 0) ? length : dimension;
-            for (int i=0;;) {
-                dstPts[dstOff + i] = (float) copy[i];
-                if (++i == stop) {
-                    if (i == length) break;
-                    dstOff += skip;
-                    stop += dimension;
-                }
-            }
-        }
+        transformArray(srcPts, srcOff, dstPts, dstOff, numPts);
     }
 
     /**
      * Transforms an array of coordinate tuples.
      */
     @Override
-    public void transform(final float[]  srcPts, int srcOff,
-                          final double[] dstPts, int dstOff,
+    public void transform(final float[]  srcPts, final int srcOff,
+                          final double[] dstPts, final int dstOff,
                           final int numPts) throws TransformException
     {
-        if (numPts > 0) {
-            final int srcDim = source.getDimension();
-            final int tgtDim = target.getDimension();
-            final int dimension = Math.min(srcDim, tgtDim);
-            final int skipS  = srcDim - dimension;
-            final int skipT  = tgtDim - dimension;
-            final int length = dimension * numPts;
-            int stop = (skipS == 0 && skipT == 0) ? length : dimension;
-            if (skipT != 0) {
-                Arrays.fill(dstPts, dstOff, dstOff + tgtDim * numPts, Double.NaN);
-            }
-            for (int i=0;;) {
-                dstPts[dstOff + i] = srcPts[srcOff + i];
-                if (++i == stop) {
-                    if (i == length) break;
-                    srcOff += skipS;
-                    dstOff += skipT;
-                    stop += dimension;
-                }
-            }
-            source.pj.transform(target.pj, tgtDim, dstPts, dstOff, numPts);
-        }
+        transformArray(srcPts, srcOff, dstPts, dstOff, numPts);
     }
 
     /**
      * Transforms an array of coordinate tuples.
      */
     @Override
-    public void transform(final double[] srcPts, int srcOff,
-                          final float[]  dstPts, int dstOff,
+    public void transform(final double[] srcPts, final int srcOff,
+                          final float[]  dstPts, final int dstOff,
                           final int numPts) throws TransformException
     {
-        if (numPts > 0) {
-            final int srcDim = source.getDimension();
-            final int tgtDim = target.getDimension();
-            final int dimension = Math.min(srcDim, tgtDim);
-            final int length = dimension * numPts;
-            final double[] copy;
-            if (srcDim == dimension) {
-                copy = Arrays.copyOfRange(srcPts, srcOff, srcOff + length);
-            } else {
-                copy = new double[length];
-                for (int i=0; i!=length; i+=dimension) {
-                    System.arraycopy(srcPts, srcOff, copy, i, dimension);
-                    srcOff += srcDim;
+        transformArray(srcPts, srcOff, dstPts, dstOff, numPts);
+    }
+
+    /**
+     * Returns {@code true} if <var>a</var>₀ + <var>k</var>⋅Δ<var>a</var> ≤ <var>b</var>₀ + <var>k</var>⋅Δ<var>b</var>
+     * for all <var>k</var> in the [1 … <var>n</var>-1] range. Since the expressions are linear, only the bounds of
+     * that range need to be tested.
+     */
+    private static boolean isBefore(final int a0, final int Δa, final int b0, final int Δb, final int n) {
+        return (a0 + Δa <= b0 + Δb) && ((long) a0 + (long) (n-1) * Δa <= (long) b0 + (long) (n-1) * Δb);
+    }
+
+    /**
+     * Implementation of all {@code transform} methods working on arrays. The {@code srcPts} and {@code dstPts}
+     * arguments shall be {@code float[]} or {@code double[]} arrays. The source coordinates are copied by chunks
+     * in the thread-local buffer, transformed in-place in that buffer, then copied to the destination array.
+     * If the source and destination ranges overlap, the chunks are processed in the order which ensures that
+     * no source coordinate is overwritten before it has been read.
+     *
+     * <p>The number of dimensions used in the buffer is the maximum of the source and target dimensions.
+     * When the source CRS has less dimensions than the target CRS, the missing ordinate values are set to 0
+     * (e.g. the height of a two-dimensional geographic coordinate is assumed on the ellipsoid surface).</p>
+     */
+    private void transformArray(Object srcPts, int srcOff, final Object dstPts, final int dstOff, final int numPts)
+            throws TransformException
+    {
+        if (numPts <= 0) {
+            return;
+        }
+        final int srcDim = sourceDimension;
+        final int tgtDim = targetDimension;
+        final int dimension = Math.max(srcDim, tgtDim);
+        final int chunkSize = BUFFER_LENGTH / dimension;
+        boolean descending = false;
+        if (srcPts == dstPts && numPts > chunkSize) {
+            /*
+             * If all points fit in a single chunk, overlapping is not an issue since all source
+             * coordinates are copied in the buffer before any destination coordinate is written.
+             */
+            if (srcOff < dstOff + numPts*tgtDim && dstOff < srcOff + numPts*srcDim
+                    && !isBefore(dstOff, tgtDim, srcOff, srcDim, numPts))
+            {
+                descending = isBefore(srcOff, srcDim, dstOff, tgtDim, numPts);
+                if (!descending) {
+                    // Rare case where neither iteration order is safe: copy the source coordinates.
+                    final int end = srcOff + numPts*srcDim;
+                    srcPts = (srcPts instanceof float[]) ? Arrays.copyOfRange((float[])  srcPts, srcOff, end)
+                                                         : Arrays.copyOfRange((double[]) srcPts, srcOff, end);
+                    srcOff = 0;
                 }
             }
-            source.pj.transform(target.pj, dimension, copy, 0, numPts);
-            final int skip = tgtDim - dimension;
-            int stop = (skip == 0) ? length : dimension;
-            for (int i=0;;) {
-                dstPts[dstOff + i] = (float) copy[i];
-                if (++i == stop) {
-                    if (i == length) break;
-                    dstOff += skip;
-                    stop += dimension;
-                }
+        }
+        final double[] buffer = BUFFERS.get();
+        int start = descending ? ((numPts - 1) / chunkSize) * chunkSize : 0;
+        while (start >= 0 && start < numPts) {
+            final int n = Math.min(chunkSize, numPts - start);
+            load (srcPts, srcOff + start*srcDim, srcDim, buffer, dimension, n);
+            transformInPlace(buffer, dimension, 0, n);
+            store(buffer, dimension, dstPts, dstOff + start*tgtDim, tgtDim, n);
+            start += descending ? -chunkSize : chunkSize;
+        }
+    }
+
+    /**
+     * Copies the given number of points from the source array to the buffer, converting {@code float}
+     * values to {@code double} if needed. Ordinates in extra buffer dimensions are set to zero.
+     */
+    private static void load(final Object srcPts, int srcOff, final int srcDim,
+            final double[] buffer, final int dimension, final int numPts)
+    {
+        final int skip = dimension - srcDim;
+        int i = 0;
+        if (srcPts instanceof double[]) {
+            final double[] src = (double[]) srcPts;
+            for (int p=0; p<numPts; p++) {
+                System.arraycopy(src, srcOff, buffer, i, srcDim);
+                srcOff += srcDim;
+                i += srcDim;
+                for (int k=0; k<skip; k++) buffer[i++] = 0;
+            }
+        } else {
+            final float[] src = (float[]) srcPts;
+            for (int p=0; p<numPts; p++) {
+                for (int k=0; k<srcDim; k++) buffer[i++] = src[srcOff++];
+                for (int k=0; k<skip;   k++) buffer[i++] = 0;
+            }
+        }
+    }
+
+    /**
+     * Copies the given number of points from the buffer to the destination array, converting
+     * {@code double} values to {@code float} if needed. Extra buffer dimensions are ignored.
+     */
+    private static void store(final double[] buffer, final int dimension,
+            final Object dstPts, int dstOff, final int tgtDim, final int numPts)
+    {
+        int i = 0;
+        if (dstPts instanceof double[]) {
+            final double[] dst = (double[]) dstPts;
+            for (int p=0; p<numPts; p++) {
+                System.arraycopy(buffer, i, dst, dstOff, tgtDim);
+                dstOff += tgtDim;
+                i += dimension;
+            }
+        } else {
+            final float[] dst = (float[]) dstPts;
+            for (int p=0; p<numPts; p++) {
+                for (int k=0; k<tgtDim; k++) dst[dstOff++] = (float) buffer[i + k];
+                i += dimension;
             }
         }
     }
 
     /**
-     * The {@literal Proj.4} library does not provide derivative functions.
+     * Returns the provider of derivatives computed by central differences. The {@literal Proj.4} library
+     * does not provide derivative functions, so the derivatives are approximated from the coordinates of
+     * perturbed points transformed in a single native call. The step sizes are adapted to the units of
+     * the source CRS axes.
+     */
+    private NumericDerivative numericDerivative() {
+        return new NumericDerivative(this, (source != null) ? NumericDerivative.scales(source) : null);
+    }
+
+    /**
+     * Computes the derivative at the given point by central differences.
+     *
+     * @param  point  the position where to evaluate the derivative.
+     * @return the derivative at the given position.
+     * @throws MismatchedDimensionException if the given position does not have the expected dimension.
+     * @throws TransformException if the derivative can not be computed.
+     */
+    @Override
+    public Matrix derivative(final DirectPosition point) throws TransformException {
+        return numericDerivative().derivative(point);
+    }
+
+    /**
+     * Computes the derivatives at all given points by central differences. The perturbed points
+     * of all given points are transformed together, which is much faster than invoking
+     * {@link #derivative(DirectPosition)} for each point.
+     *
+     * @param  points  the coordinates of the points where to evaluate the derivatives.
+     * @param  offset  index of the first coordinate to use in the {@code points} array.
+     * @param  numPts  number of points.
+     * @return the Jacobian matrices of all points, with (target dimension × source dimension) elements per point.
+     */
+    @Override
+    public double[] derivatives(final double[] points, final int offset, final int numPts) {
+        return numericDerivative().derivatives(points, offset, numPts);
+    }
+
+    /**
+     * Adds an owner to this operation, unless the handles have already been released.
+     *
+     * @return {@code false} if this operation has already been released.
      */
     @Override
-    public Matrix derivative(DirectPosition point) throws TransformException {
-        throw new TransformException("Not supported yet.");
+    public boolean retain() {
+        return references.retain();
     }
 
     /**
-     * Returns the inverse transform.
+     * Releases the reference owned by the caller. When the last owner invokes this method, the
+     * {@literal Proj.4} handles used by this operation for transforming coordinates are released.
+     * The handles in use by other threads are released when those threads finish their work.
+     * After that, any attempt to transform coordinates with this operation will fail.
+     * This method does not close the inverse operation.
      */
     @Override
-    public synchronized MathTransform inverse() {
-        if (inverse == null) {
-            inverse = new PJOperation(name, target, source);
-            inverse.inverse = this;
+    public void close() {
+        if (references.release() && pool != null) {
+            pool.close();
+        }
+    }
+
+    /**
+     * Returns the inverse transform. The inverse is created when first needed and published
+     * without locking. If many threads invoke this method concurrently for the first time,
+     * only the first inverse to be published is retained; the others are discarded. This is
+     * cheap since the {@literal Proj.4} handles are allocated only when first used.
+     */
+    @Override
+    public MathTransform inverse() {
+        PJOperation inv = inverse;
+        if (inv == null) {
+            inv = new PJOperation(name, target, source);
+            inv.inverse = this;
+            if (!INVERSE.compareAndSet(this, null, inv)) {
+                inv = inverse;                  // Another thread published its inverse first.
+            }
         }
-        return inverse;
+        return inv;
     }
 
     /**
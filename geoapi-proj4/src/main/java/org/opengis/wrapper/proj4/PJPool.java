@@ -0,0 +1,246 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The Proj.4 wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementors can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package org.opengis.wrapper.proj4;
+
+import java.util.Queue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.opengis.referencing.operation.TransformException;
+import org.proj4.PJ;
+
+
+/**
+ * A pool of {@literal Proj.4} handles used by {@link PJOperation} for transforming coordinates.
+ * A {@code PJ} structure can not be used by many threads at the same time, so each pair of source
+ * and target handles is given to only one thread at a time. Pairs are created only when first needed
+ * (no pair exist before the first transformation), up to a maximal number of pairs which is usually
+ * the number of processors. When all pairs are in use, threads wait for a pair to be released.
+ *
+ * <p>The pairs are created from the definition strings of the source and target CRS. We do not use
+ * the {@code PJ} instances of the CRS themselves because they may be shared by many operations,
+ * for example an operation and its inverse.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+class PJPool {
+    /**
+     * The default maximal number of pairs of handles in a pool.
+     */
+    static final int DEFAULT_CAPACITY = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * A pair of source and target {@literal Proj.4} handles, for use by a single thread at a time.
+     */
+    static final class Handles {
+        /** The handles to use as the source and target of {@link PJ#transform PJ.transform(…)}. */
+        final PJ source, target;
+
+        /** Creates a new pair of handles. */
+        Handles(final PJ source, final PJ target) {
+            this.source = source;
+            this.target = target;
+        }
+
+        /** Releases the native resources of the source and target handles, if any. */
+        void close() {
+            if (source != null) source.close();
+            if (target != null) target.close();
+        }
+    }
+
+    /**
+     * The {@literal Proj.4} definition strings of the source and target CRS.
+     */
+    private final String sourceDefinition, targetDefinition;
+
+    /**
+     * The pairs of handles which are not currently in use.
+     */
+    private final Queue<Handles> idle;
+
+    /**
+     * The permits for acquiring a pair. The number of permits is the maximal number of pairs.
+     */
+    private final Semaphore permits;
+
+    /**
+     * The maximal number of pairs of handles, as given at construction time.
+     */
+    private final int capacity;
+
+    /**
+     * Number of pairs created by this pool (including the closed ones),
+     * number of pairs acquired, and number of times a thread had to wait for a pair.
+     */
+    private final AtomicInteger created;
+    private final AtomicLong acquisitions, contentions;
+
+    /**
+     * Whether {@link #close()} has been invoked. Pairs released after this flag is set are closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Creates a new pool for the given source and target definition strings.
+     *
+     * @param sourceDefinition  the {@literal Proj.4} definition string of the source CRS.
+     * @param targetDefinition  the {@literal Proj.4} definition string of the target CRS.
+     * @param capacity          the maximal number of pairs of handles.
+     */
+    PJPool(final String sourceDefinition, final String targetDefinition, final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+        this.sourceDefinition = sourceDefinition;
+        this.targetDefinition = targetDefinition;
+        this.capacity = capacity;
+        idle          = new ConcurrentLinkedQueue<>();
+        permits       = new Semaphore(capacity);
+        created       = new AtomicInteger();
+        acquisitions  = new AtomicLong();
+        contentions   = new AtomicLong();
+    }
+
+    /**
+     * Creates a new pair of handles. This method is invoked when a thread needs a pair and no idle pair
+     * is available. Subclasses can override this method for providing handles by other means.
+     *
+     * @return the new pair of handles.
+     * @throws IllegalArgumentException if a handle can not be created.
+     */
+    Handles create() throws IllegalArgumentException {
+        return new Handles(new PJDatum(null, sourceDefinition), new PJDatum(null, targetDefinition));
+    }
+
+    /**
+     * Gets a pair of handles for exclusive use by the current thread. If all pairs are in use, this
+     * method blocks until a pair is released. Every call to this method shall be followed by a call
+     * to {@link #release(Handles)} in a {@code finally} block.
+     *
+     * @return a pair of handles for exclusive use by the current thread.
+     * @throws TransformException if this pool has been closed or a handle can not be created.
+     */
+    final Handles acquire() throws TransformException {
+        if (!permits.tryAcquire()) {
+            contentions.incrementAndGet();
+            permits.acquireUninterruptibly();
+        }
+        try {
+            if (closed) {
+                throw new TransformException("This coordinate operation has been closed.");
+            }
+            acquisitions.incrementAndGet();
+            Handles handles = idle.poll();
+            if (handles == null) {
+                handles = create();
+                created.incrementAndGet();
+            }
+            return handles;
+        } catch (TransformException | RuntimeException e) {
+            permits.release();
+            if (e instanceof IllegalArgumentException) {
+                throw new TransformException("Can not create the Proj.4 handles.", e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a pair of handles to this pool, for use by other threads.
+     *
+     * @param handles  the pair obtained by {@link #acquire()}.
+     */
+    final void release(final Handles handles) {
+        if (closed) {
+            handles.close();
+        } else {
+            idle.add(handles);
+            if (closed) {
+                drain();            // In case close() has been invoked concurrently.
+            }
+        }
+        permits.release();
+    }
+
+    /**
+     * Releases the native resources of all idle pairs of handles.
+     */
+    private void drain() {
+        Handles handles;
+        while ((handles = idle.poll()) != null) {
+            handles.close();
+        }
+    }
+
+    /**
+     * Releases the native resources of all idle pairs of handles. Pairs currently in use will be
+     * released when given back to this pool, and any subsequent call to {@link #acquire()} will fail.
+     */
+    final void close() {
+        closed = true;
+        drain();
+    }
+
+    /**
+     * Returns the maximal number of pairs of handles in this pool.
+     */
+    final int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of pairs of handles created by this pool since its construction.
+     * This is the pool size, unless {@link #close()} has been invoked.
+     */
+    final int size() {
+        return created.get();
+    }
+
+    /**
+     * Returns the number of pairs of handles which are not currently in use.
+     */
+    final int idleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Returns the number of times that a thread acquired a pair of handles.
+     */
+    final long acquisitionCount() {
+        return acquisitions.get();
+    }
+
+    /**
+     * Returns the number of times that a thread had to wait for another thread to release a pair.
+     */
+    final long contentionCount() {
+        return contentions.get();
+    }
+
+    /**
+     * Returns a string representation of the pool statistics, for debugging purpose.
+     */
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[size=" + size() + '/' + capacity
+                + ", idle=" + idleCount() + ", acquisitions=" + acquisitionCount()
+                + ", contentions=" + contentionCount() + ']';
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The Proj.4 wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementors can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package org.opengis.wrapper.proj4;
+
+import java.util.Set;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+
+/**
+ * Keeps track of the {@literal Proj.4} handles created by this package and not yet closed.
+ * Handles which are garbage-collected without having been closed are reported as leaks.
+ * The native resources of those handles are still released by the garbage collector,
+ * but later than they could have been.
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+final class PJRegistry {
+    /**
+     * The logger where to report the handles garbage-collected without having been closed.
+     */
+    static final Logger LOGGER = Logger.getLogger("org.opengis.wrapper.proj4");
+
+    /**
+     * A weak reference to a handle which has not yet been closed.
+     */
+    static final class Entry extends WeakReference<Object> {
+        /** The {@literal Proj.4} definition string of the handle, for reporting purpose. */
+        final String definition;
+
+        /** The value of {@link System#nanoTime()} when the handle has been created. */
+        final long creationTime;
+
+        /** Creates a new entry for the given handle. */
+        Entry(final Object handle, final String definition) {
+            super(handle, QUEUE);
+            this.definition   = definition;
+            this.creationTime = System.nanoTime();
+        }
+
+        /** Returns a string representation of this entry for reporting purpose. */
+        @Override
+        public String toString() {
+            return definition + " (" + (System.nanoTime() - creationTime) / 1000000 + " ms)";
+        }
+    }
+
+    /**
+     * The queue where the entries are enqueued after their handle has been garbage-collected.
+     */
+    private static final ReferenceQueue<Object> QUEUE = new ReferenceQueue<>();
+
+    /**
+     * The entries for the handles which have not yet been closed.
+     */
+    private static final Set<Entry> LIVE = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Number of handles garbage-collected without having been closed.
+     */
+    private static final AtomicLong LEAKS = new AtomicLong();
+
+    /**
+     * Do not allow instantiation of this class.
+     */
+    private PJRegistry() {
+    }
+
+    /**
+     * Registers a newly created handle. The returned entry shall be given to {@link #unregister(Entry)}
+     * when the handle is closed.
+     *
+     * @param  handle      the handle which has been created.
+     * @param  definition  the {@literal Proj.4} definition string of the handle.
+     * @return the entry to unregister when the handle is closed.
+     */
+    static Entry register(final Object handle, final String definition) {
+        expunge();
+        final Entry entry = new Entry(handle, definition);
+        LIVE.add(entry);
+        return entry;
+    }
+
+    /**
+     * Unregisters a handle which has been closed. Invoking this method many times has no effect.
+     *
+     * @param  entry  the value returned by {@link #register(Object, String)}.
+     */
+    static void unregister(final Entry entry) {
+        if (LIVE.remove(entry)) {
+            entry.clear();
+        }
+    }
+
+    /**
+     * Reports the handles that have been garbage-collected without having been closed.
+     */
+    private static void expunge() {
+        Reference<?> ref;
+        while ((ref = QUEUE.poll()) != null) {
+            final Entry entry = (Entry) ref;
+            if (LIVE.remove(entry)) {
+                LEAKS.incrementAndGet();
+                LOGGER.warning("Proj.4 handle garbage-collected without having been closed: " + entry.definition);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of handles which have been created and not yet closed or garbage-collected.
+     */
+    static int liveCount() {
+        expunge();
+        return LIVE.size();
+    }
+
+    /**
+     * Returns the number of handles which have been garbage-collected without having been closed.
+     */
+    static long leakCount() {
+        expunge();
+        return LEAKS.get();
+    }
+
+    /**
+     * Returns a description of the handles which are alive since at least the given amount of time.
+     *
+     * @param  minimumAge  the minimal age of the handles to report, in nanoseconds.
+     * @return a description of the handles alive since at least the given time.
+     */
+    static List<String> longLived(final long minimumAge) {
+        expunge();
+        final long now = System.nanoTime();
+        final List<String> report = new ArrayList<>();
+        for (final Entry entry : LIVE) {
+            if (now - entry.creationTime >= minimumAge) {
+                report.add(entry.toString());
+            }
+        }
+        return report;
+    }
+}
@@ -31,12 +31,13 @@ import org.opengis.referencing.operation.OperationMethod;
  * Loads the resources needed by the Proj.4 wrappers.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
 final class ResourcesLoader {
     /**
-     * The file which contains the axis orientations for each CRS code.
+     * The file which contains the axis orientations for each CRS code. This text file is converted
+     * at build time into the more compact {@value AxisOrientations#BINARY_FILE} binary file.
      */
     static final String AXIS_FILE = "axis-orientations.txt";
 
@@ -51,27 +52,22 @@ final class ResourcesLoader {
     static final String PROJECTIONS_FILE = "projection-names.txt";
 
     /**
-     * The map of axis orientations for each CRS codes.
-     * This map will be loaded from the {@value #AXIS_FILE} file when first needed.
+     * The axis orientations for each CRS codes.
+     * This table will be loaded from the {@value AxisOrientations#BINARY_FILE} file when first needed.
      */
-    private static Map<String,String> axisOrientations;
+    private static volatile AxisOrientations axisOrientations;
 
     /**
-     * The Proj.4 names for OGC, EPSG or GeoTIFF projection names.
-     * Will be filled when first needed.
+     * The Proj.4 names for OGC, EPSG or GeoTIFF projection names, together with the reverse index.
+     * Will be loaded when first needed.
      */
-    private static final Map<String,String> projectionNames = new HashMap<>();
+    private static volatile Aliases projectionNames;
 
     /**
-     * The Proj.4 names for OGC, EPSG or GeoTIFF parameter names.
-     * Will be filled when first needed.
+     * The Proj.4 names for OGC, EPSG or GeoTIFF parameter names, together with the reverse index.
+     * Will be loaded when first needed.
      */
-    private static final Map<String,String> parameterNames = new HashMap<>();
-
-    /**
-     * Pool of identifiers, filled when first needed.
-     */
-    private static final Map<String, List<GenericName>> aliases = new HashMap<>();
+    private static volatile Aliases parameterNames;
 
     /**
      * The set of all operation methods, filled when first needed.
@@ -85,54 +81,90 @@ final class ResourcesLoader {
     }
 
     /**
-     * Returns the axis orientation map. Callers shall not modify the returned map.
-     * The file format is the one created by {@link SupportedCodes#write()} in the
-     * test directory.
+     * Returns the axis orientations for the given CRS code, or {@code null} if none.
+     * This method uses a binary search in a table loaded when first needed.
+     *
+     * @param  code  the CRS code, without authority.
+     * @return the axis orientations in {@literal Proj.4} syntax, or {@code null} if none.
+     * @throws FactoryException if the resource file can not be loaded.
+     */
+    static String getAxisOrientation(final String code) throws FactoryException {
+        return getAxisOrientations().get(code);
+    }
+
+    /**
+     * Returns all CRS codes for which axis orientations are known.
      *
+     * @return the CRS codes, in increasing order.
      * @throws FactoryException if the resource file can not be loaded.
      */
-    static synchronized Map<String,String> getAxisOrientations() throws FactoryException {
-        if (axisOrientations != null) {
-            return axisOrientations;
+    static Set<String> getAuthorityCodes() throws FactoryException {
+        return getAxisOrientations().codes();
+    }
+
+    /**
+     * Returns the table of axis orientations, loading it when first invoked.
+     *
+     * @throws FactoryException if the resource file can not be loaded.
+     */
+    private static AxisOrientations getAxisOrientations() throws FactoryException {
+        AxisOrientations table = axisOrientations;
+        if (table == null) {
+            synchronized (ResourcesLoader.class) {
+                table = axisOrientations;
+                if (table == null) try {
+                    axisOrientations = table = AxisOrientations.load();
+                } catch (IOException e) {
+                    throw new FactoryException("Can not read the \"" + AXIS_FILE + "\" resource", e);
+                }
+            }
         }
-        IOException cause = null;
-        final InputStream in = ResourcesLoader.class.getResourceAsStream(AXIS_FILE);
-        if (in != null) try {
-            final Map<String,String> map = new LinkedHashMap<>(5000);
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    if ((line = line.trim()).isEmpty()) {
-                        continue;                                       // Skip empty lines.
-                    }
-                    switch (line.charAt(0)) {
-                        case '#': {
-                            break;                                      // A line of comment. Ignore.
-                        }
-                        case '[': {
-                            // The authority. Actually we don't parse yet
-                            // this element. Maybe a future version will do.
-                            break;
-                        }
-                        default: {
-                            int s = line.indexOf(':');
-                            final String orientation = line.substring(0, s).trim();
-                            do {
-                                final int p = s+1;
-                                s = line.indexOf(' ', p);
-                                final String code = (s >= 0) ? line.substring(p,s) : line.substring(p);
-                                map.put(code.trim(), orientation);
-                            } while (s >= 0);
-                            break;
-                        }
-                    }
+        return table;
+    }
+
+    /**
+     * The mapping from projection or parameter names to Proj.4 names, together with the reverse mapping.
+     */
+    private static final class Aliases {
+        /**
+         * The Proj.4 name for each OGC, EPSG or GeoTIFF name.
+         */
+        final Map<String,String> toProj;
+
+        /**
+         * The OGC, EPSG or GeoTIFF names for each Proj.4 name.
+         * Keys are Proj.4 names in lower cases, since the search is case-insensitive.
+         */
+        private final Map<String, List<GenericName>> reverse;
+
+        /**
+         * Builds the reverse index for the given mapping to Proj.4 names.
+         */
+        Aliases(final Map<String,String> toProj) {
+            this.toProj = toProj;
+            final Map<String, List<GenericName>> lists = new HashMap<>();
+            for (final Map.Entry<String,String> entry : toProj.entrySet()) {
+                final String proj = entry.getValue();
+                if (proj != null) {
+                    lists.computeIfAbsent(proj.toLowerCase(Locale.ROOT), (k) -> new ArrayList<>())
+                         .add(new PJIdentifier(entry.getKey()));
                 }
             }
-            return axisOrientations = map;
-        } catch (IOException e) {
-            cause = e;
+            for (final Map.Entry<String, List<GenericName>> entry : lists.entrySet()) {
+                final ArrayList<GenericName> list = (ArrayList<GenericName>) entry.getValue();
+                list.trimToSize();
+                entry.setValue(Collections.unmodifiableList(list));
+            }
+            reverse = lists;
+        }
+
+        /**
+         * Returns the list of aliases for the given Proj.4 name, or an empty list if none.
+         */
+        List<GenericName> get(final String name) {
+            final List<GenericName> list = reverse.get(name.toLowerCase(Locale.ROOT));
+            return (list != null) ? list : Collections.emptyList();
         }
-        throw new FactoryException("Can not read the \"" + AXIS_FILE + "\" resource", cause);
     }
 
     /**
@@ -140,36 +172,54 @@ final class ResourcesLoader {
      *
      * @throws FactoryException if the resource file can not be loaded.
      */
-    private static Map<String,String> getAliases(final boolean isParam) throws FactoryException {
-        final Map<String,String> map = isParam ? parameterNames : projectionNames;
-        synchronized (map) {
-            if (!map.isEmpty()) {
-                return map;
+    private static Aliases getAliases(final boolean isParam) throws FactoryException {
+        Aliases aliases = isParam ? parameterNames : projectionNames;
+        if (aliases == null) {
+            synchronized (ResourcesLoader.class) {
+                aliases = isParam ? parameterNames : projectionNames;
+                if (aliases == null) {
+                    aliases = new Aliases(loadAliases(isParam));
+                    if (isParam) {
+                        parameterNames = aliases;
+                    } else {
+                        projectionNames = aliases;
+                    }
+                }
             }
-            IOException cause = null;
-            final String file = isParam ? PARAMETERS_FILE : PROJECTIONS_FILE;
-            final InputStream in = ResourcesLoader.class.getResourceAsStream(file);
-            if (in != null) try {
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"))) {
-                    String parameter = null;
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        if ((line = line.trim()).isEmpty()) {
-                            continue;                                               // Skip empty lines.
-                        }
-                        switch (line.charAt(0)) {
-                            case '#': /* A line of comment */   break;
-                            case '+': parameter = line;         break;
-                            default:  map.put(line, parameter); break;
-                        }
+        }
+        return aliases;
+    }
+
+    /**
+     * Loads the mapping from projection/parameter names to Proj.4 names.
+     *
+     * @throws FactoryException if the resource file can not be loaded.
+     */
+    private static Map<String,String> loadAliases(final boolean isParam) throws FactoryException {
+        IOException cause = null;
+        final String file = isParam ? PARAMETERS_FILE : PROJECTIONS_FILE;
+        final InputStream in = ResourcesLoader.class.getResourceAsStream(file);
+        if (in != null) try {
+            final Map<String,String> map = new HashMap<>();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"))) {
+                String parameter = null;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if ((line = line.trim()).isEmpty()) {
+                        continue;                                               // Skip empty lines.
+                    }
+                    switch (line.charAt(0)) {
+                        case '#': /* A line of comment */   break;
+                        case '+': parameter = line;         break;
+                        default:  map.put(line, parameter); break;
                     }
                 }
-                return map;
-            } catch (IOException e) {
-                cause = e;
             }
-            throw new FactoryException("Can not read the \"" + file + "\" resource", cause);
+            return map;
+        } catch (IOException e) {
+            cause = e;
         }
+        throw new FactoryException("Can not read the \"" + file + "\" resource", cause);
     }
 
     /**
@@ -183,7 +233,7 @@ final class ResourcesLoader {
     static String getProjName(final GeneralParameterValue param, final boolean isParam)
             throws FactoryException
     {
-        return getProjName(param.getDescriptor(), getAliases(isParam));
+        return getProjName(param.getDescriptor(), getAliases(isParam).toProj);
     }
 
     /**
@@ -214,40 +264,16 @@ final class ResourcesLoader {
 
     /**
      * Returns the list of aliases for the given name, or an empty list if none.
+     * This method uses a reverse index built when the resource file is loaded.
      */
     static List<GenericName> getAliases(String name, final boolean isParam) throws FactoryException {
         // Replace the name by the Proj.4 name, if we find it.
-        final Map<String, String> map = getAliases(isParam);
-        final String projName = map.get(name);
+        final Aliases aliases = getAliases(isParam);
+        final String projName = aliases.toProj.get(name);
         if (projName != null) {
             name = projName;
         }
-        return getAliases(name, map);
-    }
-
-    /**
-     * Returns the list of aliases for the given Proj.4 name, or an empty list if none.
-     */
-    private static List<GenericName> getAliases(final String name, final Map<String,String> map) {
-        List<GenericName> list;
-        synchronized (aliases) {
-            list = aliases.get(name);
-            if (list == null) {
-                list = new ArrayList<>();
-                for (final Map.Entry<String, String> entry : map.entrySet()) {
-                    if (name.equalsIgnoreCase(entry.getValue())) {
-                        list.add(new PJIdentifier(entry.getKey()));
-                    }
-                }
-                if (list.isEmpty()) {
-                    list = Collections.emptyList();
-                } else {
-                    ((ArrayList<?>) list).trimToSize();
-                    list = Collections.unmodifiableList(list);
-                }
-            }
-        }
-        return list;
+        return aliases.get(name);
     }
 
     /**
@@ -256,9 +282,9 @@ final class ResourcesLoader {
     static Set<OperationMethod> getMethods() throws FactoryException {
         synchronized (methods) {
             if (methods.isEmpty()) {
-                final Map<String, String> map = getAliases(false);
-                for (final String name : new HashSet<>(map.values())) {
-                    methods.add(new PJMethod(new PJIdentifier(SimpleCitation.PROJ4, name), getAliases(name, map)));
+                final Aliases aliases = getAliases(false);
+                for (final String name : new HashSet<>(aliases.toProj.values())) {
+                    methods.add(new PJMethod(new PJIdentifier(SimpleCitation.PROJ4, name), aliases.get(name)));
                 }
             }
         }
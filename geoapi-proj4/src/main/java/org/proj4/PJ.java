@@ -32,14 +32,18 @@ import java.util.Objects;
  * and their sub-interfaces. The relationship with the GeoAPI methods is indicated in the
  * "See" tags when appropriate.</p>
  *
+ * <p>The native resources are released by the {@link #close()} method. Users should invoke that method
+ * when a {@code PJ} is no longer needed, for example using a try-with-resources statement.
+ * If {@code close()} has not been invoked, the resources are released by the garbage collector.</p>
+ *
  * <p>This class requires PROJ to be compiled with JNI enabled.
  * See <a href="https://github.com/OSGeo/proj.4/tree/master/jniwrap#proj-bridge-to-java">PROJ bridge to Java</a> for details.</p>
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
-public class PJ {
+public class PJ implements AutoCloseable {
     /**
      * The maximal number of dimension accepted by the {@link #transform(PJ, int, double[], int, int)} method.
      * This upper limit is actually somewhat arbitrary. This limit exists mostly as a safety against potential misuse.
@@ -98,8 +102,8 @@ public class PJ {
     /**
      * Allocates a PJ native data structure and returns the pointer to it. This method should be
      * invoked by the constructor only, and the return value <strong>must</strong> be assigned
-     * to the {@link #ptr} field. The allocated structure is released by the {@link #finalize()}
-     * method.
+     * to the {@link #ptr} field. The allocated structure is released by the {@link #close()}
+     * or {@link #finalize()} method.
      *
      * @param  definition  the Proj.4 definition string.
      * @return a pointer to the PJ native data structure, or 0 if the operation failed.
@@ -110,7 +114,7 @@ public class PJ {
      * Allocates a PJ native data structure for the base geographic CRS of the given CRS, and
      * returns the pointer to it. This method should be invoked by the constructor only, and
      * the return value <strong>must</strong> be assigned to the {@link #ptr} field.
-     * The allocated structure is released by the {@link #finalize()} method.
+     * The allocated structure is released by the {@link #close()} or {@link #finalize()} method.
      *
      * @param  projected  the CRS from which to derive the base geographic CRS.
      * @return a pointer to the PJ native data structure, or 0 if the operation failed.
@@ -273,8 +277,24 @@ public class PJ {
     public native String toString();
 
     /**
-     * Deallocates the native PJ data structure.
-     * This method should be invoked exactly once, only by the garbage collector,
+     * Deallocates the native PJ data structure. After this method call, this {@code PJ} shall not be used anymore.
+     * Invoking this method more than once has no effect.
+     *
+     * @since 4.0
+     */
+    @Override
+    public synchronized void close() {
+        /*
+         * The native method resets the pointer to zero after having released the PJ structure,
+         * so the call below is a no-op if this object has already been closed. The same method
+         * will be invoked again by the garbage collector, which will then have nothing to release.
+         */
+        finalize();
+    }
+
+    /**
+     * Deallocates the native PJ data structure if not already done by {@link #close()}.
+     * This method should be invoked only by {@link #close()} or by the garbage collector.
      */
     @Override
     @SuppressWarnings("FinalizeDeclaration")
@@ -0,0 +1,223 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The Proj.4 wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementors can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package org.opengis.wrapper.proj4;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.opengis.util.FactoryException;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link PJCache} class. This test does not require the {@literal Proj.4} native library.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+public class PJCacheTest {
+    /**
+     * Tests cache hits and misses, and the {@link PJCache.Key} class.
+     *
+     * @throws FactoryException should never happen.
+     */
+    @Test
+    public void testHitsAndMisses() throws FactoryException {
+        final PJCache<PJCache.Key, String> cache = new PJCache<>(10);
+        final String v1 = cache.getOrCreate(new PJCache.Key("EPSG:4326", true),  () -> new String("A"));
+        final String v2 = cache.getOrCreate(new PJCache.Key("EPSG:4326", false), () -> new String("B"));
+        assertEquals("A", v1);
+        assertEquals("B", v2);
+        assertSame(v1, cache.getOrCreate(new PJCache.Key("EPSG:4326", true), () -> "C"));
+        final Map<String,Number> statistics = new HashMap<>();
+        cache.getStatistics("", statistics);
+        assertEquals("hits",   1L, statistics.get("hits"));
+        assertEquals("misses", 2L, statistics.get("misses"));
+        assertEquals("size",   2,  statistics.get("size"));
+    }
+
+    /**
+     * Tests that a failure is not cached.
+     *
+     * @throws FactoryException should never happen.
+     */
+    @Test
+    public void testFailure() throws FactoryException {
+        final PJCache<String, String> cache = new PJCache<>(10);
+        try {
+            cache.getOrCreate("bad", () -> {throw new FactoryException("Bad code.");});
+            fail("Expected a FactoryException.");
+        } catch (FactoryException e) {
+            assertEquals("Bad code.", e.getMessage());
+        }
+        assertEquals("fixed", cache.getOrCreate("bad", () -> "fixed"));
+    }
+
+    /**
+     * Tests that an error thrown during the object creation does not block the threads
+     * waiting for the same key, and that the creation is attempted again later.
+     *
+     * @throws Exception if an error occurred while executing the threads.
+     */
+    @Test
+    public void testErrorDuringCreation() throws Exception {
+        final PJCache<String, String> cache = new PJCache<>(10);
+        final CountDownLatch creating = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<?> task = executor.submit(() -> cache.getOrCreate("bad", () -> {
+                creating.countDown();
+                LockSupport.parkNanos(50000000);
+                throw new AssertionError("Simulated error.");
+            }));
+            assertTrue(creating.await(10, TimeUnit.SECONDS));
+            try {
+                cache.getOrCreate("bad", () -> "unexpected");
+                /*
+                 * May happen if the creation failed before this thread found the slot.
+                 * This is okay; the important point is that we have not been blocked.
+                 */
+            } catch (AssertionError e) {
+                assertEquals("Simulated error.", e.getMessage());
+            }
+            try {
+                task.get(10, TimeUnit.SECONDS);
+                fail("Expected an AssertionError.");
+            } catch (ExecutionException e) {
+                assertEquals("Simulated error.", e.getCause().getMessage());
+            }
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        cache.clear();
+        assertEquals("fixed", cache.getOrCreate("bad", () -> "fixed"));
+    }
+
+    /**
+     * A shared object counting how many times it has been released.
+     */
+    private static final class Counted implements PJCache.Shared {
+        /** The reference counter. */
+        private final PJCache.References references = new PJCache.References();
+
+        /** Number of times that the resources have been released. Shall be 0 or 1. */
+        int released;
+
+        @Override public boolean retain() {return references.retain();}
+        @Override public void close() {if (references.release()) released++;}
+    }
+
+    /**
+     * Tests the reference counting of objects implementing {@link PJCache.Shared}.
+     * Resources shall be released only after both the caller and the cache released them.
+     *
+     * @throws FactoryException should never happen.
+     */
+    @Test
+    public void testReferenceCounting() throws FactoryException {
+        final PJCache<Integer, Counted> cache = new PJCache<>(4);
+        final Counted first = cache.getOrCreate(0, Counted::new);
+        assertSame(first, cache.getOrCreate(0, Counted::new));
+        first.close();
+        first.close();
+        assertEquals("The cache still owns a reference.", 0, first.released);
+        cache.clear();
+        assertEquals("All references have been released.", 1, first.released);
+        assertFalse("Can not retain a released object.", first.retain());
+        /*
+         * Eviction while the caller still owns a reference.
+         */
+        final Counted second = cache.getOrCreate(1, Counted::new);
+        for (int i=2; i<=5; i++) {
+            cache.getOrCreate(i, Counted::new).close();
+        }
+        assertNotSame("Shall have been evicted.", second, cache.getOrCreate(1, Counted::new));
+        assertEquals("The caller still owns a reference.", 0, second.released);
+        second.close();
+        assertEquals(1, second.released);
+        second.close();
+        assertEquals("Extra close shall be ignored.", 1, second.released);
+    }
+
+    /**
+     * Tests the removal of the least recently used entries.
+     *
+     * @throws FactoryException should never happen.
+     */
+    @Test
+    public void testEviction() throws FactoryException {
+        final PJCache<Integer, Integer> cache = new PJCache<>(8);
+        final AtomicInteger creations = new AtomicInteger();
+        for (int i=0; i<8; i++) {
+            final int value = i;
+            cache.getOrCreate(i, () -> {creations.incrementAndGet(); return value;});
+        }
+        cache.getOrCreate(0, () -> -1);                     // Make 0 the most recently used entry.
+        cache.getOrCreate(8, () -> 8);                      // Cause the removal of 1, 2 and 3.
+        creations.set(0);
+        assertEquals(Integer.valueOf(0), cache.getOrCreate(0, () -> {creations.incrementAndGet(); return -1;}));
+        assertEquals(Integer.valueOf(7), cache.getOrCreate(7, () -> {creations.incrementAndGet(); return -1;}));
+        assertEquals("Recently used entries shall be kept.", 0, creations.get());
+        assertEquals(Integer.valueOf(-1), cache.getOrCreate(1, () -> -1));
+        final Map<String,Number> statistics = new HashMap<>();
+        cache.getStatistics("", statistics);
+        assertEquals("evictions", 3L, statistics.get("evictions"));
+    }
+
+    /**
+     * Tests that concurrent requests for the same key create the object only once.
+     *
+     * @throws Exception if an error occurred while executing the threads.
+     */
+    @Test
+    public void testConcurrentMisses() throws Exception {
+        final PJCache<String, Object> cache = new PJCache<>(10);
+        final AtomicInteger creations = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final Future<?>[] tasks = new Future<?>[8];
+            for (int i=0; i<tasks.length; i++) {
+                tasks[i] = executor.submit(() -> {
+                    start.await();
+                    return cache.getOrCreate("EPSG:3857", () -> {
+                        creations.incrementAndGet();
+                        LockSupport.parkNanos(50000000);
+                        return new Object();
+                    });
+                });
+            }
+            start.countDown();
+            final Object first = tasks[0].get();
+            for (final Future<?> task : tasks) {
+                assertSame(first, task.get());
+            }
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        assertEquals("The object shall be created only once.", 1, creations.get());
+    }
+}
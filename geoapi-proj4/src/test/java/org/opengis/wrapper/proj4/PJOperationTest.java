@@ -0,0 +1,267 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The Proj.4 wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementors can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package org.opengis.wrapper.proj4;
+
+import java.util.Random;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.TransformException;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link PJOperation} methods working on arrays. This test does not require the
+ * {@literal Proj.4} native library, since the native calls are replaced by a stand-in.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+public class PJOperationTest {
+    /**
+     * A stand-in for the {@literal Proj.4} native transform, used when the native library is absent.
+     * This stand-in applies the following formulas: <var>x</var>′ = 2<var>x</var> + 1,
+     * <var>y</var>′ = 3<var>y</var> − 2 and <var>z</var>′ = <var>z</var> + <var>x</var>.
+     * Ordinates after <var>z</var> are left unchanged, as {@literal Proj.4} does.
+     */
+    static final class StandIn extends PJOperation {
+        /**
+         * The maximal number of ordinate values given to a single native call.
+         */
+        int maxLength;
+
+        /**
+         * The number of native calls.
+         */
+        int numCalls;
+
+        /**
+         * Creates a new stand-in for the given number of source and target dimensions.
+         */
+        StandIn(final int sourceDimension, final int targetDimension) {
+            super(null, sourceDimension, targetDimension);
+        }
+
+        /**
+         * Applies the formulas documented in the class javadoc.
+         */
+        @Override
+        void transformInPlace(final double[] coordinates, final int dimension, int offset, int numPts) {
+            maxLength = Math.max(maxLength, dimension * numPts);
+            numCalls++;
+            while (--numPts >= 0) {
+                final double x = coordinates[offset];
+                coordinates[offset  ] = 2*x + 1;
+                coordinates[offset+1] = 3*coordinates[offset+1] - 2;
+                if (dimension >= 3) {
+                    coordinates[offset+2] += x;
+                }
+                offset += dimension;
+            }
+        }
+
+        /**
+         * Computes the expected result for the given source coordinates.
+         */
+        double[] expected(final double[] source) {
+            final int srcDim = getSourceDimensions();
+            final int tgtDim = getTargetDimensions();
+            final int numPts = source.length / srcDim;
+            final double[] target = new double[numPts * tgtDim];
+            for (int i=0; i<numPts; i++) {
+                final double x = source[i*srcDim];
+                final double y = source[i*srcDim + 1];
+                final double z = (srcDim >= 3) ? source[i*srcDim + 2] : 0;
+                target[i*tgtDim  ] = 2*x + 1;
+                target[i*tgtDim+1] = 3*y - 2;
+                if (tgtDim >= 3) {
+                    target[i*tgtDim+2] = z + x;
+                }
+            }
+            return target;
+        }
+    }
+
+    /**
+     * Returns random coordinates for the given number of points and dimensions.
+     * The values are integers, so they can be represented exactly as {@code float}.
+     */
+    private static double[] random(final Random random, final int numPts, final int dimension) {
+        final double[] coordinates = new double[numPts * dimension];
+        for (int i=0; i<coordinates.length; i++) {
+            coordinates[i] = random.nextInt(2000) - 1000;
+        }
+        return coordinates;
+    }
+
+    /**
+     * Converts the given array to single precision.
+     */
+    private static float[] toFloat(final double[] values) {
+        final float[] result = new float[values.length];
+        for (int i=0; i<values.length; i++) {
+            result[i] = (float) values[i];
+        }
+        return result;
+    }
+
+    /**
+     * Asserts that the given single precision array is equal to the expected values.
+     */
+    private static void assertEqualsAsFloat(final double[] expected, final float[] actual, final int offset) {
+        for (int i=0; i<expected.length; i++) {
+            assertEquals(expected[i], actual[offset + i], 0);
+        }
+    }
+
+    /**
+     * Transforms the given number of points with all {@code transform} methods working on arrays
+     * and compares with the expected values.
+     */
+    private static void verifyArrays(final int srcDim, final int tgtDim, final int numPts) throws TransformException {
+        final StandIn op = new StandIn(srcDim, tgtDim);
+        final double[] source = random(new Random(srcDim * 31 + tgtDim), numPts, srcDim);
+        final double[] expected = op.expected(source);
+
+        final double[] dd = new double[expected.length + 3];
+        op.transform(source, 0, dd, 3, numPts);
+        for (int i=0; i<expected.length; i++) {
+            assertEquals(expected[i], dd[i + 3], 0);
+        }
+        op.maxLength = 0;           // Same dimensions are transformed in the destination array without buffer.
+        final float[] ff = new float[expected.length];
+        op.transform(toFloat(source), 0, ff, 0, numPts);
+        assertEqualsAsFloat(expected, ff, 0);
+
+        final double[] fd = new double[expected.length];
+        op.transform(toFloat(source), 0, fd, 0, numPts);
+        assertArrayEquals(expected, fd, 0);
+
+        final float[] df = new float[expected.length];
+        op.transform(source, 0, df, 0, numPts);
+        assertEqualsAsFloat(expected, df, 0);
+        assertTrue("Native calls shall use a buffer of bounded size.", op.maxLength <= PJOperation.BUFFER_LENGTH);
+        assertTrue("Native calls shall transform many points at once.", op.maxLength >= Math.min(numPts, 1000));
+    }
+
+    /**
+     * Transforms the given number of points in overlapping ranges of the same array, with the target
+     * range shifted by the given number of ordinates relative to the source range.
+     */
+    private static void verifyOverlapping(final int srcDim, final int tgtDim, final int numPts, final int shift)
+            throws TransformException
+    {
+        final StandIn op = new StandIn(srcDim, tgtDim);
+        final double[] source = random(new Random(shift), numPts, srcDim);
+        final double[] expected = op.expected(source);
+        final int srcOff = Math.max(0, -shift);
+        final int dstOff = Math.max(0,  shift);
+        final int length = Math.max(srcOff + source.length, dstOff + expected.length);
+
+        final double[] asDoubles = new double[length];
+        System.arraycopy(source, 0, asDoubles, srcOff, source.length);
+        op.transform(asDoubles, srcOff, asDoubles, dstOff, numPts);
+        for (int i=0; i<expected.length; i++) {
+            assertEquals(expected[i], asDoubles[dstOff + i], 0);
+        }
+        final float[] asFloats = new float[length];
+        System.arraycopy(toFloat(source), 0, asFloats, srcOff, source.length);
+        op.transform(asFloats, srcOff, asFloats, dstOff, numPts);
+        assertEqualsAsFloat(expected, asFloats, dstOff);
+    }
+
+    /**
+     * Tests transforms between CRS of the same dimension, with more points than the buffer capacity.
+     *
+     * @throws TransformException should never happen.
+     */
+    @Test
+    public void testSameDimension() throws TransformException {
+        verifyArrays(2, 2, 20000);
+        verifyArrays(3, 3, 20000);
+    }
+
+    /**
+     * Tests transforms between CRS of different dimensions, with more points than the buffer capacity.
+     *
+     * @throws TransformException should never happen.
+     */
+    @Test
+    public void testDifferentDimensions() throws TransformException {
+        verifyArrays(2, 3, 20000);
+        verifyArrays(3, 2, 20000);
+        verifyArrays(3, 2, 5);
+    }
+
+    /**
+     * Tests transforms in overlapping ranges of the same array, in both directions.
+     *
+     * @throws TransformException should never happen.
+     */
+    @Test
+    public void testOverlappingArrays() throws TransformException {
+        for (final int shift : new int[] {-7, -1, 0, 1, 7}) {
+            verifyOverlapping(2, 2, 20000, shift);
+            verifyOverlapping(2, 3, 20000, shift);
+            verifyOverlapping(3, 2, 20000, shift);
+        }
+    }
+
+    /**
+     * Tests the transformation of a single {@link DirectPosition}.
+     *
+     * @throws TransformException should never happen.
+     */
+    @Test
+    public void testDirectPosition() throws TransformException {
+        final StandIn op = new StandIn(2, 3);
+        final DirectPosition pt = op.transform(new SimpleDirectPosition(new double[] {4, 5}), null);
+        assertArrayEquals(new double[] {9, 13, 4}, pt.getCoordinate(), 0);
+    }
+
+    /**
+     * Tests the derivatives computed by central differences. All perturbed points
+     * of all points shall be transformed in a single native call.
+     *
+     * @throws TransformException should never happen.
+     */
+    @Test
+    public void testDerivatives() throws TransformException {
+        final StandIn op = new StandIn(3, 3);
+        final double[] expected = {
+            2, 0, 0,
+            0, 3, 0,
+            1, 0, 1
+        };
+        final int numPts = 1000;
+        final double[] points = random(new Random(427816535), numPts, 3);
+        final BulkDerivative bulk = op;        // Verify that the method is reachable from public API.
+        final double[] derivatives = bulk.derivatives(points, 0, numPts);
+        assertEquals("Native calls", 1, op.numCalls);
+        assertEquals(numPts * expected.length, derivatives.length);
+        for (int i=0; i<derivatives.length; i++) {
+            assertEquals(expected[i % expected.length], derivatives[i], 1E-8);
+        }
+        final Matrix m = op.derivative(new SimpleDirectPosition(new double[] {0, 0, 0}));
+        assertEquals(3, m.getNumRow());
+        assertEquals(3, m.getNumCol());
+        for (int j=0; j<3; j++) {
+            for (int i=0; i<3; i++) {
+                assertEquals(expected[j*3 + i], m.getElement(j, i), 1E-8);
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The Proj.4 wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementors can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package org.opengis.wrapper.proj4;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.opengis.referencing.operation.TransformException;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link PJPool} class. This test does not require the {@literal Proj.4} native library,
+ * since the handles are replaced by instances without native peer.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+public class PJPoolTest {
+    /**
+     * A pool creating handles without native peer.
+     */
+    private static final class StandIn extends PJPool {
+        StandIn(final int capacity) {
+            super(null, null, capacity);
+        }
+
+        @Override
+        Handles create() {
+            return new Handles(null, null);
+        }
+    }
+
+    /**
+     * Tests that handles are created lazily and reused.
+     *
+     * @throws TransformException should never happen.
+     */
+    @Test
+    public void testLazyCreation() throws TransformException {
+        final PJPool pool = new StandIn(4);
+        assertEquals("size", 0, pool.size());
+        final PJPool.Handles first = pool.acquire();
+        pool.release(first);
+        assertSame("Released handles shall be reused.", first, pool.acquire());
+        final PJPool.Handles second = pool.acquire();
+        assertNotSame(first, second);
+        pool.release(first);
+        pool.release(second);
+        assertEquals("size",         2, pool.size());
+        assertEquals("idle",         2, pool.idleCount());
+        assertEquals("acquisitions", 3, pool.acquisitionCount());
+        assertEquals("contentions",  0, pool.contentionCount());
+    }
+
+    /**
+     * Tests that the handles can not be used anymore after the pool has been closed.
+     *
+     * @throws TransformException should never happen.
+     */
+    @Test
+    public void testClose() throws TransformException {
+        final PJPool pool = new StandIn(2);
+        final PJPool.Handles handles = pool.acquire();
+        pool.release(pool.acquire());
+        pool.close();
+        assertEquals("idle", 0, pool.idleCount());
+        pool.release(handles);
+        assertEquals("Handles released after close shall be discarded.", 0, pool.idleCount());
+        try {
+            pool.acquire();
+            fail("Closed pool shall not provide handles.");
+        } catch (TransformException e) {
+            assertNotNull(e.getMessage());
+        }
+    }
+
+    /**
+     * Tests concurrent use of the pool by more threads than the pool capacity.
+     * Verifies that a pair of handles is never used by two threads at the same time.
+     *
+     * @throws Exception if an error occurred while executing the threads.
+     */
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final int capacity = 3;
+        final PJPool pool = new StandIn(capacity);
+        final Set<PJPool.Handles> inUse = ConcurrentHashMap.newKeySet();
+        final AtomicBoolean shared = new AtomicBoolean();
+        final ExecutorService executor = Executors.newFixedThreadPool(12);
+        try {
+            final Future<?>[] tasks = new Future<?>[12];
+            for (int t=0; t<tasks.length; t++) {
+                tasks[t] = executor.submit(() -> {
+                    for (int i=0; i<1000; i++) {
+                        final PJPool.Handles handles = pool.acquire();
+                        try {
+                            if (!inUse.add(handles)) {
+                                shared.set(true);
+                            }
+                            Thread.yield();
+                            inUse.remove(handles);
+                        } finally {
+                            pool.release(handles);
+                        }
+                    }
+                    return null;
+                });
+            }
+            for (final Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        assertFalse("Handles shall not be shared by two threads.", shared.get());
+        assertTrue("size", pool.size() <= capacity);
+        assertEquals("idle", pool.size(), pool.idleCount());
+        assertEquals("acquisitions", 12000, pool.acquisitionCount());
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The Proj.4 wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementors can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package org.opengis.wrapper.proj4;
+
+import java.util.List;
+import java.util.logging.Level;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link PJRegistry} class. This test does not require the {@literal Proj.4} native library,
+ * since the registered handles are plain Java objects.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+public class PJRegistryTest {
+    /**
+     * Tests the registration and unregistration of handles.
+     */
+    @Test
+    public void testRegistration() {
+        final Object handle = new Object();
+        final int count = PJRegistry.liveCount();
+        final PJRegistry.Entry entry = PJRegistry.register(handle, "+proj=test");
+        assertEquals("liveCount", count + 1, PJRegistry.liveCount());
+        final List<String> report = PJRegistry.longLived(0);
+        assertTrue(report.toString(), report.stream().anyMatch((s) -> s.startsWith("+proj=test")));
+        assertTrue(PJRegistry.longLived(Long.MAX_VALUE).isEmpty());
+        PJRegistry.unregister(entry);
+        PJRegistry.unregister(entry);
+        assertEquals("liveCount", count, PJRegistry.liveCount());
+        assertSame(handle, handle);     // Keep the handle reachable until this point.
+    }
+
+    /**
+     * Tests the detection of handles garbage-collected without having been closed.
+     *
+     * @throws InterruptedException if the test has been interrupted while waiting for the garbage collector.
+     */
+    @Test
+    public void testLeakDetection() throws InterruptedException {
+        final Level level = PJRegistry.LOGGER.getLevel();
+        PJRegistry.LOGGER.setLevel(Level.OFF);         // Do not pollute the build output.
+        try {
+            final long leaks = PJRegistry.leakCount();
+            PJRegistry.register(new Object(), "+proj=leak");
+            for (int i=0; i<50 && PJRegistry.leakCount() == leaks; i++) {
+                System.gc();
+                Thread.sleep(10);
+            }
+            assertEquals("leakCount", leaks + 1, PJRegistry.leakCount());
+        } finally {
+            PJRegistry.LOGGER.setLevel(level);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The Proj.4 wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementors can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package org.opengis.wrapper.proj4;
+
+import java.util.Map;
+import java.util.List;
+import java.util.TreeMap;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.BufferedReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.opengis.util.GenericName;
+import org.opengis.util.FactoryException;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link ResourcesLoader} and {@link AxisOrientations} classes.
+ * This test does not require the {@literal Proj.4} native library.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+public class ResourcesLoaderTest {
+    /**
+     * Verifies that the binary table generated at build time contains the same
+     * axis orientations than the text file.
+     *
+     * @throws IOException if an error occurred while reading the resources.
+     * @throws FactoryException if an error occurred while reading the resources.
+     */
+    @Test
+    public void testAxisOrientations() throws IOException, FactoryException {
+        assertNotNull("The binary file shall be generated at build time.",
+                AxisOrientations.class.getResource(AxisOrientations.BINARY_FILE));
+        final Map<Integer,String> expected;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                AxisOrientations.class.getResourceAsStream(ResourcesLoader.AXIS_FILE), StandardCharsets.UTF_8)))
+        {
+            expected = AxisOrientations.parse(reader);
+        }
+        assertFalse(expected.isEmpty());
+        for (final Map.Entry<Integer,String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), ResourcesLoader.getAxisOrientation(entry.getKey().toString()));
+        }
+        assertEquals(expected.size(), ResourcesLoader.getAuthorityCodes().size());
+        assertEquals("en,ne", ResourcesLoader.getAxisOrientation("3857"));
+        assertNull(ResourcesLoader.getAxisOrientation("3858"));
+        assertNull(ResourcesLoader.getAxisOrientation("03857"));
+        assertNull(ResourcesLoader.getAxisOrientation("EPSG"));
+    }
+
+    /**
+     * Tests an {@link AxisOrientations} table with the maximal number of distinct orientations.
+     * Indices 128 to 254 do not fit in a signed byte, so they shall be read as unsigned values.
+     *
+     * @throws IOException if an error occurred while encoding or decoding the table.
+     */
+    @Test
+    public void testManyOrientations() throws IOException {
+        final Map<Integer,String> expected = new TreeMap<>();
+        for (int i=0; i<255; i++) {
+            expected.put(1000 + i, "en," + i);
+        }
+        final AxisOrientations table = new AxisOrientations(ByteBuffer.wrap(AxisOrientations.toBinary(expected)));
+        for (final Map.Entry<Integer,String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), table.get(entry.getKey().toString()));
+        }
+        expected.put(2000, "too many");
+        try {
+            AxisOrientations.toBinary(expected);
+            fail("Expected an IOException.");
+        } catch (IOException e) {
+            assertNotNull(e.getMessage());
+        }
+    }
+
+    /**
+     * Tests {@link ResourcesLoader#getAliases(String, boolean)}.
+     *
+     * @throws FactoryException if an error occurred while reading the resources.
+     */
+    @Test
+    public void testAliases() throws FactoryException {
+        final List<GenericName> aliases = ResourcesLoader.getAliases("+cass", false);
+        assertEquals(3, aliases.size());
+        assertEquals(aliases, ResourcesLoader.getAliases("+CASS", false));
+        assertEquals(aliases, ResourcesLoader.getAliases("Cassini_Soldner", false));
+        assertTrue(ResourcesLoader.getAliases("Unknown projection", false).isEmpty());
+    }
+}
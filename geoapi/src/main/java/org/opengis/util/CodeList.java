@@ -40,8 +40,8 @@ import java.lang.reflect.Modifier;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.opengis.annotation.UML;
 
@@ -59,7 +59,7 @@ import static org.opengis.annotation.Specification.*;
  * @param <E> The type of this code list.
  *
  * @author  Martin Desruisseaux (IRD)
- * @version 3.0
+ * @version 4.0
  * @since   1.0
  */
 @UML(identifier="CodeList", specification=ISO_19103)
@@ -70,10 +70,90 @@ public abstract class CodeList<E extends CodeList<E>> implements ControlledVocab
     private static final long serialVersionUID = 5655809691319522885L;
 
     /**
-     * The values for each code list.
+     * The values for each code list, together with indexes by name and by UML identifier.
+     * Code list subclasses sharing the same collection of values share the same index.
      */
     @SuppressWarnings("rawtypes")
-    private static final Map<Class<? extends CodeList>, Collection<? extends CodeList>> VALUES = new HashMap<>();
+    private static final ConcurrentMap<Class<? extends CodeList>, Index> VALUES = new ConcurrentHashMap<>();
+
+    /**
+     * The collection of values for a code list type, together with indexes for fast lookups.
+     * The indexes are read without synchronization. They are updated only while holding the
+     * lock on the {@link #values} collection, which is the same lock than the one used by the
+     * {@code values()} methods in subclasses.
+     *
+     * <p>When many codes have the same name or identifier, only the first one in declaration order is
+     * indexed, consistently with the {@link CodeList#valueOf(Class, Filter)} contract.</p>
+     */
+    @SuppressWarnings("rawtypes")
+    private static final class Index {
+        /**
+         * The collection given by subclasses to the {@code CodeList} constructor.
+         */
+        final Collection<? extends CodeList> values;
+
+        /**
+         * Codes indexed by their {@linkplain CodeList#name() programmatic name}.
+         */
+        final ConcurrentMap<String, CodeList<?>> names;
+
+        /**
+         * Codes indexed by their {@linkplain CodeList#identifier() UML identifier}.
+         * This index is populated only when first needed, because the identifiers
+         * can not be determined before the static fields have been assigned.
+         */
+        private final ConcurrentMap<String, CodeList<?>> identifiers;
+
+        /**
+         * Number of codes registered by the constructor or during deserialization.
+         */
+        private volatile int count;
+
+        /**
+         * Number of codes which have been added to the {@link #identifiers} index.
+         */
+        private volatile int identified;
+
+        /**
+         * Creates a new index for the given collection of codes.
+         */
+        Index(final Collection<? extends CodeList> values) {
+            this.values = values;
+            names       = new ConcurrentHashMap<>();
+            identifiers = new ConcurrentHashMap<>();
+        }
+
+        /**
+         * Adds the given code to the index by name. Caller shall hold the lock on {@link #values}
+         * and must have added the given code to that collection before to invoke this method.
+         */
+        void add(final CodeList<?> code) {
+            names.putIfAbsent(code.name, code);
+            count++;                // Safe because the caller holds the lock.
+        }
+
+        /**
+         * Returns the code for the given UML identifier, or {@code null} if none.
+         * The index is completed with codes created since the last invocation if needed.
+         */
+        CodeList<?> forIdentifier(final String identifier) {
+            if (identified != count) {
+                synchronized (values) {
+                    int i = 0;
+                    for (final CodeList<?> code : values) {
+                        if (i++ >= identified) {
+                            final String id = code.identifier();
+                            if (id != null) {
+                                identifiers.putIfAbsent(id, code);
+                            }
+                        }
+                    }
+                    identified = i;
+                }
+            }
+            return identifiers.get(identifier);
+        }
+    }
 
     /**
      * The types expected in constructors.
@@ -112,18 +192,36 @@ public abstract class CodeList<E extends CodeList<E>> implements ControlledVocab
     @SuppressWarnings({"unchecked","rawtypes"})
     protected CodeList(String name, final Collection<E> values) {
         this.name = (name = name.trim());
+        final Class<? extends CodeList> codeType = getClass();
+        Index index = VALUES.get(codeType);
+        if (index == null) {
+            /*
+             * First code of this type. If a parent class already registered the same collection
+             * (this happen with code list subclasses), share the index of that parent class.
+             */
+            Index candidate = null;
+            for (Class<?> c = codeType.getSuperclass(); c != CodeList.class && c != null; c = c.getSuperclass()) {
+                candidate = VALUES.get(c);
+                if (candidate != null && candidate.values == values) break;
+                candidate = null;
+            }
+            if (candidate == null) {
+                candidate = new Index(values);
+            }
+            index = VALUES.putIfAbsent(codeType, candidate);
+            if (index == null) {
+                index = candidate;
+            }
+        }
+        if (index.values != values) {
+            throw new IllegalArgumentException("List already exists: " + values);
+        }
         synchronized (values) {
             ordinal = values.size();
             if (!values.add((E) this)) {
                 throw new IllegalArgumentException("Duplicated value: " + name);
             }
-        }
-        final Class<? extends CodeList> codeType = getClass();
-        synchronized (VALUES) {
-            final Collection<? extends CodeList> previous = VALUES.putIfAbsent(codeType, values);
-            if (previous != null && previous != values) {
-                throw new IllegalArgumentException("List already exists: " + values);
-            }
+            index.add(this);
         }
     }
 
@@ -188,18 +286,42 @@ public abstract class CodeList<E extends CodeList<E>> implements ControlledVocab
             return null;
         }
         name = name.trim();
-        final String n = name;
-        return valueOf(codeType, new Filter() {
-            @Override
-            public boolean accept(CodeList<?> code) {
-                return code.name().equals(n);
+        final Index index = index(codeType);
+        CodeList<?> code = index.names.get(name);
+        if (code == null) {
+            synchronized (index.values) {
+                code = index.names.get(name);               // Check again in case it has been added concurrently.
+                if (code == null) {
+                    return create(codeType, name);
+                }
             }
+        }
+        return codeType.cast(code);
+    }
 
-            @Override
-            public String codename() {
-                return n;
-            }
-        });
+    /**
+     * Returns the code of the given type that has the given UML identifier, or {@code null} if none.
+     * More specifically, this methods returns the first instance (in declaration order) of the given
+     * class for which <code>{@linkplain #identifier()}.{@linkplain String#equals equals}(identifier)</code>
+     * is {@code true}. Contrarily to {@link #valueOf(Class, String)}, this method never create new code.
+     *
+     * @param  <T>         the compile-time type given as the {@code codeType} parameter.
+     * @param  codeType    the type of code list.
+     * @param  identifier  the UML identifier of the code to obtain, or {@code null}.
+     * @return a code matching the given identifier, or {@code null} if none.
+     *
+     * @departure extension
+     *   Complement to {@code valueOf(Class, String)} for parsers of XML documents or other formats
+     *   where the codes are known by their ISO or OGC identifiers instead than the Java names.
+     *
+     * @since 4.0
+     */
+    public static <T extends CodeList<T>> T forIdentifier(final Class<T> codeType, String identifier) {
+        if (identifier == null) {
+            return null;
+        }
+        final CodeList<?> code = index(codeType).forIdentifier(identifier.trim());
+        return (code != null) ? codeType.cast(code) : null;
     }
 
     /**
@@ -224,77 +346,86 @@ public abstract class CodeList<E extends CodeList<E>> implements ControlledVocab
      */
     public static <T extends CodeList<T>> T valueOf(final Class<T> codeType, final Filter filter) {
         @SuppressWarnings("rawtypes")
-        Collection<? extends CodeList> values;
-        synchronized (VALUES) {
-            values = VALUES.get(codeType);
-            if (values == null) {
-                if (codeType == null) {
-                    throw new IllegalArgumentException("Code type is null");
-                } else {
-                    /*
-                     * If no list has been found for the given type, maybe the class was not yet initialized.
-                     * Try to force class initialization of the given class in order to register its list of
-                     * static final constants, then check again.
-                     */
-                    final String typeName = codeType.getName();
-                    try {
-                        Class.forName(typeName, true, codeType.getClassLoader());
-                    } catch (ClassNotFoundException e) {
-                        throw new TypeNotPresentException(typeName, e);             // Should never happen.
-                    }
-                    values = VALUES.get(codeType);
-                    if (values == null) {
-                        throw new IllegalStateException("No list of " + codeType.getSimpleName());
-                    }
-                }
-            }
-        }
-        /*
-         * At this point we got the list of all code list values. Now search for a value matching
-         * the filter specified to this method.
-         */
+        final Collection<? extends CodeList> values = index(codeType).values;
         synchronized (values) {
             for (final CodeList<?> code : values) {
                 if (filter.accept(code)) {
                     return codeType.cast(code);
                 }
             }
-            if (Modifier.isAbstract(codeType.getModifiers())) {
-                return null;
-            }
             final String name = filter.codename();
-            if (name == null) {
-                return null;
+            return (name != null) ? create(codeType, name) : null;
+        }
+    }
+
+    /**
+     * Returns the index of values for the given code list type. If no index has been found for the given type,
+     * maybe the class was not yet initialized. In such case this method forces class initialization in order to
+     * register the list of static final constants, then check again.
+     *
+     * @param  codeType  the type of code list.
+     * @return the index of all code list values for the given type.
+     */
+    private static Index index(final Class<?> codeType) {
+        Index index = VALUES.get(codeType);
+        if (index == null) {
+            if (codeType == null) {
+                throw new IllegalArgumentException("Code type is null");
             }
-            /*
-             * No value value found, but the caller allows us to create a new value. We need access to the constructor,
-             * which may not be public. But requesting access to private constructor is a security-sensitive operation.
-             * As a conservative approach, we will request for a privileged action only for code lists in "org.opengis"
-             * packages. Note that it still possible for users to instantiate code lists from other packages, but they
-             * will need to configure their security file for granting access from their own application in addition
-             * to GeoAPI. The "doPriviliged" block is for allowing users to grant access to GeoAPI only if they wish.
-             *
-             * TODO: the check for package name may still not sufficient on a security point of view.
-             *       We should also check if the package is sealed, and maybe check if it is signed by OGC.
-             *       Revisit with JDK9 modularization.
-             */
+            final String typeName = codeType.getName();
             try {
-                final Constructor<T> constructor = codeType.getDeclaredConstructor(CONSTRUCTOR_PARAMETERS);
-                if (!Modifier.isPublic(constructor.getModifiers())) {
-                    final Package pkg = codeType.getPackage();
-                    if (pkg != null && pkg.getName().startsWith("org.opengis.")) {
-                        AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
-                            constructor.setAccessible(true);
-                            return null;
-                        });
-                    } else {
+                Class.forName(typeName, true, codeType.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                throw new TypeNotPresentException(typeName, e);             // Should never happen.
+            }
+            index = VALUES.get(codeType);
+            if (index == null) {
+                throw new IllegalStateException("No list of " + codeType.getSimpleName());
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Creates a new code of the given name. Caller shall hold the lock on the collection of values
+     * and shall have verified that no existing code matches the name.
+     *
+     * @param  codeType  the type of code list.
+     * @param  name      the name of the code to create.
+     * @return the new code, or {@code null} if the code type is abstract.
+     */
+    private static <T extends CodeList<T>> T create(final Class<T> codeType, final String name) {
+        if (Modifier.isAbstract(codeType.getModifiers())) {
+            return null;
+        }
+        /*
+         * We need access to the constructor, which may not be public. But requesting access to private constructor
+         * is a security-sensitive operation. As a conservative approach, we will request for a privileged action only
+         * for code lists in "org.opengis" packages. Note that it still possible for users to instantiate code lists
+         * from other packages, but they will need to configure their security file for granting access from their
+         * own application in addition to GeoAPI. The "doPriviliged" block is for allowing users to grant access to
+         * GeoAPI only if they wish.
+         *
+         * TODO: the check for package name may still not sufficient on a security point of view.
+         *       We should also check if the package is sealed, and maybe check if it is signed by OGC.
+         *       Revisit with JDK9 modularization.
+         */
+        try {
+            final Constructor<T> constructor = codeType.getDeclaredConstructor(CONSTRUCTOR_PARAMETERS);
+            if (!Modifier.isPublic(constructor.getModifiers())) {
+                final Package pkg = codeType.getPackage();
+                if (pkg != null && pkg.getName().startsWith("org.opengis.")) {
+                    AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
                         constructor.setAccessible(true);
-                    }
+                        return null;
+                    });
+                } else {
+                    constructor.setAccessible(true);
                 }
-                return constructor.newInstance(name);
-            } catch (ReflectiveOperationException exception) {
-                throw new IllegalArgumentException("Can not create code of type " + codeType.getSimpleName(), exception);
             }
+            return constructor.newInstance(name);
+        } catch (ReflectiveOperationException exception) {
+            throw new IllegalArgumentException("Can not create code of type " + codeType.getSimpleName(), exception);
         }
     }
 
@@ -478,33 +609,29 @@ public abstract class CodeList<E extends CodeList<E>> implements ControlledVocab
      */
     @SuppressWarnings("rawtypes")
     protected Object readResolve() throws ObjectStreamException {
-        final Class<? extends CodeList> codeType = getClass();
-        final Collection<? extends CodeList> values;
-        synchronized (VALUES) {
-            values = VALUES.get(codeType);
-        }
-        if (values != null) {
-            synchronized (values) {
-                for (final CodeList<?> code : values) {
-                    if (!codeType.isInstance(code)) {
-                        // Paranoiac check - should never happen unless the subclass
-                        // modifies itself the collection given to the constructor,
-                        // in which case we will not touch it.
+        final Index index = VALUES.get(getClass());
+        if (index != null) {
+            final Collection<? extends CodeList> values = index.values;
+            CodeList<?> code = index.names.get(name);
+            if (code == null) {
+                synchronized (values) {
+                    code = index.names.get(name);
+                    if (code == null) {
+                        // We can not verify the type of elements. This is the best we can do for type safety.
+                        @SuppressWarnings("unchecked")
+                        final Collection<CodeList> unsafe = (Collection) values;
+                        if (!unsafe.add(this)) {
+                            // Paranoiac check - should never happen.
+                            throw new InvalidObjectException(name);
+                        }
+                        index.add(this);
                         return this;
                     }
-                    if (code.name.equals(name)) {
-                        return code;
-                    }
-                }
-                // We have verified with codeType.isInstance(code) that every elements are
-                // of the appropriate class. This is the best we can do for type safety.
-                @SuppressWarnings("unchecked")
-                final Collection<CodeList> unsafe = (Collection) values;
-                if (!unsafe.add(this)) {
-                    // Paranoiac check - should never happen.
-                    throw new InvalidObjectException(name);
                 }
             }
+            if (getClass().isInstance(code)) {
+                return code;
+            }
         }
         return this;
     }
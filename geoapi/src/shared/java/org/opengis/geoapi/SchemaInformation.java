@@ -32,21 +32,41 @@
 package org.opengis.geoapi;
 
 import java.io.IOException;
+import java.io.EOFException;
+import java.io.StreamCorruptedException;
 import java.io.InputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.net.URL;
 import java.nio.file.Path;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Map;
-import java.util.Deque;
+import java.util.Set;
+import java.util.List;
 import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
-import java.util.ArrayDeque;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javax.xml.XMLConstants;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import org.w3c.dom.Node;
-import org.w3c.dom.Document;
-import org.w3c.dom.NamedNodeMap;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamConstants;
 import org.xml.sax.SAXException;
 import org.opengis.annotation.UML;
 import org.opengis.annotation.Classifier;
@@ -69,9 +89,16 @@ import org.opengis.annotation.Stereotype;
  * exception if a type does not follow the expected naming convention. This requirement makes
  * implementation easier, by reducing the amount of {@link Map}s that we need to manage.</p>
  *
+ * <p><b>Performance:</b></p>
+ * XSD files are read with a streaming parser in background threads, while the declarations are
+ * applied in the caller thread in the same order than a sequential loading. If a
+ * {@linkplain #setCacheDirectory(Path) cache directory} is specified, then the declarations found in
+ * each XSD file are saved in a binary file keyed by the SHA-256 hash of the XSD content, so later
+ * loadings of the same schemas skip the XML parsing.
+ *
  * @author  Martin Desruisseaux (Geomatys)
  * @since   3.1
- * @version 3.1
+ * @version 4.0
  */
 public class SchemaInformation {
     /**
@@ -109,6 +136,17 @@ public class SchemaInformation {
      */
     private static final char PREFIX_SEPARATOR = ':';
 
+    /**
+     * Magic number at the beginning of cache files.
+     */
+    private static final int CACHE_MAGIC = 0x58534443;
+
+    /**
+     * Version of the cache file format. Shall be incremented when the {@link Declaration}
+     * content or the parsing rules change, for discarding cache files created by older versions.
+     */
+    private static final int CACHE_VERSION = 2;
+
     /**
      * If the computer contains a local copy of ISO schemas, path to that directory. Otherwise {@code null}.
      * If non-null, the {@value #ROOT_NAMESPACE} prefix in URL will be replaced by that path.
@@ -116,24 +154,110 @@ public class SchemaInformation {
      */
     private final Path schemaRootDirectory;
 
+    /**
+     * Directory where to cache the declarations parsed from XSD files, or {@code null} if none.
+     *
+     * @see #setCacheDirectory(Path)
+     */
+    private volatile Path cacheDirectory;
+
     /**
      * A temporary buffer for miscellaneous string operations.
      * Valid only in a local scope since the content may change at any time.
      * For making this limitation clear, its length shall bet set to 0 after each usage.
+     * This buffer shall be used only in the thread applying the declarations.
      */
     private final StringBuilder buffer;
 
     /**
-     * The DOM factory used for reading XSD schemas.
+     * The StAX factory used for reading XSD schemas.
+     * Usage of this factory shall be synchronized on the factory.
      */
-    private final DocumentBuilderFactory factory;
+    private final XMLInputFactory factory;
 
     /**
      * URL of schemas loaded, for avoiding loading the same schema many time.
-     * The last element on the queue is the schema in process of being loaded,
-     * used for resolving relative paths in {@code <xs:include>} elements.
+     * This set is modified only by the thread applying the declarations,
+     * but may be read concurrently by the background threads parsing the schemas.
      */
-    private final Deque<String> schemaLocations;
+    private final Set<String> schemaLocations;
+
+    /**
+     * The XSD files being parsed or already parsed in background threads, but not yet applied.
+     * Keys are the resolved schema locations.
+     */
+    private final Map<String, CompletableFuture<Declaration[]>> pendingSchemas;
+
+    /**
+     * A declaration found in a XSD file. The XSD files are parsed in a list of declarations in document order,
+     * which are applied later in the caller thread. The declarations do not depend on the location of the XSD
+     * file (includes are stored as relative paths) or on the documentation style, so they can be cached.
+     */
+    private static final class Declaration {
+        /** Kind of declaration: {@code <xs:schema targetNamespace="(…)">}. */
+        static final byte NAMESPACE = 0;
+
+        /** Kind of declaration: {@code <xs:include schemaLocation="(…)">}. */
+        static final byte INCLUDE = 1;
+
+        /** Kind of declaration: {@code <xs:element name="(…)" type="(…)_Type">}. */
+        static final byte ELEMENT = 2;
+
+        /** Kind of declaration: {@code <xs:complexType name="(…)_Type">}. Followed by its properties. */
+        static final byte TYPE = 3;
+
+        /** Kind of declaration: {@code <xs:element name="(…)" type="(…)_PropertyType">} in a type. */
+        static final byte PROPERTY = 4;
+
+        /** One of {@link #NAMESPACE}, {@link #INCLUDE}, {@link #ELEMENT}, {@link #TYPE} or {@link #PROPERTY}. */
+        final byte kind;
+
+        /** The namespace, schema location, element name, type name or property name depending on the kind. */
+        final String name;
+
+        /** The element type or property type (without suffix), or {@code null} if none. */
+        final String type;
+
+        /** The documentation as found in the XSD file, or {@code null} if none. */
+        final String documentation;
+
+        /** Whether the property is mandatory. */
+        final boolean isRequired;
+
+        /** Whether the property accepts many items. */
+        final boolean isCollection;
+
+        /**
+         * Creates a new declaration.
+         *
+         * @param kind           one of {@link #NAMESPACE}, {@link #INCLUDE}, {@link #ELEMENT}, {@link #TYPE} or {@link #PROPERTY}.
+         * @param name           the namespace, schema location, element name, type name or property name.
+         * @param type           the element type or property type (without suffix), or {@code null} if none.
+         * @param documentation  the documentation as found in the XSD file, or {@code null} if none.
+         * @param isRequired     whether the property is mandatory.
+         * @param isCollection   whether the property accepts many items.
+         */
+        Declaration(final byte kind, final String name, final String type, final String documentation,
+                    final boolean isRequired, final boolean isCollection)
+        {
+            this.kind          = kind;
+            this.name          = name;
+            this.type          = type;
+            this.documentation = documentation;
+            this.isRequired    = isRequired;
+            this.isCollection  = isCollection;
+        }
+
+        /**
+         * Creates a declaration which contains only a name.
+         *
+         * @param kind  one of {@link #NAMESPACE}, {@link #INCLUDE} or {@link #TYPE}.
+         * @param name  the namespace, schema location or type name.
+         */
+        Declaration(final byte kind, final String name) {
+            this(kind, name, null, null, false, false);
+        }
+    }
 
     /**
      * The type and namespace of a property or type.
@@ -145,7 +269,15 @@ public class SchemaInformation {
         /** Whether the property accepts many items. */ public final boolean isCollection;
         /** Documentation, or {@code null} if none.  */ public final String  documentation;
 
-        /** Stores information about a new property or type. */
+        /**
+         * Stores information about a new property or type.
+         *
+         * @param typeName       the element type name.
+         * @param namespace      element namespace as an URI.
+         * @param isRequired     whether the property is mandatory.
+         * @param isCollection   whether the property accepts many items.
+         * @param documentation  documentation, or {@code null} if none.
+         */
         Element(final String typeName, final String namespace, final boolean isRequired, final boolean isCollection,
                 final String  documentation)
         {
@@ -158,6 +290,8 @@ public class SchemaInformation {
 
         /**
          * Returns the prefix if it can be derived from the {@linkplain #namespace}, or {@code null} otherwise.
+         *
+         * @return the prefix (e.g. {@code "cit"}), or {@code null} if it can not be derived.
          */
         String prefix() {
             if (namespace.startsWith(ROOT_NAMESPACE)) {
@@ -170,6 +304,9 @@ public class SchemaInformation {
 
         /**
          * Tests if this element has the same type name (including namespace) than given element.
+         *
+         * @param  other  the other element to compare with this element.
+         * @return whether the two elements have the same type name and namespace.
          */
         boolean nameEqual(final Element other) {
             return Objects.equals(typeName,  other.typeName)
@@ -197,7 +334,10 @@ public class SchemaInformation {
     /**
      * Notifies that we are about to define the XML type for each property. In OGC/ISO schemas, those definitions
      * have the {@value #PROPERTY_TYPE_SUFFIX} suffix in their name (which is omitted). After this method call,
-     * properties can be defined by calls to {@link #addProperty(String, String, boolean, boolean)}.
+     * properties can be defined by calls to {@link #addProperty(String, String, String, boolean, boolean, String)}.
+     *
+     * @param  type  the XML type name, with the {@value #TYPE_SUFFIX} suffix.
+     * @throws SchemaException if the type name does not end with the expected suffix.
      */
     private void preparePropertyDefinitions(final String type) throws SchemaException {
         final String k = trim(type, TYPE_SUFFIX).intern();
@@ -213,19 +353,6 @@ public class SchemaInformation {
      */
     private Map<String,Element> currentProperties;
 
-    /**
-     * A single property type under examination, or {@code null} if none.
-     * If non-null, this is a value ending with the {@value #PROPERTY_TYPE_SUFFIX} suffix.
-     */
-    private String currentPropertyType;
-
-    /**
-     * Default value for the {@code required} attribute of {@link XmlElement}. This default value should
-     * be {@code true} for properties declared inside a {@code <sequence>} element, and {@code false} for
-     * properties declared inside a {@code <choice>} element.
-     */
-    private boolean requiredByDefault;
-
     /**
      * Namespace of the type or properties being defined.
      * This is specified by {@code <xs:schema targetNamespace="(…)">}.
@@ -259,16 +386,35 @@ public class SchemaInformation {
         this.schemaRootDirectory = schemaRootDirectory;
         this.departures          = departures;
         this.documentationStyle  = style;
-        factory = DocumentBuilderFactory.newInstance();
-        factory.setNamespaceAware(true);
+        factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
         buffer = new StringBuilder(100);
         typeDefinitions = new HashMap<>();
-        schemaLocations = new ArrayDeque<>();
+        schemaLocations = ConcurrentHashMap.newKeySet();
+        pendingSchemas  = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Sets the directory where to cache the declarations parsed from XSD files. Cache files are named
+     * by the SHA-256 hash of the XSD file content, so a modified XSD file is parsed again.
+     * The directory is created when first needed.
+     *
+     * <p>Cache files are verified against accidental corruption, but their content is otherwise trusted.
+     * Consequently the directory shall be writable only by the current user. A directory shared by many
+     * users, like the temporary directory of the operating system, should not be used.</p>
+     *
+     * @param directory  the cache directory, or {@code null} for disabling the cache.
+     *
+     * @since 4.0
+     */
+    public void setCacheDirectory(final Path directory) {
+        cacheDirectory = directory;
     }
 
     /**
      * Loads the default set of XSD files. This method invokes {@link #loadSchema(String)}
      * for a pre-defined set of metadata schemas, in approximative dependency order.
+     * All schemas are parsed in parallel before to be applied in that order.
      *
      * @throws ParserConfigurationException if the XML parser can not be created.
      * @throws IOException     if an I/O error occurred while reading a file.
@@ -276,6 +422,7 @@ public class SchemaInformation {
      * @throws SchemaException if a XML document can not be interpreted as an OGC/ISO schema.
      */
     public void loadDefaultSchemas() throws ParserConfigurationException, IOException, SAXException, SchemaException {
+        final List<String> locations = new ArrayList<>(20);
         for (final String p : new String[] {
 //              "19115/-3/gco/1.0/gco.xsd",         // Geographic Common — defined in a different way than other modules
                 "19115/-3/lan/1.0/lan.xsd",         // Language localization
@@ -299,7 +446,13 @@ public class SchemaInformation {
                 "19115/-3/mpc/1.0/mpc.xsd",         // Metadata for portrayal catalog
                 "19115/-3/mdb/1.0/mdb.xsd"})        // Metadata base
         {
-            loadSchema(ROOT_NAMESPACE + p);
+            locations.add(resolve(ROOT_NAMESPACE + p));
+        }
+        for (final String location : locations) {
+            parseLater(location);
+        }
+        for (final String location : locations) {
+            loadSchema(location);
         }
         /*
          * Hard-coded information from "19115/-3/gco/1.0/gco.xsd". We apply this workaround because current SchemaInformation
@@ -347,6 +500,7 @@ public class SchemaInformation {
      * @param  type        name of the type.
      * @param  namespace   namespace of all properties.
      * @param  properties  (property name, property type, isRequired, isCollection) tuples.
+     * @throws SchemaException if a type or a property is defined twice.
      */
     private void addHardCoded(final String type, final String namespace, final Object... properties) throws SchemaException {
         final Map<String,Element> pm = new LinkedHashMap<>(properties.length);
@@ -375,188 +529,624 @@ public class SchemaInformation {
     public void loadSchema(String location)
             throws ParserConfigurationException, IOException, SAXException, SchemaException
     {
+        location = resolve(location);
+        if (!schemaLocations.contains(location)) {
+            final Declaration[] declarations;
+            try {
+                declarations = parseLater(location).join();
+            } catch (CompletionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof IOException)      throw (IOException)      cause;
+                if (cause instanceof SAXException)     throw (SAXException)     cause;
+                if (cause instanceof SchemaException)  throw (SchemaException)  cause;
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                if (cause instanceof Error)            throw (Error)            cause;
+                throw e;
+            } finally {
+                pendingSchemas.remove(location);
+            }
+            schemaLocations.add(location);
+            apply(location, declarations);
+        }
+    }
+
+    /**
+     * Replaces the {@value #ROOT_NAMESPACE} prefix by the path to the local copy of ISO schemas, if any.
+     *
+     * @param  location  the URL to resolve.
+     * @return the URL to the local copy if any, or the given location otherwise.
+     */
+    private String resolve(final String location) {
         if (schemaRootDirectory != null && location.startsWith(ROOT_NAMESPACE)) {
-            location = schemaRootDirectory.resolve(location.substring(ROOT_NAMESPACE.length())).toUri().toString();
+            return schemaRootDirectory.resolve(location.substring(ROOT_NAMESPACE.length())).toUri().toString();
         }
-        if (!schemaLocations.contains(location)) {
-            if (location.startsWith("http")) {
-                info("Downloading " + location);
+        return location;
+    }
+
+    /**
+     * Returns the location of the schema to include, resolved relatively to the location of the including schema.
+     *
+     * @param  location        the URL of the including schema.
+     * @param  schemaLocation  the relative path of the included schema.
+     * @return the URL of the included schema.
+     */
+    private static String include(final String location, final String schemaLocation) {
+        return location.substring(0, location.lastIndexOf('/') + 1) + schemaLocation;
+    }
+
+    /**
+     * Starts the parsing of the given XSD file in a background thread if not already started.
+     * The included schemas are themselves scheduled for parsing as soon as the including schema has been parsed.
+     *
+     * @param  location  the resolved URL to the XSD file to parse.
+     * @return the declarations which will be found in the given XSD file.
+     */
+    private CompletableFuture<Declaration[]> parseLater(final String location) {
+        return pendingSchemas.computeIfAbsent(location, (key) -> CompletableFuture.supplyAsync(() -> {
+            final Declaration[] declarations;
+            try {
+                declarations = parse(key);
+            } catch (IOException | SAXException | SchemaException e) {
+                throw new CompletionException(e);
+            }
+            for (final Declaration d : declarations) {
+                if (d.kind == Declaration.INCLUDE) {
+                    final String path = resolve(include(key, d.name));
+                    if (!schemaLocations.contains(path)) {      // Approximative check: only an optimization.
+                        parseLater(path);
+                    }
+                }
+            }
+            return declarations;
+        }));
+    }
+
+    /**
+     * Reads the XSD file at the given URL and returns the declarations that it contains.
+     * If a cache directory has been specified, the declarations are read from the cache
+     * if available, or stored in the cache otherwise.
+     * This method can be invoked from any thread.
+     *
+     * @param  location  the resolved URL to the XSD file to parse.
+     * @return the declarations found in the XSD file, in document order.
+     * @throws IOException     if an I/O error occurred while reading the XSD file or writing the cache.
+     * @throws SAXException    if the XSD file can not be parsed as a XML document.
+     * @throws SchemaException if the XSD file does not follow the OGC/ISO conventions.
+     */
+    private Declaration[] parse(final String location) throws IOException, SAXException, SchemaException {
+        if (location.startsWith("http")) {
+            info("Downloading " + location);
+        }
+        final byte[] content;
+        try (InputStream in = new URL(location).openStream()) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+            final byte[] bytes = new byte[8192];
+            int n;
+            while ((n = in.read(bytes)) >= 0) {
+                out.write(bytes, 0, n);
+            }
+            content = out.toByteArray();
+        }
+        final Path directory = cacheDirectory;
+        Path cacheFile = null;
+        if (directory != null) {
+            cacheFile = directory.resolve(hash(content) + ".bin");
+            if (Files.isRegularFile(cacheFile)) {
+                final Declaration[] declarations = readCache(cacheFile);
+                if (declarations != null) {
+                    return declarations;
+                }
+            }
+        }
+        final List<Declaration> declarations = new ArrayList<>();
+        try {
+            final XMLStreamReader reader;
+            synchronized (factory) {
+                reader = factory.createXMLStreamReader(new ByteArrayInputStream(content));
+            }
+            try {
+                storeClassDefinitions(reader, location, declarations);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new SAXException("Can not parse " + location, e);
+        }
+        final Declaration[] array = declarations.toArray(new Declaration[declarations.size()]);
+        if (cacheFile != null) {
+            writeCache(cacheFile, array);
+        }
+        return array;
+    }
+
+    /**
+     * Returns the SHA-256 hash of the given content as an hexadecimal string.
+     *
+     * @param  content  the bytes to hash.
+     * @return the hexadecimal representation of the hash.
+     */
+    private static String hash(final byte[] content) {
+        final byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);             // Should never happen since SHA-256 is mandatory.
+        }
+        final StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (final byte b : digest) {
+            hex.append(Character.forDigit((b >>> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Reads the declarations from the given cache file. If the file is truncated or corrupted
+     * (detected by a CRC-32 checksum at the end of the file), then this method returns {@code null}
+     * and the caller parses the XSD file again, which replaces the invalid cache file.
+     *
+     * @param  file  the cache file to read.
+     * @return the cached declarations, or {@code null} if the file has been written by another format version
+     *         or is corrupted.
+     * @throws IOException if an error occurred while reading the file.
+     */
+    private static Declaration[] readCache(final Path file) throws IOException {
+        final long size = Files.size(file);
+        final CRC32 checksum = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file)), checksum)))
+        {
+            if (in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION) {
+                return null;
+            }
+            final int count = in.readInt();
+            if (count < 0 || count > size) {
+                throw new StreamCorruptedException();
+            }
+            final Declaration[] declarations = new Declaration[count];
+            for (int i=0; i<count; i++) {
+                final byte kind  = in.readByte();
+                final byte flags = in.readByte();
+                if (kind < Declaration.NAMESPACE || kind > Declaration.PROPERTY) {
+                    throw new StreamCorruptedException();
+                }
+                declarations[i] = new Declaration(kind, readString(in, size), readString(in, size), readString(in, size),
+                                                  (flags & 1) != 0, (flags & 2) != 0);
+            }
+            final long expected = checksum.getValue();
+            if (in.readLong() != expected) {
+                throw new StreamCorruptedException();
             }
-            final Document doc;
-            try (final InputStream in = new URL(location).openStream()) {
-                doc = factory.newDocumentBuilder().parse(in);
+            return declarations;
+        } catch (EOFException | StreamCorruptedException e) {
+            return null;                    // Truncated or corrupted file. Will be parsed and written again.
+        }
+    }
+
+    /**
+     * Writes the declarations in the given cache file, followed by a CRC-32 checksum of the content.
+     * The file is first written under a temporary name, then renamed. This allows concurrent processes
+     * to share the same cache directory.
+     *
+     * @param  file          the cache file to write.
+     * @param  declarations  the declarations to write.
+     * @throws IOException if an error occurred while writing the file.
+     */
+    private static void writeCache(final Path file, final Declaration[] declarations) throws IOException {
+        final Path directory = Files.createDirectories(file.getParent());
+        final Path tmp = Files.createTempFile(directory, "schema", ".tmp");
+        try {
+            final CRC32 checksum = new CRC32();
+            try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp)), checksum)))
+            {
+                out.writeInt(CACHE_MAGIC);
+                out.writeInt(CACHE_VERSION);
+                out.writeInt(declarations.length);
+                for (final Declaration d : declarations) {
+                    out.writeByte(d.kind);
+                    out.writeByte((d.isRequired ? 1 : 0) | (d.isCollection ? 2 : 0));
+                    writeString(out, d.name);
+                    writeString(out, d.type);
+                    writeString(out, d.documentation);
+                }
+                out.writeLong(checksum.getValue());
             }
-            schemaLocations.addLast(location);
-            storeClassDefinition(doc);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Writes the given string, which may be null, as its length followed by the UTF-8 bytes.
+     * We do not use {@link DataOutputStream#writeUTF(String)} because documentation may be long.
+     *
+     * @param  out    the stream where to write the string.
+     * @param  value  the string to write, or {@code null}.
+     * @throws IOException if an error occurred while writing the string.
+     */
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+     *
+     * @param  in     the stream from which to read the string.
+     * @param  limit  the file size, used as an upper bound of valid string lengths.
+     * @return the string, or {@code null} if a null value was written.
+     * @throws StreamCorruptedException if the string length is invalid.
+     * @throws IOException if an error occurred while reading the string.
+     */
+    private static String readString(final DataInputStream in, final long limit) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            if (length == -1) return null;
+            throw new StreamCorruptedException();
+        }
+        if (length > limit) {
+            throw new StreamCorruptedException();
         }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
     }
 
     /**
-     * Stores information about classes in the given node and children. This method invokes itself
-     * for scanning children, until we reach sub-nodes about properties (in which case we continue
-     * with {@link #storePropertyDefinition(Node)}).
+     * Applies the declarations found in the given XSD file. This method shall be invoked
+     * in the caller thread, in the same order than a sequential loading of the schemas.
+     * This method invokes {@link #loadSchema(String)} recursively for included schemas.
+     *
+     * @param  location      the resolved URL to the XSD file, used for resolving included schemas.
+     * @param  declarations  the declarations found in the XSD file.
+     * @throws IOException     if an I/O error occurred while reading an included schema.
+     * @throws ParserConfigurationException if the XML parser can not be created.
+     * @throws SAXException    if an included schema can not be parsed as a XML document.
+     * @throws SchemaException if the declarations are inconsistent with previous declarations.
      */
-    private void storeClassDefinition(final Node node)
+    private void apply(final String location, final Declaration[] declarations)
             throws IOException, ParserConfigurationException, SAXException, SchemaException
     {
-        if (XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(node.getNamespaceURI())) {
-            switch (node.getLocalName()) {
-                case "schema": {
-                    targetNamespace = getMandatoryAttribute(node, "targetNamespace").intern();
+        for (final Declaration d : declarations) {
+            switch (d.kind) {
+                case Declaration.NAMESPACE: {
+                    targetNamespace = d.name.intern();
                     break;
                 }
                 /*
                  * <xs:include schemaLocation="(…).xsd">
                  * Load the schema at the given URL, which is assumed relative.
                  */
-                case "include": {
+                case Declaration.INCLUDE: {
                     final String oldTarget = targetNamespace;
-                    final String location = schemaLocations.getLast();
-                    final String path = buffer.append(location, 0, location.lastIndexOf('/') + 1)
-                            .append(getMandatoryAttribute(node, "schemaLocation")).toString();
-                    buffer.setLength(0);
-                    loadSchema(path);
+                    loadSchema(include(location, d.name));
                     targetNamespace = oldTarget;
-                    return;                             // Skip children (normally, there is none).
+                    break;
                 }
                 /*
                  * <xs:element name="(…)" type="(…)_Type">
-                 * Verify that the names comply with our assumptions.
+                 * The naming convention has been verified at parsing time.
                  */
-                case "element": {
-                    final String name = getMandatoryAttribute(node, "name");
-                    final String type = getMandatoryAttribute(node, "type");
-                    final String doc  = documentation(node);
-                    if (CODELIST_TYPE.equals(type)) {
+                case Declaration.ELEMENT: {
+                    final String doc = documentation(d.documentation);
+                    if (CODELIST_TYPE.equals(d.type)) {
                         final Map<String,Element> properties = new HashMap<>(4);
                         final Element info = new Element(null, targetNamespace, false, false, doc);
                         properties.put(null, info);     // Remember namespace of the code list.
-                        properties.put(name, info);     // Pseudo-property used in our CodeList adapters.
-                        if (typeDefinitions.put(name, properties) != null) {
-                            throw new SchemaException(String.format("Code list \"%s\" is defined twice.", name));
+                        properties.put(d.name, info);   // Pseudo-property used in our CodeList adapters.
+                        if (typeDefinitions.put(d.name, properties) != null) {
+                            throw new SchemaException(String.format("Code list \"%s\" is defined twice.", d.name));
                         }
                     } else {
                         // addProperty(null, …) with null as a sentinel value for class definition.
-                        verifyNamingConvention(schemaLocations.getLast(), name, type, TYPE_SUFFIX);
-                        preparePropertyDefinitions(type);
-                        addProperty(null, type, false, false, doc);
+                        preparePropertyDefinitions(d.type);
+                        addProperty(location, null, d.type, false, false, doc);
                         currentProperties = null;
                     }
-                    return;                             // Ignore children (they are about documentation).
+                    break;
                 }
                 /*
                  * <xs:complexType name="(…)_Type">
-                 * <xs:complexType name="(…)_PropertyType">
+                 *
+                 * Replace some ISO 19115-2 types by ISO 19115-1 types. For example "MI_Band_Type" is renamed as
+                 * "MD_Band_Type". We do that because we use only one class for representing those two distincts
+                 * ISO types. Note that not all ISO 19115-2 types extend an ISO 19115-1 type, so we need to apply
+                 * a case-by-case approach.
                  */
-                case "complexType": {
-                    String name = getMandatoryAttribute(node, "name");
-                    if (name.endsWith(PROPERTY_TYPE_SUFFIX)) {
-                        currentPropertyType = name;
-                        verifyPropertyType(node);
-                        currentPropertyType = null;
-                    } else {
-                        /*
-                         * In the case of "(…)_PropertyType", replace some ISO 19115-2 types by ISO 19115-1 types.
-                         * For example "MI_Band_Type" is renamed as "MD_Band_Type". We do that because we use only
-                         * one class for representing those two distincts ISO types. Note that not all ISO 19115-2
-                         * types extend an ISO 19115-1 type, so we need to apply a case-by-case approach.
-                         */
-                        requiredByDefault = true;
-                        String parent = departures.mergedTypes.remove(name);
-                        if (parent != null) name = parent;
-                        preparePropertyDefinitions(name);
-                        storePropertyDefinition(node);
-                        currentProperties = null;
-                    }
-                    return;                             // Skip children since they have already been examined.
+                case Declaration.TYPE: {
+                    String name = d.name;
+                    String parent = departures.mergedTypes.remove(name);
+                    if (parent != null) name = parent;
+                    preparePropertyDefinitions(name);
+                    break;
+                }
+                /*
+                 * <xs:element name="(…)" type="(…)_PropertyType" minOccurs="(…)" maxOccurs="(…)">
+                 * Always after the declaration of the enclosing type.
+                 */
+                case Declaration.PROPERTY: {
+                    addProperty(location, d.name.intern(), d.type.intern(), d.isRequired, d.isCollection,
+                                documentation(d.documentation));
+                    break;
                 }
             }
         }
-        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
-            storeClassDefinition(child);
+        currentProperties = null;
+    }
+
+    /**
+     * Returns {@code true} if the current element of the given reader is in the XML schema namespace.
+     *
+     * @param  reader  the reader positioned on a start element.
+     * @return whether the current element is in the XML schema namespace.
+     */
+    private static boolean isSchemaElement(final XMLStreamReader reader) {
+        return XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(reader.getNamespaceURI());
+    }
+
+    /**
+     * Stores information about classes in the given XSD file. This method scans all elements in document order,
+     * until we reach elements about properties (in which case we continue with
+     * {@link #storePropertyDefinitions(XMLStreamReader, List)}).
+     * This method can be invoked from any thread.
+     *
+     * @param  reader        the reader of the XSD file.
+     * @param  location      the URL of the XSD file, used in error messages.
+     * @param  declarations  where to add the declarations found in the XSD file.
+     * @throws XMLStreamException if an error occurred while reading the XSD file.
+     * @throws SchemaException if the XSD file does not follow the OGC/ISO conventions.
+     */
+    private static void storeClassDefinitions(final XMLStreamReader reader, final String location,
+            final List<Declaration> declarations) throws XMLStreamException, SchemaException
+    {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT && isSchemaElement(reader)) {
+                switch (reader.getLocalName()) {
+                    case "schema": {
+                        declarations.add(new Declaration(Declaration.NAMESPACE, getMandatoryAttribute(reader, "targetNamespace")));
+                        break;
+                    }
+                    /*
+                     * <xs:include schemaLocation="(…).xsd">
+                     * The schema will be loaded when the declarations will be applied.
+                     */
+                    case "include": {
+                        declarations.add(new Declaration(Declaration.INCLUDE, getMandatoryAttribute(reader, "schemaLocation")));
+                        skipElement(reader);                    // Skip children (normally, there is none).
+                        break;
+                    }
+                    /*
+                     * <xs:element name="(…)" type="(…)_Type">
+                     * Verify that the names comply with our assumptions.
+                     */
+                    case "element": {
+                        final String name = getMandatoryAttribute(reader, "name");
+                        final String type = getMandatoryAttribute(reader, "type");
+                        final String doc  = documentation(reader);      // Consume children (they are about documentation).
+                        if (!CODELIST_TYPE.equals(type)) {
+                            verifyNamingConvention(location, name, type, TYPE_SUFFIX);
+                        }
+                        declarations.add(new Declaration(Declaration.ELEMENT, name, type, doc, false, false));
+                        break;
+                    }
+                    /*
+                     * <xs:complexType name="(…)_Type">
+                     * <xs:complexType name="(…)_PropertyType">
+                     */
+                    case "complexType": {
+                        final String name = getMandatoryAttribute(reader, "name");
+                        if (name.endsWith(PROPERTY_TYPE_SUFFIX)) {
+                            verifyPropertyType(reader, location, name);
+                        } else {
+                            declarations.add(new Declaration(Declaration.TYPE, name));
+                            storePropertyDefinitions(reader, declarations);
+                        }
+                        break;
+                    }
+                }
+            }
         }
     }
 
     /**
-     * Stores information about properties in the current class. The {@link #currentProperties} field must be
-     * set to the map of properties for the class defined by the enclosing {@code <xs:complexType>} element.
-     * This method parses elements of the following form:
+     * Stores information about properties in the class defined by the current {@code <xs:complexType>} element.
+     * This method consumes all children of the current element and parses elements of the following form:
      *
      * {@preformat xml
      *   <xs:element name="(…)" type="(…)_PropertyType" minOccurs="(…)" maxOccurs="(…)">
      * }
+     *
+     * The default value for the {@code required} attribute should be {@code true} for properties declared
+     * inside a {@code <sequence>} element, and {@code false} for properties declared inside a {@code <choice>}
+     * element.
+     *
+     * @param  reader        the reader positioned on the {@code <xs:complexType>} start element.
+     * @param  declarations  where to add the property declarations.
+     * @throws XMLStreamException if an error occurred while reading the XSD file.
+     * @throws SchemaException if a mandatory attribute is missing or a type does not have the expected suffix.
      */
-    private void storePropertyDefinition(final Node node) throws SchemaException {
-        if (XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(node.getNamespaceURI())) {
-            switch (node.getLocalName()) {
-                case "sequence": {
-                    requiredByDefault = true;
+    private static void storePropertyDefinitions(final XMLStreamReader reader, final List<Declaration> declarations)
+            throws XMLStreamException, SchemaException
+    {
+        boolean requiredByDefault = true;
+        int depth = 0;
+        while (true) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT: {
+                    if (isSchemaElement(reader)) {
+                        switch (reader.getLocalName()) {
+                            case "sequence": {
+                                requiredByDefault = true;
+                                break;
+                            }
+                            case "choice": {
+                                requiredByDefault = false;
+                                break;
+                            }
+                            case "element": {
+                                boolean isRequired = requiredByDefault;
+                                boolean isCollection = false;
+                                String value = reader.getAttributeValue(null, "minOccurs");
+                                if (value != null) {
+                                    isRequired = Integer.parseInt(value) > 0;
+                                }
+                                value = reader.getAttributeValue(null, "maxOccurs");
+                                if (value != null) {
+                                    isCollection = value.equals("unbounded") || Integer.parseInt(value) >  1;
+                                }
+                                final String name = getMandatoryAttribute(reader, "name");
+                                final String type = trim(getMandatoryAttribute(reader, "type"), PROPERTY_TYPE_SUFFIX);
+                                declarations.add(new Declaration(Declaration.PROPERTY, name, type,
+                                        documentation(reader), isRequired, isCollection));
+                                continue;                       // Children have been consumed.
+                            }
+                        }
+                    }
+                    depth++;
                     break;
                 }
-                case "choice": {
-                    requiredByDefault = false;
+                case XMLStreamConstants.END_ELEMENT: {
+                    if (--depth < 0) return;
                     break;
                 }
-                case "element": {
-                    boolean isRequired = requiredByDefault;
-                    boolean isCollection = false;
-                    final NamedNodeMap attributes = node.getAttributes();
-                    if (attributes != null) {
-                        Node attr = attributes.getNamedItem("minOccurs");
-                        if (attr != null) {
-                            final String value = attr.getNodeValue();
-                            if (value != null) {
-                                isRequired = Integer.parseInt(value) > 0;
+            }
+        }
+    }
+
+    /**
+     * Verifies the naming convention of property defined by the current {@code <xs:complexType>} element.
+     * This method consumes all children of the current element and parses elements of the following form:
+     *
+     * {@preformat xml
+     *   <xs:element ref="(…)">
+     * }
+     *
+     * @param  reader        the reader positioned on the {@code <xs:complexType>} start element.
+     * @param  location      the URL of the XSD file, used in error messages.
+     * @param  propertyType  the type of the property defined by the enclosing {@code <xs:complexType>} element.
+     * @throws XMLStreamException if an error occurred while reading the XSD file.
+     * @throws SchemaException if the property type does not follow the OGC/ISO conventions.
+     */
+    private static void verifyPropertyType(final XMLStreamReader reader, final String location, final String propertyType)
+            throws XMLStreamException, SchemaException
+    {
+        int depth = 0;
+        while (true) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT: {
+                    if (isSchemaElement(reader)) {
+                        switch (reader.getLocalName()) {
+                            case "element": {
+                                verifyNamingConvention(location, getMandatoryAttribute(reader, "ref"), propertyType, PROPERTY_TYPE_SUFFIX);
+                                skipElement(reader);
+                                continue;
                             }
-                        }
-                        attr = attributes.getNamedItem("maxOccurs");
-                        if (attr != null) {
-                            final String value = attr.getNodeValue();
-                            if (value != null) {
-                                isCollection = value.equals("unbounded") || Integer.parseInt(value) >  1;
+                            case "choice": {
+                                /*
+                                 * <xs:choice> is used for unions. In those case, many <xs:element> are expected,
+                                 * and none of them may have the union name. So we have to skip verification here.
+                                 */
+                                skipElement(reader);
+                                continue;
                             }
                         }
                     }
-                    addProperty(getMandatoryAttribute(node, "name").intern(),
-                           trim(getMandatoryAttribute(node, "type"), PROPERTY_TYPE_SUFFIX).intern(),
-                           isRequired, isCollection, documentation(node));
-                    return;
+                    depth++;
+                    break;
+                }
+                case XMLStreamConstants.END_ELEMENT: {
+                    if (--depth < 0) return;
+                    break;
                 }
             }
         }
-        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
-            storePropertyDefinition(child);
+    }
+
+    /**
+     * Skips all children of the current element, up to and including the end of the current element.
+     *
+     * @param  reader  the reader positioned on a start element.
+     * @throws XMLStreamException if an error occurred while reading the XSD file.
+     */
+    private static void skipElement(final XMLStreamReader reader) throws XMLStreamException {
+        int depth = 0;
+        while (true) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT: depth++; break;
+                case XMLStreamConstants.END_ELEMENT: if (--depth < 0) return; break;
+            }
         }
     }
 
     /**
-     * Verifies the naming convention of property defined by the given node. The {@link #currentPropertyType}
-     * field must be set to the type of the property defined by the enclosing {@code <xs:complexType>} element.
-     * This method parses elements of the following form:
+     * Returns the documentation of the current element, as the text of the {@code <documentation>} element
+     * in the first {@code <annotation>} child. This method consumes all children of the current element.
      *
-     * {@preformat xml
-     *   <xs:element ref="(…)">
-     * }
+     * @param  reader  the reader positioned on a start element.
+     * @return the documentation, or {@code null} if none.
+     * @throws XMLStreamException if an error occurred while reading the XSD file.
      */
-    private void verifyPropertyType(final Node node) throws SchemaException {
-        if (XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(node.getNamespaceURI())) {
-            switch (node.getLocalName()) {
-                case "element": {
-                    verifyNamingConvention(schemaLocations.getLast(),
-                            getMandatoryAttribute(node, "ref"), currentPropertyType, PROPERTY_TYPE_SUFFIX);
-                    return;
+    private static String documentation(final XMLStreamReader reader) throws XMLStreamException {
+        String doc = null;
+        boolean found = false;
+        int level = 1;          // Depth of the elements where to search for "annotation" or "documentation".
+        int depth = 0;
+        while (true) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT: {
+                    if (!found && ++depth == level) {
+                        switch (reader.getLocalName()) {
+                            case "annotation": {
+                                level++;        // Expect "documentation" as a child of "annotation".
+                                continue;
+                            }
+                            case "documentation": {
+                                doc = textContent(reader);
+                                found = true;
+                                depth--;
+                                continue;
+                            }
+                        }
+                    } else if (found) {
+                        depth++;
+                    }
+                    break;
                 }
-                case "choice": {
-                    /*
-                     * <xs:choice> is used for unions. In those case, many <xs:element> are expected,
-                     * and none of them may have the union name. So we have to stop verification here.
-                     */
-                    return;
+                case XMLStreamConstants.END_ELEMENT: {
+                    if (depth == 0) return doc;
+                    if (depth < level) found = true;        // Leaving "annotation" without documentation.
+                    depth--;
+                    break;
                 }
             }
         }
-        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
-            verifyPropertyType(child);
+    }
+
+    /**
+     * Returns the concatenation of all texts in the current element and its children.
+     * This method consumes all children of the current element.
+     *
+     * @param  reader  the reader positioned on a start element.
+     * @return the text content of the current element.
+     * @throws XMLStreamException if an error occurred while reading the XSD file.
+     */
+    private static String textContent(final XMLStreamReader reader) throws XMLStreamException {
+        final StringBuilder text = new StringBuilder();
+        int depth = 0;
+        while (true) {
+            switch (reader.next()) {
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE: text.append(reader.getText()); break;
+                case XMLStreamConstants.START_ELEMENT: depth++; break;
+                case XMLStreamConstants.END_ELEMENT: if (--depth < 0) return text.toString(); break;
+            }
         }
     }
 
@@ -568,7 +1158,7 @@ public class SchemaInformation {
      * @param  name       the class or property name. Example: {@code "MD_Metadata"}, {@code "citation"}.
      * @param  type       the type of the above named object. Example: {@code "MD_Metadata_Type"}, {@code "CI_Citation_PropertyType"}.
      * @param  suffix     the expected suffix at the end of {@code type}.
-     * @throws SchemaException if the given {@code name} and {@code type} are not compliant with expected convention.
+     * @throws SchemaException if the given {@code name} and {@code type} are not compliant with expected convention.
      */
     private static void verifyNamingConvention(final String enclosing,
             final String name, final String type, final String suffix) throws SchemaException
@@ -592,48 +1182,51 @@ public class SchemaInformation {
     }
 
     /**
-     * Adds a property of the current name and type. This method is invoked during schema parsing.
+     * Adds a property of the current name and type. This method is invoked when applying the schema declarations.
      * The property namespace is assumed to be {@link #targetNamespace}.
+     *
+     * @param  location       the URL of the XSD file, used in error messages.
+     * @param  name           the property name, or {@code null} for the class definition.
+     * @param  type           the property type (without suffix).
+     * @param  isRequired     whether the property is mandatory.
+     * @param  isCollection   whether the property accepts many items.
+     * @param  documentation  the documentation, or {@code null} if none.
+     * @throws SchemaException if the property was already associated to another type.
      */
-    private void addProperty(final String name, final String type, final boolean isRequired, final boolean isCollection,
-            final String documentation) throws SchemaException
+    private void addProperty(final String location, final String name, final String type,
+            final boolean isRequired, final boolean isCollection, final String documentation) throws SchemaException
     {
         final Element info = new Element(type, targetNamespace, isRequired, isCollection, documentation);
         final Element old = currentProperties.put(name, info);
         if (old != null && !old.nameEqual(info)) {
             throw new SchemaException(String.format("Error while parsing %s:%n" +
                     "Property \"%s\" is associated to type \"%s\", but that property was already associated to \"%s\".",
-                    schemaLocations.getLast(), name, type, old));
+                    location, name, type, old));
         }
     }
 
     /**
-     * Returns the documentation for the given node, with the first letter made upper case
-     * and a dot added at the end of the sentence. Null or empty texts are ignored.
+     * Returns the given documentation in the style specified at construction time.
+     * If the style is {@link DocumentationStyle#SENTENCE}, then the first letter is made upper case
+     * and a dot is added at the end of the sentence. Null or empty texts are ignored.
+     *
+     * @param  doc  the documentation as found in the XSD file, or {@code null}.
+     * @return the documentation in the requested style, or {@code null}.
      */
-    private String documentation(Node node) {
-        if (documentationStyle != DocumentationStyle.NONE) {
-            node = node.getFirstChild();
-            while (node != null) {
-                final String name = node.getLocalName();
-                if (name != null) switch (name) {
-                    case "annotation": {
-                        node = node.getFirstChild();        // Expect "documentation" as a child of "annotation".
-                        continue;
-                    }
-                    case "documentation": {
-                        String doc = node.getTextContent();
-                        if (doc != null && documentationStyle == DocumentationStyle.SENTENCE) {
-                            doc = DocumentationStyle.sentence(doc, buffer);
-                            buffer.setLength(0);
-                        }
-                        return doc;
-                    }
+    private String documentation(String doc) {
+        switch (documentationStyle) {
+            case NONE: {
+                return null;
+            }
+            case SENTENCE: {
+                if (doc != null) {
+                    doc = DocumentationStyle.sentence(doc, buffer);
+                    buffer.setLength(0);
                 }
-                node = node.getNextSibling();
+                break;
             }
         }
-        return null;
+        return doc;
     }
 
     /**
@@ -655,21 +1248,25 @@ public class SchemaInformation {
     }
 
     /**
-     * Returns the attribute of the given name in the given node,
+     * Returns the attribute of the given name in the current element,
      * or throws an exception if the attribute is not present.
+     *
+     * @param  reader  the reader positioned on a start element.
+     * @param  name    the name of the attribute to get.
+     * @return the attribute value.
+     * @throws SchemaException if the attribute is not present.
      */
-    private static String getMandatoryAttribute(final Node node, final String name) throws SchemaException {
-        final NamedNodeMap attributes = node.getAttributes();
-        if (attributes != null) {
-            final Node attr = attributes.getNamedItem(name);
-            if (attr != null) {
-                final String value = attr.getNodeValue();
-                if (value != null) {
-                    return value;
-                }
-            }
+    private static String getMandatoryAttribute(final XMLStreamReader reader, final String name) throws SchemaException {
+        final String value = reader.getAttributeValue(null, name);
+        if (value != null) {
+            return value;
+        }
+        String element = reader.getLocalName();
+        final String prefix = reader.getPrefix();
+        if (prefix != null && !prefix.isEmpty()) {
+            element = prefix + PREFIX_SEPARATOR + element;
         }
-        throw new SchemaException(String.format("Node \"%s\" should have a '%s' attribute.", node.getNodeName(), name));
+        throw new SchemaException(String.format("Node \"%s\" should have a '%s' attribute.", element, name));
     }
 
     /**
@@ -217,4 +217,20 @@ public final strictfp class CodeListTest {
         assertSame(Restriction.LICENCE,   Restriction.valueOf("LICENCE"));
         assertSame(Restriction.LICENCE,   Restriction.valueOf("LICENSE"));
     }
+
+    /**
+     * Tests {@link CodeList#forIdentifier(Class, String)}, including for a code created after
+     * the first invocation of that method.
+     */
+    @Test
+    public void testForIdentifier() {
+        assertSame(CharacterSet.UTF_8,        CodeList.forIdentifier(CharacterSet.class, "utf8"));
+        assertSame(Restriction.COPYRIGHT,     CodeList.forIdentifier(Restriction.class, "copyright"));
+        assertSame(Restriction.IN_CONFIDENCE, CodeList.forIdentifier(Restriction.class, "in-confidence"));
+        assertNull(CodeList.forIdentifier(Restriction.class, "COPYRIGHT"));
+        assertNull(CodeList.forIdentifier(Restriction.class, null));
+        final Restriction code = Restriction.valueOf("MyIdentifierTest");
+        assertSame(code, CodeList.valueOf(Restriction.class, " MyIdentifierTest "));
+        assertNull(CodeList.forIdentifier(Restriction.class, "MyIdentifierTest"));
+    }
 }
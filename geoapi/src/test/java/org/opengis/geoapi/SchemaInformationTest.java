@@ -0,0 +1,505 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    Copyright (C) 2018 Open Geospatial Consortium, Inc.
+ *    All Rights Reserved. http://www.opengeospatial.org/ogc/legal
+ *
+ *    Permission to use, copy, and modify this software and its documentation, with
+ *    or without modification, for any purpose and without fee or royalty is hereby
+ *    granted, provided that you include the following on ALL copies of the software
+ *    and documentation or portions thereof, including modifications, that you make:
+ *
+ *    1. The full text of this NOTICE in a location viewable to users of the
+ *       redistributed or derivative work.
+ *    2. Notice of any changes or modifications to the OGC files, including the
+ *       date changes were made.
+ *
+ *    THIS SOFTWARE AND DOCUMENTATION IS PROVIDED "AS IS," AND COPYRIGHT HOLDERS MAKE
+ *    NO REPRESENTATIONS OR WARRANTIES, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+ *    TO, WARRANTIES OF MERCHANTABILITY OR FITNESS FOR ANY PARTICULAR PURPOSE OR THAT
+ *    THE USE OF THE SOFTWARE OR DOCUMENTATION WILL NOT INFRINGE ANY THIRD PARTY
+ *    PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER RIGHTS.
+ *
+ *    COPYRIGHT HOLDERS WILL NOT BE LIABLE FOR ANY DIRECT, INDIRECT, SPECIAL OR
+ *    CONSEQUENTIAL DAMAGES ARISING OUT OF ANY USE OF THE SOFTWARE OR DOCUMENTATION.
+ *
+ *    The name and trademarks of copyright holders may NOT be used in advertising or
+ *    publicity pertaining to the software without specific, written prior permission.
+ *    Title to copyright in this software and any associated documentation will at all
+ *    times remain with copyright holders.
+ */
+package org.opengis.geoapi;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.List;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Files;
+import java.nio.file.DirectoryStream;
+import java.nio.file.attribute.FileTime;
+import java.nio.charset.StandardCharsets;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.w3c.dom.Node;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link SchemaInformation} on small synthetic schemas. The results of the StAX-based loader are
+ * compared with the results of a DOM-based reference implementation, which follows the algorithm used
+ * by {@code SchemaInformation} before the schemas were parsed in background threads. The binary cache
+ * is tested with cold, warm, truncated and corrupted cache files.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+public final strictfp class SchemaInformationTest {
+    /**
+     * Path of the main test schema, relative to the schema root directory.
+     */
+    private static final String MAIN = "19115/-3/tst/1.0/tst.xsd";
+
+    /**
+     * The main test schema. Includes {@link #BASE} and declares a type, a property type and a code list.
+     * Properties are declared in sequences and choices, with various cardinalities.
+     */
+    private static final String MAIN_CONTENT =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\"\n" +
+            "           xmlns:gco=\"http://standards.iso.org/iso/19115/-3/gco/1.0\"\n" +
+            "           xmlns:tst=\"http://standards.iso.org/iso/19115/-3/tst/1.0\"\n" +
+            "           targetNamespace=\"http://standards.iso.org/iso/19115/-3/tst/1.0\">\n" +
+            "  <xs:include schemaLocation=\"base.xsd\"/>\n" +
+            "  <xs:element name=\"TS_Dataset\" type=\"tst:TS_Dataset_Type\">\n" +
+            "    <xs:annotation><xs:documentation>a dataset <b>described</b> for testing</xs:documentation></xs:annotation>\n" +
+            "  </xs:element>\n" +
+            "  <xs:complexType name=\"TS_Dataset_Type\">\n" +
+            "    <xs:complexContent>\n" +
+            "      <xs:extension base=\"tsb:TS_Base_Type\">\n" +
+            "        <xs:sequence>\n" +
+            "          <xs:element name=\"title\" type=\"gco:CharacterString_PropertyType\">\n" +
+            "            <xs:annotation><xs:documentation>name of the dataset</xs:documentation></xs:annotation>\n" +
+            "          </xs:element>\n" +
+            "          <xs:element name=\"keyword\" type=\"gco:CharacterString_PropertyType\" minOccurs=\"0\" maxOccurs=\"unbounded\"/>\n" +
+            "          <xs:choice>\n" +
+            "            <xs:element name=\"extent\" type=\"tsb:TS_Base_PropertyType\"/>\n" +
+            "            <xs:element name=\"area\" type=\"tsb:TS_Base_PropertyType\" minOccurs=\"1\" maxOccurs=\"2\"/>\n" +
+            "          </xs:choice>\n" +
+            "          <xs:element name=\"note\" type=\"gco:CharacterString_PropertyType\"/>\n" +
+            "        </xs:sequence>\n" +
+            "      </xs:extension>\n" +
+            "    </xs:complexContent>\n" +
+            "  </xs:complexType>\n" +
+            "  <xs:complexType name=\"TS_Dataset_PropertyType\">\n" +
+            "    <xs:sequence minOccurs=\"0\"><xs:element ref=\"tst:TS_Dataset\"/></xs:sequence>\n" +
+            "  </xs:complexType>\n" +
+            "  <xs:element name=\"TS_Code\" type=\"gco:CodeListValue_Type\">\n" +
+            "    <xs:annotation><xs:documentation>a code list</xs:documentation></xs:annotation>\n" +
+            "  </xs:element>\n" +
+            "</xs:schema>\n";
+
+    /**
+     * Path of the included test schema, relative to the schema root directory.
+     */
+    private static final String BASE = "19115/-3/tst/1.0/base.xsd";
+
+    /**
+     * The included test schema, in a different namespace than the including schema.
+     */
+    private static final String BASE_CONTENT =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\"\n" +
+            "           xmlns:gco=\"http://standards.iso.org/iso/19115/-3/gco/1.0\"\n" +
+            "           xmlns:tsb=\"http://standards.iso.org/iso/19115/-3/tsb/1.0\"\n" +
+            "           targetNamespace=\"http://standards.iso.org/iso/19115/-3/tsb/1.0\">\n" +
+            "  <xs:element name=\"TS_Base\" type=\"tsb:TS_Base_Type\"/>\n" +
+            "  <xs:complexType name=\"TS_Base_Type\">\n" +
+            "    <xs:sequence>\n" +
+            "      <xs:element name=\"identifier\" type=\"gco:CharacterString_PropertyType\" minOccurs=\"0\"/>\n" +
+            "    </xs:sequence>\n" +
+            "  </xs:complexType>\n" +
+            "  <xs:complexType name=\"TS_Base_PropertyType\">\n" +
+            "    <xs:choice><xs:element ref=\"tsb:TS_Base\"/><xs:element ref=\"tsb:Other\"/></xs:choice>\n" +
+            "  </xs:complexType>\n" +
+            "</xs:schema>\n";
+
+    /**
+     * Temporary directory containing the test schemas and the cache.
+     */
+    private Path directory;
+
+    /**
+     * Creates the test schemas in a temporary directory.
+     *
+     * @throws IOException if an error occurred while writing the files.
+     */
+    @Before
+    public void createSchemas() throws IOException {
+        directory = Files.createTempDirectory("geoapi");
+        final Path main = directory.resolve("schemas").resolve(MAIN);
+        Files.createDirectories(main.getParent());
+        Files.write(main, MAIN_CONTENT.getBytes(StandardCharsets.UTF_8));
+        Files.write(directory.resolve("schemas").resolve(BASE), BASE_CONTENT.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Deletes the temporary directory.
+     *
+     * @throws IOException if an error occurred while deleting the files.
+     */
+    @After
+    public void deleteSchemas() throws IOException {
+        delete(directory);
+    }
+
+    /**
+     * Deletes the given file or directory, including sub-directories.
+     *
+     * @param  path  the file or directory to delete.
+     * @throws IOException if an error occurred while deleting the files.
+     */
+    private static void delete(final Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            try (DirectoryStream<Path> content = Files.newDirectoryStream(path)) {
+                for (final Path p : content) {
+                    delete(p);
+                }
+            }
+        }
+        Files.delete(path);
+    }
+
+    /**
+     * Loads the test schemas with {@link SchemaInformation}.
+     *
+     * @param  cache  the cache directory, or {@code null} if none.
+     * @return the loaded schema information.
+     * @throws Exception if an error occurred while reading the schemas.
+     */
+    private SchemaInformation load(final Path cache) throws Exception {
+        final SchemaInformation info = new SchemaInformation(directory.resolve("schemas"),
+                new Departures(), DocumentationStyle.VERBATIM);
+        info.setCacheDirectory(cache);
+        info.loadSchema(SchemaInformation.ROOT_NAMESPACE + MAIN);
+        return info;
+    }
+
+    /**
+     * Verifies that the type definitions loaded by the given object are the same than the ones
+     * loaded by the DOM-based reference implementation, including the order of properties.
+     *
+     * @param  info  the schema information to verify.
+     * @throws Exception if an error occurred while reading the schemas with the reference implementation.
+     */
+    private void compareWithDOM(final SchemaInformation info) throws Exception {
+        final Reference reference = new Reference();
+        reference.load(directory.resolve("schemas").resolve(MAIN));
+        assertTrue("TS_Dataset",  reference.types.containsKey("TS_Dataset"));
+        assertTrue("TS_Base",     reference.types.containsKey("TS_Base"));
+        assertTrue("TS_Code",     reference.types.containsKey("TS_Code"));
+        for (final Map.Entry<String, Map<String,String>> entry : reference.types.entrySet()) {
+            final String type = entry.getKey();
+            final Map<String,SchemaInformation.Element> actual = info.getTypeDefinition(type);
+            assertNotNull(type, actual);
+            final Map<String,String> summary = new LinkedHashMap<>();
+            for (final Map.Entry<String,SchemaInformation.Element> p : actual.entrySet()) {
+                final SchemaInformation.Element e = p.getValue();
+                summary.put(p.getKey(), summary(e.typeName, e.namespace, e.isRequired, e.isCollection, e.documentation));
+            }
+            final Map<String,String> expected = entry.getValue();
+            assertEquals(type, expected, summary);
+            if (expected instanceof LinkedHashMap) {
+                assertEquals(type, new ArrayList<>(expected.keySet()), new ArrayList<>(summary.keySet()));
+            }
+        }
+        /*
+         * Verify a few values explicitly, in case the reference implementation has the same bug.
+         */
+        final Map<String,SchemaInformation.Element> dataset = info.getTypeDefinition("TS_Dataset");
+        assertEquals("tst:TS_Dataset_Type", dataset.get(null).typeName);
+        assertEquals("a dataset described for testing", dataset.get(null).documentation);
+        assertEquals(SchemaInformation.ROOT_NAMESPACE + "19115/-3/tst/1.0", dataset.get("title").namespace);
+        assertTrue ("title",   dataset.get("title")  .isRequired);
+        assertFalse("keyword", dataset.get("keyword").isRequired);
+        assertTrue ("keyword", dataset.get("keyword").isCollection);
+        assertFalse("extent",  dataset.get("extent") .isRequired);
+        assertTrue ("area",    dataset.get("area")   .isCollection);
+        assertEquals(SchemaInformation.ROOT_NAMESPACE + "19115/-3/tsb/1.0",
+                     info.getTypeDefinition("TS_Base").get("identifier").namespace);
+    }
+
+    /**
+     * Returns a string representation of the given property information, for comparison purpose.
+     *
+     * @param  typeName       the element type name.
+     * @param  namespace      element namespace as an URI.
+     * @param  isRequired     whether the property is mandatory.
+     * @param  isCollection   whether the property accepts many items.
+     * @param  documentation  documentation, or {@code null} if none.
+     * @return a string representation of the given information.
+     */
+    private static String summary(final String typeName, final String namespace,
+            final boolean isRequired, final boolean isCollection, final String documentation)
+    {
+        return typeName + " | " + namespace + " | " + isRequired + " | " + isCollection + " | " + documentation;
+    }
+
+    /**
+     * Compares the StAX-based loader with the DOM-based reference implementation.
+     *
+     * @throws Exception if an error occurred while reading the schemas.
+     */
+    @Test
+    public void testStaxMatchesDOM() throws Exception {
+        compareWithDOM(load(null));
+    }
+
+    /**
+     * Tests the binary cache with cold and warm runs. The warm run shall read the cache files
+     * without rewriting them, and produce the same results than the XML parsing.
+     *
+     * @throws Exception if an error occurred while reading the schemas or the cache.
+     */
+    @Test
+    public void testCache() throws Exception {
+        final Path cache = directory.resolve("cache");
+        compareWithDOM(load(cache));
+        final List<Path> files = cacheFiles(cache);
+        assertEquals("Expected one cache file per schema.", 2, files.size());
+        for (final Path file : files) {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(0));
+        }
+        compareWithDOM(load(cache));
+        for (final Path file : files) {
+            assertEquals("Cache file shall be read, not rewritten.", 0, Files.getLastModifiedTime(file).toMillis());
+        }
+    }
+
+    /**
+     * Tests the binary cache with truncated and corrupted cache files.
+     * The schemas shall be parsed again and the cache files replaced.
+     *
+     * @throws Exception if an error occurred while reading the schemas or the cache.
+     */
+    @Test
+    public void testCorruptedCache() throws Exception {
+        final Path cache = directory.resolve("cache");
+        load(cache);
+        final List<Path> files = cacheFiles(cache);
+        assertEquals(2, files.size());
+        final byte[][] valid = new byte[files.size()][];
+        for (int i=0; i<valid.length; i++) {
+            final Path file = files.get(i);
+            valid[i] = Files.readAllBytes(file);
+            final byte[] damaged;
+            if (i == 0) {
+                damaged = Arrays.copyOf(valid[i], valid[i].length / 2);               // Truncated file.
+            } else {
+                damaged = valid[i].clone();
+                damaged[damaged.length * 3 / 4] ^= 0x5A;                                // Corrupted byte.
+            }
+            Files.write(file, damaged);
+        }
+        compareWithDOM(load(cache));
+        for (int i=0; i<valid.length; i++) {
+            assertArrayEquals("Cache file shall be rewritten.", valid[i], Files.readAllBytes(files.get(i)));
+        }
+    }
+
+    /**
+     * Returns the cache files in the given directory, in alphabetical order.
+     *
+     * @param  cache  the cache directory.
+     * @return the cache files.
+     * @throws IOException if an error occurred while listing the files.
+     */
+    private static List<Path> cacheFiles(final Path cache) throws IOException {
+        final List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> content = Files.newDirectoryStream(cache, "*.bin")) {
+            for (final Path p : content) {
+                files.add(p);
+            }
+        }
+        files.sort(null);
+        return files;
+    }
+
+    /**
+     * A DOM-based loader of schemas, used as a reference for verifying the results of {@link SchemaInformation}.
+     * Property information are represented by strings created by {@link #summary summary(…)}.
+     */
+    private static final class Reference {
+        /** Summary of properties for each type, with the {@code null} key for the type itself. */
+        final Map<String, Map<String,String>> types = new HashMap<>();
+
+        /** Schemas already loaded. */
+        private final Set<Path> loaded = new HashSet<>();
+
+        /** The DOM factory. */
+        private final DocumentBuilderFactory factory;
+
+        /** Namespace of the types and properties being defined. */
+        private String namespace;
+
+        /** The properties of the type being defined. */
+        private Map<String,String> properties;
+
+        /** Whether properties are required when {@code minOccurs} is not specified. */
+        private boolean requiredByDefault;
+
+        /** Creates a new reference loader. */
+        Reference() {
+            factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+        }
+
+        /**
+         * Loads the given schema and all included schemas.
+         *
+         * @param  file  the schema to load.
+         * @throws Exception if an error occurred while reading the schemas.
+         */
+        void load(final Path file) throws Exception {
+            if (loaded.add(file.normalize())) {
+                storeClassDefinition(factory.newDocumentBuilder().parse(file.toFile()), file);
+            }
+        }
+
+        /**
+         * Stores information about the types declared in the given node and its children.
+         *
+         * @param  node  the node to examine.
+         * @param  file  the schema containing the node, used for resolving included schemas.
+         * @throws Exception if an error occurred while reading an included schema.
+         */
+        private void storeClassDefinition(final Node node, final Path file) throws Exception {
+            if (XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(node.getNamespaceURI())) {
+                switch (node.getLocalName()) {
+                    case "schema": {
+                        namespace = attribute(node, "targetNamespace");
+                        break;
+                    }
+                    case "include": {
+                        final String old = namespace;
+                        load(file.resolveSibling(attribute(node, "schemaLocation")));
+                        namespace = old;
+                        return;
+                    }
+                    case "element": {
+                        final String name = attribute(node, "name");
+                        final String type = attribute(node, "type");
+                        final String doc  = documentation(node);
+                        if (type.equals("gco:CodeListValue_Type")) {
+                            final Map<String,String> codes = new HashMap<>();
+                            final String info = summary(null, namespace, false, false, doc);
+                            codes.put(null, info);
+                            codes.put(name, info);
+                            assertNull(name, types.put(name, codes));
+                        } else {
+                            types.computeIfAbsent(trim(type, "_Type"), (k) -> new LinkedHashMap<>())
+                                 .put(null, summary(type, namespace, false, false, doc));
+                        }
+                        return;
+                    }
+                    case "complexType": {
+                        final String name = attribute(node, "name");
+                        if (!name.endsWith("_PropertyType")) {
+                            properties = types.computeIfAbsent(trim(name, "_Type"), (k) -> new LinkedHashMap<>());
+                            requiredByDefault = true;
+                            storePropertyDefinition(node);
+                            properties = null;
+                        }
+                        return;
+                    }
+                }
+            }
+            for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                storeClassDefinition(child, file);
+            }
+        }
+
+        /**
+         * Stores information about the properties declared in the given node and its children.
+         *
+         * @param  node  the node to examine.
+         */
+        private void storePropertyDefinition(final Node node) {
+            if (XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(node.getNamespaceURI())) {
+                switch (node.getLocalName()) {
+                    case "sequence": requiredByDefault = true;  break;
+                    case "choice":   requiredByDefault = false; break;
+                    case "element": {
+                        final String min = attribute(node, "minOccurs");
+                        final String max = attribute(node, "maxOccurs");
+                        final boolean isRequired   = (min != null) ? Integer.parseInt(min) > 0 : requiredByDefault;
+                        final boolean isCollection = (max != null) && (max.equals("unbounded") || Integer.parseInt(max) > 1);
+                        properties.put(attribute(node, "name"), summary(trim(attribute(node, "type"), "_PropertyType"),
+                                       namespace, isRequired, isCollection, documentation(node)));
+                        return;
+                    }
+                }
+            }
+            for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                storePropertyDefinition(child);
+            }
+        }
+
+        /**
+         * Returns the text of the {@code <documentation>} element in the first {@code <annotation>} child.
+         *
+         * @param  node  the node for which to get the documentation.
+         * @return the documentation, or {@code null} if none.
+         */
+        private static String documentation(Node node) {
+            node = node.getFirstChild();
+            while (node != null) {
+                final String name = node.getLocalName();
+                if ("annotation".equals(name)) {
+                    node = node.getFirstChild();
+                    continue;
+                }
+                if ("documentation".equals(name)) {
+                    return node.getTextContent();
+                }
+                node = node.getNextSibling();
+            }
+            return null;
+        }
+
+        /**
+         * Returns the value of the given attribute, or {@code null} if none.
+         *
+         * @param  node  the node from which to get the attribute.
+         * @param  name  name of the attribute.
+         * @return the attribute value, or {@code null} if none.
+         */
+        private static String attribute(final Node node, final String name) {
+            final Node attribute = node.getAttributes().getNamedItem(name);
+            return (attribute != null) ? attribute.getNodeValue() : null;
+        }
+
+        /**
+         * Removes the prefix and the given suffix from the given name.
+         *
+         * @param  name    the name to trim.
+         * @param  suffix  the expected suffix.
+         * @return the name without prefix and suffix.
+         */
+        private static String trim(final String name, final String suffix) {
+            assertTrue(name, name.endsWith(suffix));
+            return name.substring(name.indexOf(':') + 1, name.length() - suffix.length());
+        }
+    }
+}
@@ -173,6 +173,18 @@ public abstract strictfp class SourceGenerator {
         return dir;
     }
 
+    /**
+     * Returns a sub-directory of the Maven {@code target} directory of the GeoAPI module. This is used for files
+     * created by the build, for example caches. Contrarily to the temporary directory of the operating system,
+     * this directory is not shared with other users and is deleted by {@code mvn clean}.
+     *
+     * @param  name  name of the sub-directory in the {@code target} directory.
+     * @return the {@code "geoapi/target/<name>"} directory. May not exist yet.
+     */
+    protected static Path buildDirectory(final String name) {
+        return parent(targetDirectory(), "classes").resolve(name);
+    }
+
     /**
      * Prints the given message to standard output stream.
      * This method is used instead of logging for reporting creation of new files.
@@ -76,7 +76,7 @@ import static org.junit.Assert.*;
  *
  * @author  Martin Desruisseaux (Geomatys)
  * @since   3.1
- * @version 3.1
+ * @version 4.0
  */
 strictfp class JavaToPython extends SourceGenerator {
     /**
@@ -237,6 +237,7 @@ strictfp class JavaToPython extends SourceGenerator {
         namespaces.exclude("lan");          // Because it defines only "FreeText", which is not used here.
         namespaces.exclude("IO", "CD", "CS", "RS", "SC", "PT", "CT", "CC", "TM", "GM", "DQ", "GF");         // Not yet supported.
         schema = new SchemaInformation(schemaRootDirectory, new Departures(), DocumentationStyle.SENTENCE);
+        schema.setCacheDirectory(buildDirectory("schemas"));
         schema.loadDefaultSchemas();
     }
 
@@ -0,0 +1,480 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    Copyright (C) 2018 Open Geospatial Consortium, Inc.
+ *    All Rights Reserved. http://www.opengeospatial.org/ogc/legal
+ *
+ *    Permission to use, copy, and modify this software and its documentation, with
+ *    or without modification, for any purpose and without fee or royalty is hereby
+ *    granted, provided that you include the following on ALL copies of the software
+ *    and documentation or portions thereof, including modifications, that you make:
+ *
+ *    1. The full text of this NOTICE in a location viewable to users of the
+ *       redistributed or derivative work.
+ *    2. Notice of any changes or modifications to the OGC files, including the
+ *       date changes were made.
+ *
+ *    THIS SOFTWARE AND DOCUMENTATION IS PROVIDED "AS IS," AND COPYRIGHT HOLDERS MAKE
+ *    NO REPRESENTATIONS OR WARRANTIES, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+ *    TO, WARRANTIES OF MERCHANTABILITY OR FITNESS FOR ANY PARTICULAR PURPOSE OR THAT
+ *    THE USE OF THE SOFTWARE OR DOCUMENTATION WILL NOT INFRINGE ANY THIRD PARTY
+ *    PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER RIGHTS.
+ *
+ *    COPYRIGHT HOLDERS WILL NOT BE LIABLE FOR ANY DIRECT, INDIRECT, SPECIAL OR
+ *    CONSEQUENTIAL DAMAGES ARISING OUT OF ANY USE OF THE SOFTWARE OR DOCUMENTATION.
+ *
+ *    The name and trademarks of copyright holders may NOT be used in advertising or
+ *    publicity pertaining to the software without specific, written prior permission.
+ *    Title to copyright in this software and any associated documentation will at all
+ *    times remain with copyright holders.
+ */
+package org.opengis.tools.apt;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.List;
+import java.util.HashSet;
+import java.util.ArrayList;
+import java.io.File;
+import java.io.Writer;
+import java.io.IOException;
+import javax.tools.Diagnostic;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.util.Types;
+import javax.lang.model.util.Elements;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.SupportedSourceVersion;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+
+
+/**
+ * Generates one final class for each metadata interface annotated by {@link org.opengis.annotation.UML}.
+ * Each generated class stores the property values in typed fields (without boxing of primitive values)
+ * and provides an immutable builder. The generated classes extend {@code MetadataSnapshot} from the
+ * {@code geoapi-examples} module, which makes them equal to the metadata proxies having the same
+ * attribute values. The generated classes are used by
+ * {@code org.opengis.example.metadata.MetadataProxyFactory.createSnapshot(Class, Map)} when they are
+ * found on the classpath, as a faster alternative to {@link java.lang.reflect.Proxy}.
+ *
+ * <p>For each interface {@code Foo}, the generated {@code FooImpl} class provides:</p>
+ * <ul>
+ *   <li>A public constructor expecting a {@code Map<String,?>} of attribute values
+ *       keyed by UML identifiers, as expected by {@code MetadataProxyFactory}.</li>
+ *   <li>An immutable {@code FooImpl.Builder} nested class with a setter method for each property.
+ *       Each setter method returns a new builder.</li>
+ * </ul>
+ *
+ * Null attribute values are replaced by the same defaults than the ones used by the metadata proxies:
+ * {@code NaN} or zero for primitive types, and empty collections for collection types.
+ *
+ * <p><b><u>Usage</u></b></p>
+ * Instructions about this processor can be found one the <a href="http://www.geoapi.org/tools/index.html">Tools</a> page.
+ * Options are:
+ * <ul>
+ *   <li>{@code output} (mandatory): the root directory where to write the Java source files.</li>
+ *   <li>{@code package} (optional): the package of generated classes.
+ *       Default to {@value #DEFAULT_PACKAGE}.</li>
+ * </ul>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+@SupportedSourceVersion(SourceVersion.RELEASE_8)
+@SupportedAnnotationTypes(UmlProcessor.UML_CLASSNAME)
+@SupportedOptions({"output", "package"})
+public class MetadataClassGenerator extends UmlProcessor {
+    /**
+     * The default package of generated classes.
+     * This is the package where {@code MetadataProxyFactory} searches for generated classes.
+     */
+    static final String DEFAULT_PACKAGE = "org.opengis.example.metadata.generated";
+
+    /**
+     * The suffix appended to the interface name for creating the name of the generated class.
+     */
+    static final String SUFFIX = "Impl";
+
+    /**
+     * The base class of generated classes. That base class provides {@code equals(Object)},
+     * {@code hashCode()} and {@code toString()} methods consistent with the metadata proxies.
+     */
+    static final String BASE_CLASS = "org.opengis.example.metadata.MetadataSnapshot";
+
+    /**
+     * A property of a metadata interface, for which a field will be generated.
+     */
+    private static final class Property {
+        /** Name of the getter method. */
+        final String method;
+
+        /** Name of the field and of the setter method in the builder. */
+        final String field;
+
+        /** The UML identifier used as key in the map of attributes, or {@code null} if none. */
+        final String identifier;
+
+        /** The return type of the getter method. */
+        final TypeMirror type;
+
+        /** Source code of the default value. */
+        final String defaultValue;
+
+        /** Whether the getter method is deprecated. */
+        final boolean deprecated;
+
+        /** Creates a new property. */
+        Property(final String method, final String field, final String identifier,
+                 final TypeMirror type, final String defaultValue, final boolean deprecated)
+        {
+            this.method       = method;
+            this.field        = field;
+            this.identifier   = identifier;
+            this.type         = type;
+            this.defaultValue = defaultValue;
+            this.deprecated   = deprecated;
+        }
+
+        /** Returns {@code true} if the property type is a primitive type. */
+        boolean isPrimitive() {
+            return type.getKind().isPrimitive();
+        }
+    }
+
+    /**
+     * The root directory where to write the generated source files.
+     */
+    private String outputDirectory;
+
+    /**
+     * The package of generated classes.
+     */
+    private String targetPackage;
+
+    /**
+     * The writer where to write the class being generated.
+     */
+    private Writer out;
+
+    /**
+     * The platform-specific line separator.
+     */
+    private final String lineSeparator;
+
+    /**
+     * Creates a default processor.
+     */
+    public MetadataClassGenerator() {
+        lineSeparator = System.getProperty("line.separator", "\n");
+    }
+
+    /**
+     * Initializes this processor.
+     *
+     * @param processingEnv Provides access to the tools framework.
+     */
+    @Override
+    public void init(final ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        final Map<String,String> options = processingEnv.getOptions();
+        outputDirectory = options.get("output");
+        if (outputDirectory == null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "No 'output' option specified.");
+            skip = true;
+        }
+        targetPackage = options.get("package");
+        if (targetPackage == null) {
+            targetPackage = DEFAULT_PACKAGE;
+        }
+    }
+
+    /**
+     * Writes the given string to the {@link #out} writer, followed by a line separator.
+     */
+    private void writeLine(final String line) throws IOException {
+        out.write(line);
+        out.write(lineSeparator);
+    }
+
+    /**
+     * Generates a class for each metadata interface in the given elements.
+     */
+    @Override
+    final void process(final TypeElement[] elements) throws IOException {
+        final File directory = new File(outputDirectory, targetPackage.replace('.', File.separatorChar));
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Can not create the \"" + directory + "\" directory.");
+        }
+        int count = 0;
+        for (final TypeElement element : elements) {
+            if (isMetadataInterface(element)) {
+                final List<Property> properties = getProperties(element);
+                if (properties != null) {
+                    final String classname = element.getSimpleName() + SUFFIX;
+                    out = openWriter(new File(directory, classname + ".java").getPath());
+                    try {
+                        writeClass(element, classname, properties);
+                    } finally {
+                        out.close();
+                        out = null;
+                    }
+                    count++;
+                }
+            }
+        }
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "Generated " + count + " metadata classes.");
+    }
+
+    /**
+     * Returns {@code true} if the given element is a non-deprecated, non-generic, top-level metadata
+     * interface annotated by {@link org.opengis.annotation.UML}.
+     */
+    private boolean isMetadataInterface(final TypeElement element) {
+        return element.getKind() == ElementKind.INTERFACE
+                && element.getEnclosingElement().getKind() == ElementKind.PACKAGE
+                && element.getTypeParameters().isEmpty()
+                && getPackageName(element).startsWith("org.opengis.metadata")
+                && getUML(element) != null
+                && !processingEnv.getElementUtils().isDeprecated(element);
+    }
+
+    /**
+     * Returns the properties of the given interface, including inherited ones. Only abstract methods are
+     * considered, since default methods are already implemented. Returns {@code null} if the interface has
+     * an abstract method which is not a getter, in which case no class can be generated.
+     */
+    private List<Property> getProperties(final TypeElement element) {
+        final Elements utils = processingEnv.getElementUtils();
+        final Types types = processingEnv.getTypeUtils();
+        final TypeMirror list = types.erasure(utils.getTypeElement("java.util.List").asType());
+        final TypeMirror set  = types.erasure(utils.getTypeElement("java.util.Set") .asType());
+        final TypeMirror map  = types.erasure(utils.getTypeElement("java.util.Map") .asType());
+        final List<Property> properties = new ArrayList<>();
+        final Set<String> fields = new HashSet<>();
+        for (final Element member : utils.getAllMembers(element)) {
+            if (member.getKind() != ElementKind.METHOD || !member.getModifiers().contains(Modifier.ABSTRACT)) {
+                continue;
+            }
+            final ExecutableElement method = (ExecutableElement) member;
+            final String name = method.getSimpleName().toString();
+            if (name.equals("toString") || name.equals("hashCode") || name.equals("equals")) {
+                continue;                       // Generated separately.
+            }
+            if (!method.getParameters().isEmpty() || !method.getTypeParameters().isEmpty()) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                        "Skipped " + element.getSimpleName() + " because " + name + " is not a getter.", element);
+                return null;
+            }
+            final TypeMirror type = ((ExecutableType) types.asMemberOf((DeclaredType) element.asType(), method)).getReturnType();
+            final String defaultValue;
+            switch (type.getKind()) {
+                case BOOLEAN: defaultValue = "false";      break;
+                case DOUBLE:  defaultValue = "Double.NaN"; break;
+                case FLOAT:   defaultValue = "Float.NaN";  break;
+                case LONG:    defaultValue = "0L";         break;
+                case INT:     defaultValue = "0";          break;
+                case SHORT:   defaultValue = "(short) 0";  break;
+                case BYTE:    defaultValue = "(byte) 0";   break;
+                case CHAR:    defaultValue = "(char) 0";   break;
+                default: {
+                    final TypeMirror erasure = types.erasure(type);
+                    if      (types.isSubtype(list, erasure)) defaultValue = "java.util.Collections.emptyList()";
+                    else if (types.isSubtype(set,  erasure)) defaultValue = "java.util.Collections.emptySet()";
+                    else if (types.isSubtype(map,  erasure)) defaultValue = "java.util.Collections.emptyMap()";
+                    else defaultValue = "null";
+                    break;
+                }
+            }
+            String field = toFieldName(name);
+            if (!fields.add(field)) {
+                int n = 1;
+                while (!fields.add(field + (++n)));
+                field += n;
+            }
+            final AnnotationMirror uml = getUML(method);
+            properties.add(new Property(name, field, getIdentifier(uml), type, defaultValue, utils.isDeprecated(method)));
+        }
+        return properties;
+    }
+
+    /**
+     * Returns the field name for the given getter method name. The {@code "get"} or {@code "is"} prefix
+     * is removed and the first letter is converted to lower case. If the result is a Java keyword,
+     * then a {@code '_'} character is appended.
+     */
+    private static String toFieldName(String name) {
+        for (final String prefix : new String[] {"get", "is"}) {
+            final int length = prefix.length();
+            if (name.length() > length && name.startsWith(prefix) && Character.isUpperCase(name.charAt(length))) {
+                name = name.substring(length);
+                if (name.length() < 2 || !Character.isUpperCase(name.charAt(1))) {
+                    name = Character.toLowerCase(name.charAt(0)) + name.substring(1);
+                }
+                break;
+            }
+        }
+        if (SourceVersion.isKeyword(name)) {
+            name += '_';
+        }
+        return name;
+    }
+
+    /**
+     * Returns the name of the builder setter method for the given property.
+     */
+    private static String setter(final Property property) {
+        String name = property.field;
+        if (name.endsWith("_")) {
+            name = name.substring(0, name.length() - 1);
+        }
+        return "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * Returns the source code of an expression converting {@code value} to the type of the given property.
+     * The {@code value} variable is assumed non-null.
+     */
+    private static String cast(final Property property) {
+        switch (property.type.getKind()) {
+            case BOOLEAN: return "(Boolean) value";
+            case CHAR:    return "(Character) value";
+            case DOUBLE:  return "((Number) value).doubleValue()";
+            case FLOAT:   return "((Number) value).floatValue()";
+            case LONG:    return "((Number) value).longValue()";
+            case INT:     return "((Number) value).intValue()";
+            case SHORT:   return "((Number) value).shortValue()";
+            case BYTE:    return "((Number) value).byteValue()";
+            default:      return '(' + property.type.toString() + ") value";
+        }
+    }
+
+    /**
+     * Writes the class implementing the given interface.
+     */
+    private void writeClass(final TypeElement element, final String classname, final List<Property> properties)
+            throws IOException
+    {
+        final String interfaceName = element.getQualifiedName().toString();
+        writeLine("/*");
+        writeLine(" * Generated by " + MetadataClassGenerator.class.getName() + ". Do not edit.");
+        writeLine(" */");
+        writeLine("package " + targetPackage + ';');
+        writeLine("");
+        writeLine("");
+        writeLine("/**");
+        writeLine(" * An immutable implementation of {@link " + interfaceName + "}.");
+        writeLine(" * Instances are created by the {@link Builder} or from a map of attribute values.");
+        writeLine(" * Instances are equal to metadata proxies of the same interface having the same attributes.");
+        writeLine(" * Collections are not copied.");
+        writeLine(" */");
+        writeLine("@SuppressWarnings(\"deprecation\")");
+        writeLine("public final class " + classname + " extends " + BASE_CLASS + " implements " + interfaceName + " {");
+        for (final Property p : properties) {
+            writeLine("    /** The value returned by {@link #" + p.method + "()}. */");
+            writeLine("    private final " + p.type + ' ' + p.field + ';');
+            writeLine("");
+        }
+        /*
+         * Constructor from a map of attributes.
+         */
+        writeLine("    /**");
+        writeLine("     * Creates a new instance with the values of the given map, keyed by UML identifiers.");
+        writeLine("     *");
+        writeLine("     * @param  attributes  the attribute values.");
+        writeLine("     * @throws ClassCastException if a value is not of the expected type.");
+        writeLine("     */");
+        writeLine("    @SuppressWarnings(\"unchecked\")");
+        writeLine("    public " + classname + "(final java.util.Map<String,?> attributes) {");
+        writeLine("        super(" + interfaceName + ".class, attributes);");
+        writeLine("        Object value;");
+        for (final Property p : properties) {
+            if (p.identifier == null) {
+                writeLine("        this." + p.field + " = " + p.defaultValue + ';');
+            } else {
+                writeLine("        value = value(\"" + p.identifier + "\");");
+                writeLine("        this." + p.field + " = (value != null) ? " + cast(p) + " : " + p.defaultValue + ';');
+            }
+        }
+        writeLine("    }");
+        /*
+         * Getter methods.
+         */
+        for (final Property p : properties) {
+            writeLine("");
+            writeLine("    /** Returns the value given at construction time. */");
+            writeLine("    @Override");
+            if (p.deprecated) {
+                writeLine("    @Deprecated");
+            }
+            writeLine("    public " + p.type + ' ' + p.method + "() {");
+            writeLine("        return " + p.field + ';');
+            writeLine("    }");
+        }
+        /*
+         * The builder. Each setter method returns a new builder, so builders can be
+         * shared between threads and used as templates.
+         */
+        writeLine("");
+        writeLine("    /**");
+        writeLine("     * An immutable builder of {@link " + classname + "} instances.");
+        writeLine("     * Each setter method returns a new builder and leaves this builder unchanged.");
+        writeLine("     * Properties which are not set keep their default value.");
+        writeLine("     */");
+        writeLine("    public static final class Builder {");
+        writeLine("        /** The attribute values keyed by UML identifiers. Never modified after construction. */");
+        writeLine("        private final java.util.Map<String,Object> attributes;");
+        writeLine("");
+        writeLine("        /** Creates a new builder with all properties set to their default value. */");
+        writeLine("        public Builder() {");
+        writeLine("            attributes = java.util.Collections.emptyMap();");
+        writeLine("        }");
+        writeLine("");
+        writeLine("        /** Creates a new builder with the values of the given builder, except for the given attribute. */");
+        writeLine("        private Builder(final Builder source, final String identifier, final Object value) {");
+        writeLine("            final java.util.Map<String,Object> copy = new java.util.LinkedHashMap<>(source.attributes);");
+        writeLine("            if (value != null) {");
+        writeLine("                copy.put(identifier, value);");
+        writeLine("            } else {");
+        writeLine("                copy.remove(identifier);");
+        writeLine("            }");
+        writeLine("            attributes = copy;");
+        writeLine("        }");
+        for (final Property p : properties) {
+            if (p.identifier != null) {
+                writeLine("");
+                writeLine("        /**");
+                writeLine("         * Returns a builder with the value to be returned by {@link " + classname + '#' + p.method + "()}.");
+                writeLine("         *");
+                writeLine("         * @param  value  the new value.");
+                writeLine("         * @return a new builder with the given value.");
+                writeLine("         */");
+                writeLine("        public Builder " + setter(p) + "(final " + p.type + " value) {");
+                writeLine("            return new Builder(this, \"" + p.identifier + "\", value);");
+                writeLine("        }");
+            }
+        }
+        writeLine("");
+        writeLine("        /**");
+        writeLine("         * Creates a new instance with the values given to this builder.");
+        writeLine("         *");
+        writeLine("         * @return the new instance.");
+        writeLine("         */");
+        writeLine("        public " + classname + " build() {");
+        writeLine("            return new " + classname + "(attributes);");
+        writeLine("        }");
+        writeLine("    }");
+        writeLine("}");
+    }
+}
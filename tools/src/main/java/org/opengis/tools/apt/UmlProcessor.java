@@ -65,7 +65,7 @@ import javax.annotation.processing.ProcessingEnvironment;
  * {@link org.opengis.annotation.UML} annotation.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   2.0
  */
 abstract class UmlProcessor extends AbstractProcessor {
@@ -325,19 +325,32 @@ abstract class UmlProcessor extends AbstractProcessor {
      * @return the display name, or {@code null} if the given UML annotation was null.
      */
     final String getDisplayName(final AnnotationMirror uml) {
+        String identifier = getIdentifier(uml);
+        if (identifier != null) {
+            /*
+             * If there is two or more UML identifiers collapsed in only one Java method,
+             * keep only the first identifier (which is usually the main attribute).
+             */
+            final int split = identifier.indexOf(',');
+            if (split >= 0) {
+                identifier = identifier.substring(0, split);
+            }
+            return identifier.substring(identifier.lastIndexOf('.') + 1);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the UML identifier as declared in the given annotation, without any processing.
+     *
+     * @param  uml The UML annotation for which to get the identifier, or {@code null}.
+     * @return the identifier, or {@code null} if the given UML annotation was null.
+     */
+    final String getIdentifier(final AnnotationMirror uml) {
         if (uml != null) {
             final AnnotationValue a = uml.getElementValues().get(umlMembers.get(UMLMember.IDENTIFIER));
             if (a != null) {
-                String identifier = (String) a.getValue();
-                /*
-                 * If there is two or more UML identifiers collapsed in only one Java method,
-                 * keep only the first identifier (which is usually the main attribute).
-                 */
-                final int split = identifier.indexOf(',');
-                if (split >= 0) {
-                    identifier = identifier.substring(0, split);
-                }
-                return identifier.substring(identifier.lastIndexOf('.') + 1);
+                return (String) a.getValue();
             }
         }
         return null;
@@ -0,0 +1,190 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    Copyright (C) 2018 Open Geospatial Consortium, Inc.
+ *    All Rights Reserved. http://www.opengeospatial.org/ogc/legal
+ *
+ *    Permission to use, copy, and modify this software and its documentation, with
+ *    or without modification, for any purpose and without fee or royalty is hereby
+ *    granted, provided that you include the following on ALL copies of the software
+ *    and documentation or portions thereof, including modifications, that you make:
+ *
+ *    1. The full text of this NOTICE in a location viewable to users of the
+ *       redistributed or derivative work.
+ *    2. Notice of any changes or modifications to the OGC files, including the
+ *       date changes were made.
+ *
+ *    THIS SOFTWARE AND DOCUMENTATION IS PROVIDED "AS IS," AND COPYRIGHT HOLDERS MAKE
+ *    NO REPRESENTATIONS OR WARRANTIES, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+ *    TO, WARRANTIES OF MERCHANTABILITY OR FITNESS FOR ANY PARTICULAR PURPOSE OR THAT
+ *    THE USE OF THE SOFTWARE OR DOCUMENTATION WILL NOT INFRINGE ANY THIRD PARTY
+ *    PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER RIGHTS.
+ *
+ *    COPYRIGHT HOLDERS WILL NOT BE LIABLE FOR ANY DIRECT, INDIRECT, SPECIAL OR
+ *    CONSEQUENTIAL DAMAGES ARISING OUT OF ANY USE OF THE SOFTWARE OR DOCUMENTATION.
+ *
+ *    The name and trademarks of copyright holders may NOT be used in advertising or
+ *    publicity pertaining to the software without specific, written prior permission.
+ *    Title to copyright in this software and any associated documentation will at all
+ *    times remain with copyright holders.
+ */
+package org.opengis.tools.apt;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
+import java.lang.reflect.Method;
+import javax.tools.ToolProvider;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link MetadataClassGenerator} by running the annotation processor on a GeoAPI interface,
+ * then compiling the generated class together with the {@code geoapi-examples} metadata factory.
+ * The generated class shall be interoperable with the metadata proxies.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 4.0
+ * @since   4.0
+ */
+public final class MetadataClassGeneratorTest {
+    /**
+     * The metadata interface for which to generate a class.
+     */
+    private static final String INTERFACE = "org.opengis.metadata.extent.GeographicBoundingBox";
+
+    /**
+     * Returns the root directory of the GeoAPI project.
+     */
+    private static File getProjectDirectory() throws Exception {
+        final URL t = MetadataClassGeneratorTest.class.getResource(MetadataClassGeneratorTest.class.getSimpleName() + ".class");
+        assertNotNull("Path to class file not found.", t);
+        File file = new File(t.toURI());
+        do {
+            file = file.getParentFile();
+            assertNotNull("Unexpected path to class file.", file);
+        } while (!file.getName().equals("test-classes"));
+        assertEquals("Unexpected path to class file.", "target", (file = file.getParentFile()).getName());
+        assertEquals("Unexpected path to class file.", "tools",  (file = file.getParentFile()).getName());
+        return file.getParentFile();
+    }
+
+    /**
+     * Runs the given compilation task and verifies that it succeeded.
+     */
+    private static void compile(final JavaCompiler compiler, final StandardJavaFileManager fm,
+            final File source, final String... options)
+    {
+        final JavaCompiler.CompilationTask task = compiler.getTask(null, fm, null, Arrays.asList(options),
+                null, fm.getJavaFileObjects(source));
+        if (options[0].equals("-proc:only")) {
+            task.setProcessors(Collections.singleton(new MetadataClassGenerator()));
+        }
+        assertTrue("Compilation failed.", task.call());
+    }
+
+    /**
+     * Generates, compiles and loads the class for {@value #INTERFACE}, then compares
+     * instances of that class with metadata proxies having the same attributes.
+     *
+     * @throws Exception if an error occurred while generating, compiling or using the class.
+     */
+    @Test
+    public void testGeneratedClass() throws Exception {
+        final File project  = getProjectDirectory();
+        final String geoapi = new File(project, "geoapi/src/main/java").getPath();
+        final String examples = new File(project, "geoapi-examples/src/main/java").getPath();
+        final Path tmp = Files.createTempDirectory("geoapi");
+        try {
+            final File generated = new File(tmp.toFile(), "generated");
+            final File classes   = new File(tmp.toFile(), "classes");
+            assertTrue(generated.mkdir());
+            assertTrue(classes.mkdir());
+            final String classpath = System.getProperty("java.class.path");
+            final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+            try (StandardJavaFileManager fm = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+                compile(compiler, fm, new File(geoapi, INTERFACE.replace('.', '/') + ".java"),
+                        "-proc:only", "-Aoutput=" + generated, "-sourcepath", geoapi, "-classpath", classpath);
+                final String impl = MetadataClassGenerator.DEFAULT_PACKAGE + ".GeographicBoundingBoxImpl";
+                final File source = new File(generated, impl.replace('.', '/') + ".java");
+                assertTrue("Generated file not found.", source.isFile());
+                compile(compiler, fm, source,
+                        "-proc:none", "-d", classes.getPath(), "-classpath", classpath,
+                        "-sourcepath", geoapi + File.pathSeparator + examples);
+                compile(compiler, fm, new File(examples, "org/opengis/example/metadata/MetadataProxyFactory.java"),
+                        "-proc:none", "-d", classes.getPath(), "-classpath", classes.getPath() + File.pathSeparator + classpath,
+                        "-sourcepath", geoapi + File.pathSeparator + examples);
+            }
+            try (URLClassLoader loader = new URLClassLoader(new URL[] {classes.toURI().toURL()},
+                                                            MetadataClassGeneratorTest.class.getClassLoader()))
+            {
+                verify(loader);
+            }
+        } finally {
+            delete(tmp.toFile());
+        }
+    }
+
+    /**
+     * Compares instances of the generated class with metadata proxies.
+     */
+    private static void verify(final ClassLoader loader) throws Exception {
+        final Class<?> type    = Class.forName(INTERFACE, true, loader);
+        final Class<?> factory = Class.forName("org.opengis.example.metadata.MetadataProxyFactory", true, loader);
+        final Class<?> builder = Class.forName(MetadataClassGenerator.DEFAULT_PACKAGE + ".GeographicBoundingBoxImpl$Builder", true, loader);
+        final Object   proxies = factory.getConstructor().newInstance();
+        final Method   create  = factory.getMethod("create",         Class.class, Map.class);
+        final Method   snap    = factory.getMethod("createSnapshot", Class.class, Map.class);
+        final Method   west    = type.getMethod("getWestBoundLongitude");
+        final Method   east    = type.getMethod("getEastBoundLongitude");
+
+        final Map<String,Object> attributes = new HashMap<>();
+        assertNull(attributes.put("westBoundLongitude", -10.0));
+        final Object live     = create.invoke(proxies, type, attributes);
+        final Object snapshot = snap  .invoke(proxies, type, attributes);
+        assertEquals("Expected the generated class.", "GeographicBoundingBoxImpl", snapshot.getClass().getSimpleName());
+        assertEquals(-10.0, west.invoke(snapshot));
+        assertTrue("Null value should have been replaced by NaN.", Double.isNaN((Double) east.invoke(snapshot)));
+        assertEquals(live, snapshot);
+        assertEquals(snapshot, live);
+        assertEquals(live.hashCode(), snapshot.hashCode());
+        assertEquals(live.toString(), snapshot.toString());
+        /*
+         * The builder shall be immutable: setter methods return new builders.
+         */
+        final Object empty  = builder.getConstructor().newInstance();
+        final Object filled = builder.getMethod("setWestBoundLongitude", double.class).invoke(empty, -10.0);
+        assertNotSame(empty, filled);
+        final Method build = builder.getMethod("build");
+        assertEquals(snapshot, build.invoke(filled));
+        assertEquals(live,     build.invoke(filled));
+        assertFalse("Original builder shall be unchanged.", snapshot.equals(build.invoke(empty)));
+        assertTrue(Double.isNaN((Double) west.invoke(build.invoke(empty))));
+    }
+
+    /**
+     * Deletes the given file or directory, including sub-directories.
+     */
+    private static void delete(final File file) throws IOException {
+        final File[] content = file.listFiles();
+        if (content != null) {
+            for (final File f : content) {
+                delete(f);
+            }
+        }
+        Files.delete(file.toPath());
+    }
+}